@@ -0,0 +1,18 @@
+package com.pharmacare.api.config;
+
+/**
+ * Names of the Redis caches behind the read-heavy dashboard endpoints. Per-user caches are keyed by
+ * user id and per-pharmacy caches by pharmacy id; TTLs are set in {@link RedisConfig}.
+ */
+public final class CacheNames {
+
+    public static final String PHARMACIES = "pharmacies";
+    public static final String USER_PHARMACIES = "userPharmacies";
+    public static final String USER_PROFILES = "userProfiles";
+    public static final String USER_MEDICATIONS = "userMedications";
+    public static final String USER_ANALYTICS = "userAnalytics";
+    public static final String SALES_SUMMARIES = "salesSummaries";
+
+    private CacheNames() {
+    }
+}
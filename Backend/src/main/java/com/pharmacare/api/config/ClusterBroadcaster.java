@@ -0,0 +1,179 @@
+package com.pharmacare.api.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keeps node-local state, such as in-process caches and indexes, in step across nodes over Redis
+ * pub/sub. A change is applied on this node right away and sent to the others as JSON; each node
+ * skips the messages it sent itself. Changes made inside a transaction wait for it to commit and
+ * leave as a single message, and are dropped if it rolls back.
+ */
+@Component
+public class ClusterBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterBroadcaster.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    public ClusterBroadcaster(StringRedisTemplate redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Opens a channel whose changes {@code apply} carries out on every node. It returns false when the
+     * change left this node as it was and the other nodes therefore need not hear of it.
+     */
+    public <T> Channel<T> channel(String name, Class<T> type, Predicate<T> apply) {
+        Channel<T> channel = new Channel<>(name, type, apply);
+        if (name != null) {
+            listenerContainer.addMessageListener(channel, new ChannelTopic(name));
+        }
+        return channel;
+    }
+
+    /** Opens a channel of keys that every node drops from its local state. */
+    public <K> Channel<K> evictionChannel(String name, Class<K> keyType, Consumer<K> evict) {
+        return channel(name, keyType, key -> {
+            evict.accept(key);
+            return true;
+        });
+    }
+
+    /** A channel whose changes are only applied on this node, still after commit. */
+    public <T> Channel<T> localChannel(Consumer<T> apply) {
+        return channel(null, null, change -> {
+            apply.accept(change);
+            return false;
+        });
+    }
+
+    public final class Channel<T> implements MessageListener {
+
+        private final String name;
+        private final Class<T> type;
+        private final Predicate<T> apply;
+
+        private Channel(String name, Class<T> type, Predicate<T> apply) {
+            this.name = name;
+            this.type = type;
+            this.apply = apply;
+        }
+
+        /** Applies the change here and sends it to the other nodes now. */
+        public void publish(T change) {
+            publish(List.of(change));
+        }
+
+        public void publish(Collection<T> changes) {
+            List<T> sent = new ArrayList<>(changes.size());
+            for (T change : changes) {
+                if (apply.test(change)) {
+                    sent.add(change);
+                }
+            }
+            send(sent);
+        }
+
+        /**
+         * Sends changes this node has already made itself to the other nodes only, without applying
+         * them here again. For callers whose local change differs from what the other nodes must do.
+         */
+        public void announce(T change) {
+            send(List.of(change));
+        }
+
+        private void send(List<T> sent) {
+            if (name == null || sent.isEmpty()) {
+                return;
+            }
+            try {
+                List<JsonNode> payload = new ArrayList<>(sent.size());
+                sent.forEach(change -> payload.add(objectMapper.valueToTree(change)));
+                redisTemplate.convertAndSend(name, objectMapper.writeValueAsString(new Envelope(nodeId, payload)));
+            } catch (Exception e) {
+                logger.warn("Could not publish {} changes on {}: {}", sent.size(), name, e.getMessage());
+            }
+        }
+
+        /**
+         * Publishes the change once the surrounding transaction commits, or now outside of one. Must not
+         * be called from another synchronization's {@code afterCommit}, where it would be lost.
+         */
+        public void publishAfterCommit(T change) {
+            publishAfterCommit(new Object(), change);
+        }
+
+        /** As {@link #publishAfterCommit(Object)}; of the changes sent with the same key, the last one wins. */
+        public void publishAfterCommit(Object key, T change) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                publish(change);
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            Map<Object, T> pending = (Map<Object, T>) TransactionSynchronizationManager.getResource(this);
+            if (pending == null) {
+                Map<Object, T> changes = new LinkedHashMap<>();
+                TransactionSynchronizationManager.bindResource(this, changes);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        publish(changes.values());
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(Channel.this);
+                    }
+                });
+                pending = changes;
+            }
+            pending.put(key, change);
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            try {
+                Envelope envelope = objectMapper.readValue(message.getBody(), Envelope.class);
+                if (nodeId.equals(envelope.origin())) {
+                    return;
+                }
+                for (JsonNode change : envelope.changes()) {
+                    apply.test(objectMapper.treeToValue(change, type));
+                }
+            } catch (Exception e) {
+                logger.warn("Ignoring malformed message on {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    record Envelope(String origin, List<JsonNode> changes) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.pharmacare.api.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+public class FlywayConfig {
+
+    // Tables are still created by Hibernate (ddl-auto), so migrations cannot run before the
+    // EntityManagerFactory as Spring Boot would do by default; Boot's own initializer does nothing.
+    @Bean
+    public FlywayMigrationStrategy deferredMigrationStrategy() {
+        return flyway -> { };
+    }
+
+    // Existing databases have no schema history yet; start them below V1 so every script applies
+    @Bean
+    public FlywayConfigurationCustomizer baselineCustomizer() {
+        return configuration -> configuration.baselineOnMigrate(true).baselineVersion("0");
+    }
+
+    // Runs once Hibernate has created the tables, while the context is still being refreshed: the web
+    // server and scheduled jobs only start afterwards, so nothing writes bills before the sequences are
+    // aligned or queries the tables before their indexes exist. Not a FlywayMigrationInitializer, which
+    // Spring Boot would make the EntityManagerFactory wait for. No Flyway bean when spring.flyway.enabled=false
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean flywayMigrationAfterJpa(ObjectProvider<Flyway> flyway) {
+        return () -> flyway.ifAvailable(Flyway::migrate);
+    }
+}
@@ -1,5 +1,7 @@
 package com.pharmacare.api.config;
 
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
@@ -10,11 +12,15 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class RedisConfig {
@@ -28,6 +34,36 @@ public class RedisConfig {
     @Value("${spring.cache.redis.time-to-live}")
     private long timeToLive;
 
+    @Value("${cache.pharmacies.ttl:10m}")
+    private Duration pharmaciesTtl;
+
+    @Value("${cache.user-pharmacies.ttl:10m}")
+    private Duration userPharmaciesTtl;
+
+    @Value("${cache.user-profiles.ttl:30m}")
+    private Duration userProfilesTtl;
+
+    @Value("${cache.user-medications.ttl:10m}")
+    private Duration userMedicationsTtl;
+
+    @Value("${cache.user-analytics.ttl:5m}")
+    private Duration userAnalyticsTtl;
+
+    @Value("${cache.sales-summaries.ttl:1m}")
+    private Duration salesSummariesTtl;
+
+    @Value("${redis.serializer.format:smile}")
+    private String serializerFormat;
+
+    @Value("${cache.local.enabled:true}")
+    private boolean localCacheEnabled;
+
+    @Value("${cache.local.maximum-size:10000}")
+    private long localCacheMaximumSize;
+
+    @Value("${cache.local.ttl:60s}")
+    private Duration localCacheTtl;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(redisHost, redisPort);
@@ -39,23 +75,66 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(valueSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashValueSerializer(valueSerializer());
         template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    // Caches are declared up front so their hit and miss counts are published as cache.* metrics;
+    // puts and evictions wait for the surrounding transaction to commit
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     ClusterBroadcaster clusterBroadcaster,
+                                     MeterRegistry meterRegistry) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMillis(timeToLive))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer()))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        Map<String, Duration> ttls = new HashMap<>();
+        ttls.put(CacheNames.PHARMACIES, pharmaciesTtl);
+        ttls.put(CacheNames.USER_PHARMACIES, userPharmaciesTtl);
+        ttls.put(CacheNames.USER_PROFILES, userProfilesTtl);
+        ttls.put(CacheNames.USER_MEDICATIONS, userMedicationsTtl);
+        ttls.put(CacheNames.USER_ANALYTICS, userAnalyticsTtl);
+        ttls.put(CacheNames.SALES_SUMMARIES, salesSummariesTtl);
+
+        Map<String, RedisCacheConfiguration> caches = new HashMap<>();
+        ttls.forEach((name, ttl) -> caches.put(name, config.entryTtl(ttl)));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
+                .withInitialCacheConfigurations(caches)
+                .enableStatistics()
                 .build();
+        if (!localCacheEnabled) {
+            redisCacheManager.setTransactionAware(true);
+            return redisCacheManager;
+        }
+
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, clusterBroadcaster,
+                meterRegistry, localCacheMaximumSize, localCacheTtl, ttls);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    // Smile unless JSON is asked for; the Smile serializer still reads values written as JSON
+    private RedisSerializer<Object> valueSerializer() {
+        if ("json".equalsIgnoreCase(serializerFormat)) {
+            GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+            serializer.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+            return serializer;
+        }
+        return new SmileRedisSerializer();
     }
-} 
\ No newline at end of file
+}
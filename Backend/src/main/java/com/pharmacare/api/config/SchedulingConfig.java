@@ -0,0 +1,18 @@
+package com.pharmacare.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SchedulingConfig {
+
+    // Spring Boot schedules on a single thread by default, so a long expiry sweep or idempotency purge
+    // would hold back every other job, SSE keep-alives included. spring.task.scheduling.pool.size still wins.
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer schedulerPoolSizeCustomizer(
+            @Value("${spring.task.scheduling.pool.size:5}") int poolSize) {
+        return scheduler -> scheduler.setPoolSize(poolSize);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pharmacare.api.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Stores Redis values in Jackson's binary Smile format instead of JSON. Property names and class
+ * names repeated within a value are written once and referenced after that, numbers and dates are
+ * binary, and {@code BigDecimal} keeps its exact scale. Each value starts with a marker and the
+ * format version, ahead of the Smile header, so a later encoding can be read next to this one. Values
+ * written by {@link GenericJackson2JsonRedisSerializer} are still read, and values in an unknown
+ * version are treated as missing, which a cache reports as a miss.
+ */
+public class SmileRedisSerializer implements RedisSerializer<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmileRedisSerializer.class);
+
+    // Never the first byte of a JSON document or of a Smile one (':')
+    static final byte MARKER = (byte) 0xA7;
+
+    static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private final ObjectMapper mapper;
+    private final GenericJackson2JsonRedisSerializer legacySerializer;
+
+    public SmileRedisSerializer() {
+        SmileFactory factory = SmileFactory.builder()
+                // Smile's own four-byte header follows the version; it tells the parser that shared
+                // string values are in use, and Smile refuses to write them without it
+                .enable(SmileGenerator.Feature.WRITE_HEADER)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.mapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                // Fields added to or removed from a DTO must not fail reads of entries written before
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                                .allowIfSubType("com.pharmacare.api.")
+                                .allowIfSubType("java.lang.")
+                                .allowIfSubType("java.math.")
+                                .allowIfSubType("java.time.")
+                                .allowIfSubType("java.util.")
+                                .allowIfSubTypeIsArray()
+                                .build(),
+                        ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        this.legacySerializer = new GenericJackson2JsonRedisSerializer();
+        this.legacySerializer.configure(legacy -> legacy.registerModule(new JavaTimeModule()));
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            out.write(MARKER);
+            out.write(VERSION);
+            mapper.writeValue(out, value);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MARKER) {
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            logger.debug("Ignoring Redis value in unknown format version {}", bytes.length < HEADER_LENGTH ? "?" : bytes[1]);
+            return null;
+        }
+        try {
+            return mapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+}
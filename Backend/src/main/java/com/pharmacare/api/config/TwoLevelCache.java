@@ -0,0 +1,153 @@
+package com.pharmacare.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A Redis cache fronted by an in-process Caffeine cache. Reads try the local copy first and fill it
+ * from Redis; writes go to both tiers and tell the other nodes to drop their local copy. Loads of
+ * the same key on one node wait for a single loader. Values are shared between callers, so cached
+ * objects must not be modified.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<String, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final Consumer<String> evictionPublisher;
+    private final Timer localHits;
+    private final Timer localMisses;
+    private final Timer remoteHits;
+    private final Timer remoteMisses;
+
+    TwoLevelCache(String name, Cache<String, Object> local, org.springframework.cache.Cache remote,
+                  Consumer<String> evictionPublisher, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.evictionPublisher = evictionPublisher;
+        this.localHits = tierTimer(meterRegistry, "l1", "hit");
+        this.localMisses = tierTimer(meterRegistry, "l1", "miss");
+        this.remoteHits = tierTimer(meterRegistry, "l2", "hit");
+        this.remoteMisses = tierTimer(meterRegistry, "l2", "miss");
+    }
+
+    private Timer tierTimer(MeterRegistry meterRegistry, String tier, String result) {
+        return Timer.builder("cache.tier.latency")
+                .description("Time to look a key up in one tier of a two-level cache")
+                .tags("cache", name, "tier", tier, "result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        long start = System.nanoTime();
+        Object value = local.getIfPresent(localKey);
+        (value != null ? localHits : localMisses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (value != null) {
+            return value;
+        }
+        value = lookupRemote(key);
+        if (value != null) {
+            local.put(localKey, value);
+        }
+        return value;
+    }
+
+    // Caffeine runs one loader per key; callers asking for the same key on this node wait for it
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        long start = System.nanoTime();
+        Object cached = local.getIfPresent(localKey);
+        (cached != null ? localHits : localMisses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (cached != null) {
+            return (T) cached;
+        }
+        return (T) local.get(localKey, k -> {
+            Object value = lookupRemote(key);
+            if (value != null) {
+                return value;
+            }
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (value != null) {
+                remote.put(key, value);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        remote.put(key, value);
+        String localKey = localKey(key);
+        local.put(localKey, value);
+        evictionPublisher.accept(localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        evictionPublisher.accept(localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        evictionPublisher.accept(null);
+    }
+
+    /** Drops the local copy after another node changed the key; {@code null} drops everything. */
+    void evictLocal(String localKey) {
+        if (localKey == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(localKey);
+        }
+    }
+
+    private Object lookupRemote(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper wrapper = remote.get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        (value != null ? remoteHits : remoteMisses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    // Redis keys are the string form of the cache key, so the local tier uses the same form and
+    // eviction messages can name keys without their original type
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,105 @@
+package com.pharmacare.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts a bounded Caffeine cache in front of every cache of a {@link RedisCacheManager}. Changes made
+ * on one node are announced on {@value #EVICTION_CHANNEL} so the others drop their local copy; the
+ * local TTL, never longer than the Redis TTL, bounds staleness when a message is missed. Hit and miss
+ * counts are published per tier as the {@code cache.*} metrics tagged {@code tier=l1} or {@code tier=l2}.
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    public static final String EVICTION_CHANNEL = "pharmacare:cache-evictions";
+
+    private final RedisCacheManager remoteCacheManager;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final Map<String, Duration> remoteTtls;
+    // Undecorated caches, for evictions announced by other nodes
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private ClusterBroadcaster.Channel<Eviction> evictions;
+
+    public TwoLevelCacheManager(RedisCacheManager remoteCacheManager,
+                                ClusterBroadcaster broadcaster,
+                                MeterRegistry meterRegistry,
+                                long localMaximumSize,
+                                Duration localTtl,
+                                Map<String, Duration> remoteTtls) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.remoteTtls = remoteTtls;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Caches change their own local tier and only announce the change: a put has just written the
+        // value that the other nodes must drop
+        evictions = broadcaster.evictionChannel(EVICTION_CHANNEL, Eviction.class, eviction -> {
+            TwoLevelCache cache = caches.get(eviction.cacheName());
+            if (cache != null) {
+                cache.evictLocal(eviction.key());
+            }
+        });
+        remoteCacheManager.initializeCaches();
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    protected Collection<? extends org.springframework.cache.Cache> loadCaches() {
+        List<TwoLevelCache> loaded = new ArrayList<>();
+        for (String name : remoteCacheManager.getCacheNames()) {
+            loaded.add(createCache(name));
+        }
+        return loaded;
+    }
+
+    @Override
+    protected org.springframework.cache.Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        org.springframework.cache.Cache remote = remoteCacheManager.getCache(name);
+        Duration remoteTtl = remoteTtls.get(name);
+        Duration ttl = remoteTtl != null && remoteTtl.compareTo(localTtl) < 0 ? remoteTtl : localTtl;
+        Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, "tier", "l1");
+        if (remote instanceof RedisCache redisCache) {
+            new RedisCacheMetrics(redisCache, List.of(Tag.of("tier", "l2"))).bindTo(meterRegistry);
+        }
+        TwoLevelCache cache = new TwoLevelCache(name, local, remote,
+                key -> evictions.announce(new Eviction(name, key)), meterRegistry);
+        caches.put(name, cache);
+        return cache;
+    }
+
+    // key is null when the whole cache was cleared
+    record Eviction(String cacheName, String key) {
+    }
+}
@@ -1,16 +1,16 @@
 package com.pharmacare.api.controller;
 
 import com.pharmacare.api.dto.ErrorResponseDto;
+import com.pharmacare.api.dto.PharmacyDto;
+import com.pharmacare.api.dto.SalesSummaryDto;
+import com.pharmacare.api.dto.UserAnalyticsDto;
 import com.pharmacare.api.exception.ResourceNotFoundException;
-import com.pharmacare.api.model.Pharmacy;
 import com.pharmacare.api.model.User;
-import com.pharmacare.api.repository.BillRepository;
-import com.pharmacare.api.repository.MedicationRepository;
-import com.pharmacare.api.repository.PharmacyRepository;
-import com.pharmacare.api.repository.ReminderRepository;
 import com.pharmacare.api.repository.UserRepository;
 import com.pharmacare.api.security.CurrentUser;
 import com.pharmacare.api.security.oauth2.UserPrincipal;
+import com.pharmacare.api.service.AnalyticsService;
+import com.pharmacare.api.service.PharmacyService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,14 +22,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.time.DayOfWeek;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -37,31 +33,21 @@ import java.util.Optional;
 public class AnalyticsController {
 
     private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
-    private final BillRepository billRepository;
-    private final PharmacyRepository pharmacyRepository;
-    private final MedicationRepository medicationRepository;
-    private final ReminderRepository reminderRepository;
+    private final AnalyticsService analyticsService;
+    private final PharmacyService pharmacyService;
     private final UserRepository userRepository;
 
     @GetMapping("/user/dashboard")
     public ResponseEntity<?> getUserDashboardAnalytics(@CurrentUser UserPrincipal userPrincipal) {
         try {
-            User user = userRepository.findById(userPrincipal.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
+            UserAnalyticsDto counts = analyticsService.getUserAnalytics(userPrincipal.getId());
             
             Map<String, Object> analytics = new HashMap<>();
+            analytics.put("activeMedicationsCount", counts.getActiveMedicationsCount());
+            analytics.put("pendingRemindersCount", counts.getPendingRemindersCount());
             
-            long activeMedicationsCount = medicationRepository.countByUserIdAndActiveTrue(user.getId());
-            analytics.put("activeMedicationsCount", activeMedicationsCount);
-            
-            long pendingRemindersCount = reminderRepository.countByMedicationUserIdAndCompletedFalse(user.getId());
-            analytics.put("pendingRemindersCount", pendingRemindersCount);
-            
-            LocalDateTime sevenDaysAgo = LocalDateTime.now().minus(7, ChronoUnit.DAYS);
-            long completedRemindersCount = reminderRepository.countByMedicationUserIdAndCompletedTrueAndReminderTimeAfter(
-                    user.getId(), sevenDaysAgo);
-            long totalRemindersCount = reminderRepository.countByMedicationUserIdAndReminderTimeAfter(
-                    user.getId(), sevenDaysAgo);
+            long completedRemindersCount = counts.getRecentCompletedRemindersCount();
+            long totalRemindersCount = counts.getRecentRemindersCount();
             
             double adherenceRate = totalRemindersCount > 0 
                     ? (double) completedRemindersCount / totalRemindersCount * 100 
@@ -114,14 +100,13 @@ public class AnalyticsController {
     @GetMapping("/user/medications")
     public ResponseEntity<?> getUserMedicationAnalytics(@CurrentUser UserPrincipal userPrincipal) {
         try {
-            User user = userRepository.findById(userPrincipal.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
+            UserAnalyticsDto counts = analyticsService.getUserAnalytics(userPrincipal.getId());
             
             Map<String, Object> analytics = new HashMap<>();
             
             Map<String, Long> medicationsByStatus = new HashMap<>();
-            medicationsByStatus.put("ACTIVE", medicationRepository.countByUserIdAndActiveTrue(user.getId()));
-            medicationsByStatus.put("INACTIVE", medicationRepository.countByUserIdAndActiveFalse(user.getId()));
+            medicationsByStatus.put("ACTIVE", counts.getActiveMedicationsCount());
+            medicationsByStatus.put("INACTIVE", counts.getInactiveMedicationsCount());
             analytics.put("medicationsByStatus", medicationsByStatus);
             
             return ResponseEntity.ok(analytics);
@@ -139,39 +124,34 @@ public class AnalyticsController {
             @RequestParam(required = false, defaultValue = "week") String period,
             @CurrentUser UserPrincipal currentUser) {
 
-        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", pharmacyId));
+        PharmacyDto pharmacy = pharmacyService.getPharmacy(pharmacyId);
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startDate;
-        LocalDateTime endDate = now;
+        LocalDate today = LocalDate.now();
+        LocalDate startDate;
 
         switch (period.toLowerCase()) {
             case "today":
-                startDate = now.with(LocalTime.MIN);
-                endDate = now.with(LocalTime.MAX);
+                startDate = today;
                 break;
             case "week":
-                startDate = now.with(DayOfWeek.MONDAY).with(LocalTime.MIN);
+                startDate = today.with(DayOfWeek.MONDAY);
                 break;
             case "month":
-                startDate = now.with(TemporalAdjusters.firstDayOfMonth()).with(LocalTime.MIN);
+                startDate = today.with(TemporalAdjusters.firstDayOfMonth());
                 break;
             case "year":
-                startDate = now.with(TemporalAdjusters.firstDayOfYear()).with(LocalTime.MIN);
+                startDate = today.with(TemporalAdjusters.firstDayOfYear());
                 break;
             default:
                 logger.warn("Invalid period specified: '{}'. Defaulting to 'week'.", period);
-                startDate = now.with(DayOfWeek.MONDAY).with(LocalTime.MIN);
+                startDate = today.with(DayOfWeek.MONDAY);
                 break;
         }
         
         try {
-            Double totalSales = billRepository.getTotalSalesForPeriod(pharmacy, startDate, endDate);
-            double salesAmount = Optional.ofNullable(totalSales).orElse(0.0);
-
-            Map<String, Double> result = Map.of("totalAmount", salesAmount);
-            return ResponseEntity.ok(result);
+            // Answered from daily_sales_rollup, so a year costs at most a few hundred rows
+            SalesSummaryDto summary = analyticsService.getSalesSummary(pharmacy.getId(), startDate, today);
+            return ResponseEntity.ok(summary);
         } catch (Exception e) {
             logger.error("Error calculating sales summary for pharmacy {} and period {}: {}", pharmacyId, period, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -19,6 +19,7 @@ import com.pharmacare.api.repository.PharmacyStaffRepository;
 import com.pharmacare.api.repository.RoleRepository;
 import com.pharmacare.api.repository.UserRepository;
 import com.pharmacare.api.security.JwtTokenProvider;
+import com.pharmacare.api.security.PrincipalCache;
 import com.pharmacare.api.security.oauth2.UserPrincipal;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -55,6 +56,7 @@ public class AuthController {
     private final JwtTokenProvider tokenProvider;
     private final PharmacyRepository pharmacyRepository;
     private final PharmacyStaffRepository pharmacyStaffRepository;
+    private final PrincipalCache principalCache;
 
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequestDto loginRequest) {
@@ -120,6 +122,7 @@ public class AuthController {
             user.setEnabled(true);
 
             User savedUser = userRepository.save(user);
+            principalCache.evict(savedUser.getEmail());
             logger.info("User registered successfully with ID: {}", savedUser.getId());
 
             URI location = ServletUriComponentsBuilder
@@ -188,6 +191,7 @@ public class AuthController {
             
             logger.info("Saving pharmacy admin user: {}", adminUser.getEmail());
             User savedAdminUser = userRepository.save(adminUser);
+            principalCache.evict(savedAdminUser.getEmail());
             logger.info("Pharmacy Admin User registered successfully with ID: {}", savedAdminUser.getId());
 
             // Create Pharmacy
@@ -1,32 +1,41 @@
 package com.pharmacare.api.controller;
 
+import com.pharmacare.api.dto.BillBatchResponseDto;
 import com.pharmacare.api.dto.BillDto;
-import com.pharmacare.api.dto.CreateBillItemDto;
 import com.pharmacare.api.dto.CreateBillRequestDto;
-import com.pharmacare.api.dto.BillItemDto;
 import com.pharmacare.api.dto.ErrorResponseDto;
 import com.pharmacare.api.exception.InsufficientStockException;
 import com.pharmacare.api.exception.ResourceNotFoundException;
-import com.pharmacare.api.model.*;
-import com.pharmacare.api.repository.*;
+import com.pharmacare.api.model.Bill;
 import com.pharmacare.api.security.CurrentUser;
-import com.pharmacare.api.security.UserPrincipal;
+import com.pharmacare.api.security.PharmacySecurityService;
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import com.pharmacare.api.service.BillBatchService;
+import com.pharmacare.api.service.BillExportService;
+import com.pharmacare.api.service.BillIdempotencyService;
+import com.pharmacare.api.service.BillingService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -36,117 +45,135 @@ public class BillingController {
 
     private static final Logger logger = LoggerFactory.getLogger(BillingController.class);
 
-    private final BillRepository billRepository;
-    private final BillItemRepository billItemRepository;
-    private final InventoryRepository inventoryRepository;
-    private final PharmacyRepository pharmacyRepository;
-    private final UserRepository userRepository;
-    private final PharmacyStaffRepository pharmacyStaffRepository;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 100;
 
-    // TODO: Implement GET endpoints for fetching bills (list, single)
+    private final BillingService billingService;
+    private final BillBatchService billBatchService;
+    private final BillExportService billExportService;
+    private final BillIdempotencyService billIdempotencyService;
+    private final PharmacySecurityService pharmacySecurityService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyMember(#pharmacyId, principal)")
+    public ResponseEntity<?> getBills(@RequestParam Long pharmacyId,
+                                      @RequestParam(required = false) Bill.PaymentStatus status,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false, defaultValue = "20") int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new ErrorResponseDto("Limit must be between 1 and " + MAX_PAGE_SIZE + "."));
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body(new ErrorResponseDto("'from' must not be after 'to'."));
+        }
+        try {
+            return ResponseEntity.ok(billingService.listBills(pharmacyId, status, from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponseDto(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching bills for pharmacy {}: {}", pharmacyId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponseDto("Failed to fetch bills."));
+        }
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyMember(#pharmacyId, principal)")
+    public void exportBills(@RequestParam Long pharmacyId,
+                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                            @RequestParam(required = false, defaultValue = "CSV") BillExportService.Format format,
+                            HttpServletResponse response) throws IOException {
+        if (from.isAfter(to)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "'from' must not be after 'to'.");
+            return;
+        }
+
+        String extension = format == BillExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(format == BillExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"bills-" + pharmacyId + "-" + from + "-" + to + "." + extension + "\"");
+
+        // Headers are committed once rows start flowing, so failures past this point can only be logged
+        try {
+            billExportService.export(pharmacyId, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), format,
+                    response.getOutputStream());
+        } catch (IOException e) {
+            logger.warn("Bill export for pharmacy {} aborted: {}", pharmacyId, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{billNumber}")
+    @PreAuthorize("hasRole('PHARMACY') or hasRole('ADMIN')")
+    public ResponseEntity<?> getBill(@PathVariable String billNumber, @CurrentUser UserPrincipal currentUserPrincipal) {
+        try {
+            BillDto bill = billingService.getBillByNumber(billNumber);
+
+            boolean isAdmin = currentUserPrincipal.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+            if (!isAdmin && pharmacySecurityService.getStaffRole(currentUserPrincipal.getId(), bill.getPharmacyId()).isEmpty()) {
+                throw new AccessDeniedException("User is not authorized to view bills for this pharmacy.");
+            }
+
+            return ResponseEntity.ok(bill);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponseDto(e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponseDto(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching bill {}: {}", billNumber, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponseDto("Failed to fetch bill."));
+        }
+    }
 
     @PostMapping
     @PreAuthorize("hasRole('PHARMACY') or hasRole('ADMIN')")
-    @Transactional
     public ResponseEntity<?> createBill(@Valid @RequestBody CreateBillRequestDto requestDto,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                         @CurrentUser UserPrincipal currentUserPrincipal) {
+        Long pharmacyId = requestDto.getPharmacyId();
+        String key = StringUtils.hasText(idempotencyKey) ? idempotencyKey.trim() : null;
+        boolean claimed = false;
         try {
-            logger.info("Attempting to create bill for pharmacy ID: {}", requestDto.getPharmacyId());
-
-            Pharmacy pharmacy = pharmacyRepository.findById(requestDto.getPharmacyId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", requestDto.getPharmacyId()));
+            logger.info("Attempting to create bill for pharmacy ID: {}", pharmacyId);
 
              boolean isAdmin = currentUserPrincipal.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
                 
             if (!isAdmin) {
-                 boolean isMember = pharmacyStaffRepository.findByUserId(currentUserPrincipal.getId()).stream()
-                                              .anyMatch(staff -> staff.getPharmacy().getId().equals(requestDto.getPharmacyId()));
+                 boolean isMember = pharmacySecurityService.getStaffRole(currentUserPrincipal.getId(), pharmacyId).isPresent();
                  if (!isMember) {
-                     logger.warn("User {} attempted to create bill for pharmacy {} without authorization", currentUserPrincipal.getEmail(), requestDto.getPharmacyId());
+                     logger.warn("User {} attempted to create bill for pharmacy {} without authorization", currentUserPrincipal.getEmail(), pharmacyId);
                     throw new AccessDeniedException("User is not authorized to create bills for this pharmacy.");
                  }
             }
 
-            User createdBy = userRepository.findById(currentUserPrincipal.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUserPrincipal.getId()));
-
-            User customer = null;
-            if (requestDto.getCustomerId() != null) {
-                customer = userRepository.findById(requestDto.getCustomerId())
-                        .orElseThrow(() -> new ResourceNotFoundException("Customer User", "id", requestDto.getCustomerId()));
-            }
-            if (customer == null && (requestDto.getCustomerName() == null || requestDto.getCustomerName().isBlank())) {
-                 return ResponseEntity.badRequest().body(new ErrorResponseDto("Customer name is required if customer ID is not provided."));
-            }
-
-            List<BillItem> billItems = new ArrayList<>();
-            BigDecimal calculatedSubtotal = BigDecimal.ZERO;
-            BigDecimal calculatedTotalTax = Optional.ofNullable(requestDto.getTaxAmount()).orElse(BigDecimal.ZERO);
-            BigDecimal calculatedDiscount = Optional.ofNullable(requestDto.getDiscountAmount()).orElse(BigDecimal.ZERO);
-
-            for (CreateBillItemDto itemDto : requestDto.getItems()) {
-                Inventory inventoryItem = inventoryRepository.findById(itemDto.getInventoryId())
-                        .orElseThrow(() -> new ResourceNotFoundException("Inventory Item", "id", itemDto.getInventoryId()));
-
-                if (!inventoryItem.getPharmacy().getId().equals(pharmacy.getId())) {
-                    throw new IllegalArgumentException("Inventory item " + itemDto.getInventoryId() + " does not belong to pharmacy " + pharmacy.getId());
+            if (key != null) {
+                if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                    return ResponseEntity.badRequest().body(new ErrorResponseDto("Idempotency key cannot exceed " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
                 }
-
-                if (inventoryItem.getQuantity() < itemDto.getQuantity()) {
-                    throw new InsufficientStockException("Insufficient stock for item: " + inventoryItem.getMedicationName() +
-                            " (Requested: " + itemDto.getQuantity() + ", Available: " + inventoryItem.getQuantity() + ")");
+                Optional<BillDto> original = findOriginalBill(pharmacyId, key);
+                if (original.isPresent()) {
+                    logger.info("Returning bill {} for repeated idempotency key", original.get().getBillNumber());
+                    return ResponseEntity.ok(original.get());
+                }
+                if (!billIdempotencyService.tryClaim(pharmacyId, key)) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(new ErrorResponseDto("A bill with this idempotency key is already being processed."));
                 }
+                claimed = true;
+            }
+
+            BillDto responseDto = billingService.createBill(requestDto, currentUserPrincipal.getId(), key);
 
-                inventoryItem.setQuantity(inventoryItem.getQuantity() - itemDto.getQuantity());
-
-                BigDecimal itemSubtotal = inventoryItem.getSellingPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity()));
-                BigDecimal itemDiscount = BigDecimal.ZERO; 
-                BigDecimal itemTax = BigDecimal.ZERO; 
-                BigDecimal itemTotal = itemSubtotal.subtract(itemDiscount).add(itemTax);
-
-                BillItem billItem = BillItem.builder()
-                        .inventory(inventoryItem)
-                        .itemName(inventoryItem.getMedicationName()) 
-                        .quantity(itemDto.getQuantity())
-                        .unitPrice(inventoryItem.getSellingPrice())
-                        .subtotal(itemSubtotal)
-                        .discountAmount(itemDiscount) 
-                        .taxAmount(itemTax)
-                        .totalAmount(itemTotal)
-                        .build();
-                billItems.add(billItem);
-
-                calculatedSubtotal = calculatedSubtotal.add(itemSubtotal);
+            if (key != null) {
+                billIdempotencyService.remember(pharmacyId, key, responseDto.getId());
+                claimed = false;
             }
-            
-            BigDecimal calculatedTotal = calculatedSubtotal.subtract(calculatedDiscount).add(calculatedTotalTax);
-
-            Bill bill = Bill.builder()
-                    .pharmacy(pharmacy)
-                    .customer(customer)
-                    .customerName(customer != null ? (customer.getFirstName() + " " + customer.getLastName()) : requestDto.getCustomerName()) 
-                    .customerPhone(requestDto.getCustomerPhone())
-                    .customerEmail(requestDto.getCustomerEmail())
-                    .billDate(LocalDateTime.now())
-                    .subtotal(calculatedSubtotal)
-                    .taxAmount(calculatedTotalTax)
-                    .discountAmount(calculatedDiscount)
-                    .totalAmount(calculatedTotal) 
-                    .paymentStatus(requestDto.getPaymentStatus())
-                    .paymentMethod(requestDto.getPaymentMethod())
-                    .createdBy(createdBy)
-                    .notes(requestDto.getNotes())
-                    .prescriptionReference(requestDto.getPrescriptionReference())
-                    .items(billItems)
-                    .build();
-            
-            billItems.forEach(item -> item.setBill(bill));
-
-            Bill savedBill = billRepository.save(bill);
-            logger.info("Successfully created bill with ID: {} and Number: {}", savedBill.getId(), savedBill.getBillNumber());
-            
-            BillDto responseDto = convertToDto(savedBill);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
 
@@ -161,59 +188,74 @@ public class BillingController {
         } catch (IllegalArgumentException e) {
              logger.warn("Invalid argument during bill creation: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponseDto(e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same idempotency key committed first
+            Optional<BillDto> original = key != null ? findOriginalBill(pharmacyId, key) : Optional.empty();
+            if (original.isPresent()) {
+                return ResponseEntity.ok(original.get());
+            }
+            logger.error("Error creating bill: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponseDto("An unexpected error occurred while creating the bill."));
         } catch (Exception e) {
             logger.error("Error creating bill: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponseDto("An unexpected error occurred while creating the bill."));
+        } finally {
+            if (claimed) {
+                billIdempotencyService.release(pharmacyId, key);
+            }
         }
     }
-    
-    private BillDto convertToDto(Bill bill) {
-        List<BillItemDto> itemDtos = bill.getItems().stream()
-            .map(this::convertItemToDto)
-            .collect(Collectors.toList());
-
-        return BillDto.builder()
-            .id(bill.getId())
-            .billNumber(bill.getBillNumber())
-            .pharmacyId(bill.getPharmacy().getId())
-            .pharmacyName(bill.getPharmacy().getName())
-            .customerId(bill.getCustomer() != null ? bill.getCustomer().getId() : null)
-            .customerName(bill.getCustomerName()) 
-            .customerPhone(bill.getCustomerPhone())
-            .customerEmail(bill.getCustomerEmail())
-            .billDate(bill.getBillDate())
-            .subtotal(bill.getSubtotal())
-            .taxAmount(bill.getTaxAmount())
-            .discountAmount(bill.getDiscountAmount())
-            .totalAmount(bill.getTotalAmount())
-            .paymentStatus(bill.getPaymentStatus())
-            .paymentMethod(bill.getPaymentMethod())
-            .createdById(bill.getCreatedBy() != null ? bill.getCreatedBy().getId() : null)
-            .createdByName(bill.getCreatedBy() != null ? bill.getCreatedBy().getFirstName() + " " + bill.getCreatedBy().getLastName() : null)
-            .items(itemDtos)
-            .prescriptionReference(bill.getPrescriptionReference())
-            .notes(bill.getNotes())
-            .createdAt(bill.getCreatedAt())
-            .updatedAt(bill.getUpdatedAt())
-            .build();
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('PHARMACY') or hasRole('ADMIN')")
+    public ResponseEntity<?> createBills(@RequestBody List<CreateBillRequestDto> requestDtos,
+                                         @CurrentUser UserPrincipal currentUserPrincipal) {
+        try {
+            if (requestDtos.isEmpty()) {
+                return ResponseEntity.badRequest().body(new ErrorResponseDto("Batch must contain at least one bill"));
+            }
+            if (requestDtos.size() > billBatchService.getMaxBatchSize()) {
+                return ResponseEntity.badRequest()
+                        .body(new ErrorResponseDto("A batch cannot contain more than " + billBatchService.getMaxBatchSize() + " bills"));
+            }
+            logger.info("Attempting to create batch of {} bills", requestDtos.size());
+
+            boolean isAdmin = currentUserPrincipal.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+
+            if (!isAdmin) {
+                Set<Long> pharmacyIds = requestDtos.stream()
+                        .filter(Objects::nonNull)
+                        .map(CreateBillRequestDto::getPharmacyId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+                for (Long pharmacyId : pharmacyIds) {
+                    if (pharmacySecurityService.getStaffRole(currentUserPrincipal.getId(), pharmacyId).isEmpty()) {
+                        logger.warn("User {} attempted to create bills for pharmacy {} without authorization", currentUserPrincipal.getEmail(), pharmacyId);
+                        throw new AccessDeniedException("User is not authorized to create bills for pharmacy " + pharmacyId + ".");
+                    }
+                }
+            }
+
+            BillBatchResponseDto responseDto = billBatchService.createBills(requestDtos, currentUserPrincipal.getId());
+            return ResponseEntity.ok(responseDto);
+
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Resource not found during batch bill creation: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponseDto(e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new ErrorResponseDto(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error creating bill batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponseDto("An unexpected error occurred while creating the bills."));
+        }
     }
 
-    private BillItemDto convertItemToDto(BillItem item) {
-        return BillItemDto.builder()
-            .id(item.getId())
-            .billId(item.getBill().getId())
-            .billNumber(item.getBill().getBillNumber())
-            .inventoryId(item.getInventory() != null ? item.getInventory().getId() : null)
-            .itemName(item.getItemName())
-            .quantity(item.getQuantity())
-            .unitPrice(item.getUnitPrice())
-            .subtotal(item.getSubtotal())
-            .discountAmount(item.getDiscountAmount())
-            .taxAmount(item.getTaxAmount())
-            .totalAmount(item.getTotalAmount())
-            .createdAt(item.getCreatedAt())
-            .updatedAt(item.getUpdatedAt())
-            .build();
+    private Optional<BillDto> findOriginalBill(Long pharmacyId, String key) {
+        return billIdempotencyService.findBillId(pharmacyId, key)
+                .map(billingService::getBill);
     }
-} 
\ No newline at end of file
+}
@@ -2,6 +2,10 @@ package com.pharmacare.api.controller;
 
 import com.pharmacare.api.dto.ErrorResponseDto;
 import com.pharmacare.api.dto.InventoryDto;
+import com.pharmacare.api.dto.InventoryFilter;
+import com.pharmacare.api.dto.InventoryPageDto;
+import com.pharmacare.api.dto.InventoryStatsProjection;
+import com.pharmacare.api.dto.ReorderSuggestionDto;
 import com.pharmacare.api.exception.ResourceNotFoundException;
 import com.pharmacare.api.model.Inventory;
 import com.pharmacare.api.model.Pharmacy;
@@ -9,6 +13,9 @@ import com.pharmacare.api.repository.InventoryRepository;
 import com.pharmacare.api.repository.PharmacyRepository;
 import com.pharmacare.api.security.CurrentUser;
 import com.pharmacare.api.security.UserPrincipal;
+import com.pharmacare.api.service.DemandForecastService;
+import com.pharmacare.api.service.InventoryQueryService;
+import com.pharmacare.api.service.InventoryStatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +24,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -30,47 +35,85 @@ public class InventoryController {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryController.class);
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private InventoryRepository inventoryRepository;
 
     @Autowired
     private PharmacyRepository pharmacyRepository;
 
+    @Autowired
+    private InventoryStatsService inventoryStatsService;
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private DemandForecastService demandForecastService;
+
     @GetMapping("/{pharmacyId}/items")
     @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyMember(#pharmacyId, principal)")
-    public ResponseEntity<List<InventoryDto>> getInventory(
+    public ResponseEntity<?> getInventory(
             @PathVariable Long pharmacyId,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Inventory.MedicationType type,
             @RequestParam(required = false) Boolean lowStock,
             @RequestParam(required = false) Boolean expiring,
+            @RequestParam(required = false) InventoryFilter.Sort sort,
+            @RequestParam(required = false, defaultValue = "false") boolean descending,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             @CurrentUser UserPrincipal currentUser) {
 
-        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found with id: " + pharmacyId));
+        // Without limit or cursor the whole list comes back, as it did before paging was added
+        if (limit == null && cursor != null) {
+            limit = DEFAULT_PAGE_SIZE;
+        }
+        if (limit != null && (limit <= 0 || limit > MAX_PAGE_SIZE)) {
+            return ResponseEntity.badRequest().body(new ErrorResponseDto("Limit must be between 1 and " + MAX_PAGE_SIZE + "."));
+        }
 
-        List<Inventory> inventoryItems;
-
-        final int EXPIRY_THRESHOLD_DAYS = 30;
-        LocalDate expiryLimitDate = LocalDate.now().plusDays(EXPIRY_THRESHOLD_DAYS);
-
-        if (search != null && !search.isEmpty()) {
-            inventoryItems = inventoryRepository.findByPharmacyAndMedicationNameContainingIgnoreCase(pharmacy, search);
-        } else if (type != null) {
-            inventoryItems = inventoryRepository.findByPharmacyAndMedicationType(pharmacy, type);
-        } else if (Boolean.TRUE.equals(lowStock)) {
-            inventoryItems = inventoryRepository.findLowStockItems(pharmacy);
-        } else if (Boolean.TRUE.equals(expiring)) {
-            inventoryItems = inventoryRepository.findExpiringBetween(pharmacy, LocalDate.now(), expiryLimitDate);
-        } else {
-            inventoryItems = inventoryRepository.findByPharmacyAndActive(pharmacy, true);
+        InventoryFilter filter = InventoryFilter.builder()
+                .pharmacyId(pharmacyId)
+                .search(search)
+                .type(type)
+                .lowStock(Boolean.TRUE.equals(lowStock))
+                .expiring(Boolean.TRUE.equals(expiring))
+                .sort(sort)
+                .descending(descending)
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+
+        try {
+            // The body stays a plain list for existing clients; the next page is announced in a header
+            InventoryPageDto page = inventoryQueryService.find(filter);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponseDto(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponseDto(e.getMessage()));
         }
+    }
 
-        List<InventoryDto> inventoryDtos = inventoryItems.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @GetMapping("/{pharmacyId}/reorder-suggestions")
+    @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyMember(#pharmacyId, principal)")
+    public ResponseEntity<List<ReorderSuggestionDto>> getReorderSuggestions(
+            @PathVariable Long pharmacyId,
+            @CurrentUser UserPrincipal currentUser) {
 
-        return ResponseEntity.ok(inventoryDtos);
+        if (!pharmacyRepository.existsById(pharmacyId)) {
+            throw new ResourceNotFoundException("Pharmacy", "id", pharmacyId);
+        }
+
+        return ResponseEntity.ok(demandForecastService.getReorderSuggestions(pharmacyId));
     }
 
     @GetMapping("/stats")
@@ -79,20 +122,16 @@ public class InventoryController {
         @RequestParam Long pharmacyId,
         @CurrentUser UserPrincipal currentUser) {
         
-        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found with id: " + pharmacyId));
-        
-        final int EXPIRY_THRESHOLD_DAYS = 30;
-        LocalDate expiryLimitDate = LocalDate.now().plusDays(EXPIRY_THRESHOLD_DAYS);
+        if (!pharmacyRepository.existsById(pharmacyId)) {
+            throw new RuntimeException("Pharmacy not found with id: " + pharmacyId);
+        }
 
-        long totalItems = inventoryRepository.countByPharmacyAndActive(pharmacy, true);
-        long lowStockCount = inventoryRepository.countLowStockItems(pharmacy);
-        long expiringSoonCount = inventoryRepository.countExpiringBetween(pharmacy, LocalDate.now(), expiryLimitDate);
+        InventoryStatsProjection inventoryStats = inventoryStatsService.getStats(pharmacyId);
 
         Map<String, Long> stats = Map.of(
-            "totalItems", totalItems,
-            "lowStockCount", lowStockCount,
-            "expiringSoonCount", expiringSoonCount
+            "totalItems", inventoryStats.getTotalItems(),
+            "lowStockCount", inventoryStats.getLowStockCount(),
+            "expiringSoonCount", inventoryStats.getExpiringSoonCount()
         );
 
         return ResponseEntity.ok(stats);
@@ -208,6 +247,7 @@ public class InventoryController {
         }
 
         inventory.setActive(false);
+        inventory.setQuarantined(false);
         inventoryRepository.save(inventory);
 
         return ResponseEntity.ok().build();
@@ -219,23 +259,19 @@ public class InventoryController {
             @RequestParam Long pharmacyId,
             @CurrentUser UserPrincipal currentUser) {
 
-        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
-                 .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", pharmacyId));
+        if (!pharmacyRepository.existsById(pharmacyId)) {
+            throw new ResourceNotFoundException("Pharmacy", "id", pharmacyId);
+        }
 
         try {
-            long totalItems = inventoryRepository.countByPharmacyAndActive(pharmacy, true);
-            long lowStockCount = inventoryRepository.countLowStockItems(pharmacy);
-            long outOfStockCount = inventoryRepository.countByPharmacyAndQuantityAndActive(pharmacy, 0, true);
-            long expiredCount = inventoryRepository.countByPharmacyAndExpiryDateBeforeAndActive(pharmacy, LocalDate.now(), true);
-            
-            long inStockCount = totalItems - lowStockCount - outOfStockCount - expiredCount;
-            inStockCount = Math.max(0, inStockCount);
+            // Buckets come from one pass and do not overlap; expired includes batches the sweep quarantined
+            InventoryStatsProjection inventoryStats = inventoryStatsService.getStats(pharmacyId);
 
             List<InventoryOverviewDataPoint> overviewData = List.of(
-                new InventoryOverviewDataPoint("In Stock", Long.valueOf(inStockCount)),
-                new InventoryOverviewDataPoint("Low Stock", Long.valueOf(lowStockCount)),
-                new InventoryOverviewDataPoint("Out of Stock", Long.valueOf(outOfStockCount)),
-                new InventoryOverviewDataPoint("Expired", Long.valueOf(expiredCount))
+                new InventoryOverviewDataPoint("In Stock", inventoryStats.getInStockCount()),
+                new InventoryOverviewDataPoint("Low Stock", inventoryStats.getLowStockBucketCount()),
+                new InventoryOverviewDataPoint("Out of Stock", inventoryStats.getOutOfStockCount()),
+                new InventoryOverviewDataPoint("Expired", inventoryStats.getExpiredCount() + inventoryStats.getQuarantinedCount())
             );
 
             return ResponseEntity.ok(overviewData);
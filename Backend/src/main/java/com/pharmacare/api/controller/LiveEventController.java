@@ -0,0 +1,61 @@
+package com.pharmacare.api.controller;
+
+import com.pharmacare.api.dto.StreamTokenDto;
+import com.pharmacare.api.security.CurrentUser;
+import com.pharmacare.api.security.JwtTokenProvider;
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import com.pharmacare.api.service.LiveEventService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-Sent Events streams replacing polling of pending reminders and inventory stats
+@RestController
+@RequestMapping("/events")
+@RequiredArgsConstructor
+public class LiveEventController {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final LiveEventService liveEventService;
+    private final JwtTokenProvider tokenProvider;
+
+    // EventSource cannot send the Authorization header, so browsers fetch one of these for each connection
+    @PostMapping("/token")
+    public ResponseEntity<StreamTokenDto> createStreamToken(@CurrentUser UserPrincipal userPrincipal) {
+        return ResponseEntity.ok(new StreamTokenDto(tokenProvider.generateStreamToken(userPrincipal),
+                tokenProvider.getStreamTokenExpiration()));
+    }
+
+    @GetMapping(value = "/reminders", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamReminders(@CurrentUser UserPrincipal userPrincipal) {
+        return stream(LiveEventService.userTopic(userPrincipal.getId()));
+    }
+
+    @GetMapping(value = "/pharmacies/{pharmacyId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyMember(#pharmacyId, principal)")
+    public ResponseEntity<SseEmitter> streamPharmacyAlerts(@PathVariable Long pharmacyId) {
+        return stream(LiveEventService.pharmacyTopic(pharmacyId));
+    }
+
+    // Clients retry with backoff when this node is full; behind a load balancer they reach another one.
+    // The body type must stay SseEmitter, or Spring MVC writes the emitter out as a plain response body.
+    private ResponseEntity<SseEmitter> stream(String topic) {
+        SseEmitter emitter = liveEventService.subscribe(topic);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
@@ -1,12 +1,14 @@
 package com.pharmacare.api.controller;
 
 import com.pharmacare.api.dto.ErrorResponseDto;
+import com.pharmacare.api.dto.MedicationDto;
 import com.pharmacare.api.exception.ResourceNotFoundException;
 import com.pharmacare.api.model.Medication;
 import com.pharmacare.api.model.User;
 import com.pharmacare.api.repository.MedicationRepository;
 import com.pharmacare.api.repository.UserRepository;
 import com.pharmacare.api.security.oauth2.UserPrincipal;
+import com.pharmacare.api.service.MedicationService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +29,7 @@ public class MedicationController {
     private static final Logger logger = LoggerFactory.getLogger(MedicationController.class);
     private final MedicationRepository medicationRepository;
     private final UserRepository userRepository;
+    private final MedicationService medicationService;
 
     @GetMapping
     public ResponseEntity<?> getAllMedications() {
@@ -34,10 +37,7 @@ public class MedicationController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
             
-            User user = userRepository.findById(userPrincipal.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
-            
-            List<Medication> medications = medicationRepository.findByUserId(user.getId());
+            List<MedicationDto> medications = medicationService.getMedications(userPrincipal.getId());
             return ResponseEntity.ok(medications);
         } catch (Exception e) {
             logger.error("Error retrieving medications", e);
@@ -73,8 +73,7 @@ public class MedicationController {
             User user = userRepository.findById(userPrincipal.getId())
                     .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
             
-            medication.setUser(user);
-            Medication savedMedication = medicationRepository.save(medication);
+            Medication savedMedication = medicationService.createMedication(user, medication);
             
             return ResponseEntity.status(HttpStatus.CREATED).body(savedMedication);
         } catch (Exception e) {
@@ -117,18 +116,7 @@ public class MedicationController {
             User user = userRepository.findById(userPrincipal.getId())
                     .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
             
-            Medication medication = medicationRepository.findByIdAndUserId(id, user.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Medication", "id", id));
-            
-            medication.setName(medicationDetails.getName());
-            medication.setDescription(medicationDetails.getDescription());
-            medication.setDosage(medicationDetails.getDosage());
-            medication.setFrequency(medicationDetails.getFrequency());
-            medication.setStartDate(medicationDetails.getStartDate());
-            medication.setEndDate(medicationDetails.getEndDate());
-            medication.setActive(medicationDetails.isActive());
-            
-            Medication updatedMedication = medicationRepository.save(medication);
+            Medication updatedMedication = medicationService.updateMedication(user.getId(), id, medicationDetails);
             return ResponseEntity.ok(updatedMedication);
         } catch (ResourceNotFoundException e) {
             logger.error("Medication not found", e);
@@ -150,10 +138,7 @@ public class MedicationController {
             User user = userRepository.findById(userPrincipal.getId())
                     .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
             
-            Medication medication = medicationRepository.findByIdAndUserId(id, user.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Medication", "id", id));
-            
-            medicationRepository.delete(medication);
+            medicationService.deleteMedication(user.getId(), id);
             
             return ResponseEntity.ok().build();
         } catch (ResourceNotFoundException e) {
@@ -5,14 +5,13 @@ import com.pharmacare.api.dto.PharmacyDto;
 import com.pharmacare.api.exception.ResourceNotFoundException;
 import com.pharmacare.api.model.Bill;
 import com.pharmacare.api.model.Pharmacy;
-import com.pharmacare.api.model.PharmacyStaff;
 import com.pharmacare.api.model.User;
 import com.pharmacare.api.repository.BillRepository;
 import com.pharmacare.api.repository.PharmacyRepository;
-import com.pharmacare.api.repository.PharmacyStaffRepository;
 import com.pharmacare.api.repository.UserRepository;
 import com.pharmacare.api.security.CurrentUser;
 import com.pharmacare.api.security.UserPrincipal;
+import com.pharmacare.api.service.PharmacyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,7 +26,6 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -47,7 +45,7 @@ public class PharmacyController {
     private PharmacyRepository pharmacyRepository;
 
     @Autowired
-    private PharmacyStaffRepository pharmacyStaffRepository;
+    private PharmacyService pharmacyService;
 
     @Autowired
     private UserRepository userRepository;
@@ -60,7 +58,7 @@ public class PharmacyController {
     public ResponseEntity<List<PharmacyDto>> getAllPharmacies() {
         List<Pharmacy> pharmacies = pharmacyRepository.findAll();
         List<PharmacyDto> pharmacyDtos = pharmacies.stream()
-                .map(this::convertToDto)
+                .map(pharmacyService::toDto)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(pharmacyDtos);
     }
@@ -77,20 +75,13 @@ public class PharmacyController {
         }
 
         try {
-            List<PharmacyStaff> staffAssignments = pharmacyStaffRepository.findByUserId(currentUser.getId());
-            logger.info("Found {} pharmacy assignments for user ID: {}", staffAssignments.size(), currentUser.getId());
+            List<PharmacyDto> pharmacyDtos = pharmacyService.getUserPharmacies(currentUser.getId());
+            logger.info("Found {} pharmacies for user ID: {}", pharmacyDtos.size(), currentUser.getId());
             
-            if (staffAssignments.isEmpty()) {
+            if (pharmacyDtos.isEmpty()) {
                 logger.warn("No pharmacy assignments found for user ID: {}", currentUser.getId());
-                return ResponseEntity.ok(Collections.emptyList());
             }
 
-            List<PharmacyDto> pharmacyDtos = staffAssignments.stream()
-                    .map(PharmacyStaff::getPharmacy)
-                    .distinct()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
-
             return ResponseEntity.ok(pharmacyDtos);
         } catch (Exception e) {
             logger.error("Error fetching pharmacies for user {}: {}", currentUser.getId(), e.getMessage(), e);
@@ -102,9 +93,7 @@ public class PharmacyController {
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyMember(#id, principal)")
     public ResponseEntity<PharmacyDto> getPharmacy(@PathVariable Long id, @CurrentUser UserPrincipal currentUser) {
-        Pharmacy pharmacy = pharmacyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found with id: " + id));
-        return ResponseEntity.ok(convertToDto(pharmacy));
+        return ResponseEntity.ok(pharmacyService.getPharmacy(id));
     }
 
     @PostMapping
@@ -117,47 +106,19 @@ public class PharmacyController {
             return ResponseEntity.badRequest().body(null);
         }
 
-        Pharmacy pharmacy = Pharmacy.builder()
-                .name(pharmacyDto.getName())
-                .registrationNumber(pharmacyDto.getRegistrationNumber())
-                .address(pharmacyDto.getAddress())
-                .phone(pharmacyDto.getPhone())
-                .email(pharmacyDto.getEmail())
-                .website(pharmacyDto.getWebsite())
-                .active(true)
-                .owner(actionUser)
-                .build();
-
-        Pharmacy savedPharmacy = pharmacyRepository.save(pharmacy);
-        return ResponseEntity.ok(convertToDto(savedPharmacy));
+        return ResponseEntity.ok(pharmacyService.createPharmacy(pharmacyDto, actionUser));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyAdmin(#id, principal)")
     public ResponseEntity<PharmacyDto> updatePharmacy(@PathVariable Long id, @RequestBody PharmacyDto pharmacyDto, @CurrentUser UserPrincipal currentUser) {
-        Pharmacy pharmacy = pharmacyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found with id: " + id));
-
-        pharmacy.setName(pharmacyDto.getName());
-        pharmacy.setAddress(pharmacyDto.getAddress());
-        pharmacy.setPhone(pharmacyDto.getPhone());
-        pharmacy.setEmail(pharmacyDto.getEmail());
-        pharmacy.setWebsite(pharmacyDto.getWebsite());
-        pharmacy.setActive(pharmacyDto.isActive());
-
-        Pharmacy updatedPharmacy = pharmacyRepository.save(pharmacy);
-        return ResponseEntity.ok(convertToDto(updatedPharmacy));
+        return ResponseEntity.ok(pharmacyService.updatePharmacy(id, pharmacyDto));
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @pharmacySecurityService.isPharmacyAdmin(#id, principal)")
     public ResponseEntity<?> deletePharmacy(@PathVariable Long id, @CurrentUser UserPrincipal currentUser) {
-        Pharmacy pharmacy = pharmacyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Pharmacy not found with id: " + id));
-
-        pharmacy.setActive(false);
-        pharmacyRepository.save(pharmacy);
-
+        pharmacyService.deactivatePharmacy(id);
         return ResponseEntity.ok().build();
     }
 
@@ -200,23 +161,6 @@ public class PharmacyController {
         }
     }
 
-    private PharmacyDto convertToDto(Pharmacy pharmacy) {
-        return PharmacyDto.builder()
-                .id(pharmacy.getId())
-                .name(pharmacy.getName())
-                .registrationNumber(pharmacy.getRegistrationNumber())
-                .address(pharmacy.getAddress())
-                .phone(pharmacy.getPhone())
-                .email(pharmacy.getEmail())
-                .website(pharmacy.getWebsite())
-                .active(pharmacy.isActive())
-                .ownerId(pharmacy.getOwner() != null ? pharmacy.getOwner().getId() : null)
-                .ownerName(pharmacy.getOwner() != null ? pharmacy.getOwner().getFirstName() + " " + pharmacy.getOwner().getLastName() : null)
-                .createdAt(pharmacy.getCreatedAt())
-                .updatedAt(pharmacy.getUpdatedAt())
-                .build();
-    }
-
     @Data
     @AllArgsConstructor
     static class ActivityItem {
@@ -10,7 +10,11 @@ import com.pharmacare.api.model.User;
 import com.pharmacare.api.repository.MedicationRepository;
 import com.pharmacare.api.repository.ReminderRepository;
 import com.pharmacare.api.repository.UserRepository;
+import com.pharmacare.api.security.CurrentUser;
 import com.pharmacare.api.security.oauth2.UserPrincipal;
+import com.pharmacare.api.service.AnalyticsService;
+import com.pharmacare.api.service.ReminderCompletionService;
+import com.pharmacare.api.service.ReminderDispatchService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +38,9 @@ public class ReminderController {
     private final ReminderRepository reminderRepository;
     private final MedicationRepository medicationRepository;
     private final UserRepository userRepository;
+    private final AnalyticsService analyticsService;
+    private final ReminderDispatchService reminderDispatchService;
+    private final ReminderCompletionService reminderCompletionService;
 
     @GetMapping
     public ResponseEntity<?> getAllReminders() {
@@ -111,6 +118,8 @@ public class ReminderController {
             logger.info("Prepared new reminder object with user {}, medication {}", user.getId(), medication.getId());
             
             Reminder savedReminder = reminderRepository.save(newReminder);
+            analyticsService.evictUserAnalytics(user.getId());
+            reminderDispatchService.schedule(savedReminder);
             logger.info("Reminder saved successfully with ID: {}", savedReminder.getId());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(savedReminder);
@@ -168,6 +177,10 @@ public class ReminderController {
                 reminder.setMedication(medication);
             }
             
+            if (!reminderDetails.getReminderTime().equals(reminder.getReminderTime())) {
+                // A new time means a new reminder to send
+                reminder.setNotifiedAt(null);
+            }
             reminder.setReminderTime(reminderDetails.getReminderTime());
             reminder.setNotes(reminderDetails.getNotes());
             reminder.setCompleted(reminderDetails.isCompleted());
@@ -180,6 +193,8 @@ public class ReminderController {
             }
             
             Reminder updatedReminder = reminderRepository.save(reminder);
+            analyticsService.evictUserAnalytics(user.getId());
+            reminderDispatchService.schedule(updatedReminder);
             return ResponseEntity.ok(updatedReminder);
         } catch (ResourceNotFoundException e) {
             logger.error("Reminder or medication not found", e);
@@ -205,6 +220,7 @@ public class ReminderController {
                     .orElseThrow(() -> new ResourceNotFoundException("Reminder", "id", id));
             
             reminderRepository.delete(reminder);
+            analyticsService.evictUserAnalytics(user.getId());
             
             return ResponseEntity.ok().build();
         } catch (ResourceNotFoundException e) {
@@ -219,100 +235,39 @@ public class ReminderController {
     }
 
     @PostMapping("/{id}/complete")
-    public ResponseEntity<?> completeReminder(@PathVariable Long id) {
+    public ResponseEntity<?> completeReminder(@PathVariable Long id, @CurrentUser UserPrincipal userPrincipal) {
         try {
-            logger.info("Starting process to mark reminder as complete: id={}", id);
-            
-            // Get authenticated user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal)) {
-                logger.error("Authentication invalid or not found");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponseDto(HttpStatus.UNAUTHORIZED.value(), "User not authenticated"));
-            }
-            
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            logger.info("User authenticated: id={}", userPrincipal.getId());
-            
-            // Retrieve user
-            User user = userRepository.findById(userPrincipal.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", userPrincipal.getId()));
-            logger.info("User found: id={}", user.getId());
-            
-            // Retrieve reminder with security check
-            logger.info("Looking for reminder with id={} for user={}", id, user.getId());
-            Reminder reminder = reminderRepository.findByIdAndMedicationUserId(id, user.getId())
-                    .orElseThrow(() -> {
-                        logger.error("Reminder with id={} not found for user={}", id, user.getId());
-                        return new ResourceNotFoundException("Reminder", "id", id);
-                    });
-            logger.info("Reminder found: id={}, medication={}, current completed status={}", 
-                    reminder.getId(), 
-                    reminder.getMedication() != null ? reminder.getMedication().getId() : "null", 
-                    reminder.isCompleted());
-            
-            // Update reminder status
-            boolean wasAlreadyCompleted = reminder.isCompleted();
-            reminder.setCompleted(true);
-            
-            // Only set completedAt if it wasn't already completed
-            if (!wasAlreadyCompleted) {
-                LocalDateTime now = LocalDateTime.now();
-                reminder.setCompletedAt(now);
-                logger.info("Set completedAt to: {}", now);
-            } else {
-                logger.info("Reminder was already marked as completed");
-            }
-            
-            // Ensure user is set (defensive programming)
-            reminder.setUser(user);
-            
-            // Handle medication association
-            if (reminder.getMedication() == null) {
-                logger.warn("Reminder has no medication association, attempting to recover");
-                
-                if (reminder.getMedicationId() != null) {
-                    logger.info("Attempting to recover medication with ID: {}", reminder.getMedicationId());
-                    
-                    try {
-                        Medication medication = medicationRepository.findByIdAndUserId(reminder.getMedicationId(), user.getId())
-                                .orElse(null);
-                        
-                        if (medication != null) {
-                            reminder.setMedication(medication);
-                            logger.info("Successfully recovered medication: id={}, name={}", 
-                                    medication.getId(), medication.getName());
-                        } else {
-                            logger.warn("Could not find medication with id={} for user={}", 
-                                    reminder.getMedicationId(), user.getId());
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error recovering medication: {}", e.getMessage(), e);
-                        // We continue even if medication recovery fails
-                    }
-                } else {
-                    logger.warn("No medication ID available for recovery");
-                }
-            } else {
-                logger.info("Reminder already has medication association: id={}, name={}", 
-                        reminder.getMedication().getId(), reminder.getMedication().getName());
-            }
-            
-            // Save the updated reminder
-            logger.info("Saving reminder with completed=true");
-            Reminder completedReminder = reminderRepository.save(reminder);
-            logger.info("Reminder successfully saved with completed=true, id={}", completedReminder.getId());
-            
-            return ResponseEntity.ok(completedReminder);
+            return ResponseEntity.ok(reminderCompletionService.complete(userPrincipal.getId(), id));
         } catch (ResourceNotFoundException ex) {
-            logger.error("Resource not found: {}", ex.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ErrorResponseDto(HttpStatus.NOT_FOUND.value(), ex.getMessage()));
         } catch (Exception ex) {
-            logger.error("Error completing reminder: {}", ex.getMessage(), ex);
+            logger.error("Error completing reminder {}: {}", id, ex.getMessage(), ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ErrorResponseDto(HttpStatus.INTERNAL_SERVER_ERROR.value(), 
+                    .body(new ErrorResponseDto(HttpStatus.INTERNAL_SERVER_ERROR.value(),
                             "An error occurred while completing the reminder: " + ex.getMessage()));
         }
     }
+
+    // Ids that are missing or belong to another user are listed in the response instead of failing the batch
+    @PostMapping("/complete")
+    public ResponseEntity<?> completeReminders(@RequestBody List<Long> ids, @CurrentUser UserPrincipal userPrincipal) {
+        try {
+            if (ids == null || ids.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(new ErrorResponseDto(HttpStatus.BAD_REQUEST.value(), "Batch must contain at least one reminder"));
+            }
+            if (ids.size() > reminderCompletionService.getMaxBatchSize()) {
+                return ResponseEntity.badRequest()
+                        .body(new ErrorResponseDto(HttpStatus.BAD_REQUEST.value(),
+                                "A batch cannot contain more than " + reminderCompletionService.getMaxBatchSize() + " reminders"));
+            }
+            return ResponseEntity.ok(reminderCompletionService.completeAll(userPrincipal.getId(), ids));
+        } catch (Exception ex) {
+            logger.error("Error completing {} reminders: {}", ids.size(), ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponseDto(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                            "An error occurred while completing the reminders: " + ex.getMessage()));
+        }
+    }
 } 
\ No newline at end of file
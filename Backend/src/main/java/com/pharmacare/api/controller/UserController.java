@@ -1,12 +1,12 @@
 package com.pharmacare.api.controller;
 
 import com.pharmacare.api.dto.ErrorResponseDto;
+import com.pharmacare.api.dto.UserDto;
 import com.pharmacare.api.dto.UserProfileDto;
-import com.pharmacare.api.exception.ResourceNotFoundException;
-import com.pharmacare.api.model.User;
-import com.pharmacare.api.repository.UserRepository;
 import com.pharmacare.api.security.CurrentUser;
+import com.pharmacare.api.security.PrincipalCache;
 import com.pharmacare.api.security.oauth2.UserPrincipal;
+import com.pharmacare.api.service.UserProfileService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,14 +24,14 @@ import java.util.Map;
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
-    private final UserRepository userRepository;
+    private final UserProfileService userProfileService;
+    private final PrincipalCache principalCache;
 
     @GetMapping("/me")
     @PreAuthorize("hasRole('USER') or hasRole('PHARMACY') or hasRole('ADMIN')")
     public ResponseEntity<?> getCurrentUser(@CurrentUser UserPrincipal currentUser) {
         try {
-            User user = userRepository.findById(currentUser.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
+            UserDto user = userProfileService.getProfile(currentUser.getId());
             
             Map<String, Object> userResponse = new HashMap<>();
             userResponse.put("id", user.getId());
@@ -52,8 +52,7 @@ public class UserController {
     @PreAuthorize("hasRole('USER') or hasRole('PHARMACY') or hasRole('ADMIN')")
     public ResponseEntity<?> getUserProfile(@CurrentUser UserPrincipal currentUser) {
         try {
-            User user = userRepository.findById(currentUser.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
+            UserDto user = userProfileService.getProfile(currentUser.getId());
             
             // For now, just return basic user info
             // In a real implementation, you would have a UserProfile entity with additional fields
@@ -76,19 +75,9 @@ public class UserController {
     @PreAuthorize("hasRole('USER') or hasRole('PHARMACY') or hasRole('ADMIN')")
     public ResponseEntity<?> updateUserProfile(@RequestBody UserProfileDto profileDto, @CurrentUser UserPrincipal currentUser) {
         try {
-            User user = userRepository.findById(currentUser.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
-            
             // Update basic user fields
-            if (profileDto.getFirstName() != null) {
-                user.setFirstName(profileDto.getFirstName());
-            }
-            if (profileDto.getLastName() != null) {
-                user.setLastName(profileDto.getLastName());
-            }
-            
-            // Save updated user
-            User updatedUser = userRepository.save(user);
+            UserDto updatedUser = userProfileService.updateProfile(currentUser.getId(), profileDto);
+            principalCache.evict(updatedUser.getEmail());
             
             // Return complete response including non-persisted profile data
             Map<String, Object> profileResponse = new HashMap<>();
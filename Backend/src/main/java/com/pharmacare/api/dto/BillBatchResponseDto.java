@@ -0,0 +1,18 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillBatchResponseDto {
+    private int created;
+    private int rejected;
+    private List<BillBatchResultDto> results;
+}
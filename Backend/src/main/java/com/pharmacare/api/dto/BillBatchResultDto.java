@@ -0,0 +1,26 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillBatchResultDto {
+    private int index; // Position of the bill in the submitted list
+    private Status status;
+    private Long billId;
+    private String billNumber;
+    private BigDecimal totalAmount;
+    private String message; // Reason when the bill was rejected
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+}
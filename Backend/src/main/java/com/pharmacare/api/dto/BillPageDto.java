@@ -0,0 +1,18 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillPageDto {
+    private List<BillDto> bills;
+    private String nextCursor; // Pass back as ?cursor= for the next page; null on the last page
+    private boolean hasMore;
+}
@@ -1,5 +1,7 @@
 package com.pharmacare.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -11,10 +13,20 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class CreateBillItemDto {
 
-    @NotNull(message = "Inventory ID cannot be null")
+    // A specific batch; leave empty to dispense by medication name and strength, earliest expiry first
     private Long inventoryId;
 
     @NotNull(message = "Quantity cannot be null")
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
-} 
\ No newline at end of file
+
+    private String medicationName;
+
+    private String strength;
+
+    @JsonIgnore
+    @AssertTrue(message = "Either an inventory ID or a medication name must be provided")
+    public boolean isItemIdentified() {
+        return inventoryId != null || (medicationName != null && !medicationName.isBlank());
+    }
+}
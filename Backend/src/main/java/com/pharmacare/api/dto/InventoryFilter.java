@@ -0,0 +1,36 @@
+package com.pharmacare.api.dto;
+
+import com.pharmacare.api.model.Inventory;
+import lombok.Builder;
+import lombok.Data;
+
+// Inventory list query; every filter is optional and all given filters apply together
+@Data
+@Builder
+public class InventoryFilter {
+    private Long pharmacyId;
+    private String search;
+    private Inventory.MedicationType type;
+    private boolean lowStock;
+    private boolean expiring;
+    private Sort sort; // null sorts search results by relevance and everything else by name
+    private boolean descending;
+    private String cursor;
+    private Integer limit; // null returns every matching row
+
+    public enum Sort {
+        NAME("medicationName"),
+        EXPIRY_DATE("expiryDate"),
+        QUANTITY("quantity");
+
+        private final String attribute;
+
+        Sort(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryPageDto {
+    private List<InventoryDto> items;
+    private String nextCursor; // null on the last page
+}
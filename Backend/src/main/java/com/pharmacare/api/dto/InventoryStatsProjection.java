@@ -0,0 +1,32 @@
+package com.pharmacare.api.dto;
+
+/**
+ * Counts over a pharmacy's active inventory, computed in one pass. The four overview buckets
+ * (expired, out of stock, low stock, in stock) do not overlap and add up to {@link #getTotalItems()};
+ * {@link #getLowStockCount()} and {@link #getExpiringSoonCount()} are the wider dashboard counts.
+ * {@link #getQuarantinedCount()} counts expired batches the expiry sweep already took out of stock.
+ */
+public interface InventoryStatsProjection {
+
+    long getTotalItems();
+
+    // Quantity at or below the minimum stock level, including items that are out of stock or expired
+    long getLowStockCount();
+
+    // Expiring between today and the expiry threshold, inclusive
+    long getExpiringSoonCount();
+
+    long getExpiredCount();
+
+    // Not expired and quantity is zero
+    long getOutOfStockCount();
+
+    // Not expired, above zero and at or below the minimum stock level
+    long getLowStockBucketCount();
+
+    long getQuarantinedCount();
+
+    default long getInStockCount() {
+        return getTotalItems() - getExpiredCount() - getOutOfStockCount() - getLowStockBucketCount();
+    }
+}
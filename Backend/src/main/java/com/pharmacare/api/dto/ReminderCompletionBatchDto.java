@@ -0,0 +1,17 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderCompletionBatchDto {
+    private List<ReminderCompletionDto> completed; // Includes reminders that were already completed
+    private List<Long> notFound; // Ids that do not exist or belong to another user
+}
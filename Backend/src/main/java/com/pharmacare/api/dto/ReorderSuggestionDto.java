@@ -0,0 +1,20 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderSuggestionDto {
+    private String medicationName;
+    private String strength;
+    private long onHand; // active, unexpired stock across all batches
+    private double dailyDemand;
+    private Double daysOfCover; // null when there is no recent demand
+    private long reorderPoint;
+    private long suggestedQuantity;
+}
@@ -0,0 +1,13 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamTokenDto {
+    private String token; // Pass as ?token= when opening an event stream
+    private long expiresIn; // milliseconds
+}
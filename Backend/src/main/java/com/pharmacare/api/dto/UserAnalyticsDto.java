@@ -0,0 +1,18 @@
+package com.pharmacare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAnalyticsDto {
+    private long activeMedicationsCount;
+    private long inactiveMedicationsCount;
+    private long pendingRemindersCount;
+    private long recentRemindersCount; // reminders due in the last seven days
+    private long recentCompletedRemindersCount;
+}
@@ -20,8 +20,10 @@ import java.util.UUID;
 @Table(name = "bills")
 public class Bill {
     
+    // Sequence ids (not IDENTITY) so Hibernate can batch inserts; see V4__align_bill_id_sequences.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bills_seq")
+    @SequenceGenerator(name = "bills_seq", sequenceName = "bills_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
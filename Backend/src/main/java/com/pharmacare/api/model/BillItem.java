@@ -17,8 +17,10 @@ import java.time.LocalDateTime;
 @Table(name = "bill_items")
 public class BillItem {
     
+    // Sequence ids (not IDENTITY) so Hibernate can batch inserts; see V4__align_bill_id_sequences.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_items_seq")
+    @SequenceGenerator(name = "bill_items_seq", sequenceName = "bill_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,22 @@
+package com.pharmacare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "bill_number_sequences")
+public class BillNumberSequence {
+
+    @Id
+    @Column(name = "pharmacy_id")
+    private Long pharmacyId;
+
+    // First value of the next block that has not been handed out to any node
+    @Column(nullable = false)
+    private Long nextValue;
+}
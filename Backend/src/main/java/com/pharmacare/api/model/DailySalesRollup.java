@@ -0,0 +1,46 @@
+package com.pharmacare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Maintained by DailySalesRollupService; rows are written with native upserts, not through JPA
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "daily_sales_rollup", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"pharmacy_id", "sales_date", "payment_method", "payment_status"})
+})
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pharmacy_id", nullable = false)
+    private Long pharmacyId;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false)
+    private Bill.PaymentMethod paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private Bill.PaymentStatus paymentStatus;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+}
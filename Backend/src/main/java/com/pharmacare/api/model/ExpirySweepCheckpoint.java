@@ -0,0 +1,44 @@
+package com.pharmacare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress of ExpirySweepService; the row is locked while a chunk is processed
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "expiry_sweep_checkpoints")
+public class ExpirySweepCheckpoint {
+
+    @Id
+    @Column(name = "sweep_name", length = 50)
+    private String sweepName;
+
+    // Day of the run in progress (or of the last run once it completed)
+    @Column(name = "run_date")
+    private LocalDate runDate;
+
+    // Highest pharmacy id already swept in the run
+    @Column(name = "last_pharmacy_id", nullable = false)
+    private Long lastPharmacyId;
+
+    @Column(name = "completed_date")
+    private LocalDate completedDate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
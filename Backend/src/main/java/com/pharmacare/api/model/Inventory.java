@@ -1,5 +1,6 @@
 package com.pharmacare.api.model;
 
+import com.pharmacare.api.service.InventoryEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,6 +17,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "inventory")
+@EntityListeners(InventoryEntityListener.class)
 public class Inventory {
     
     @Id
@@ -53,6 +55,10 @@ public class Inventory {
     @Column(nullable = false)
     private boolean active = true;
     
+    // Expired batches taken out of active stock by ExpirySweepService; cleared when the batch is deleted
+    @Column(columnDefinition = "boolean default false")
+    private boolean quarantined;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private MedicationType medicationType;
@@ -1,5 +1,6 @@
 package com.pharmacare.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -48,6 +49,11 @@ public class Medication {
 
     private int stock;
 
+    // End of the window ReminderScheduleService has created reminders for; null until it first runs
+    // and again whenever the schedule changes
+    @JsonIgnore
+    private LocalDateTime remindersScheduledThrough;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -1,5 +1,6 @@
 package com.pharmacare.api.model;
 
+import com.pharmacare.api.security.PharmacyStaffEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "pharmacy_staff")
+@EntityListeners(PharmacyStaffEntityListener.class)
 public class PharmacyStaff {
     
     @Id
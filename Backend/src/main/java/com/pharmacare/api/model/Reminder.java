@@ -40,6 +40,15 @@ public class Reminder {
 
     private LocalDateTime completedAt;
 
+    // Set once the dispatcher has sent the reminder; cleared when its time is changed
+    @JsonIgnore
+    private LocalDateTime notifiedAt;
+
+    // Created by ReminderScheduleService from the medication's frequency rather than by the user
+    @JsonIgnore
+    @Column(columnDefinition = "boolean default false")
+    private boolean scheduled;
+
     @Transient
     private Long medicationId;
 
@@ -0,0 +1,30 @@
+package com.pharmacare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Ownership of one bucket of reminders (user id modulo the bucket count) by a dispatching node
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "reminder_dispatch_leases")
+public class ReminderDispatchLease {
+
+    @Id
+    @Column(name = "bucket")
+    private Integer bucket;
+
+    // Null while the bucket is free
+    @Column(name = "owner", length = 64)
+    private String owner;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,23 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.BillIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BillIdempotencyKeyRepository extends JpaRepository<BillIdempotencyKey, Long> {
+
+    Optional<BillIdempotencyKey> findByPharmacyIdAndIdempotencyKey(Long pharmacyId, String idempotencyKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BillIdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,13 +2,52 @@ package com.pharmacare.api.repository;
 
 import com.pharmacare.api.model.Bill;
 import com.pharmacare.api.model.BillItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BillItemRepository extends JpaRepository<BillItem, Long> {
     List<BillItem> findByBill(Bill bill);
     // Add other specific query methods if needed later
-} 
\ No newline at end of file
+
+    // One row per line item with its bill; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT bi FROM BillItem bi JOIN FETCH bi.bill b " +
+           "WHERE b.pharmacy.id = :pharmacyId AND b.billDate >= :from AND b.billDate < :to " +
+           "ORDER BY b.billDate, b.id, bi.id")
+    Stream<BillItem> streamForExport(@Param("pharmacyId") Long pharmacyId,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    // Units sold per product and day; read once when a pharmacy's demand forecast is built
+    @Query("SELECT i.medicationName AS medicationName, i.strength AS strength, CAST(b.billDate AS LocalDate) AS salesDate, " +
+           "SUM(bi.quantity) AS quantity FROM BillItem bi JOIN bi.bill b JOIN bi.inventory i " +
+           "WHERE b.pharmacy.id = :pharmacyId AND b.billDate >= :from " +
+           "GROUP BY i.medicationName, i.strength, CAST(b.billDate AS LocalDate) " +
+           "ORDER BY CAST(b.billDate AS LocalDate)")
+    List<DailyProductSales> sumDailyQuantities(@Param("pharmacyId") Long pharmacyId,
+                                               @Param("from") LocalDateTime from);
+
+    interface DailyProductSales {
+        String getMedicationName();
+
+        String getStrength();
+
+        LocalDate getSalesDate();
+
+        Long getQuantity();
+    }
+}
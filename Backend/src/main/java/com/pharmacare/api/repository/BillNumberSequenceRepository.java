@@ -0,0 +1,27 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.BillNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BillNumberSequenceRepository extends JpaRepository<BillNumberSequence, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BillNumberSequence s WHERE s.pharmacyId = :pharmacyId")
+    Optional<BillNumberSequence> findByIdForUpdate(@Param("pharmacyId") Long pharmacyId);
+
+    // A plain insert, so a row another node created first fails with a constraint violation;
+    // save() would merge the assigned id and silently overwrite it
+    @Modifying
+    @Query(value = "INSERT INTO bill_number_sequences (pharmacy_id, next_value) VALUES (:pharmacyId, :nextValue)",
+            nativeQuery = true)
+    void insert(@Param("pharmacyId") Long pharmacyId, @Param("nextValue") long nextValue);
+}
@@ -10,14 +10,13 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, Long> {
     
-    List<Bill> findByPharmacy(Pharmacy pharmacy);
-    
     List<Bill> findByPharmacyOrderByCreatedAtDesc(Pharmacy pharmacy, Pageable pageable);
     
     List<Bill> findByPharmacyAndPaymentStatus(Pharmacy pharmacy, Bill.PaymentStatus paymentStatus);
@@ -26,13 +25,33 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
     
     Optional<Bill> findByBillNumber(String billNumber);
     
+    @Query("SELECT b FROM Bill b JOIN FETCH b.pharmacy LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.items " +
+           "WHERE b.billNumber = :billNumber")
+    Optional<Bill> findWithDetailsByBillNumber(@Param("billNumber") String billNumber);
+    
+    // Keyset page of ids, newest first; the caller passes the last (billDate, id) seen as the cursor.
+    // Ids are fetched separately so the collection fetch join in findWithDetailsByIdIn is not paged in memory.
+    @Query("SELECT b.id FROM Bill b WHERE b.pharmacy.id = :pharmacyId AND b.paymentStatus IN :statuses " +
+           "AND b.billDate >= :from AND b.billDate < :to " +
+           "AND (b.billDate < :cursorDate OR (b.billDate = :cursorDate AND b.id < :cursorId)) " +
+           "ORDER BY b.billDate DESC, b.id DESC")
+    List<Long> findPageIds(@Param("pharmacyId") Long pharmacyId,
+                           @Param("statuses") Collection<Bill.PaymentStatus> statuses,
+                           @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to,
+                           @Param("cursorDate") LocalDateTime cursorDate,
+                           @Param("cursorId") Long cursorId,
+                           Pageable pageable);
+    
+    @Query("SELECT b FROM Bill b JOIN FETCH b.pharmacy LEFT JOIN FETCH b.createdBy LEFT JOIN FETCH b.items " +
+           "WHERE b.id IN :ids")
+    List<Bill> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT b FROM Bill b WHERE b.pharmacy = :pharmacy AND b.billDate BETWEEN :startDate AND :endDate")
     List<Bill> findByPharmacyAndDateRange(@Param("pharmacy") Pharmacy pharmacy, 
                                          @Param("startDate") LocalDateTime startDate, 
                                          @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT SUM(b.totalAmount) FROM Bill b WHERE b.pharmacy = :pharmacy AND b.paymentStatus = 'PAID' AND b.billDate BETWEEN :startDate AND :endDate")
-    Double getTotalSalesForPeriod(@Param("pharmacy") Pharmacy pharmacy, 
-                                 @Param("startDate") LocalDateTime startDate, 
-                                 @Param("endDate") LocalDateTime endDate);
+    @Query("SELECT MIN(b.billDate) FROM Bill b")
+    Optional<LocalDateTime> findEarliestBillDate();
 } 
\ No newline at end of file
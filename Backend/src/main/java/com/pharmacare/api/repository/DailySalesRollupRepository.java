@@ -0,0 +1,60 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.DailySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (pharmacy_id, sales_date, payment_method, payment_status, bill_count, total_amount) " +
+            "VALUES (:pharmacyId, :salesDate, :paymentMethod, :paymentStatus, :billCount, :totalAmount) " +
+            "ON CONFLICT (pharmacy_id, sales_date, payment_method, payment_status) DO UPDATE SET " +
+            "bill_count = daily_sales_rollup.bill_count + EXCLUDED.bill_count, " +
+            "total_amount = daily_sales_rollup.total_amount + EXCLUDED.total_amount",
+            nativeQuery = true)
+    int increment(@Param("pharmacyId") Long pharmacyId,
+                  @Param("salesDate") LocalDate salesDate,
+                  @Param("paymentMethod") String paymentMethod,
+                  @Param("paymentStatus") String paymentStatus,
+                  @Param("billCount") long billCount,
+                  @Param("totalAmount") BigDecimal totalAmount);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.salesDate >= :from AND r.salesDate < :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Overwrites on conflict so a rebuild racing with live increments cannot fail on the unique key
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (pharmacy_id, sales_date, payment_method, payment_status, bill_count, total_amount) " +
+            "SELECT pharmacy_id, CAST(bill_date AS date), payment_method, payment_status, COUNT(*), SUM(total_amount) " +
+            "FROM bills WHERE bill_date >= :from AND bill_date < :to " +
+            "GROUP BY pharmacy_id, CAST(bill_date AS date), payment_method, payment_status " +
+            "ON CONFLICT (pharmacy_id, sales_date, payment_method, payment_status) DO UPDATE SET " +
+            "bill_count = EXCLUDED.bill_count, total_amount = EXCLUDED.total_amount",
+            nativeQuery = true)
+    int insertFromBills(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) AS totalAmount, COALESCE(SUM(r.billCount), 0) AS billCount " +
+           "FROM DailySalesRollup r " +
+           "WHERE r.pharmacyId = :pharmacyId AND r.paymentStatus = :status AND r.salesDate BETWEEN :from AND :to")
+    SalesTotals sumTotals(@Param("pharmacyId") Long pharmacyId,
+                          @Param("status") Bill.PaymentStatus status,
+                          @Param("from") LocalDate from,
+                          @Param("to") LocalDate to);
+
+    interface SalesTotals {
+        BigDecimal getTotalAmount();
+
+        Long getBillCount();
+    }
+}
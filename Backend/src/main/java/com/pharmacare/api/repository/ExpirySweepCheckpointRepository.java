@@ -0,0 +1,27 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.ExpirySweepCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExpirySweepCheckpointRepository extends JpaRepository<ExpirySweepCheckpoint, String> {
+
+    // Safe for nodes starting their first sweep at the same time
+    @Modifying
+    @Query(value = "INSERT INTO expiry_sweep_checkpoints (sweep_name, last_pharmacy_id) VALUES (:sweepName, 0) " +
+            "ON CONFLICT (sweep_name) DO NOTHING",
+            nativeQuery = true)
+    int createIfAbsent(@Param("sweepName") String sweepName);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ExpirySweepCheckpoint c WHERE c.sweepName = :sweepName")
+    Optional<ExpirySweepCheckpoint> findForUpdate(@Param("sweepName") String sweepName);
+}
@@ -1,13 +1,19 @@
 package com.pharmacare.api.repository;
 
+import com.pharmacare.api.dto.InventoryStatsProjection;
 import com.pharmacare.api.model.Inventory;
 import com.pharmacare.api.model.Pharmacy;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,22 +21,27 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     
     List<Inventory> findByPharmacy(Pharmacy pharmacy);
     
-    List<Inventory> findByPharmacyAndActive(Pharmacy pharmacy, boolean active);
+    // Ordered by id so concurrent callers lock rows in the same sequence
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id IN :ids ORDER BY i.id")
+    List<Inventory> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
     
-    long countByPharmacyAndActive(Pharmacy pharmacy, boolean active);
+    List<Inventory> findByPharmacyAndActive(Pharmacy pharmacy, boolean active);
     
-    long countByPharmacyAndQuantityAndActive(Pharmacy pharmacy, Integer quantity, boolean active);
+    @Query("SELECT i.id AS id, i.medicationName AS medicationName, i.manufacturer AS manufacturer, i.batchNumber AS batchNumber " +
+           "FROM Inventory i WHERE i.pharmacy.id = :pharmacyId AND i.active = true")
+    List<SearchableInventory> findSearchableByPharmacyId(@Param("pharmacyId") Long pharmacyId);
     
-    List<Inventory> findByPharmacyAndMedicationNameContainingIgnoreCase(Pharmacy pharmacy, String medicationName);
+    // Batches that can still be dispensed; expired rows are skipped at allocation time
+    @Query("SELECT i.id AS id, i.medicationName AS medicationName, i.strength AS strength, i.expiryDate AS expiryDate, " +
+           "i.quantity AS quantity FROM Inventory i WHERE i.pharmacy.id = :pharmacyId AND i.active = true AND i.quantity > 0")
+    List<AllocatableBatch> findAllocatableByPharmacyId(@Param("pharmacyId") Long pharmacyId);
     
     List<Inventory> findByPharmacyAndMedicationType(Pharmacy pharmacy, Inventory.MedicationType medicationType);
     
     @Query("SELECT i FROM Inventory i WHERE i.pharmacy = :pharmacy AND i.quantity <= i.minimumStockLevel")
     List<Inventory> findLowStockItems(@Param("pharmacy") Pharmacy pharmacy);
     
-    @Query("SELECT count(i) FROM Inventory i WHERE i.pharmacy = :pharmacy AND i.quantity <= i.minimumStockLevel")
-    long countLowStockItems(@Param("pharmacy") Pharmacy pharmacy);
-    
     @Query("SELECT i FROM Inventory i WHERE i.pharmacy = :pharmacy AND i.expiryDate <= :date")
     List<Inventory> findExpiringItems(@Param("pharmacy") Pharmacy pharmacy, @Param("date") LocalDate date);
     
@@ -39,10 +50,91 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
                                        @Param("startDate") LocalDate startDate, 
                                        @Param("endDate") LocalDate endDate);
                                        
-    @Query("SELECT count(i) FROM Inventory i WHERE i.pharmacy = :pharmacy AND i.expiryDate BETWEEN :startDate AND :endDate")
-    long countExpiringBetween(@Param("pharmacy") Pharmacy pharmacy, 
-                               @Param("startDate") LocalDate startDate, 
-                               @Param("endDate") LocalDate endDate);
-                               
-    long countByPharmacyAndExpiryDateBeforeAndActive(Pharmacy pharmacy, LocalDate date, boolean active);
-} 
\ No newline at end of file
+    // Every stats bucket in a single scan; see InventoryStatsProjection for what each count means.
+    // Quarantined rows are read only for their own count, everything else covers active rows.
+    @Query("SELECT COALESCE(SUM(CASE WHEN i.active = true THEN 1 ELSE 0 END), 0) AS totalItems, " +
+           "COALESCE(SUM(CASE WHEN i.active = true AND i.quantity <= i.minimumStockLevel THEN 1 ELSE 0 END), 0) AS lowStockCount, " +
+           "COALESCE(SUM(CASE WHEN i.active = true AND i.expiryDate BETWEEN :today AND :expiringUntil THEN 1 ELSE 0 END), 0) AS expiringSoonCount, " +
+           "COALESCE(SUM(CASE WHEN i.active = true AND i.expiryDate < :today THEN 1 ELSE 0 END), 0) AS expiredCount, " +
+           "COALESCE(SUM(CASE WHEN i.active = true AND i.expiryDate >= :today AND i.quantity = 0 THEN 1 ELSE 0 END), 0) AS outOfStockCount, " +
+           "COALESCE(SUM(CASE WHEN i.active = true AND i.expiryDate >= :today AND i.quantity > 0 AND i.quantity <= i.minimumStockLevel THEN 1 ELSE 0 END), 0) AS lowStockBucketCount, " +
+           "COALESCE(SUM(CASE WHEN i.active = false THEN 1 ELSE 0 END), 0) AS quarantinedCount " +
+           "FROM Inventory i WHERE i.pharmacy.id = :pharmacyId AND (i.active = true OR i.quarantined = true)")
+    InventoryStatsProjection computeStats(@Param("pharmacyId") Long pharmacyId,
+                                          @Param("today") LocalDate today,
+                                          @Param("expiringUntil") LocalDate expiringUntil);
+
+    @Query("SELECT DISTINCT i.pharmacy.id FROM Inventory i " +
+           "WHERE i.pharmacy.id IN :pharmacyIds AND i.active = true AND i.expiryDate < :today")
+    List<Long> findPharmacyIdsWithExpired(@Param("pharmacyIds") Collection<Long> pharmacyIds,
+                                          @Param("today") LocalDate today);
+
+    // Bulk update: entity listeners do not run, so callers evict derived caches themselves
+    @Modifying
+    @Query("UPDATE Inventory i SET i.active = false, i.quarantined = true, i.updatedAt = :now " +
+           "WHERE i.pharmacy.id IN :pharmacyIds AND i.active = true AND i.expiryDate < :today")
+    int quarantineExpired(@Param("pharmacyIds") Collection<Long> pharmacyIds,
+                          @Param("today") LocalDate today,
+                          @Param("now") LocalDateTime now);
+
+    @Query("SELECT i.id AS id, i.pharmacy.id AS pharmacyId, i.medicationName AS medicationName, i.batchNumber AS batchNumber, " +
+           "i.expiryDate AS expiryDate, i.quantity AS quantity FROM Inventory i " +
+           "WHERE i.pharmacy.id IN :pharmacyIds AND i.active = true AND i.quantity > 0 " +
+           "AND i.expiryDate BETWEEN :from AND :to ORDER BY i.pharmacy.id, i.expiryDate, i.id")
+    List<ExpiringBatch> findExpiringInPharmacies(@Param("pharmacyIds") Collection<Long> pharmacyIds,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+
+    // Stock that can still be sold, per product; strength is part of the product
+    @Query("SELECT i.medicationName AS medicationName, i.strength AS strength, SUM(i.quantity) AS quantity, " +
+           "MAX(i.minimumStockLevel) AS minimumStockLevel FROM Inventory i " +
+           "WHERE i.pharmacy.id = :pharmacyId AND i.active = true AND i.expiryDate >= :today " +
+           "GROUP BY i.medicationName, i.strength")
+    List<ProductStock> sumStockByProduct(@Param("pharmacyId") Long pharmacyId, @Param("today") LocalDate today);
+
+    interface SearchableInventory {
+        Long getId();
+
+        String getMedicationName();
+
+        String getManufacturer();
+
+        String getBatchNumber();
+    }
+
+    interface AllocatableBatch {
+        Long getId();
+
+        String getMedicationName();
+
+        String getStrength();
+
+        LocalDate getExpiryDate();
+
+        Integer getQuantity();
+    }
+
+    interface ExpiringBatch {
+        Long getId();
+
+        Long getPharmacyId();
+
+        String getMedicationName();
+
+        String getBatchNumber();
+
+        LocalDate getExpiryDate();
+
+        Integer getQuantity();
+    }
+
+    interface ProductStock {
+        String getMedicationName();
+
+        String getStrength();
+
+        Long getQuantity();
+
+        Integer getMinimumStockLevel();
+    }
+}
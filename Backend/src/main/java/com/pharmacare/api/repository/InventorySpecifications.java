@@ -0,0 +1,56 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.Inventory;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Composable filters for inventory queries. Each method returns a predicate that can be combined
+ * with {@link Specification#and}; {@code null} arguments are not accepted, callers only add the
+ * filters that were requested.
+ */
+public final class InventorySpecifications {
+
+    private InventorySpecifications() {
+    }
+
+    public static Specification<Inventory> inPharmacy(Long pharmacyId) {
+        return (root, query, cb) -> cb.equal(root.get("pharmacy").get("id"), pharmacyId);
+    }
+
+    public static Specification<Inventory> active() {
+        return (root, query, cb) -> cb.isTrue(root.get("active"));
+    }
+
+    public static Specification<Inventory> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Inventory> ofType(Inventory.MedicationType type) {
+        return (root, query, cb) -> cb.equal(root.get("medicationType"), type);
+    }
+
+    // Same rule as Inventory.isLowStock()
+    public static Specification<Inventory> lowStock() {
+        return (root, query, cb) -> cb.le(root.<Integer>get("quantity"), root.<Integer>get("minimumStockLevel"));
+    }
+
+    public static Specification<Inventory> expiringBetween(LocalDate from, LocalDate to) {
+        return (root, query, cb) -> cb.between(root.get("expiryDate"), from, to);
+    }
+
+    /**
+     * Rows strictly after ({@code ascending}) or before the keyset position ({@code value}, {@code id})
+     * in the order {@code attribute, id}.
+     */
+    public static <T extends Comparable<? super T>> Specification<Inventory> afterKey(String attribute, T value, Long id,
+                                                                                      boolean ascending) {
+        return (root, query, cb) -> ascending
+                ? cb.or(cb.greaterThan(root.get(attribute), value),
+                        cb.and(cb.equal(root.get(attribute), value), cb.greaterThan(root.get("id"), id)))
+                : cb.or(cb.lessThan(root.get(attribute), value),
+                        cb.and(cb.equal(root.get(attribute), value), cb.lessThan(root.get("id"), id)));
+    }
+}
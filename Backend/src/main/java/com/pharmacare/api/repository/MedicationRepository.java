@@ -1,9 +1,15 @@
 package com.pharmacare.api.repository;
 
 import com.pharmacare.api.model.Medication;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +21,19 @@ public interface MedicationRepository extends JpaRepository<Medication, Long> {
     
     long countByUserIdAndActiveTrue(Long userId);
     long countByUserIdAndActiveFalse(Long userId);
+
+    // Medications whose reminders run out before the window ends; rows another node is scheduling are skipped
+    @Query(value = "SELECT * FROM medications WHERE id > :afterId AND active = true AND frequency IS NOT NULL " +
+            "AND (end_date IS NULL OR end_date >= :today) " +
+            "AND (reminders_scheduled_through IS NULL OR reminders_scheduled_through < :windowEnd) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Medication> lockDueForScheduling(@Param("afterId") Long afterId,
+                                          @Param("today") LocalDate today,
+                                          @Param("windowEnd") LocalDateTime windowEnd,
+                                          @Param("limit") int limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Medication m WHERE m.id = :id")
+    Optional<Medication> findForUpdate(@Param("id") Long id);
 } 
\ No newline at end of file
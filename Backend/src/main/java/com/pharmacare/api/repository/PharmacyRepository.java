@@ -2,7 +2,10 @@ package com.pharmacare.api.repository;
 
 import com.pharmacare.api.model.Pharmacy;
 import com.pharmacare.api.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,4 +21,7 @@ public interface PharmacyRepository extends JpaRepository<Pharmacy, Long> {
     List<Pharmacy> findByActive(boolean active);
     
     boolean existsByRegistrationNumber(String registrationNumber);
+
+    @Query("SELECT p.id FROM Pharmacy p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 } 
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.pharmacare.api.model.Pharmacy;
 import com.pharmacare.api.model.PharmacyStaff;
 import com.pharmacare.api.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -27,4 +29,7 @@ public interface PharmacyStaffRepository extends JpaRepository<PharmacyStaff, Lo
     List<PharmacyStaff> findByPharmacyId(Long pharmacyId);
     
     List<PharmacyStaff> findByUserId(Long userId);
+
+    @Query("SELECT s.role FROM PharmacyStaff s WHERE s.user.id = :userId AND s.pharmacy.id = :pharmacyId AND s.active = true")
+    List<PharmacyStaff.StaffRole> findActiveRoles(@Param("userId") Long userId, @Param("pharmacyId") Long pharmacyId);
 } 
\ No newline at end of file
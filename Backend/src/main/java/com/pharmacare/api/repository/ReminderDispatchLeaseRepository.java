@@ -0,0 +1,49 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.ReminderDispatchLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReminderDispatchLeaseRepository extends JpaRepository<ReminderDispatchLease, Integer> {
+
+    // Safe for nodes starting at the same time
+    @Modifying
+    @Query(value = "INSERT INTO reminder_dispatch_leases (bucket) SELECT generate_series(0, :bucketCount - 1) " +
+            "ON CONFLICT (bucket) DO NOTHING",
+            nativeQuery = true)
+    int createBuckets(@Param("bucketCount") int bucketCount);
+
+    @Modifying
+    @Query("UPDATE ReminderDispatchLease l SET l.expiresAt = :expiresAt WHERE l.owner = :owner AND l.bucket < :bucketCount")
+    int renew(@Param("owner") String owner,
+              @Param("bucketCount") int bucketCount,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Query("SELECT l.bucket FROM ReminderDispatchLease l WHERE l.owner = :owner AND l.bucket < :bucketCount ORDER BY l.bucket")
+    List<Integer> findOwned(@Param("owner") String owner, @Param("bucketCount") int bucketCount);
+
+    // Takes up to :limit free or expired buckets; buckets other nodes are claiming at the same time are skipped
+    @Modifying
+    @Query(value = "UPDATE reminder_dispatch_leases SET owner = :owner, expires_at = :expiresAt " +
+            "WHERE bucket IN (SELECT bucket FROM reminder_dispatch_leases " +
+            "WHERE bucket < :bucketCount AND (owner IS NULL OR expires_at < :now) " +
+            "ORDER BY bucket LIMIT :limit FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int claimFree(@Param("owner") String owner,
+                  @Param("bucketCount") int bucketCount,
+                  @Param("now") LocalDateTime now,
+                  @Param("expiresAt") LocalDateTime expiresAt,
+                  @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE ReminderDispatchLease l SET l.owner = null, l.expiresAt = null WHERE l.owner = :owner AND l.bucket IN :buckets")
+    int release(@Param("owner") String owner, @Param("buckets") Collection<Integer> buckets);
+}
@@ -0,0 +1,30 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.model.ReminderDispatchNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReminderDispatchNodeRepository extends JpaRepository<ReminderDispatchNode, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO reminder_dispatch_nodes (node_id, heartbeat_at) VALUES (:nodeId, :now) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = EXCLUDED.heartbeat_at",
+            nativeQuery = true)
+    int heartbeat(@Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+
+    long countByHeartbeatAtAfter(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM ReminderDispatchNode n WHERE n.heartbeatAt < :before")
+    int deleteStale(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM ReminderDispatchNode n WHERE n.nodeId = :nodeId")
+    int deleteNode(@Param("nodeId") String nodeId);
+}
@@ -1,10 +1,15 @@
 package com.pharmacare.api.repository;
 
 import com.pharmacare.api.model.Reminder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +20,103 @@ public interface ReminderRepository extends JpaRepository<Reminder, Long> {
     List<Reminder> findByMedicationUserIdAndCompletedFalseAndReminderTimeBetween(Long userId, LocalDateTime start, LocalDateTime end);
     Optional<Reminder> findByIdAndMedicationUserId(Long id, Long userId);
     
-    long countByMedicationUserIdAndCompletedFalse(Long userId);
     long countByMedicationUserIdAndCompletedTrueAndReminderTimeAfter(Long userId, LocalDateTime after);
-    long countByMedicationUserIdAndReminderTimeAfter(Long userId, LocalDateTime after);
-} 
\ No newline at end of file
+    long countByMedicationUserIdAndReminderTimeBetween(Long userId, LocalDateTime start, LocalDateTime end);
+    long countByMedicationUserIdAndCompletedTrueAndReminderTimeBetween(Long userId, LocalDateTime start, LocalDateTime end);
+
+    // Occurrences generated ahead from a medication's schedule are not pending until they come due
+    @Query("SELECT COUNT(r) FROM Reminder r WHERE r.medication.user.id = :userId AND r.completed = false " +
+           "AND (r.scheduled = false OR r.reminderTime <= :now)")
+    long countPending(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Keyset page of reminders still to be sent in the given buckets (user id modulo bucket count), in firing order
+    @Query("SELECT r.id AS id, r.reminderTime AS reminderTime FROM Reminder r " +
+           "WHERE r.completed = false AND r.notifiedAt IS NULL AND r.reminderTime <= :until " +
+           "AND (r.reminderTime > :afterTime OR (r.reminderTime = :afterTime AND r.id > :afterId)) " +
+           "AND MOD(r.user.id, :bucketCount) IN :buckets " +
+           "ORDER BY r.reminderTime, r.id")
+    List<DueReminder> findUnsentAfter(@Param("afterTime") LocalDateTime afterTime,
+                                      @Param("afterId") Long afterId,
+                                      @Param("until") LocalDateTime until,
+                                      @Param("bucketCount") int bucketCount,
+                                      @Param("buckets") Collection<Long> buckets,
+                                      Pageable pageable);
+
+    // Locks the listed reminders that are still due and in a bucket this node owns; rows another
+    // transaction holds are skipped
+    // dueBefore is the end of the timing wheel tick being dispatched, which releases reminders from its start
+    @Query(value = "SELECT id FROM reminders WHERE id IN (:ids) AND completed = false " +
+                   "AND notified_at IS NULL AND reminder_time < :dueBefore " +
+                   "AND MOD(user_id, :bucketCount) IN (:buckets) FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDue(@Param("ids") Collection<Long> ids,
+                       @Param("dueBefore") LocalDateTime dueBefore,
+                       @Param("bucketCount") int bucketCount,
+                       @Param("buckets") Collection<Long> buckets);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.notifiedAt = :now WHERE r.id IN :ids")
+    int markNotified(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Completes without loading the entity; 0 when the reminder is not the user's or already completed
+    @Modifying
+    @Query("UPDATE Reminder r SET r.completed = true, r.completedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.user.id = :userId AND r.completed = false")
+    int completeIfPending(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.completed = true, r.completedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id IN :ids AND r.user.id = :userId AND r.completed = false")
+    int completeAllIfPending(@Param("ids") Collection<Long> ids, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.id AS id, r.completed AS completed, r.completedAt AS completedAt FROM Reminder r " +
+           "WHERE r.id IN :ids AND r.user.id = :userId")
+    List<ReminderCompletion> findCompletions(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Upcoming occurrences created from a medication's schedule, replaced when the schedule changes
+    @Modifying
+    @Query("DELETE FROM Reminder r WHERE r.medication.id = :medicationId AND r.scheduled = true " +
+           "AND r.completed = false AND r.notifiedAt IS NULL AND r.reminderTime > :after")
+    int deleteScheduledAfter(@Param("medicationId") Long medicationId, @Param("after") LocalDateTime after);
+
+    @Modifying
+    @Query("DELETE FROM Reminder r WHERE r.medication.id = :medicationId")
+    int deleteByMedication(@Param("medicationId") Long medicationId);
+
+    @Query("SELECT r.id AS id, r.reminderTime AS reminderTime, r.notes AS notes, m.name AS medicationName, " +
+           "m.dosage AS medicationDosage, u.id AS userId, u.email AS email, u.firstName AS firstName " +
+           "FROM Reminder r JOIN r.medication m JOIN r.user u WHERE r.id IN :ids")
+    List<ReminderDetails> findDetails(@Param("ids") Collection<Long> ids);
+
+    interface DueReminder {
+        Long getId();
+
+        LocalDateTime getReminderTime();
+    }
+
+    interface ReminderCompletion {
+        Long getId();
+
+        boolean isCompleted();
+
+        LocalDateTime getCompletedAt();
+    }
+
+    interface ReminderDetails {
+        Long getId();
+
+        LocalDateTime getReminderTime();
+
+        String getNotes();
+
+        String getMedicationName();
+
+        String getMedicationDosage();
+
+        Long getUserId();
+
+        String getEmail();
+
+        String getFirstName();
+    }
+}
@@ -1,5 +1,6 @@
 package com.pharmacare.api.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,6 +8,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,27 +25,51 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger filterLogger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    // EventSource cannot set headers, so event streams take a stream token in the query string
+    public static final String STREAM_TOKEN_PARAMETER = "token";
+
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
 
+    // When enabled, tokens carrying principal claims are trusted without loading the user from the database
+    @Value("${jwt.stateless-auth:false}")
+    private boolean statelessAuth;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         filterLogger.debug("Processing request: {}", request.getRequestURI());
         try {
             String jwt = getJwtFromRequest(request);
+            boolean fromQuery = false;
+            if (!StringUtils.hasText(jwt) && isEventStream(request)) {
+                jwt = request.getParameter(STREAM_TOKEN_PARAMETER);
+                fromQuery = true;
+            }
 
             if (StringUtils.hasText(jwt)) {
                 filterLogger.debug("Found JWT token in request");
-                String username = tokenProvider.getUsernameFromToken(jwt);
+                Claims claims = tokenProvider.parseToken(jwt);
+                String username = claims.getSubject();
                 filterLogger.debug("Username from token: {}", username);
 
-                if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    filterLogger.debug("Security context is null, attempting to load UserDetails");
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    filterLogger.debug("UserDetails loaded: {}", userDetails.getUsername());
+                // Stream tokens open event streams and nothing else; access tokens are never taken from a URL
+                boolean streamToken = tokenProvider.isStreamToken(claims);
+                if (streamToken ? !isEventStream(request) : fromQuery) {
+                    filterLogger.warn("Token of the wrong kind for request: {}", request.getRequestURI());
+                } else if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails;
+                    if (statelessAuth && tokenProvider.hasPrincipalClaims(claims)) {
+                        filterLogger.debug("Building UserDetails from token claims");
+                        userDetails = tokenProvider.getPrincipalFromClaims(claims);
+                    } else {
+                        filterLogger.debug("Security context is null, attempting to load UserDetails");
+                        userDetails = userDetailsService.loadUserByUsername(username);
+                        filterLogger.debug("UserDetails loaded: {}", userDetails.getUsername());
+                    }
 
-                    if (tokenProvider.validateToken(jwt, userDetails)) {
+                    if (tokenProvider.validateToken(claims, userDetails)) {
                         filterLogger.debug("JWT token is valid");
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -58,7 +84,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     filterLogger.debug("Username is blank or SecurityContext already has Authentication");
                 }
             } else {
-                filterLogger.debug("No JWT token found in request Authorization header");
+                filterLogger.debug("No JWT token found in request Authorization header or stream token parameter");
             }
         } catch (Exception ex) {
             filterLogger.error("Could not set user authentication in security context for request: {}", request.getRequestURI(), ex);
@@ -75,4 +101,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
+
+    private boolean isEventStream(HttpServletRequest request) {
+        return "GET".equals(request.getMethod())
+                && request.getRequestURI().startsWith(request.getContextPath() + "/events/");
+    }
 } 
\ No newline at end of file
@@ -1,19 +1,26 @@
 package com.pharmacare.api.security;
 
+import com.pharmacare.api.security.oauth2.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import jakarta.annotation.PostConstruct;
@@ -22,6 +29,18 @@ import java.util.Base64;
 @Component
 public class JwtTokenProvider {
 
+    // Claims carried by access tokens so the request filter can build the principal without a user lookup
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    public static final String CLAIM_SCOPE = "scope";
+
+    // Stream tokens can only open event streams; they are the one kind of token accepted in a URL
+    public static final String STREAM_SCOPE = "events";
+
+    // Bump whenever the claim layout changes; tokens with another version fall back to the database lookup
+    public static final int TOKEN_VERSION = 1;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -30,8 +49,15 @@ public class JwtTokenProvider {
 
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
+
+    @Value("${jwt.stream-token-expiration:60000}")
+    private long streamTokenExpiration;
     
     private Key key;
+
+    // Both are immutable and thread-safe, so they are built once instead of per token
+    private SignatureAlgorithm signatureAlgorithm;
+    private JwtParser jwtParser;
     
     @PostConstruct
     public void init() {
@@ -48,6 +74,10 @@ public class JwtTokenProvider {
         // Create a key from the secret
         byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.signatureAlgorithm = SignatureAlgorithm.forSigningKey(key);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     private Key getSigningKey() {
@@ -55,30 +85,58 @@ public class JwtTokenProvider {
     }
 
     public String generateToken(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal userPrincipal) {
+            Map<String, Object> claims = Map.of(
+                    CLAIM_USER_ID, userPrincipal.getId(),
+                    CLAIM_ROLES, userPrincipal.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .collect(Collectors.toList()),
+                    CLAIM_TOKEN_VERSION, TOKEN_VERSION);
+            return createToken(claims, userPrincipal.getUsername(), jwtExpiration);
+        }
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         return generateToken(userDetails.getUsername());
     }
 
     public String generateToken(String username) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username, jwtExpiration);
+        return createToken(null, username, jwtExpiration);
     }
 
     public String generateRefreshToken(String username) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username, refreshExpiration);
+        return createToken(null, username, refreshExpiration);
+    }
+
+    /**
+     * A short-lived token for {@code EventSource}, which cannot send an {@code Authorization} header.
+     * It is only checked when a stream opens, so an open stream outlives it.
+     */
+    public String generateStreamToken(UserPrincipal userPrincipal) {
+        Map<String, Object> claims = Map.of(
+                CLAIM_USER_ID, userPrincipal.getId(),
+                CLAIM_ROLES, userPrincipal.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toList()),
+                CLAIM_TOKEN_VERSION, TOKEN_VERSION,
+                CLAIM_SCOPE, STREAM_SCOPE);
+        return createToken(claims, userPrincipal.getUsername(), streamTokenExpiration);
+    }
+
+    public long getStreamTokenExpiration() {
+        return streamTokenExpiration;
     }
 
     private String createToken(Map<String, Object> claims, String subject, long expiration) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+        long now = System.currentTimeMillis();
 
-        return Jwts.builder()
-                .setClaims(claims)
+        JwtBuilder builder = Jwts.builder();
+        if (claims != null) {
+            builder.addClaims(claims);
+        }
+        return builder
                 .setSubject(subject)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .signWith(getSigningKey(), signatureAlgorithm)
                 .compact();
     }
 
@@ -95,12 +153,33 @@ public class JwtTokenProvider {
         return claimsResolver.apply(claims);
     }
 
+    // Verifies signature and expiry; throws JwtException for invalid or expired tokens
+    public Claims parseToken(String token) {
+        return getAllClaimsFromToken(token);
+    }
+
+    public boolean isStreamToken(Claims claims) {
+        return STREAM_SCOPE.equals(claims.get(CLAIM_SCOPE));
+    }
+
+    public boolean hasPrincipalClaims(Claims claims) {
+        Integer version = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+        return version != null && version == TOKEN_VERSION
+                && claims.get(CLAIM_USER_ID) != null
+                && claims.get(CLAIM_ROLES) instanceof List;
+    }
+
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        Long userId = ((Number) claims.get(CLAIM_USER_ID)).longValue();
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        Collection<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+        return UserPrincipal.create(userId, claims.getSubject(), authorities);
+    }
+
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
@@ -108,6 +187,12 @@ public class JwtTokenProvider {
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
 
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && userDetails.isEnabled()
+                && !claims.getExpiration().before(new Date());
+    }
+
     private boolean isTokenExpired(String token) {
         final Date expiration = getExpirationDateFromToken(token);
         return expiration.before(new Date());
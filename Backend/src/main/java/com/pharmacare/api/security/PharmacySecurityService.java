@@ -0,0 +1,107 @@
+package com.pharmacare.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.model.PharmacyStaff;
+import com.pharmacare.api.repository.PharmacyStaffRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Answers the pharmacy membership checks used by {@code @PreAuthorize} expressions and controllers.
+ * Staff roles are cached per user and evicted on every node when a {@code PharmacyStaff} row changes.
+ */
+@Service
+public class PharmacySecurityService {
+
+    public static final String EVICTION_CHANNEL = "pharmacare:membership-evictions";
+
+    private static final Set<PharmacyStaff.StaffRole> ADMIN_ROLES =
+            EnumSet.of(PharmacyStaff.StaffRole.OWNER, PharmacyStaff.StaffRole.ADMIN);
+
+    private final PharmacyStaffRepository pharmacyStaffRepository;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+
+    // userId -> (pharmacyId -> active staff role, empty when the user is not a member)
+    private final Cache<Long, ConcurrentMap<Long, Optional<PharmacyStaff.StaffRole>>> memberships;
+    private ClusterBroadcaster.Channel<Long> evictions;
+
+    public PharmacySecurityService(PharmacyStaffRepository pharmacyStaffRepository,
+                                   ClusterBroadcaster broadcaster,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${security.membership-cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${security.membership-cache.ttl:10m}") Duration ttl) {
+        this.pharmacyStaffRepository = pharmacyStaffRepository;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.memberships = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, memberships, "pharmacyMemberships");
+        evictions = broadcaster.evictionChannel(EVICTION_CHANNEL, Long.class, memberships::invalidate);
+    }
+
+    public boolean isPharmacyMember(Long pharmacyId, Object principal) {
+        return getStaffRole(getUserId(principal), pharmacyId).isPresent();
+    }
+
+    public boolean isPharmacyAdmin(Long pharmacyId, Object principal) {
+        return getStaffRole(getUserId(principal), pharmacyId)
+                .map(ADMIN_ROLES::contains)
+                .orElse(false);
+    }
+
+    public Optional<PharmacyStaff.StaffRole> getStaffRole(Long userId, Long pharmacyId) {
+        if (userId == null || pharmacyId == null) {
+            return Optional.empty();
+        }
+        return memberships.get(userId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(pharmacyId, id -> loadStaffRole(userId, id));
+    }
+
+    private Optional<PharmacyStaff.StaffRole> loadStaffRole(Long userId, Long pharmacyId) {
+        List<PharmacyStaff.StaffRole> roles = pharmacyStaffRepository.findActiveRoles(userId, pharmacyId);
+        // Duplicate assignments are tolerated; the most privileged one wins
+        return roles.stream()
+                .filter(ADMIN_ROLES::contains)
+                .findFirst()
+                .or(() -> roles.stream().findFirst());
+    }
+
+    // Evicts after the surrounding transaction commits so readers cannot re-cache the old row
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictions.publishAfterCommit(userId, userId);
+    }
+
+    private Long getUserId(Object principal) {
+        if (principal instanceof com.pharmacare.api.security.oauth2.UserPrincipal userPrincipal) {
+            return userPrincipal.getId();
+        }
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return userPrincipal.getId();
+        }
+        return null;
+    }
+}
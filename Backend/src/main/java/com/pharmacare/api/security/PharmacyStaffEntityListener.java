@@ -0,0 +1,29 @@
+package com.pharmacare.api.security;
+
+import com.pharmacare.api.model.PharmacyStaff;
+import com.pharmacare.api.service.PharmacyService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class PharmacyStaffEntityListener {
+
+    // Resolved lazily: Hibernate creates entity listeners while the repositories are still being wired
+    private final ObjectProvider<PharmacySecurityService> pharmacySecurityService;
+    private final ObjectProvider<PharmacyService> pharmacyService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onStaffChange(PharmacyStaff staff) {
+        if (staff.getUser() != null) {
+            pharmacySecurityService.getObject().evictUser(staff.getUser().getId());
+            pharmacyService.getObject().evictUserPharmacies(staff.getUser().getId());
+        }
+    }
+}
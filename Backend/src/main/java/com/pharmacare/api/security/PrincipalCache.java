@@ -0,0 +1,66 @@
+package com.pharmacare.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-expiring near cache of authenticated principals keyed by email.
+ * Evictions are broadcast over Redis pub/sub so every node drops its copy.
+ */
+@Component
+public class PrincipalCache {
+
+    public static final String EVICTION_CHANNEL = "pharmacare:principal-evictions";
+
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Cache<String, UserDetails> cache;
+    private ClusterBroadcaster.Channel<String> evictions;
+
+    public PrincipalCache(ClusterBroadcaster broadcaster,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${security.principal-cache.ttl:60s}") Duration ttl) {
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+        evictions = broadcaster.evictionChannel(EVICTION_CHANNEL, String.class, cache::invalidate);
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+        return cache.get(email, loader);
+    }
+
+    // Drops the local entry and tells the other nodes to do the same
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        evictions.publish(email);
+    }
+}
@@ -3,6 +3,8 @@ package com.pharmacare.api.security.oauth2;
 import com.pharmacare.api.exception.OAuth2AuthenticationProcessingException;
 import com.pharmacare.api.model.User;
 import com.pharmacare.api.repository.UserRepository;
+import com.pharmacare.api.security.PrincipalCache;
+import com.pharmacare.api.service.UserProfileService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.AuthenticationException;
@@ -20,6 +22,8 @@ import java.util.Optional;
 public class OAuth2UserService extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final UserProfileService userProfileService;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -76,6 +80,9 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
         existingUser.setLastName(oAuth2UserInfo.getLastName());
         existingUser.setImageUrl(oAuth2UserInfo.getImageUrl());
         
-        return userRepository.save(existingUser);
+        User updatedUser = userRepository.save(existingUser);
+        principalCache.evict(updatedUser.getEmail());
+        userProfileService.evictProfile(updatedUser.getId());
+        return updatedUser;
     }
 } 
\ No newline at end of file
@@ -43,6 +43,20 @@ public class UserPrincipal implements OAuth2User, UserDetails {
         );
     }
 
+    // Principal rebuilt from verified token claims; name and password are not carried in the token
+    public static UserPrincipal create(Long id, String email, Collection<? extends GrantedAuthority> authorities) {
+        return new UserPrincipal(
+                id,
+                email,
+                null,
+                null,
+                null,
+                true,
+                authorities,
+                Collections.emptyMap()
+        );
+    }
+
     public static UserPrincipal create(User user, Map<String, Object> attributes) {
         UserPrincipal userPrincipal = UserPrincipal.create(user);
         userPrincipal.setAttributes(attributes);
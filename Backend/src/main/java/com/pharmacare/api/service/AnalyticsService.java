@@ -0,0 +1,66 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.CacheNames;
+import com.pharmacare.api.dto.SalesSummaryDto;
+import com.pharmacare.api.dto.UserAnalyticsDto;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.repository.DailySalesRollupRepository;
+import com.pharmacare.api.repository.MedicationRepository;
+import com.pharmacare.api.repository.ReminderRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Counts behind the analytics endpoints, cached in Redis. A user's counts are one entry keyed by user
+ * id, evicted by medication and reminder writes; the TTL moves the seven-day window along. Sales
+ * summaries are keyed by pharmacy and date range and only expire, since every bill would evict them.
+ */
+@Service
+public class AnalyticsService {
+
+    private final MedicationRepository medicationRepository;
+    private final ReminderRepository reminderRepository;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+
+    public AnalyticsService(MedicationRepository medicationRepository,
+                            ReminderRepository reminderRepository,
+                            DailySalesRollupRepository dailySalesRollupRepository) {
+        this.medicationRepository = medicationRepository;
+        this.reminderRepository = reminderRepository;
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+    }
+
+    @Cacheable(cacheNames = CacheNames.USER_ANALYTICS, key = "#userId", sync = true)
+    @Transactional(readOnly = true)
+    public UserAnalyticsDto getUserAnalytics(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sevenDaysAgo = now.minusDays(7);
+        // Bounded at now, so reminders generated for the days ahead do not lower adherence
+        return UserAnalyticsDto.builder()
+                .activeMedicationsCount(medicationRepository.countByUserIdAndActiveTrue(userId))
+                .inactiveMedicationsCount(medicationRepository.countByUserIdAndActiveFalse(userId))
+                .pendingRemindersCount(reminderRepository.countPending(userId, now))
+                .recentRemindersCount(reminderRepository.countByMedicationUserIdAndReminderTimeBetween(userId, sevenDaysAgo, now))
+                .recentCompletedRemindersCount(
+                        reminderRepository.countByMedicationUserIdAndCompletedTrueAndReminderTimeBetween(userId, sevenDaysAgo, now))
+                .build();
+    }
+
+    @CacheEvict(cacheNames = CacheNames.USER_ANALYTICS, key = "#userId")
+    public void evictUserAnalytics(Long userId) {
+    }
+
+    /** Paid sales of the pharmacy from {@code startDate} through {@code endDate}. */
+    @Cacheable(cacheNames = CacheNames.SALES_SUMMARIES, key = "#pharmacyId + ':' + #startDate + ':' + #endDate", sync = true)
+    @Transactional(readOnly = true)
+    public SalesSummaryDto getSalesSummary(Long pharmacyId, LocalDate startDate, LocalDate endDate) {
+        DailySalesRollupRepository.SalesTotals totals = dailySalesRollupRepository.sumTotals(
+                pharmacyId, Bill.PaymentStatus.PAID, startDate, endDate);
+        return new SalesSummaryDto(totals.getTotalAmount(), totals.getBillCount());
+    }
+}
@@ -0,0 +1,211 @@
+package com.pharmacare.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.exception.InsufficientStockException;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * First-expiry-first-out dispensing. Bill lines that name a medication and strength instead of an
+ * inventory row are split across the pharmacy's active, unexpired batches, earliest expiry first,
+ * using a per-pharmacy {@link InventoryBatchIndex}. Units are taken from the index atomically, so
+ * concurrent checkouts on this node draw on different stock; the reservation that follows locks the
+ * chosen rows and has the final say. Units go back to the index when the bill is rejected or its
+ * transaction rolls back, and committed inventory changes are applied by {@link InventoryEntityListener}.
+ */
+@Service
+public class BatchAllocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchAllocationService.class);
+
+    public static final String EVICTION_CHANNEL = "pharmacare:inventory-batch-evictions";
+
+    private final InventoryRepository inventoryRepository;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Long, InventoryBatchIndex> indexes;
+    private ClusterBroadcaster.Channel<BatchUpdate> updates;
+    private ClusterBroadcaster.Channel<Long> evictions;
+
+    public BatchAllocationService(InventoryRepository inventoryRepository,
+                                  ClusterBroadcaster broadcaster,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventory.batch-index.maximum-size:1000}") long maximumSize,
+                                  @Value("${inventory.batch-index.ttl:10m}") Duration ttl) {
+        this.inventoryRepository = inventoryRepository;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        // Stock sold on other nodes is only seen here once the index is rebuilt, so keep it short-lived;
+        // counted from the build, since the updates applied in place would otherwise keep it alive
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAfterBuild<Long, InventoryBatchIndex>(ttl))
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "inventoryBatchIndexes");
+        updates = broadcaster.localChannel(this::apply);
+        evictions = broadcaster.evictionChannel(EVICTION_CHANNEL, Long.class, indexes::invalidate);
+    }
+
+    /**
+     * Resolves every line of a bill to inventory rows; lines that already name a row are kept as they
+     * are. Throws {@link InsufficientStockException} without taking anything when a product cannot be
+     * covered. Must run in the transaction that reserves the returned lines.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = InsufficientStockException.class)
+    public Allocation allocate(Long pharmacyId, List<CreateBillItemDto> items) {
+        List<CreateBillItemDto> lines = new ArrayList<>(items.size());
+        Map<Long, Integer> taken = new HashMap<>();
+        InventoryBatchIndex index = null;
+        LocalDate today = LocalDate.now();
+
+        for (CreateBillItemDto item : items) {
+            if (item.getInventoryId() != null) {
+                lines.add(item);
+                continue;
+            }
+            if (index == null) {
+                index = indexes.get(pharmacyId, this::build);
+            }
+            Map<Long, Integer> batches = index.take(item.getMedicationName(), item.getStrength(), item.getQuantity(), today);
+            if (batches == null) {
+                index.giveBack(taken);
+                throw new InsufficientStockException("Insufficient stock for item: " + describe(item) +
+                        " (Requested: " + item.getQuantity() + ")");
+            }
+            batches.forEach((inventoryId, units) -> {
+                lines.add(new CreateBillItemDto(inventoryId, units, null, null));
+                taken.merge(inventoryId, units, Integer::sum);
+            });
+        }
+
+        Allocation allocation = new Allocation(lines, index, taken);
+        if (index != null) {
+            // Committed bills keep their units; the entity listener then sets the committed stock
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        allocation.release();
+                    }
+                }
+            });
+        }
+        return allocation;
+    }
+
+    /** Drops the pharmacy's index after the database disagreed with it; the next allocation rebuilds it. */
+    public void invalidate(Long pharmacyId) {
+        indexes.invalidate(pharmacyId);
+    }
+
+    /**
+     * Drops the pharmacy's index on every node once the surrounding transaction commits, for changes
+     * made by bulk updates that the entity listener does not see.
+     */
+    public void evictPharmacy(Long pharmacyId) {
+        evictions.publishAfterCommit(pharmacyId, pharmacyId);
+    }
+
+    /** Queues the row's stock for the index; applied when the surrounding transaction commits. */
+    public void onInventorySaved(Inventory inventory) {
+        updates.publishAfterCommit(inventory.getId(), new BatchUpdate(inventory.getPharmacy().getId(), inventory.getId(),
+                inventory.getMedicationName(), inventory.getStrength(), inventory.getExpiryDate(),
+                inventory.isActive() ? inventory.getQuantity() : 0));
+    }
+
+    public void onInventoryRemoved(Inventory inventory) {
+        updates.publishAfterCommit(inventory.getId(),
+                new BatchUpdate(inventory.getPharmacy().getId(), inventory.getId(), null, null, null, -1));
+    }
+
+    private InventoryBatchIndex build(Long pharmacyId) {
+        InventoryBatchIndex index = new InventoryBatchIndex();
+        for (InventoryRepository.AllocatableBatch batch : inventoryRepository.findAllocatableByPharmacyId(pharmacyId)) {
+            index.put(batch.getId(), batch.getMedicationName(), batch.getStrength(), batch.getExpiryDate(), batch.getQuantity());
+        }
+        logger.debug("Built batch index for pharmacy {} with {} batches", pharmacyId, index.size());
+        return index;
+    }
+
+    // Overwrites units other open transactions have taken from the row; if that makes the index
+    // optimistic, the reservation notices and the index is rebuilt
+    private void apply(BatchUpdate update) {
+        indexes.asMap().computeIfPresent(update.pharmacyId(), (pharmacyId, index) -> {
+            if (update.available() < 0) {
+                index.remove(update.inventoryId());
+            } else {
+                index.put(update.inventoryId(), update.medicationName(), update.strength(), update.expiryDate(),
+                        update.available());
+            }
+            return index;
+        });
+    }
+
+    private static String describe(CreateBillItemDto item) {
+        return item.getStrength() == null || item.getStrength().isBlank()
+                ? item.getMedicationName()
+                : item.getMedicationName() + " " + item.getStrength();
+    }
+
+    private record BatchUpdate(Long pharmacyId, Long inventoryId, String medicationName, String strength,
+                               LocalDate expiryDate, int available) {
+    }
+
+    /** Bill lines resolved to inventory rows, holding the units taken from the batch index. */
+    public static final class Allocation {
+
+        private final List<CreateBillItemDto> lines;
+        private final InventoryBatchIndex index;
+        private final Map<Long, Integer> taken;
+        private boolean released;
+
+        private Allocation(List<CreateBillItemDto> lines, InventoryBatchIndex index, Map<Long, Integer> taken) {
+            this.lines = lines;
+            this.index = index;
+            this.taken = taken;
+        }
+
+        public List<CreateBillItemDto> getLines() {
+            return lines;
+        }
+
+        /** Whether any line was placed by the batch index rather than named by the caller. */
+        public boolean isFromIndex() {
+            return index != null;
+        }
+
+        /** Returns the taken units to the index; safe to call more than once. */
+        public synchronized void release() {
+            if (!released && index != null) {
+                released = true;
+                index.giveBack(taken);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.BillBatchResponseDto;
+import com.pharmacare.api.dto.BillBatchResultDto;
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.dto.CreateBillRequestDto;
+import com.pharmacare.api.exception.InsufficientStockException;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.BillRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import com.pharmacare.api.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many bills in one transaction for counters that sync offline sales. Lines given by
+ * medication name are first allocated to batches, then all referenced pharmacies, customers and
+ * inventory rows are loaded up front, stock is checked bill by bill
+ * against the locked rows in memory, and accepted bills are flushed as JDBC insert batches.
+ * A bill that fails validation or stock checks is reported and skipped; the rest are still created.
+ */
+@Service
+public class BillBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillBatchService.class);
+
+    private final BillingService billingService;
+    private final InventoryReservationService inventoryReservationService;
+    private final BatchAllocationService batchAllocationService;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final DemandForecastService demandForecastService;
+    private final BillRepository billRepository;
+    private final PharmacyRepository pharmacyRepository;
+    private final UserRepository userRepository;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final int maxBatchSize;
+    private final int flushSize;
+
+    public BillBatchService(BillingService billingService,
+                            InventoryReservationService inventoryReservationService,
+                            BatchAllocationService batchAllocationService,
+                            DailySalesRollupService dailySalesRollupService,
+                            DemandForecastService demandForecastService,
+                            BillRepository billRepository,
+                            PharmacyRepository pharmacyRepository,
+                            UserRepository userRepository,
+                            Validator validator,
+                            EntityManager entityManager,
+                            @Value("${billing.batch.max-size:1000}") int maxBatchSize,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int flushSize) {
+        this.billingService = billingService;
+        this.inventoryReservationService = inventoryReservationService;
+        this.batchAllocationService = batchAllocationService;
+        this.dailySalesRollupService = dailySalesRollupService;
+        this.demandForecastService = demandForecastService;
+        this.billRepository = billRepository;
+        this.pharmacyRepository = pharmacyRepository;
+        this.userRepository = userRepository;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.maxBatchSize = maxBatchSize;
+        this.flushSize = flushSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Transactional
+    public BillBatchResponseDto createBills(List<CreateBillRequestDto> requests, Long createdByUserId) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + maxBatchSize + " bills");
+        }
+
+        User createdBy = userRepository.findById(createdByUserId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", createdByUserId));
+
+        String[] violations = new String[requests.size()];
+        BatchAllocationService.Allocation[] allocations = new BatchAllocationService.Allocation[requests.size()];
+        Set<Long> pharmacyIds = new HashSet<>();
+        Set<Long> customerIds = new HashSet<>();
+        Set<Long> inventoryIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateBillRequestDto request = requests.get(i);
+            violations[i] = validate(request);
+            if (violations[i] != null) {
+                continue;
+            }
+            try {
+                allocations[i] = batchAllocationService.allocate(request.getPharmacyId(), request.getItems());
+            } catch (InsufficientStockException e) {
+                violations[i] = e.getMessage();
+                continue;
+            }
+            pharmacyIds.add(request.getPharmacyId());
+            if (request.getCustomerId() != null) {
+                customerIds.add(request.getCustomerId());
+            }
+            for (CreateBillItemDto item : allocations[i].getLines()) {
+                inventoryIds.add(item.getInventoryId());
+            }
+        }
+
+        Map<Long, Pharmacy> pharmacies = new HashMap<>();
+        pharmacyRepository.findAllById(pharmacyIds).forEach(pharmacy -> pharmacies.put(pharmacy.getId(), pharmacy));
+        Map<Long, User> customers = new HashMap<>();
+        userRepository.findAllById(customerIds).forEach(customer -> customers.put(customer.getId(), customer));
+        Map<Long, Inventory> lockedInventory = inventoryReservationService.lockAll(inventoryIds);
+
+        List<BillBatchResultDto> results = new ArrayList<>(requests.size());
+        List<Bill> unflushed = new ArrayList<>(flushSize);
+        List<Bill> createdBills = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (violations[i] != null) {
+                results.add(rejected(i, violations[i]));
+                continue;
+            }
+            try {
+                Bill bill = createBill(requests.get(i), allocations[i].getLines(), pharmacies, customers, createdBy,
+                        lockedInventory);
+                results.add(BillBatchResultDto.builder()
+                        .index(i)
+                        .status(BillBatchResultDto.Status.CREATED)
+                        .billId(bill.getId())
+                        .billNumber(bill.getBillNumber())
+                        .totalAmount(bill.getTotalAmount())
+                        .build());
+                createdBills.add(bill);
+                unflushed.add(bill);
+            } catch (ResourceNotFoundException | InsufficientStockException | IllegalArgumentException e) {
+                // The transaction still commits, so units taken for a rejected bill go back right away
+                allocations[i].release();
+                if (e instanceof InsufficientStockException && allocations[i].isFromIndex()) {
+                    batchAllocationService.invalidate(requests.get(i).getPharmacyId());
+                }
+                results.add(rejected(i, e.getMessage()));
+            }
+            if (unflushed.size() >= flushSize) {
+                flush(unflushed);
+            }
+        }
+        flush(unflushed);
+        dailySalesRollupService.record(createdBills);
+        demandForecastService.record(createdBills);
+
+        int created = createdBills.size();
+        logger.info("Created {} of {} bills in batch submitted by user {}", created, requests.size(), createdByUserId);
+        return BillBatchResponseDto.builder()
+                .created(created)
+                .rejected(requests.size() - created)
+                .results(results)
+                .build();
+    }
+
+    private Bill createBill(CreateBillRequestDto request, List<CreateBillItemDto> lines, Map<Long, Pharmacy> pharmacies,
+                            Map<Long, User> customers, User createdBy, Map<Long, Inventory> lockedInventory) {
+        Pharmacy pharmacy = pharmacies.get(request.getPharmacyId());
+        if (pharmacy == null) {
+            throw new ResourceNotFoundException("Pharmacy", "id", request.getPharmacyId());
+        }
+
+        User customer = null;
+        if (request.getCustomerId() != null) {
+            customer = customers.get(request.getCustomerId());
+            if (customer == null) {
+                throw new ResourceNotFoundException("Customer User", "id", request.getCustomerId());
+            }
+        }
+        if (customer == null && (request.getCustomerName() == null || request.getCustomerName().isBlank())) {
+            throw new IllegalArgumentException("Customer name is required if customer ID is not provided.");
+        }
+
+        inventoryReservationService.reserveLocked(pharmacy.getId(), lines, lockedInventory);
+        return billRepository.save(billingService.buildBill(request, lines, pharmacy, customer, createdBy, lockedInventory));
+    }
+
+    // Writes pending bills and stock changes as JDBC batches, then detaches the bills so dirty
+    // checking stays cheap; the locked inventory rows stay managed for the rest of the batch.
+    private void flush(List<Bill> unflushed) {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        unflushed.forEach(entityManager::detach);
+        unflushed.clear();
+    }
+
+    private String validate(CreateBillRequestDto request) {
+        if (request == null) {
+            return "Bill cannot be null";
+        }
+        Set<ConstraintViolation<CreateBillRequestDto>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private BillBatchResultDto rejected(int index, String message) {
+        return BillBatchResultDto.builder()
+                .index(index)
+                .status(BillBatchResultDto.Status.REJECTED)
+                .message(message)
+                .build();
+    }
+}
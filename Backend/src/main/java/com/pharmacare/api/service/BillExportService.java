@@ -0,0 +1,198 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.BillItem;
+import com.pharmacare.api.repository.BillItemRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes every line item of a pharmacy's bills in a date range as CSV or NDJSON, one row per item
+ * with its bill's fields repeated. Rows are read through a forward-only cursor and the persistence
+ * context is cleared every few hundred rows, so memory use does not depend on the size of the export.
+ */
+@Service
+public class BillExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillExportService.class);
+
+    private static final String[] COLUMNS = {
+            "billNumber", "billDate", "customerName", "customerPhone", "paymentMethod", "paymentStatus",
+            "billSubtotal", "billTaxAmount", "billDiscountAmount", "billTotalAmount",
+            "itemId", "inventoryId", "itemName", "quantity", "unitPrice",
+            "itemSubtotal", "itemDiscountAmount", "itemTaxAmount", "itemTotalAmount"
+    };
+
+    private final BillItemRepository billItemRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int clearInterval;
+
+    public BillExportService(BillItemRepository billItemRepository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             @Value("${billing.export.clear-interval:500}") int clearInterval) {
+        this.billItemRepository = billItemRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.clearInterval = clearInterval;
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Streams the rows to {@code out} and returns how many were written. {@code to} is exclusive.
+     * The output stream is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(Long pharmacyId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long rows = 0;
+        try (Stream<BillItem> items = billItemRepository.streamForExport(pharmacyId, from, to)) {
+            Iterator<BillItem> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                BillItem item = iterator.next();
+                writer.write(item.getBill(), item);
+                if (++rows % clearInterval == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.finish();
+        logger.info("Exported {} bill item rows for pharmacy {} as {}", rows, pharmacyId, format);
+        return rows;
+    }
+
+    private interface RowWriter {
+        void write(Bill bill, BillItem item) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Bill bill, BillItem item) throws IOException {
+            field(bill.getBillNumber()).separator();
+            field(bill.getBillDate()).separator();
+            field(bill.getCustomerName()).separator();
+            field(bill.getCustomerPhone()).separator();
+            field(bill.getPaymentMethod()).separator();
+            field(bill.getPaymentStatus()).separator();
+            field(bill.getSubtotal()).separator();
+            field(bill.getTaxAmount()).separator();
+            field(bill.getDiscountAmount()).separator();
+            field(bill.getTotalAmount()).separator();
+            field(item.getId()).separator();
+            field(item.getInventory() != null ? item.getInventory().getId() : null).separator();
+            field(item.getItemName()).separator();
+            field(item.getQuantity()).separator();
+            field(item.getUnitPrice()).separator();
+            field(item.getSubtotal()).separator();
+            field(item.getDiscountAmount()).separator();
+            field(item.getTaxAmount()).separator();
+            field(item.getTotalAmount());
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private CsvRowWriter separator() throws IOException {
+            writer.write(',');
+            return this;
+        }
+
+        // RFC 4180 quoting; amounts are written in plain notation so spreadsheets do not reformat them
+        private CsvRowWriter field(Object value) throws IOException {
+            if (value == null) {
+                return this;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+            } else {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            }
+            return this;
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Bill bill, BillItem item) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("billNumber", bill.getBillNumber());
+            generator.writeStringField("billDate", bill.getBillDate().toString());
+            generator.writeStringField("customerName", bill.getCustomerName());
+            generator.writeStringField("customerPhone", bill.getCustomerPhone());
+            generator.writeStringField("paymentMethod", bill.getPaymentMethod().name());
+            generator.writeStringField("paymentStatus", bill.getPaymentStatus().name());
+            generator.writeNumberField("billSubtotal", bill.getSubtotal());
+            generator.writeNumberField("billTaxAmount", bill.getTaxAmount());
+            generator.writeNumberField("billDiscountAmount", bill.getDiscountAmount());
+            generator.writeNumberField("billTotalAmount", bill.getTotalAmount());
+            generator.writeNumberField("itemId", item.getId());
+            if (item.getInventory() != null) {
+                generator.writeNumberField("inventoryId", item.getInventory().getId());
+            } else {
+                generator.writeNullField("inventoryId");
+            }
+            generator.writeStringField("itemName", item.getItemName());
+            generator.writeNumberField("quantity", item.getQuantity());
+            generator.writeNumberField("unitPrice", item.getUnitPrice());
+            generator.writeNumberField("itemSubtotal", item.getSubtotal());
+            generator.writeNumberField("itemDiscountAmount", item.getDiscountAmount());
+            generator.writeNumberField("itemTaxAmount", item.getTaxAmount());
+            generator.writeNumberField("itemTotalAmount", item.getTotalAmount());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.BillIdempotencyKey;
+import com.pharmacare.api.repository.BillIdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Remembers which bill was created for a client-supplied idempotency key. Redis answers
+ * retries quickly and guards against concurrent duplicates; the {@code bill_idempotency_keys}
+ * table, written in the same transaction as the bill, is the authoritative fallback.
+ */
+@Service
+public class BillIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillIdempotencyService.class);
+
+    private static final String KEY_PREFIX = "pharmacare:idempotency:bill:";
+    private static final String PENDING = "pending";
+
+    private final StringRedisTemplate redisTemplate;
+    private final BillIdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+
+    public BillIdempotencyService(StringRedisTemplate redisTemplate,
+                                  BillIdempotencyKeyRepository idempotencyKeyRepository,
+                                  @Value("${billing.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${billing.idempotency.pending-ttl:30s}") Duration pendingTtl) {
+        this.redisTemplate = redisTemplate;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    public Optional<Long> findBillId(Long pharmacyId, String idempotencyKey) {
+        try {
+            String value = redisTemplate.opsForValue().get(redisKey(pharmacyId, idempotencyKey));
+            if (value != null && !PENDING.equals(value)) {
+                return Optional.of(Long.valueOf(value));
+            }
+        } catch (Exception e) {
+            logger.warn("Idempotency lookup in Redis failed, falling back to database: {}", e.getMessage());
+        }
+        return idempotencyKeyRepository.findByPharmacyIdAndIdempotencyKey(pharmacyId, idempotencyKey)
+                .map(BillIdempotencyKey::getBillId);
+    }
+
+    // Returns false while another request with the same key is still being processed
+    public boolean tryClaim(Long pharmacyId, String idempotencyKey) {
+        try {
+            Boolean claimed = redisTemplate.opsForValue()
+                    .setIfAbsent(redisKey(pharmacyId, idempotencyKey), PENDING, pendingTtl);
+            return !Boolean.FALSE.equals(claimed);
+        } catch (Exception e) {
+            // The unique key in the database still rejects a concurrent duplicate
+            logger.warn("Could not claim idempotency key in Redis: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    public void remember(Long pharmacyId, String idempotencyKey, Long billId) {
+        try {
+            redisTemplate.opsForValue().set(redisKey(pharmacyId, idempotencyKey), String.valueOf(billId), ttl);
+        } catch (Exception e) {
+            logger.warn("Could not store idempotency key in Redis: {}", e.getMessage());
+        }
+    }
+
+    public void release(Long pharmacyId, String idempotencyKey) {
+        try {
+            String key = redisKey(pharmacyId, idempotencyKey);
+            if (PENDING.equals(redisTemplate.opsForValue().get(key))) {
+                redisTemplate.delete(key);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not release idempotency key in Redis: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.idempotency.purge-interval:PT1H}")
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            logger.info("Purged {} expired bill idempotency keys", deleted);
+        }
+    }
+
+    private String redisKey(Long pharmacyId, String idempotencyKey) {
+        return KEY_PREFIX + pharmacyId + ":" + idempotencyKey;
+    }
+}
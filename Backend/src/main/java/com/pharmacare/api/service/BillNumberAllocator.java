@@ -0,0 +1,91 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.BillNumberSequence;
+import com.pharmacare.api.repository.BillNumberSequenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out per-pharmacy bill numbers from blocks reserved in {@code bill_number_sequences}.
+ * Each node reserves a block in its own short transaction and then numbers bills from memory,
+ * so numbers never collide and only one database round trip is needed per block.
+ * Numbers left in a block when a node stops are skipped.
+ *
+ * <p>Numbers increase on each node, but not across nodes: two nodes number from their own blocks
+ * at the same time, so a bill from node A can get 51 after node B has issued 101. Bill numbers
+ * therefore do not give the order bills were created in; sort by {@code billDate} or id for that.
+ * A block size of 1 makes numbers increase across nodes too, at one round trip per bill.
+ */
+@Service
+public class BillNumberAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillNumberAllocator.class);
+
+    private final BillNumberSequenceRepository sequenceRepository;
+    private final TransactionTemplate requiresNewTransaction;
+    private final int blockSize;
+    private final ConcurrentMap<Long, Block> blocks = new ConcurrentHashMap<>();
+
+    public BillNumberAllocator(BillNumberSequenceRepository sequenceRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${billing.bill-number.block-size:50}") int blockSize) {
+        this.sequenceRepository = sequenceRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public String nextBillNumber(Long pharmacyId) {
+        return String.format("BILL-%d-%06d", pharmacyId, nextValue(pharmacyId));
+    }
+
+    private long nextValue(Long pharmacyId) {
+        Block block = blocks.computeIfAbsent(pharmacyId, id -> new Block());
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                long start = reserveBlock(pharmacyId);
+                block.next = start;
+                block.limit = start + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserveBlock(Long pharmacyId) {
+        try {
+            return requiresNewTransaction.execute(status -> doReserveBlock(pharmacyId));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the sequence row first; the row exists now, so lock and use it
+            logger.debug("Bill number sequence for pharmacy {} was created concurrently, retrying", pharmacyId);
+            return requiresNewTransaction.execute(status -> doReserveBlock(pharmacyId));
+        }
+    }
+
+    private long doReserveBlock(Long pharmacyId) {
+        Optional<BillNumberSequence> existing = sequenceRepository.findByIdForUpdate(pharmacyId);
+        if (existing.isEmpty()) {
+            sequenceRepository.insert(pharmacyId, 1L + blockSize);
+            return 1L;
+        }
+        BillNumberSequence sequence = existing.get();
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        sequenceRepository.saveAndFlush(sequence);
+        return start;
+    }
+
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
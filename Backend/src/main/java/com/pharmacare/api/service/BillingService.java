@@ -0,0 +1,313 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.BillDto;
+import com.pharmacare.api.dto.BillItemDto;
+import com.pharmacare.api.dto.BillPageDto;
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.dto.CreateBillRequestDto;
+import com.pharmacare.api.exception.InsufficientStockException;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.BillIdempotencyKey;
+import com.pharmacare.api.model.BillItem;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.BillIdempotencyKeyRepository;
+import com.pharmacare.api.repository.BillRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import com.pharmacare.api.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BillingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingService.class);
+
+    // Stand-ins for open-ended filters so the keyset query never needs null checks
+    private static final LocalDateTime EARLIEST_BILL_DATE = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_BILL_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CURSOR_SEPARATOR = "~";
+
+    private final BillRepository billRepository;
+    private final PharmacyRepository pharmacyRepository;
+    private final UserRepository userRepository;
+    private final BillIdempotencyKeyRepository idempotencyKeyRepository;
+    private final InventoryReservationService inventoryReservationService;
+    private final BatchAllocationService batchAllocationService;
+    private final BillNumberAllocator billNumberAllocator;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final DemandForecastService demandForecastService;
+
+    /**
+     * Creates the bill and decrements stock in one transaction. When an idempotency key is given
+     * it is inserted first, so a concurrent duplicate fails on the unique key before touching stock.
+     */
+    @Transactional
+    public BillDto createBill(CreateBillRequestDto requestDto, Long createdByUserId, String idempotencyKey) {
+        Pharmacy pharmacy = pharmacyRepository.findById(requestDto.getPharmacyId())
+                .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", requestDto.getPharmacyId()));
+
+        BillIdempotencyKey keyRecord = null;
+        if (idempotencyKey != null) {
+            keyRecord = idempotencyKeyRepository.saveAndFlush(BillIdempotencyKey.builder()
+                    .pharmacyId(pharmacy.getId())
+                    .idempotencyKey(idempotencyKey)
+                    .build());
+        }
+
+        User createdBy = userRepository.findById(createdByUserId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", createdByUserId));
+
+        User customer = null;
+        if (requestDto.getCustomerId() != null) {
+            customer = userRepository.findById(requestDto.getCustomerId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Customer User", "id", requestDto.getCustomerId()));
+        }
+        if (customer == null && (requestDto.getCustomerName() == null || requestDto.getCustomerName().isBlank())) {
+            throw new IllegalArgumentException("Customer name is required if customer ID is not provided.");
+        }
+
+        BatchAllocationService.Allocation allocation = batchAllocationService.allocate(pharmacy.getId(), requestDto.getItems());
+        Map<Long, Inventory> reservedInventory;
+        try {
+            reservedInventory = inventoryReservationService.reserve(pharmacy.getId(), allocation.getLines());
+        } catch (InsufficientStockException e) {
+            if (!allocation.isFromIndex()) {
+                throw e;
+            }
+            // The batch index may be behind stock sold on another node; rebuild it and allocate once more
+            allocation.release();
+            batchAllocationService.invalidate(pharmacy.getId());
+            allocation = batchAllocationService.allocate(pharmacy.getId(), requestDto.getItems());
+            reservedInventory = inventoryReservationService.reserve(pharmacy.getId(), allocation.getLines());
+        }
+
+        Bill bill = buildBill(requestDto, allocation.getLines(), pharmacy, customer, createdBy, reservedInventory);
+
+        Bill savedBill = billRepository.save(bill);
+        dailySalesRollupService.record(List.of(savedBill));
+        demandForecastService.record(List.of(savedBill));
+        if (keyRecord != null) {
+            keyRecord.setBillId(savedBill.getId());
+        }
+        logger.info("Successfully created bill with ID: {} and Number: {}", savedBill.getId(), savedBill.getBillNumber());
+
+        return toDto(savedBill);
+    }
+
+    /**
+     * Prices the allocated lines against the reserved inventory rows and assembles an unsaved bill with
+     * its items. Shared with {@link BillBatchService} so single and bulk bills are totalled the same way.
+     */
+    Bill buildBill(CreateBillRequestDto requestDto, List<CreateBillItemDto> lines, Pharmacy pharmacy, User customer,
+                   User createdBy, Map<Long, Inventory> reservedInventory) {
+        List<BillItem> billItems = new ArrayList<>();
+        BigDecimal calculatedSubtotal = BigDecimal.ZERO;
+        BigDecimal calculatedTotalTax = Optional.ofNullable(requestDto.getTaxAmount()).orElse(BigDecimal.ZERO);
+        BigDecimal calculatedDiscount = Optional.ofNullable(requestDto.getDiscountAmount()).orElse(BigDecimal.ZERO);
+
+        for (CreateBillItemDto itemDto : lines) {
+            Inventory inventoryItem = reservedInventory.get(itemDto.getInventoryId());
+
+            BigDecimal itemSubtotal = inventoryItem.getSellingPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity()));
+            BigDecimal itemDiscount = BigDecimal.ZERO;
+            BigDecimal itemTax = BigDecimal.ZERO;
+            BigDecimal itemTotal = itemSubtotal.subtract(itemDiscount).add(itemTax);
+
+            BillItem billItem = BillItem.builder()
+                    .inventory(inventoryItem)
+                    .itemName(inventoryItem.getMedicationName())
+                    .quantity(itemDto.getQuantity())
+                    .unitPrice(inventoryItem.getSellingPrice())
+                    .subtotal(itemSubtotal)
+                    .discountAmount(itemDiscount)
+                    .taxAmount(itemTax)
+                    .totalAmount(itemTotal)
+                    .build();
+            billItems.add(billItem);
+
+            calculatedSubtotal = calculatedSubtotal.add(itemSubtotal);
+        }
+
+        BigDecimal calculatedTotal = calculatedSubtotal.subtract(calculatedDiscount).add(calculatedTotalTax);
+
+        Bill bill = Bill.builder()
+                .billNumber(billNumberAllocator.nextBillNumber(pharmacy.getId()))
+                .pharmacy(pharmacy)
+                .customer(customer)
+                .customerName(customer != null ? (customer.getFirstName() + " " + customer.getLastName()) : requestDto.getCustomerName())
+                .customerPhone(requestDto.getCustomerPhone())
+                .customerEmail(requestDto.getCustomerEmail())
+                .billDate(LocalDateTime.now())
+                .subtotal(calculatedSubtotal)
+                .taxAmount(calculatedTotalTax)
+                .discountAmount(calculatedDiscount)
+                .totalAmount(calculatedTotal)
+                .paymentStatus(requestDto.getPaymentStatus())
+                .paymentMethod(requestDto.getPaymentMethod())
+                .createdBy(createdBy)
+                .notes(requestDto.getNotes())
+                .prescriptionReference(requestDto.getPrescriptionReference())
+                .items(billItems)
+                .build();
+
+        billItems.forEach(item -> item.setBill(bill));
+        return bill;
+    }
+
+    @Transactional(readOnly = true)
+    public BillDto getBill(Long billId) {
+        Bill bill = billRepository.findById(billId)
+                .orElseThrow(() -> new ResourceNotFoundException("Bill", "id", billId));
+        return toDto(bill);
+    }
+
+    @Transactional(readOnly = true)
+    public BillDto getBillByNumber(String billNumber) {
+        Bill bill = billRepository.findWithDetailsByBillNumber(billNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Bill", "billNumber", billNumber));
+        return toDto(bill);
+    }
+
+    /**
+     * Returns one page of a pharmacy's bills, newest first, using the (billDate, id) of the last
+     * bill as the cursor so deep pages cost the same as the first one. Any filter may be null.
+     */
+    @Transactional(readOnly = true)
+    public BillPageDto listBills(Long pharmacyId, Bill.PaymentStatus status, LocalDate from, LocalDate to,
+                                 String cursor, int limit) {
+        LocalDateTime cursorDate = LATEST_BILL_DATE;
+        long cursorId = Long.MAX_VALUE;
+        if (cursor != null) {
+            String[] parts = decodeCursor(cursor);
+            cursorDate = LocalDateTime.parse(parts[0]);
+            cursorId = Long.parseLong(parts[1]);
+        }
+
+        // One extra row tells us whether another page exists
+        List<Long> ids = billRepository.findPageIds(
+                pharmacyId,
+                status != null ? EnumSet.of(status) : EnumSet.allOf(Bill.PaymentStatus.class),
+                from != null ? from.atStartOfDay() : EARLIEST_BILL_DATE,
+                to != null ? to.plusDays(1).atStartOfDay() : LATEST_BILL_DATE,
+                cursorDate,
+                cursorId,
+                PageRequest.of(0, limit + 1));
+
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
+        }
+
+        Map<Long, Bill> billsById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            billRepository.findWithDetailsByIdIn(ids).forEach(bill -> billsById.put(bill.getId(), bill));
+        }
+        List<BillDto> bills = ids.stream()
+                .map(billsById::get)
+                .map(this::toDto)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            BillDto last = bills.get(bills.size() - 1);
+            nextCursor = encodeCursor(last.getBillDate(), last.getId());
+        }
+
+        return BillPageDto.builder()
+                .bills(bills)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static String encodeCursor(LocalDateTime billDate, Long id) {
+        String raw = billDate + CURSOR_SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(CURSOR_SEPARATOR, 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public BillDto toDto(Bill bill) {
+        List<BillItemDto> itemDtos = bill.getItems().stream()
+            .map(this::toItemDto)
+            .collect(Collectors.toList());
+
+        return BillDto.builder()
+            .id(bill.getId())
+            .billNumber(bill.getBillNumber())
+            .pharmacyId(bill.getPharmacy().getId())
+            .pharmacyName(bill.getPharmacy().getName())
+            .customerId(bill.getCustomer() != null ? bill.getCustomer().getId() : null)
+            .customerName(bill.getCustomerName())
+            .customerPhone(bill.getCustomerPhone())
+            .customerEmail(bill.getCustomerEmail())
+            .billDate(bill.getBillDate())
+            .subtotal(bill.getSubtotal())
+            .taxAmount(bill.getTaxAmount())
+            .discountAmount(bill.getDiscountAmount())
+            .totalAmount(bill.getTotalAmount())
+            .paymentStatus(bill.getPaymentStatus())
+            .paymentMethod(bill.getPaymentMethod())
+            .createdById(bill.getCreatedBy() != null ? bill.getCreatedBy().getId() : null)
+            .createdByName(bill.getCreatedBy() != null ? bill.getCreatedBy().getFirstName() + " " + bill.getCreatedBy().getLastName() : null)
+            .items(itemDtos)
+            .prescriptionReference(bill.getPrescriptionReference())
+            .notes(bill.getNotes())
+            .createdAt(bill.getCreatedAt())
+            .updatedAt(bill.getUpdatedAt())
+            .build();
+    }
+
+    private BillItemDto toItemDto(BillItem item) {
+        return BillItemDto.builder()
+            .id(item.getId())
+            .billId(item.getBill().getId())
+            .billNumber(item.getBill().getBillNumber())
+            .inventoryId(item.getInventory() != null ? item.getInventory().getId() : null)
+            .itemName(item.getItemName())
+            .quantity(item.getQuantity())
+            .unitPrice(item.getUnitPrice())
+            .subtotal(item.getSubtotal())
+            .discountAmount(item.getDiscountAmount())
+            .taxAmount(item.getTaxAmount())
+            .totalAmount(item.getTotalAmount())
+            .createdAt(item.getCreatedAt())
+            .updatedAt(item.getUpdatedAt())
+            .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.repository.BillRepository;
+import com.pharmacare.api.repository.DailySalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@code daily_sales_rollup} in step with the bills table: one row per pharmacy, day,
+ * payment method and payment status holding the bill count and total. New bills are added in
+ * the transaction that creates them; closed days are rebuilt from bills every night, and the
+ * whole history is backfilled on startup when the table is still empty.
+ */
+@Service
+public class DailySalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailySalesRollupService.class);
+
+    // Upserts are applied in key order so concurrent batches lock rollup rows in the same sequence
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::pharmacyId)
+            .thenComparing(RollupKey::salesDate)
+            .thenComparing(RollupKey::paymentMethod)
+            .thenComparing(RollupKey::paymentStatus);
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final BillRepository billRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileDays;
+
+    public DailySalesRollupService(DailySalesRollupRepository rollupRepository,
+                                   BillRepository billRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${analytics.sales-rollup.reconcile-days:2}") int reconcileDays) {
+        this.rollupRepository = rollupRepository;
+        this.billRepository = billRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileDays = reconcileDays;
+    }
+
+    /** Adds newly created bills to their rollup rows. Must run in the transaction that saves them. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<Bill> bills) {
+        Map<RollupKey, RollupDelta> deltas = new TreeMap<>(KEY_ORDER);
+        for (Bill bill : bills) {
+            RollupKey key = new RollupKey(bill.getPharmacy().getId(), bill.getBillDate().toLocalDate(),
+                    bill.getPaymentMethod(), bill.getPaymentStatus());
+            deltas.computeIfAbsent(key, k -> new RollupDelta()).add(bill.getTotalAmount());
+        }
+        deltas.forEach((key, delta) -> rollupRepository.increment(key.pharmacyId(), key.salesDate(),
+                key.paymentMethod().name(), key.paymentStatus().name(), delta.billCount, delta.totalAmount));
+    }
+
+    /** Recomputes the rollup rows for {@code from} (inclusive) to {@code to} (exclusive) from the bills table. */
+    public int rebuild(LocalDate from, LocalDate to) {
+        Integer rows = transactionTemplate.execute(status -> {
+            rollupRepository.deleteBetween(from, to);
+            return rollupRepository.insertFromBills(from.atStartOfDay(), to.atStartOfDay());
+        });
+        logger.info("Rebuilt {} daily sales rollup rows from {} to {}", rows, from, to);
+        return rows != null ? rows : 0;
+    }
+
+    // Bills are always dated when they are created, so days before today no longer change
+    @Scheduled(cron = "${analytics.sales-rollup.reconcile-cron:0 30 0 * * *}")
+    public void reconcileClosedDays() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays), today);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollupRepository.count() > 0) {
+                return;
+            }
+            billRepository.findEarliestBillDate().ifPresent(earliest ->
+                    rebuild(earliest.toLocalDate(), LocalDate.now().plusDays(1)));
+        } catch (Exception e) {
+            logger.error("Daily sales rollup backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private record RollupKey(Long pharmacyId, LocalDate salesDate, Bill.PaymentMethod paymentMethod,
+                             Bill.PaymentStatus paymentStatus) {
+    }
+
+    private static final class RollupDelta {
+        private long billCount;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+
+        void add(BigDecimal amount) {
+            billCount++;
+            totalAmount = totalAmount.add(amount);
+        }
+    }
+}
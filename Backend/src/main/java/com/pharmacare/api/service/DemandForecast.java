@@ -0,0 +1,91 @@
+package com.pharmacare.api.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Daily demand of one pharmacy's products as an exponentially weighted moving average. Products
+ * live in parallel primitive arrays indexed by slot; units sold on the current day are accumulated
+ * and folded into the average when the day rolls over, so recording a sale is O(1) and rolling a
+ * day is one pass over the arrays. Thread-safe.
+ */
+final class DemandForecast {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final double alpha;
+    private final Map<String, Integer> slotByProduct = new HashMap<>();
+    private String[] medicationNames = new String[INITIAL_CAPACITY];
+    private String[] strengths = new String[INITIAL_CAPACITY];
+    // Average units per day over closed days
+    private double[] dailyDemand = new double[INITIAL_CAPACITY];
+    // Units sold so far on the current day
+    private long[] currentDayUnits = new long[INITIAL_CAPACITY];
+    private int size;
+    private LocalDate currentDay;
+
+    DemandForecast(double alpha, LocalDate firstDay) {
+        this.alpha = alpha;
+        this.currentDay = firstDay;
+    }
+
+    /** Adds units sold on {@code day}; sales for days already folded in are counted on the current day. */
+    synchronized void record(String medicationName, String strength, LocalDate day, long units) {
+        rollTo(day);
+        // Resolved first: adding a product can replace the arrays
+        int slot = slot(medicationName, strength);
+        currentDayUnits[slot] += units;
+    }
+
+    /** Folds every day before {@code day} into the averages. */
+    synchronized void rollTo(LocalDate day) {
+        long days = ChronoUnit.DAYS.between(currentDay, day);
+        if (days <= 0) {
+            return;
+        }
+        // The current day is folded with its sales, the days after it without any
+        double idleDecay = Math.pow(1 - alpha, days - 1);
+        for (int i = 0; i < size; i++) {
+            dailyDemand[i] = (alpha * currentDayUnits[i] + (1 - alpha) * dailyDemand[i]) * idleDecay;
+            currentDayUnits[i] = 0;
+        }
+        currentDay = day;
+    }
+
+    /** Visits every product with its average daily demand as of the start of the current day. */
+    synchronized void forEach(Consumer<ProductDemand> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(new ProductDemand(medicationNames[i], strengths[i], dailyDemand[i]));
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int slot(String medicationName, String strength) {
+        String product = InventoryBatchIndex.productKey(medicationName, strength);
+        Integer slot = slotByProduct.get(product);
+        if (slot != null) {
+            return slot;
+        }
+        if (size == dailyDemand.length) {
+            int capacity = size * 2;
+            medicationNames = Arrays.copyOf(medicationNames, capacity);
+            strengths = Arrays.copyOf(strengths, capacity);
+            dailyDemand = Arrays.copyOf(dailyDemand, capacity);
+            currentDayUnits = Arrays.copyOf(currentDayUnits, capacity);
+        }
+        medicationNames[size] = medicationName;
+        strengths[size] = strength;
+        slotByProduct.put(product, size);
+        return size++;
+    }
+
+    record ProductDemand(String medicationName, String strength, double dailyDemand) {
+    }
+}
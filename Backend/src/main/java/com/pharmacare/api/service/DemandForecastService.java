@@ -0,0 +1,229 @@
+package com.pharmacare.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.dto.ReorderSuggestionDto;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.BillItem;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.repository.BillItemRepository;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suggests reorders from recent sales instead of the static {@code minimumStockLevel} alone. Each
+ * pharmacy's daily demand per product is kept in a {@link DemandForecast}, built once from grouped
+ * bill history and then moved forward by every committed bill, on all nodes through Redis; serving
+ * suggestions only reads the forecast and the current stock per product.
+ */
+@Service
+public class DemandForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandForecastService.class);
+
+    public static final String UPDATE_CHANNEL = "pharmacare:demand-updates";
+
+    // Below this a product counts as not selling; avoids reorder points of 1 for long-dead lines
+    private static final double MIN_DAILY_DEMAND = 0.01;
+
+    private static final Comparator<ReorderSuggestionDto> MOST_URGENT_FIRST = Comparator
+            .comparing(ReorderSuggestionDto::getDaysOfCover, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ReorderSuggestionDto::getMedicationName, String.CASE_INSENSITIVE_ORDER);
+
+    private final BillItemRepository billItemRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final double alpha;
+    private final int historyDays;
+    private final int leadTimeDays;
+    private final int safetyDays;
+    private final int coverDays;
+    private final Cache<Long, DemandForecast> forecasts;
+    private ClusterBroadcaster.Channel<DemandUpdate> updates;
+
+    public DemandForecastService(BillItemRepository billItemRepository,
+                                 InventoryRepository inventoryRepository,
+                                 ClusterBroadcaster broadcaster,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventory.forecast.alpha:0.1}") double alpha,
+                                 @Value("${inventory.forecast.history-days:90}") int historyDays,
+                                 @Value("${inventory.forecast.lead-time-days:7}") int leadTimeDays,
+                                 @Value("${inventory.forecast.safety-days:3}") int safetyDays,
+                                 @Value("${inventory.forecast.cover-days:30}") int coverDays,
+                                 @Value("${inventory.forecast.maximum-size:1000}") long maximumSize,
+                                 @Value("${inventory.forecast.ttl:6h}") Duration ttl) {
+        this.billItemRepository = billItemRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.alpha = alpha;
+        this.historyDays = historyDays;
+        this.leadTimeDays = leadTimeDays;
+        this.safetyDays = safetyDays;
+        this.coverDays = coverDays;
+        // The TTL bounds drift from updates missed while a node was disconnected from Redis
+        this.forecasts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, forecasts, "demandForecasts");
+        updates = broadcaster.channel(UPDATE_CHANNEL, DemandUpdate.class, this::apply);
+    }
+
+    /**
+     * Products at or below their reorder point, most urgent first. The reorder point covers demand
+     * over the lead time plus safety days and is never below the product's minimum stock level; the
+     * suggested quantity tops stock up to that point plus the cover days.
+     */
+    @Transactional(readOnly = true)
+    public List<ReorderSuggestionDto> getReorderSuggestions(Long pharmacyId) {
+        LocalDate today = LocalDate.now();
+        DemandForecast forecast = forecasts.get(pharmacyId, id -> build(id, today));
+        forecast.rollTo(today);
+
+        Map<String, ProductPosition> positions = new LinkedHashMap<>();
+        for (InventoryRepository.ProductStock stock : inventoryRepository.sumStockByProduct(pharmacyId, today)) {
+            ProductPosition position = positions.computeIfAbsent(
+                    InventoryBatchIndex.productKey(stock.getMedicationName(), stock.getStrength()),
+                    key -> new ProductPosition(stock.getMedicationName(), stock.getStrength()));
+            position.onHand += stock.getQuantity();
+            position.minimumStockLevel = Math.max(position.minimumStockLevel, stock.getMinimumStockLevel());
+        }
+        forecast.forEach(demand -> {
+            ProductPosition position = positions.computeIfAbsent(
+                    InventoryBatchIndex.productKey(demand.medicationName(), demand.strength()),
+                    key -> new ProductPosition(demand.medicationName(), demand.strength()));
+            position.dailyDemand = demand.dailyDemand();
+        });
+
+        List<ReorderSuggestionDto> suggestions = new ArrayList<>();
+        for (ProductPosition position : positions.values()) {
+            ReorderSuggestionDto suggestion = suggest(position);
+            if (suggestion != null) {
+                suggestions.add(suggestion);
+            }
+        }
+        suggestions.sort(MOST_URGENT_FIRST);
+        return suggestions;
+    }
+
+    /** Queues the units sold on these bills; applied on every node once the transaction commits. */
+    public void record(Collection<Bill> bills) {
+        Map<SalesKey, Map<String, ProductSale>> sales = new LinkedHashMap<>();
+        for (Bill bill : bills) {
+            SalesKey key = new SalesKey(bill.getPharmacy().getId(), bill.getBillDate().toLocalDate());
+            for (BillItem item : bill.getItems()) {
+                Inventory inventory = item.getInventory();
+                if (inventory == null) {
+                    continue;
+                }
+                sales.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                        .merge(InventoryBatchIndex.productKey(inventory.getMedicationName(), inventory.getStrength()),
+                                new ProductSale(inventory.getMedicationName(), inventory.getStrength(), item.getQuantity()),
+                                ProductSale::plus);
+            }
+        }
+
+        // Sales add up, so every update is sent even when several share a pharmacy and day
+        sales.forEach((key, products) -> updates.publishAfterCommit(
+                new DemandUpdate(key.pharmacyId(), key.salesDate(), new ArrayList<>(products.values()))));
+    }
+
+    /** The pharmacy's forecast if this node has built it. */
+    DemandForecast cachedForecast(Long pharmacyId) {
+        return forecasts.getIfPresent(pharmacyId);
+    }
+
+    private DemandForecast build(Long pharmacyId, LocalDate today) {
+        LocalDate firstDay = today.minusDays(historyDays);
+        DemandForecast forecast = new DemandForecast(alpha, firstDay);
+        for (BillItemRepository.DailyProductSales day : billItemRepository.sumDailyQuantities(pharmacyId, firstDay.atStartOfDay())) {
+            forecast.record(day.getMedicationName(), day.getStrength(), day.getSalesDate(), day.getQuantity());
+        }
+        forecast.rollTo(today);
+        logger.debug("Built demand forecast for pharmacy {} with {} products", pharmacyId, forecast.size());
+        return forecast;
+    }
+
+    private ReorderSuggestionDto suggest(ProductPosition position) {
+        double dailyDemand = position.dailyDemand >= MIN_DAILY_DEMAND ? position.dailyDemand : 0;
+        long reorderPoint = Math.max(position.minimumStockLevel,
+                (long) Math.ceil(dailyDemand * (leadTimeDays + safetyDays)));
+        if (position.onHand > reorderPoint) {
+            return null;
+        }
+        long suggestedQuantity = reorderPoint + (long) Math.ceil(dailyDemand * coverDays) - position.onHand;
+        if (suggestedQuantity <= 0) {
+            return null;
+        }
+        return ReorderSuggestionDto.builder()
+                .medicationName(position.medicationName)
+                .strength(position.strength)
+                .onHand(position.onHand)
+                .dailyDemand(Math.round(dailyDemand * 100) / 100.0)
+                .daysOfCover(dailyDemand > 0 ? Math.round(position.onHand / dailyDemand * 10) / 10.0 : null)
+                .reorderPoint(reorderPoint)
+                .suggestedQuantity(suggestedQuantity)
+                .build();
+    }
+
+    // computeIfPresent waits for a forecast that is being built; a bill that committed just before the
+    // build read the history may then be counted twice until the forecast expires
+    private boolean apply(DemandUpdate update) {
+        forecasts.asMap().computeIfPresent(update.pharmacyId(), (pharmacyId, forecast) -> {
+            for (ProductSale sale : update.sales()) {
+                forecast.record(sale.medicationName(), sale.strength(), update.salesDate(), sale.units());
+            }
+            return forecast;
+        });
+        return true;
+    }
+
+    private static final class ProductPosition {
+        private final String medicationName;
+        private final String strength;
+        private long onHand;
+        private int minimumStockLevel;
+        private double dailyDemand;
+
+        private ProductPosition(String medicationName, String strength) {
+            this.medicationName = medicationName;
+            this.strength = strength;
+        }
+    }
+
+    private record SalesKey(Long pharmacyId, LocalDate salesDate) {
+    }
+
+    record ProductSale(String medicationName, String strength, long units) {
+        ProductSale plus(ProductSale other) {
+            return new ProductSale(medicationName, strength, units + other.units);
+        }
+    }
+
+    record DemandUpdate(Long pharmacyId, LocalDate salesDate, List<ProductSale> sales) {
+    }
+}
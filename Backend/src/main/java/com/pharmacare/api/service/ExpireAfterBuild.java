@@ -0,0 +1,34 @@
+package com.pharmacare.api.service;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+
+/**
+ * Expires a node-local index a fixed time after it was built. Updates applied in place through
+ * {@code asMap().computeIfPresent} count as writes to Caffeine, so with {@code expireAfterWrite} an
+ * index that keeps receiving updates would never be rebuilt, and anything it missed would stay missed.
+ */
+final class ExpireAfterBuild<K, V> implements Expiry<K, V> {
+
+    private final long nanos;
+
+    ExpireAfterBuild(Duration age) {
+        this.nanos = age.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return nanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
@@ -0,0 +1,197 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.model.ExpirySweepCheckpoint;
+import com.pharmacare.api.repository.ExpirySweepCheckpointRepository;
+import com.pharmacare.api.repository.InventoryRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nightly expiry pipeline. Pharmacies are swept in chunks of ids, one transaction per chunk: expired
+ * active batches are quarantined with a bulk {@code UPDATE}, and batches that entered the expiry
+ * notice window since the previous run are pushed to the Redis list {@value #NOTICE_QUEUE} for
+ * notification workers. The bulk update bypasses {@link InventoryEntityListener}, so the stats, search
+ * and batch caches of the pharmacies it touched are evicted on every node once the chunk commits.
+ * The id cursor is saved in {@code expiry_sweep_checkpoints} with every chunk, so an interrupted run
+ * resumes where it stopped; nodes sweeping at the same time take turns on the locked checkpoint row
+ * instead of repeating each other's work.
+ */
+@Service
+public class ExpirySweepService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpirySweepService.class);
+
+    public static final String NOTICE_QUEUE = "pharmacare:inventory-expiry-notices";
+
+    private static final String SWEEP_NAME = "inventory-expiry";
+
+    private final ExpirySweepCheckpointRepository checkpointRepository;
+    private final PharmacyRepository pharmacyRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryStatsService inventoryStatsService;
+    private final InventorySearchService inventorySearchService;
+    private final BatchAllocationService batchAllocationService;
+    private final LiveEventService liveEventService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int noticeDays;
+    private final long noticeQueueMaxLength;
+
+    public ExpirySweepService(ExpirySweepCheckpointRepository checkpointRepository,
+                              PharmacyRepository pharmacyRepository,
+                              InventoryRepository inventoryRepository,
+                              InventoryStatsService inventoryStatsService,
+                              InventorySearchService inventorySearchService,
+                              BatchAllocationService batchAllocationService,
+                              LiveEventService liveEventService,
+                              StringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${inventory.expiry-sweep.chunk-size:100}") int chunkSize,
+                              @Value("${inventory.expiry-sweep.notice-days:30}") int noticeDays,
+                              @Value("${inventory.expiry-sweep.notice-queue.max-length:100000}") long noticeQueueMaxLength) {
+        this.checkpointRepository = checkpointRepository;
+        this.pharmacyRepository = pharmacyRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryStatsService = inventoryStatsService;
+        this.inventorySearchService = inventorySearchService;
+        this.batchAllocationService = batchAllocationService;
+        this.liveEventService = liveEventService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.noticeDays = noticeDays;
+        this.noticeQueueMaxLength = noticeQueueMaxLength;
+    }
+
+    @Scheduled(cron = "${inventory.expiry-sweep.cron:0 15 1 * * *}")
+    public void sweep() {
+        LocalDate today = LocalDate.now();
+        int chunks = 0;
+        int quarantined = 0;
+        int notices = 0;
+        ChunkResult result;
+        while ((result = transactionTemplate.execute(status -> sweepChunk(today))) != null) {
+            chunks++;
+            quarantined += result.quarantined();
+            notices += result.notices();
+        }
+        if (chunks > 0) {
+            logger.info("Expiry sweep for {} processed {} chunks: {} batches quarantined, {} expiry notices queued",
+                    today, chunks, quarantined, notices);
+        }
+    }
+
+    // Finishes a run that was interrupted, or catches up on one missed while no node was up
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeIfBehind() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            logger.error("Expiry sweep on startup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Returns null once today's run is complete
+    private ChunkResult sweepChunk(LocalDate today) {
+        checkpointRepository.createIfAbsent(SWEEP_NAME);
+        ExpirySweepCheckpoint checkpoint = checkpointRepository.findForUpdate(SWEEP_NAME)
+                .orElseThrow(() -> new IllegalStateException("Missing expiry sweep checkpoint"));
+        if (checkpoint.getCompletedDate() != null && !checkpoint.getCompletedDate().isBefore(today)) {
+            return null;
+        }
+        if (!today.equals(checkpoint.getRunDate())) {
+            checkpoint.setRunDate(today);
+            checkpoint.setLastPharmacyId(0L);
+        }
+
+        List<Long> pharmacyIds = pharmacyRepository.findIdsAfter(checkpoint.getLastPharmacyId(), PageRequest.of(0, chunkSize));
+        if (pharmacyIds.isEmpty()) {
+            checkpoint.setCompletedDate(today);
+            return null;
+        }
+
+        int quarantined = 0;
+        List<Long> affected = inventoryRepository.findPharmacyIdsWithExpired(pharmacyIds, today);
+        if (!affected.isEmpty()) {
+            quarantined = inventoryRepository.quarantineExpired(affected, today, LocalDateTime.now());
+            for (Long pharmacyId : affected) {
+                inventoryStatsService.evictPharmacy(pharmacyId);
+                inventorySearchService.evictPharmacy(pharmacyId);
+                batchAllocationService.evictPharmacy(pharmacyId);
+            }
+        }
+
+        // Only batches that crossed into the window since the last completed run, so each is announced once
+        LocalDate lastRun = checkpoint.getCompletedDate() != null ? checkpoint.getCompletedDate() : today.minusDays(1);
+        List<String> notices = new ArrayList<>();
+        List<LiveEventService.LiveEvent> alerts = new ArrayList<>();
+        for (InventoryRepository.ExpiringBatch batch : inventoryRepository.findExpiringInPharmacies(
+                pharmacyIds, lastRun.plusDays(noticeDays + 1), today.plusDays(noticeDays))) {
+            String notice = toJson(new ExpiryNotice(batch.getPharmacyId(), batch.getId(), batch.getMedicationName(),
+                    batch.getBatchNumber(), batch.getExpiryDate(), batch.getQuantity()));
+            notices.add(notice);
+            alerts.add(new LiveEventService.LiveEvent(LiveEventService.pharmacyTopic(batch.getPharmacyId()),
+                    LiveEventService.EXPIRING_BATCH, notice));
+        }
+        if (!notices.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(notices);
+                    liveEventService.publish(alerts);
+                }
+            });
+        }
+
+        checkpoint.setLastPharmacyId(pharmacyIds.get(pharmacyIds.size() - 1));
+        return new ChunkResult(quarantined, notices.size());
+    }
+
+    // Notices are sent after the chunk commits; if Redis is down they are logged and dropped
+    private void publish(List<String> notices) {
+        try {
+            redisTemplate.opsForList().rightPushAll(NOTICE_QUEUE, notices);
+            redisTemplate.opsForList().trim(NOTICE_QUEUE, -noticeQueueMaxLength, -1);
+        } catch (Exception e) {
+            logger.warn("Could not queue {} expiry notices: {}", notices.size(), e.getMessage());
+        }
+    }
+
+    private String toJson(ExpiryNotice notice) {
+        try {
+            return objectMapper.writeValueAsString(notice);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize expiry notice", e);
+        }
+    }
+
+    record ExpiryNotice(Long pharmacyId, Long inventoryId, String medicationName, String batchNumber,
+                        LocalDate expiryDate, Integer quantity) {
+    }
+
+    private record ChunkResult(int quarantined, int notices) {
+    }
+}
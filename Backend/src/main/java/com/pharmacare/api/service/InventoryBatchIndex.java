@@ -0,0 +1,125 @@
+package com.pharmacare.api.service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Stock of one pharmacy's batches, grouped by product (medication name and strength) and sorted by
+ * expiry date, so the earliest usable batches of a product are found in O(log n). Quantities here
+ * are what is left after allocations still in flight; the database remains the source of truth and
+ * the reservation step corrects any difference. Thread-safe; all operations hold the index lock.
+ */
+final class InventoryBatchIndex {
+
+    private static final Comparator<Batch> EXPIRY_ORDER = Comparator
+            .comparing((Batch batch) -> batch.expiryDate)
+            .thenComparing(batch -> batch.id);
+
+    // product -> batches with stock left, earliest expiry first
+    private final Map<String, NavigableMap<Batch, Batch>> batchesByProduct = new HashMap<>();
+    private final Map<Long, Batch> batchesById = new HashMap<>();
+
+    /**
+     * Takes {@code quantity} units of the product from batches that have not expired on {@code today},
+     * earliest expiry first. Returns the units taken per batch id in expiry order, or {@code null}
+     * without taking anything when there is not enough stock.
+     */
+    synchronized Map<Long, Integer> take(String medicationName, String strength, int quantity, LocalDate today) {
+        NavigableMap<Batch, Batch> batches = batchesByProduct.get(productKey(medicationName, strength));
+        if (batches == null) {
+            return null;
+        }
+        NavigableMap<Batch, Batch> usable = batches.tailMap(new Batch(Long.MIN_VALUE, null, today), true);
+
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        int remaining = quantity;
+        for (Batch batch : usable.keySet()) {
+            int units = Math.min(batch.available, remaining);
+            taken.put(batch.id, units);
+            remaining -= units;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        if (remaining > 0) {
+            return null;
+        }
+
+        taken.forEach((id, units) -> {
+            Batch batch = batchesById.get(id);
+            setAvailable(batch, batch.available - units);
+        });
+        return taken;
+    }
+
+    /** Returns units taken by an allocation that did not go through. */
+    synchronized void giveBack(Map<Long, Integer> taken) {
+        taken.forEach((id, units) -> {
+            Batch batch = batchesById.get(id);
+            if (batch != null) {
+                setAvailable(batch, batch.available + units);
+            }
+        });
+    }
+
+    /** Adds or replaces a batch with its committed stock; inactive rows are passed with zero stock. */
+    synchronized void put(Long id, String medicationName, String strength, LocalDate expiryDate, int available) {
+        Batch existing = batchesById.get(id);
+        String product = productKey(medicationName, strength);
+        if (existing != null && existing.product.equals(product) && existing.expiryDate.equals(expiryDate)) {
+            setAvailable(existing, available);
+            return;
+        }
+        remove(id);
+        Batch batch = new Batch(id, product, expiryDate);
+        batchesById.put(id, batch);
+        setAvailable(batch, available);
+    }
+
+    synchronized void remove(Long id) {
+        Batch batch = batchesById.remove(id);
+        if (batch != null && batch.available > 0) {
+            batches(batch.product).remove(batch);
+        }
+    }
+
+    synchronized int size() {
+        return batchesById.size();
+    }
+
+    private void setAvailable(Batch batch, int available) {
+        int previous = batch.available;
+        batch.available = Math.max(available, 0);
+        if (previous > 0 && batch.available == 0) {
+            batches(batch.product).remove(batch);
+        } else if (previous == 0 && batch.available > 0) {
+            batches(batch.product).put(batch, batch);
+        }
+    }
+
+    private NavigableMap<Batch, Batch> batches(String product) {
+        return batchesByProduct.computeIfAbsent(product, p -> new TreeMap<>(EXPIRY_ORDER));
+    }
+
+    static String productKey(String medicationName, String strength) {
+        return InventorySearchIndex.normalize(medicationName) + "|" + InventorySearchIndex.normalize(strength);
+    }
+
+    private static final class Batch {
+        private final Long id;
+        private final String product;
+        private final LocalDate expiryDate;
+        private int available;
+
+        private Batch(Long id, String product, LocalDate expiryDate) {
+            this.id = id;
+            this.product = product;
+            this.expiryDate = expiryDate;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.Inventory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class InventoryEntityListener {
+
+    // Resolved lazily, as in PharmacyStaffEntityListener
+    private final ObjectProvider<InventoryStatsService> inventoryStatsService;
+    private final ObjectProvider<InventorySearchService> inventorySearchService;
+    private final ObjectProvider<BatchAllocationService> batchAllocationService;
+    private final ObjectProvider<LiveEventService> liveEventService;
+
+    @PostPersist
+    @PostUpdate
+    public void onInventorySaved(Inventory inventory) {
+        if (inventory.getPharmacy() != null) {
+            inventoryStatsService.getObject().evictPharmacy(inventory.getPharmacy().getId());
+            inventorySearchService.getObject().onInventorySaved(inventory);
+            batchAllocationService.getObject().onInventorySaved(inventory);
+            liveEventService.getObject().onInventorySaved(inventory);
+        }
+    }
+
+    @PostRemove
+    public void onInventoryRemoved(Inventory inventory) {
+        if (inventory.getPharmacy() != null) {
+            inventoryStatsService.getObject().evictPharmacy(inventory.getPharmacy().getId());
+            inventorySearchService.getObject().onInventoryRemoved(inventory);
+            batchAllocationService.getObject().onInventoryRemoved(inventory);
+        }
+    }
+}
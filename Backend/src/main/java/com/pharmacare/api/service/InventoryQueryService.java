@@ -0,0 +1,308 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.InventoryDto;
+import com.pharmacare.api.dto.InventoryFilter;
+import com.pharmacare.api.dto.InventoryPageDto;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.PharmacyRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.pharmacare.api.repository.InventorySpecifications.active;
+import static com.pharmacare.api.repository.InventorySpecifications.afterKey;
+import static com.pharmacare.api.repository.InventorySpecifications.expiringBetween;
+import static com.pharmacare.api.repository.InventorySpecifications.idIn;
+import static com.pharmacare.api.repository.InventorySpecifications.inPharmacy;
+import static com.pharmacare.api.repository.InventorySpecifications.lowStock;
+import static com.pharmacare.api.repository.InventorySpecifications.ofType;
+
+/**
+ * Lists a pharmacy's active inventory with any combination of filters. Pages are keyset-based on
+ * the sort column and id, and only inventory columns are selected, straight into {@link InventoryDto},
+ * without loading entities or the pharmacy of each row. A text search narrows the rows to the matches
+ * of the in-memory search index; without an explicit sort those come back in relevance order.
+ * Without a limit every matching row is returned.
+ */
+@Service
+public class InventoryQueryService {
+
+    // Keeps IN lists well below the bind parameter limits of the database
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final String CURSOR_SEPARATOR = "~";
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "medicationName", "manufacturer", "batchNumber", "expiryDate", "quantity", "minimumStockLevel",
+            "costPrice", "sellingPrice", "active", "medicationType", "description", "dosageForm", "strength",
+            "storageConditions", "createdAt", "updatedAt");
+
+    private final EntityManager entityManager;
+    private final PharmacyRepository pharmacyRepository;
+    private final InventorySearchService inventorySearchService;
+
+    public InventoryQueryService(EntityManager entityManager,
+                                 PharmacyRepository pharmacyRepository,
+                                 InventorySearchService inventorySearchService) {
+        this.entityManager = entityManager;
+        this.pharmacyRepository = pharmacyRepository;
+        this.inventorySearchService = inventorySearchService;
+    }
+
+    @Transactional(readOnly = true)
+    public InventoryPageDto find(InventoryFilter filter) {
+        Pharmacy pharmacy = pharmacyRepository.findById(filter.getPharmacyId())
+                .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", filter.getPharmacyId()));
+
+        Specification<Inventory> spec = inPharmacy(pharmacy.getId()).and(active());
+        if (filter.getType() != null) {
+            spec = spec.and(ofType(filter.getType()));
+        }
+        if (filter.isLowStock()) {
+            spec = spec.and(lowStock());
+        }
+        if (filter.isExpiring()) {
+            LocalDate today = LocalDate.now();
+            spec = spec.and(expiringBetween(today, today.plusDays(InventoryStatsService.EXPIRY_THRESHOLD_DAYS)));
+        }
+
+        if (filter.getSearch() != null && !filter.getSearch().isBlank()) {
+            return findMatches(pharmacy, spec, filter);
+        }
+
+        InventoryFilter.Sort sort = filter.getSort() != null ? filter.getSort() : InventoryFilter.Sort.NAME;
+        boolean ascending = !filter.isDescending();
+        if (filter.getCursor() != null) {
+            spec = spec.and(afterCursor(sort, filter.getCursor(), ascending));
+        }
+
+        Integer limit = filter.getLimit();
+        // One extra row tells us whether another page exists
+        List<InventoryDto> items = select(pharmacy, spec, sort, ascending, limit != null ? limit + 1 : null);
+        String nextCursor = null;
+        if (limit != null && items.size() > limit) {
+            items = new ArrayList<>(items.subList(0, limit));
+            nextCursor = encodeCursor(sort, items.get(items.size() - 1));
+        }
+        return new InventoryPageDto(items, nextCursor);
+    }
+
+    /**
+     * Search results. Every match of the index is put through the other filters before anything is
+     * cut, then ordered by relevance or by the requested sort and paged by position in that order.
+     * The cursor carries the position and id of the last row returned, so the next page still starts
+     * right after that row when matches ahead of it have come or gone in between.
+     */
+    private InventoryPageDto findMatches(Pharmacy pharmacy, Specification<Inventory> spec, InventoryFilter filter) {
+        List<Long> ranked = inventorySearchService.search(pharmacy.getId(), filter.getSearch(), Integer.MAX_VALUE);
+        InventoryFilter.Sort sort = filter.getSort();
+
+        List<Tuple> matches = new ArrayList<>();
+        for (List<Long> chunk : chunks(ranked)) {
+            matches.addAll(selectKeys(spec.and(idIn(chunk)), sort));
+        }
+        List<Long> ordered;
+        if (sort == null) {
+            Set<Long> matching = new HashSet<>();
+            matches.forEach(row -> matching.add(row.get("id", Long.class)));
+            ordered = ranked.stream().filter(matching::contains).toList();
+        } else {
+            Comparator<Tuple> order = keyOrder(sort).thenComparing(row -> row.get("id", Long.class));
+            ordered = matches.stream()
+                    .sorted(filter.isDescending() ? order.reversed() : order)
+                    .map(row -> row.get("id", Long.class))
+                    .toList();
+        }
+
+        int from = filter.getCursor() != null ? positionAfter(filter.getCursor(), ordered) : 0;
+        int to = filter.getLimit() != null ? Math.min(ordered.size(), from + filter.getLimit()) : ordered.size();
+        List<Long> pageIds = ordered.subList(from, Math.max(from, to));
+
+        Map<Long, InventoryDto> byId = new HashMap<>();
+        for (List<Long> chunk : chunks(pageIds)) {
+            select(pharmacy, inPharmacy(pharmacy.getId()).and(idIn(chunk)), null, true, null)
+                    .forEach(item -> byId.put(item.getId(), item));
+        }
+        List<InventoryDto> items = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        String nextCursor = null;
+        if (to < ordered.size()) {
+            nextCursor = encode(to + CURSOR_SEPARATOR + pageIds.get(pageIds.size() - 1));
+        }
+        return new InventoryPageDto(items, nextCursor);
+    }
+
+    private List<InventoryDto> select(Pharmacy pharmacy, Specification<Inventory> spec, InventoryFilter.Sort sort,
+                                      boolean ascending, Integer maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Inventory> root = query.from(Inventory.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String column : COLUMNS) {
+            selections.add(root.get(column).alias(column));
+        }
+        query.multiselect(selections);
+        query.where(spec.toPredicate(root, query, cb));
+        if (sort != null) {
+            query.orderBy(ascending
+                    ? List.of(cb.asc(root.get(sort.getAttribute())), cb.asc(root.get("id")))
+                    : List.of(cb.desc(root.get(sort.getAttribute())), cb.desc(root.get("id"))));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (maxResults != null) {
+            typedQuery.setMaxResults(maxResults);
+        }
+        List<InventoryDto> items = new ArrayList<>();
+        for (Tuple row : typedQuery.getResultList()) {
+            items.add(toDto(row, pharmacy));
+        }
+        return items;
+    }
+
+    // Only the id, and the sort column when there is one
+    private List<Tuple> selectKeys(Specification<Inventory> spec, InventoryFilter.Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Inventory> root = query.from(Inventory.class);
+        query.multiselect(sort != null
+                ? List.of(root.get("id").alias("id"), root.get(sort.getAttribute()).alias("key"))
+                : List.of(root.get("id").alias("id")));
+        query.where(spec.toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    // Names compare case-insensitively, as they usually do in the database's collation
+    @SuppressWarnings("unchecked")
+    private static Comparator<Tuple> keyOrder(InventoryFilter.Sort sort) {
+        if (sort == InventoryFilter.Sort.NAME) {
+            return Comparator.comparing((Tuple row) -> row.get("key", String.class), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(row -> row.get("key", String.class));
+        }
+        return Comparator.comparing(row -> (Comparable<Object>) row.get("key"));
+    }
+
+    private static int positionAfter(String cursor, List<Long> ordered) {
+        int position;
+        Long id;
+        try {
+            String raw = decode(cursor);
+            int separator = raw.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            position = Integer.parseInt(raw.substring(0, separator));
+            id = Long.valueOf(raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (position > 0 && position <= ordered.size() && id.equals(ordered.get(position - 1))) {
+            return position;
+        }
+        // Matches ahead of the last row came or went; continue after it, or at its old position if it is gone
+        int moved = ordered.indexOf(id);
+        return moved >= 0 ? moved + 1 : Math.min(position, ordered.size());
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + ID_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private Specification<Inventory> afterCursor(InventoryFilter.Sort sort, String cursor, boolean ascending) {
+        try {
+            String raw = decode(cursor);
+            int separator = raw.lastIndexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String value = raw.substring(0, separator);
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return switch (sort) {
+                case NAME -> afterKey(sort.getAttribute(), value, id, ascending);
+                case EXPIRY_DATE -> afterKey(sort.getAttribute(), LocalDate.parse(value), id, ascending);
+                case QUANTITY -> afterKey(sort.getAttribute(), Integer.valueOf(value), id, ascending);
+            };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String encodeCursor(InventoryFilter.Sort sort, InventoryDto last) {
+        Object value = switch (sort) {
+            case NAME -> last.getMedicationName();
+            case EXPIRY_DATE -> last.getExpiryDate();
+            case QUANTITY -> last.getQuantity();
+        };
+        return encode(value + CURSOR_SEPARATOR + last.getId());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    // Derived flags follow Inventory.isLowStock(), isExpired() and isExpiringWithin(30)
+    private static InventoryDto toDto(Tuple row, Pharmacy pharmacy) {
+        LocalDate expiryDate = row.get("expiryDate", LocalDate.class);
+        Integer quantity = row.get("quantity", Integer.class);
+        Integer minimumStockLevel = row.get("minimumStockLevel", Integer.class);
+        LocalDate today = LocalDate.now();
+        return InventoryDto.builder()
+                .id(row.get("id", Long.class))
+                .pharmacyId(pharmacy.getId())
+                .pharmacyName(pharmacy.getName())
+                .medicationName(row.get("medicationName", String.class))
+                .manufacturer(row.get("manufacturer", String.class))
+                .batchNumber(row.get("batchNumber", String.class))
+                .expiryDate(expiryDate)
+                .quantity(quantity)
+                .minimumStockLevel(minimumStockLevel)
+                .costPrice(row.get("costPrice", BigDecimal.class))
+                .sellingPrice(row.get("sellingPrice", BigDecimal.class))
+                .active(row.get("active", Boolean.class))
+                .medicationType(row.get("medicationType", Inventory.MedicationType.class))
+                .description(row.get("description", String.class))
+                .dosageForm(row.get("dosageForm", String.class))
+                .strength(row.get("strength", String.class))
+                .storageConditions(row.get("storageConditions", String.class))
+                .lowStock(quantity <= minimumStockLevel)
+                .expired(expiryDate.isBefore(today))
+                .expiringWithin30Days(expiryDate.isBefore(today.plusDays(InventoryStatsService.EXPIRY_THRESHOLD_DAYS)))
+                .createdAt(row.get("createdAt", LocalDateTime.class))
+                .updatedAt(row.get("updatedAt", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.exception.InsufficientStockException;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Decrements stock for all lines of a bill at once. Rows are loaded and locked in a single
+ * {@code SELECT ... FOR UPDATE} ordered by id, so concurrent checkouts touching overlapping
+ * batches always acquire locks in the same order and cannot deadlock or lose updates.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final Timer reservationTimer;
+    private final Counter insufficientStockConflicts;
+    private final Counter lockConflicts;
+
+    public InventoryReservationService(InventoryRepository inventoryRepository, MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.reservationTimer = Timer.builder("inventory.reservations")
+                .description("Time spent locking and decrementing stock for one bill")
+                .register(meterRegistry);
+        this.insufficientStockConflicts = Counter.builder("inventory.reservation.conflicts")
+                .tag("reason", "insufficient_stock")
+                .register(meterRegistry);
+        this.lockConflicts = Counter.builder("inventory.reservation.conflicts")
+                .tag("reason", "lock_failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates and decrements every line, returning the locked inventory rows keyed by id.
+     * Nothing is modified unless all lines can be satisfied. Must run inside the caller's
+     * transaction; the decrements are flushed as one JDBC batch when it commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = {InsufficientStockException.class, ResourceNotFoundException.class, IllegalArgumentException.class})
+    public Map<Long, Inventory> reserve(Long pharmacyId, List<CreateBillItemDto> items) {
+        return reservationTimer.record(() -> doReserve(pharmacyId, items));
+    }
+
+    /**
+     * Locks every listed inventory row in id order without checking stock. Used by batch callers
+     * that then reserve several bills against the same rows with {@link #reserveLocked}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Inventory> lockAll(Collection<Long> inventoryIds) {
+        return toMap(lock(new TreeSet<>(inventoryIds)));
+    }
+
+    /**
+     * Same checks and decrements as {@link #reserve}, but against rows already locked with
+     * {@link #lockAll}. A rejected bill leaves the rows untouched, so the caller can carry on
+     * with the next bill of the batch.
+     */
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = {InsufficientStockException.class, ResourceNotFoundException.class, IllegalArgumentException.class})
+    public void reserveLocked(Long pharmacyId, List<CreateBillItemDto> items, Map<Long, Inventory> lockedInventory) {
+        apply(pharmacyId, merge(items), lockedInventory);
+    }
+
+    private Map<Long, Inventory> doReserve(Long pharmacyId, List<CreateBillItemDto> items) {
+        SortedMap<Long, Integer> requested = merge(items);
+        Map<Long, Inventory> inventoryById = toMap(lock(requested.keySet()));
+        apply(pharmacyId, requested, inventoryById);
+        return inventoryById;
+    }
+
+    // Merge repeated lines for the same batch so the stock check sees the full quantity
+    private SortedMap<Long, Integer> merge(List<CreateBillItemDto> items) {
+        SortedMap<Long, Integer> requested = new TreeMap<>();
+        for (CreateBillItemDto item : items) {
+            requested.merge(item.getInventoryId(), item.getQuantity(), Integer::sum);
+        }
+        return requested;
+    }
+
+    private List<Inventory> lock(Collection<Long> ids) {
+        try {
+            return inventoryRepository.findAllByIdForUpdate(ids);
+        } catch (PessimisticLockingFailureException e) {
+            lockConflicts.increment();
+            throw e;
+        }
+    }
+
+    private Map<Long, Inventory> toMap(List<Inventory> locked) {
+        Map<Long, Inventory> inventoryById = new HashMap<>();
+        for (Inventory inventory : locked) {
+            inventoryById.put(inventory.getId(), inventory);
+        }
+        return inventoryById;
+    }
+
+    private void apply(Long pharmacyId, SortedMap<Long, Integer> requested, Map<Long, Inventory> inventoryById) {
+        for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+            Inventory inventory = inventoryById.get(line.getKey());
+            if (inventory == null) {
+                throw new ResourceNotFoundException("Inventory Item", "id", line.getKey());
+            }
+            if (!inventory.getPharmacy().getId().equals(pharmacyId)) {
+                throw new IllegalArgumentException("Inventory item " + line.getKey() + " does not belong to pharmacy " + pharmacyId);
+            }
+            if (inventory.getQuantity() < line.getValue()) {
+                insufficientStockConflicts.increment();
+                throw new InsufficientStockException("Insufficient stock for item: " + inventory.getMedicationName() +
+                        " (Requested: " + line.getValue() + ", Available: " + inventory.getQuantity() + ")");
+            }
+        }
+
+        for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+            Inventory inventory = inventoryById.get(line.getKey());
+            inventory.setQuantity(inventory.getQuantity() - line.getValue());
+        }
+
+        logger.debug("Reserved {} inventory rows for pharmacy {}", requested.size(), pharmacyId);
+    }
+}
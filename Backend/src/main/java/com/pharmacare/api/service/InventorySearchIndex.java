@@ -0,0 +1,242 @@
+package com.pharmacare.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Trigram index over the active inventory of one pharmacy. Matches are looked up through the
+ * rarest trigram of the query and verified by substring checks, so stale postings left behind by
+ * updates only cost a little time; they are dropped when enough of them pile up. Thread-safe.
+ */
+final class InventorySearchIndex {
+
+    private static final int MIN_GARBAGE_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // slot -> document, null once the row was removed or re-indexed under a new slot
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private int garbage;
+    private long postingCount;
+    private long docBytes;
+
+    /** Adds or replaces a row; returns false when the indexed text was already the same. */
+    boolean upsert(Long id, String medicationName, String manufacturer, String batchNumber) {
+        Doc doc = new Doc(id, normalize(medicationName), normalize(manufacturer), normalize(batchNumber));
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot != null) {
+                if (doc.equals(docs.get(slot))) {
+                    return false;
+                }
+                discard(slot);
+            }
+            add(doc);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return false;
+            }
+            discard(slot);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids of matching rows, best match first. */
+    List<Long> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (q.length() < 3) {
+                for (Doc doc : docs) {
+                    collect(doc, q, matches);
+                }
+            } else {
+                IntList candidates = rarestPosting(q);
+                if (candidates != null) {
+                    BitSet seen = new BitSet(docs.size());
+                    for (int i = 0; i < candidates.size; i++) {
+                        int slot = candidates.values[i];
+                        if (!seen.get(slot)) {
+                            seen.set(slot);
+                            collect(docs.get(slot), q, matches);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Match.RANKING);
+        return matches.stream()
+                .limit(limit)
+                .map(match -> match.id)
+                .toList();
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rough retained size: strings, posting arrays and map entries
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return docBytes + postingCount * Integer.BYTES + postings.size() * 96L + slotById.size() * 64L + docs.size() * 8L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Doc doc) {
+        int slot = docs.size();
+        docs.add(doc);
+        slotById.put(doc.id, slot);
+        docBytes += doc.estimatedBytes();
+        for (long trigram : doc.trigrams()) {
+            postings.computeIfAbsent(trigram, t -> new IntList()).add(slot);
+            postingCount++;
+        }
+    }
+
+    private void discard(int slot) {
+        docBytes -= docs.get(slot).estimatedBytes();
+        docs.set(slot, null);
+        garbage++;
+    }
+
+    private void compactIfNeeded() {
+        if (garbage < MIN_GARBAGE_TO_COMPACT || garbage < slotById.size()) {
+            return;
+        }
+        List<Doc> live = docs.stream().filter(Objects::nonNull).toList();
+        docs.clear();
+        slotById.clear();
+        postings.clear();
+        garbage = 0;
+        postingCount = 0;
+        docBytes = 0;
+        live.forEach(this::add);
+    }
+
+    private IntList rarestPosting(String q) {
+        IntList rarest = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            IntList posting = postings.get(trigram(q, i));
+            if (posting == null) {
+                return null;
+            }
+            if (rarest == null || posting.size < rarest.size) {
+                rarest = posting;
+            }
+        }
+        return rarest;
+    }
+
+    private static void collect(Doc doc, String q, List<Match> matches) {
+        if (doc == null) {
+            return;
+        }
+        int score = Math.max(score(doc.name, q, 100, 80, 60, 40),
+                Math.max(score(doc.batchNumber, q, 90, 50, 25, 25), score(doc.manufacturer, q, 30, 30, 20, 15)));
+        if (score > 0) {
+            matches.add(new Match(doc.id, score, doc.name.length()));
+        }
+    }
+
+    private static int score(String field, String q, int exact, int prefix, int wordPrefix, int contains) {
+        if (field.isEmpty()) {
+            return 0;
+        }
+        if (field.equals(q)) {
+            return exact;
+        }
+        if (field.startsWith(q)) {
+            return prefix;
+        }
+        if (!field.contains(q)) {
+            return 0;
+        }
+        return field.contains(" " + q) ? wordPrefix : contains;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String value, int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+
+    private record Doc(Long id, String name, String manufacturer, String batchNumber) {
+
+        long[] trigrams() {
+            return Stream.of(name, manufacturer, batchNumber)
+                    .flatMapToLong(field -> IntStream.rangeClosed(0, field.length() - 3)
+                            .mapToLong(i -> trigram(field, i)))
+                    .distinct()
+                    .toArray();
+        }
+
+        long estimatedBytes() {
+            return 64L + 3 * 40L + 2L * (name.length() + manufacturer.length() + batchNumber.length());
+        }
+    }
+
+    private record Match(Long id, int score, int nameLength) {
+        static final Comparator<Match> RANKING = Comparator
+                .comparingInt(Match::score).reversed()
+                .thenComparingInt(Match::nameLength)
+                .thenComparing(Match::id);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
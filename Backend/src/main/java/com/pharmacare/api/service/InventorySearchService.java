@@ -0,0 +1,144 @@
+package com.pharmacare.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Answers inventory name, manufacturer and batch number searches from a per-pharmacy
+ * {@link InventorySearchIndex} held in memory instead of a {@code LIKE '%x%'} table scan.
+ * Indexes are built on the first search for a pharmacy, bounded in total by
+ * {@code inventory.search-index.max-memory}, and kept current by {@link InventoryEntityListener}:
+ * changes are applied locally once their transaction commits and sent to other nodes over Redis.
+ */
+@Service
+public class InventorySearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySearchService.class);
+
+    public static final String UPDATE_CHANNEL = "pharmacare:inventory-search-updates";
+    public static final String EVICTION_CHANNEL = "pharmacare:inventory-search-evictions";
+
+    private final InventoryRepository inventoryRepository;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Long, InventorySearchIndex> indexes;
+    private final MultiGauge indexBytes;
+    private ClusterBroadcaster.Channel<IndexUpdate> updates;
+    private ClusterBroadcaster.Channel<Long> evictions;
+
+    public InventorySearchService(InventoryRepository inventoryRepository,
+                                  ClusterBroadcaster broadcaster,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventory.search-index.max-memory:64MB}") DataSize maxMemory,
+                                  @Value("${inventory.search-index.ttl:30m}") Duration ttl) {
+        this.inventoryRepository = inventoryRepository;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        // Indexes are rebuilt at least once per TTL however often they are updated, which bounds how long
+        // a node can miss an update that raced with building its index or was lost in transit
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((Long pharmacyId, InventorySearchIndex index) -> (int) Math.min(Integer.MAX_VALUE, index.estimatedBytes()))
+                .expireAfter(new ExpireAfterBuild<Long, InventorySearchIndex>(ttl))
+                .removalListener((pharmacyId, index, cause) -> refreshGauges())
+                .recordStats()
+                .build();
+        this.indexBytes = MultiGauge.builder("inventory.search.index.size")
+                .description("Estimated memory held by the in-memory inventory search index of each pharmacy")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "inventorySearchIndexes");
+        // Stock-only changes leave the text as it was, so bills do not cause any Redis traffic
+        // for pharmacies indexed on this node
+        updates = broadcaster.channel(UPDATE_CHANNEL, IndexUpdate.class, this::apply);
+        evictions = broadcaster.evictionChannel(EVICTION_CHANNEL, Long.class, indexes::invalidate);
+    }
+
+    /** Ids of the best matching active inventory rows of the pharmacy, best first. */
+    public List<Long> search(Long pharmacyId, String query, int limit) {
+        InventorySearchIndex index = indexes.getIfPresent(pharmacyId);
+        if (index == null) {
+            index = indexes.get(pharmacyId, this::build);
+            refreshGauges();
+        }
+        return index.search(query, limit);
+    }
+
+    /** Queues the row's current text for the index; applied when the surrounding transaction commits. */
+    public void onInventorySaved(Inventory inventory) {
+        IndexUpdate update = toUpdate(inventory, inventory.isActive());
+        updates.publishAfterCommit(update.inventoryId(), update);
+    }
+
+    public void onInventoryRemoved(Inventory inventory) {
+        IndexUpdate update = toUpdate(inventory, false);
+        updates.publishAfterCommit(update.inventoryId(), update);
+    }
+
+    /**
+     * Drops the pharmacy's index on every node once the surrounding transaction commits, for changes
+     * made by bulk updates that the entity listener does not see.
+     */
+    public void evictPharmacy(Long pharmacyId) {
+        evictions.publishAfterCommit(pharmacyId, pharmacyId);
+    }
+
+    private InventorySearchIndex build(Long pharmacyId) {
+        InventorySearchIndex index = new InventorySearchIndex();
+        for (InventoryRepository.SearchableInventory row : inventoryRepository.findSearchableByPharmacyId(pharmacyId)) {
+            index.upsert(row.getId(), row.getMedicationName(), row.getManufacturer(), row.getBatchNumber());
+        }
+        logger.debug("Built inventory search index for pharmacy {} with {} rows", pharmacyId, index.size());
+        return index;
+    }
+
+    private IndexUpdate toUpdate(Inventory inventory, boolean active) {
+        return new IndexUpdate(inventory.getPharmacy().getId(), inventory.getId(), active,
+                inventory.getMedicationName(), inventory.getManufacturer(), inventory.getBatchNumber());
+    }
+
+    // Returns false only when the local index already reflected the update
+    private boolean apply(IndexUpdate update) {
+        boolean[] changed = {true};
+        // computeIfPresent waits for an index that is being built, so the update is not lost
+        indexes.asMap().computeIfPresent(update.pharmacyId(), (pharmacyId, index) -> {
+            changed[0] = update.active()
+                    ? index.upsert(update.inventoryId(), update.medicationName(), update.manufacturer(), update.batchNumber())
+                    : index.remove(update.inventoryId());
+            return index;
+        });
+        return changed[0];
+    }
+
+    private void refreshGauges() {
+        indexBytes.register(indexes.asMap().entrySet().stream()
+                .map(entry -> MultiGauge.Row.of(Tags.of("pharmacy", String.valueOf(entry.getKey())),
+                        entry.getValue(), index -> (double) index.estimatedBytes()))
+                .collect(Collectors.toList()), true);
+    }
+
+    record IndexUpdate(Long pharmacyId, Long inventoryId, boolean active,
+                       String medicationName, String manufacturer, String batchNumber) {
+    }
+}
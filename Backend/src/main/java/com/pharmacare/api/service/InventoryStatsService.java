@@ -0,0 +1,74 @@
+package com.pharmacare.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.dto.InventoryStatsProjection;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Serves per-pharmacy inventory counts from a short-lived in-process cache. Entries are evicted on
+ * every node once a transaction that wrote inventory rows, including bill stock decrements, commits.
+ */
+@Service
+public class InventoryStatsService {
+
+    public static final String EVICTION_CHANNEL = "pharmacare:inventory-stats-evictions";
+
+    public static final int EXPIRY_THRESHOLD_DAYS = 30;
+
+    private final InventoryRepository inventoryRepository;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+
+    // pharmacyId -> counts; the TTL also rolls the date-based buckets over after midnight
+    private final Cache<Long, InventoryStatsProjection> stats;
+    private ClusterBroadcaster.Channel<Long> evictions;
+
+    public InventoryStatsService(InventoryRepository inventoryRepository,
+                                 ClusterBroadcaster broadcaster,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventory.stats-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${inventory.stats-cache.ttl:30s}") Duration ttl) {
+        this.inventoryRepository = inventoryRepository;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.stats = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, stats, "inventoryStats");
+        evictions = broadcaster.evictionChannel(EVICTION_CHANNEL, Long.class, stats::invalidate);
+    }
+
+    public InventoryStatsProjection getStats(Long pharmacyId) {
+        return stats.get(pharmacyId, id -> {
+            LocalDate today = LocalDate.now();
+            return inventoryRepository.computeStats(id, today, today.plusDays(EXPIRY_THRESHOLD_DAYS));
+        });
+    }
+
+    /**
+     * Evicts after the surrounding transaction commits so readers cannot re-cache old counts.
+     * A transaction touching many rows of the same pharmacy publishes a single eviction.
+     */
+    public void evictPharmacy(Long pharmacyId) {
+        if (pharmacyId == null) {
+            return;
+        }
+        evictions.publishAfterCommit(pharmacyId, pharmacyId);
+    }
+}
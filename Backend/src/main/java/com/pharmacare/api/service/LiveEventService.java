@@ -0,0 +1,203 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.model.Inventory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes due reminders and stock alerts to open Server-Sent Events streams, so clients do not poll.
+ * Events go to every node on {@value #EVENT_CHANNEL}, and each node fans them out to the local
+ * subscribers of their topic: a user's own reminders, or a pharmacy's alerts for its staff. Every
+ * stream has its own bounded buffer, drained by a small shared pool. Idle streams are parked async
+ * requests and hold no thread. Payloads are serialized once per event, whatever the subscriber count.
+ */
+@Service
+public class LiveEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEventService.class);
+
+    public static final String EVENT_CHANNEL = "pharmacare:live-events";
+
+    public static final String REMINDER_DUE = "reminder-due";
+    public static final String LOW_STOCK = "low-stock";
+    public static final String EXPIRING_BATCH = "expiring-batch";
+
+    private final ClusterBroadcaster broadcaster;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final ExecutorService deliveryExecutor;
+    private final Counter droppedCounter;
+
+    private final Map<String, Set<LiveEventSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ClusterBroadcaster.Channel<LiveEvent> events;
+
+    public LiveEventService(ClusterBroadcaster broadcaster,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${live-events.buffer-size:32}") int bufferSize,
+                            @Value("${live-events.max-subscribers:50000}") int maxSubscribers,
+                            @Value("${live-events.timeout:30m}") Duration timeout,
+                            @Value("${live-events.delivery-threads:4}") int deliveryThreads) {
+        this.broadcaster = broadcaster;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads,
+                runnable -> new Thread(runnable, "live-events-" + threads.incrementAndGet()));
+        this.droppedCounter = Counter.builder("live.events.dropped")
+                .description("Events dropped because a subscriber's buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("live.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open event streams on this node")
+                .register(meterRegistry);
+        events = broadcaster.channel(EVENT_CHANNEL, LiveEvent.class, this::deliver);
+    }
+
+    @PreDestroy
+    public void stop() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    public static String userTopic(Long userId) {
+        return "user:" + userId;
+    }
+
+    public static String pharmacyTopic(Long pharmacyId) {
+        return "pharmacy:" + pharmacyId;
+    }
+
+    /** Opens a stream of the topic's events; returns null when this node is at its subscriber limit. */
+    public SseEmitter subscribe(String topic) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        LiveEventSubscription[] holder = new LiveEventSubscription[1];
+        Runnable close = () -> unsubscribe(topic, holder[0]);
+        LiveEventSubscription subscription = new LiveEventSubscription(emitter, bufferSize, deliveryExecutor,
+                droppedCounter, close);
+        holder[0] = subscription;
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+        subscriptions.compute(topic, (key, subscribers) -> {
+            Set<LiveEventSubscription> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+        // Sends the response headers now rather than with the first event
+        subscription.offerKeepAlive();
+        return emitter;
+    }
+
+    private void unsubscribe(String topic, LiveEventSubscription subscription) {
+        subscriptions.computeIfPresent(topic, (key, subscribers) -> {
+            if (subscribers.remove(subscription)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    // Also lets proxies and the container notice streams whose client has gone
+    @Scheduled(fixedDelayString = "${live-events.keep-alive-interval:PT30S}")
+    public void sendKeepAlives() {
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(LiveEventSubscription::offerKeepAlive));
+    }
+
+    /** Tells each user's open streams that reminders were just sent. */
+    public void publishReminders(List<ReminderNotification> notifications) {
+        try {
+            List<LiveEvent> events = new ArrayList<>(notifications.size());
+            for (ReminderNotification notification : notifications) {
+                events.add(new LiveEvent(userTopic(notification.userId()), REMINDER_DUE,
+                        toJson(new ReminderDue(notification.reminderId(), notification.reminderTime(),
+                                notification.medicationName(), notification.medicationDosage(), notification.notes()))));
+            }
+            publish(events);
+        } catch (Exception e) {
+            logger.warn("Could not push {} reminders to open streams: {}", notifications.size(), e.getMessage());
+        }
+    }
+
+    /** Queues a low-stock alert for the batch's pharmacy; sent once the transaction commits. */
+    public void onInventorySaved(Inventory inventory) {
+        if (!inventory.isActive() || inventory.getQuantity() == null || inventory.getMinimumStockLevel() == null
+                || !inventory.isLowStock()) {
+            return;
+        }
+        // The last state of each batch in a transaction wins
+        events.publishAfterCommit(inventory.getId(), new LiveEvent(pharmacyTopic(inventory.getPharmacy().getId()), LOW_STOCK,
+                toJson(new LowStock(inventory.getId(), inventory.getMedicationName(), inventory.getStrength(),
+                        inventory.getBatchNumber(), inventory.getQuantity(), inventory.getMinimumStockLevel()))));
+    }
+
+    /** Delivers to this node's subscribers and announces the events to the other nodes. */
+    public void publish(List<LiveEvent> events) {
+        this.events.publish(events);
+    }
+
+    private boolean deliver(LiveEvent event) {
+        Set<LiveEventSubscription> subscribers = subscriptions.get(event.topic());
+        if (subscribers != null) {
+            subscribers.forEach(subscription -> subscription.offer(event));
+        }
+        return true;
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize live event", e);
+        }
+    }
+
+    /** An event for the subscribers of {@code topic}; {@code data} is the JSON payload. */
+    public record LiveEvent(String topic, String type, String data) {
+        static final LiveEvent KEEP_ALIVE = new LiveEvent(null, null, null);
+    }
+
+    record ReminderDue(Long reminderId, LocalDateTime reminderTime, String medicationName,
+                       String medicationDosage, String notes) {
+    }
+
+    record LowStock(Long inventoryId, String medicationName, String strength, String batchNumber,
+                    int quantity, int minimumStockLevel) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.pharmacare.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open event stream. Events wait in a bounded buffer until a delivery thread writes them; at most
+ * one thread drains a connection at a time, so a slow client holds up only itself. When the buffer
+ * is full the oldest event is dropped. Thread-safe.
+ */
+final class LiveEventSubscription {
+
+    private final SseEmitter emitter;
+    private final ArrayBlockingQueue<LiveEventService.LiveEvent> buffer;
+    private final Executor deliveryExecutor;
+    private final Counter droppedCounter;
+    private final Runnable onClose;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    LiveEventSubscription(SseEmitter emitter, int bufferSize, Executor deliveryExecutor,
+                          Counter droppedCounter, Runnable onClose) {
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.deliveryExecutor = deliveryExecutor;
+        this.droppedCounter = droppedCounter;
+        this.onClose = onClose;
+    }
+
+    void offer(LiveEventService.LiveEvent event) {
+        while (!buffer.offer(event)) {
+            if (buffer.poll() != null) {
+                droppedCounter.increment();
+            }
+        }
+        scheduleDrain();
+    }
+
+    // Only when idle, so keep-alives never push out real events
+    void offerKeepAlive() {
+        if (buffer.isEmpty()) {
+            offer(LiveEventService.LiveEvent.KEEP_ALIVE);
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                deliveryExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            LiveEventService.LiveEvent event;
+            while ((event = buffer.poll()) != null) {
+                emitter.send(event == LiveEventService.LiveEvent.KEEP_ALIVE
+                        ? SseEmitter.event().comment("keep-alive")
+                        : SseEmitter.event().name(event.type()).data(event.data()));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client has gone or the stream timed out; draining stays set so nothing is queued again
+            buffer.clear();
+            onClose.run();
+            emitter.completeWithError(e);
+            return;
+        }
+        draining.set(false);
+        // An event offered after the last poll but before the flag was cleared
+        if (!buffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.pharmacare.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Stand-in notifier for local runs and tests: writes each due reminder to the log. */
+@Component
+@ConditionalOnProperty(name = "reminders.dispatch.notifier", havingValue = "log", matchIfMissing = true)
+public class LoggingReminderNotifier implements ReminderNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingReminderNotifier.class);
+
+    @Override
+    public void send(List<ReminderNotification> notifications) {
+        for (ReminderNotification notification : notifications) {
+            logger.info("Reminder {} due at {} for user {}: {} {}", notification.reminderId(),
+                    notification.reminderTime(), notification.userId(), notification.medicationName(),
+                    notification.medicationDosage());
+        }
+    }
+}
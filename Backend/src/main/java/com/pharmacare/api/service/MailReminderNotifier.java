@@ -0,0 +1,61 @@
+package com.pharmacare.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Emails due reminders through the configured {@code spring.mail.*} server. A batch is handed to the
+ * mail sender in one call, so it goes out over a single connection.
+ */
+@Component
+@ConditionalOnProperty(name = "reminders.dispatch.notifier", havingValue = "mail")
+public class MailReminderNotifier implements ReminderNotifier {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final JavaMailSender mailSender;
+    private final String from;
+
+    public MailReminderNotifier(JavaMailSender mailSender,
+                                @Value("${reminders.dispatch.mail.from:no-reply@pharmacare.local}") String from) {
+        this.mailSender = mailSender;
+        this.from = from;
+    }
+
+    @Override
+    public void send(List<ReminderNotification> notifications) {
+        SimpleMailMessage[] messages = notifications.stream()
+                .filter(notification -> notification.email() != null)
+                .map(this::toMessage)
+                .toArray(SimpleMailMessage[]::new);
+        if (messages.length > 0) {
+            mailSender.send(messages);
+        }
+    }
+
+    private SimpleMailMessage toMessage(ReminderNotification notification) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(notification.email());
+        message.setSubject("Reminder: " + notification.medicationName());
+
+        StringBuilder text = new StringBuilder()
+                .append("Hi ").append(notification.firstName() != null ? notification.firstName() : "there").append(",\n\n")
+                .append("It is time to take ").append(notification.medicationName());
+        if (notification.medicationDosage() != null) {
+            text.append(" (").append(notification.medicationDosage()).append(")");
+        }
+        text.append(", scheduled for ").append(notification.reminderTime().format(TIME_FORMAT)).append(".\n");
+        if (notification.notes() != null && !notification.notes().isBlank()) {
+            text.append("\n").append(notification.notes()).append("\n");
+        }
+        message.setText(text.toString());
+        return message;
+    }
+}
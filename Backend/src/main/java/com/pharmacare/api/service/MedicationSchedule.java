@@ -0,0 +1,235 @@
+package com.pharmacare.api.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dosing times parsed from a medication's free-text {@code frequency}. Understands plain phrases
+ * ("once daily", "twice a day", "3 times per day", "every 8 hours", "every other day", "weekly"),
+ * the usual abbreviations (OD, BID, TID, QID, q8h), explicit times ("08:00, 20:00", optionally after
+ * "daily at") and the DAILY and WEEKLY subset of an iCalendar RRULE with INTERVAL, BYDAY, BYHOUR and
+ * BYMINUTE. Anything else, such as "as needed", has no schedule and its reminders stay manual.
+ */
+final class MedicationSchedule {
+
+    private static final Map<Integer, List<LocalTime>> TIMES_PER_DAY = Map.of(
+            1, List.of(LocalTime.of(9, 0)),
+            2, List.of(LocalTime.of(9, 0), LocalTime.of(21, 0)),
+            3, List.of(LocalTime.of(8, 0), LocalTime.of(14, 0), LocalTime.of(20, 0)),
+            4, List.of(LocalTime.of(8, 0), LocalTime.of(12, 0), LocalTime.of(16, 0), LocalTime.of(20, 0)));
+
+    private static final Map<String, Integer> ABBREVIATIONS = Map.ofEntries(
+            Map.entry("od", 1), Map.entry("qd", 1), Map.entry("daily", 1), Map.entry("every day", 1),
+            Map.entry("bid", 2), Map.entry("bd", 2),
+            Map.entry("tid", 3), Map.entry("tds", 3),
+            Map.entry("qid", 4), Map.entry("qds", 4));
+
+    private static final Map<String, Integer> COUNTS = Map.of(
+            "once", 1, "one", 1, "twice", 2, "two", 2, "thrice", 3, "three", 3, "four", 4);
+
+    private static final Map<String, DayOfWeek> RRULE_DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY,
+            "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+
+    private static final Pattern PER_DAY = Pattern.compile(
+            "(once|one|twice|two|thrice|three|four|[1-4])(?:\\s*(?:x|times?))?\\s*(?:a|per|/)?\\s*(?:day|daily)");
+    private static final Pattern EVERY_HOURS = Pattern.compile("(?:every\\s*|q)(\\d{1,2})\\s*(?:h|hrs?|hours?)");
+    private static final Pattern EVERY_DAYS = Pattern.compile("every\\s+(other|\\d{1,3})\\s+days?");
+    private static final Pattern WEEKLY = Pattern.compile("weekly|once (?:a|per) week|once weekly|every week");
+    private static final Pattern CLOCK_TIME = Pattern.compile("([01]?\\d|2[0-3]):([0-5]\\d)");
+    private static final Pattern CLOCK_TIME_SEPARATORS = Pattern.compile("(?:daily at|every day at|at)?(?:[\\s,;]|and)*");
+
+    // Every day when null; otherwise these days in every intervalWeeks-th week
+    private final Set<DayOfWeek> days;
+    private final int intervalDays;
+    private final int intervalWeeks;
+    private final List<LocalTime> times;
+
+    private MedicationSchedule(Set<DayOfWeek> days, int intervalDays, int intervalWeeks, List<LocalTime> times) {
+        this.days = days;
+        this.intervalDays = intervalDays;
+        this.intervalWeeks = intervalWeeks;
+        this.times = times;
+    }
+
+    /** Returns null when the frequency has no recognisable schedule. */
+    static MedicationSchedule parse(String frequency) {
+        if (frequency == null || frequency.isBlank()) {
+            return null;
+        }
+        String text = frequency.trim().replaceAll("\\s+", " ");
+        String upper = text.toUpperCase(Locale.ROOT);
+        if (upper.startsWith("RRULE:") || upper.startsWith("FREQ=")) {
+            return parseRrule(upper.startsWith("RRULE:") ? upper.substring("RRULE:".length()) : upper);
+        }
+        text = text.toLowerCase(Locale.ROOT).replaceAll("[.]$", "");
+
+        Integer count = ABBREVIATIONS.get(text);
+        if (count != null) {
+            return daily(1, TIMES_PER_DAY.get(count));
+        }
+        Matcher matcher = PER_DAY.matcher(text);
+        if (matcher.matches()) {
+            String word = matcher.group(1);
+            return daily(1, TIMES_PER_DAY.get(COUNTS.getOrDefault(word, word.length() == 1 ? word.charAt(0) - '0' : 0)));
+        }
+        matcher = EVERY_HOURS.matcher(text);
+        if (matcher.matches()) {
+            return everyHours(Integer.parseInt(matcher.group(1)));
+        }
+        matcher = EVERY_DAYS.matcher(text);
+        if (matcher.matches()) {
+            int interval = "other".equals(matcher.group(1)) ? 2 : Integer.parseInt(matcher.group(1));
+            return daily(interval, TIMES_PER_DAY.get(1));
+        }
+        if (WEEKLY.matcher(text).matches()) {
+            return daily(7, TIMES_PER_DAY.get(1));
+        }
+        return parseClockTimes(text);
+    }
+
+    /** Occurrences after {@code from} up to and including {@code to}, for a course starting on {@code startDate}. */
+    List<LocalDateTime> occurrences(LocalDate startDate, LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        LocalDate day = from.toLocalDate().isBefore(startDate) ? startDate : from.toLocalDate();
+        for (; !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+            if (!isDosingDay(startDate, day)) {
+                continue;
+            }
+            for (LocalTime time : times) {
+                LocalDateTime occurrence = day.atTime(time);
+                if (occurrence.isAfter(from) && !occurrence.isAfter(to)) {
+                    occurrences.add(occurrence);
+                }
+            }
+        }
+        return occurrences;
+    }
+
+    private boolean isDosingDay(LocalDate startDate, LocalDate day) {
+        if (days == null) {
+            return ChronoUnit.DAYS.between(startDate, day) % intervalDays == 0;
+        }
+        if (!days.contains(day.getDayOfWeek())) {
+            return false;
+        }
+        LocalDate firstWeek = startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate week = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return ChronoUnit.WEEKS.between(firstWeek, week) % intervalWeeks == 0;
+    }
+
+    private static MedicationSchedule daily(int intervalDays, List<LocalTime> times) {
+        if (times == null || intervalDays < 1) {
+            return null;
+        }
+        return new MedicationSchedule(null, intervalDays, 1, times);
+    }
+
+    // Anchored at 08:00; intervals that do not divide the day would drift, so they are not scheduled
+    private static MedicationSchedule everyHours(int hours) {
+        if (hours < 1 || 24 % hours != 0) {
+            return null;
+        }
+        Set<LocalTime> times = new TreeSet<>();
+        for (int hour = 0; hour < 24; hour += hours) {
+            times.add(LocalTime.of((8 + hour) % 24, 0));
+        }
+        return daily(1, List.copyOf(times));
+    }
+
+    private static MedicationSchedule parseClockTimes(String text) {
+        Matcher matcher = CLOCK_TIME.matcher(text);
+        Set<LocalTime> times = new TreeSet<>();
+        while (matcher.find()) {
+            times.add(LocalTime.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+        }
+        if (times.isEmpty() || !CLOCK_TIME_SEPARATORS.matcher(CLOCK_TIME.matcher(text).replaceAll(" ")).matches()) {
+            return null;
+        }
+        return daily(1, List.copyOf(times));
+    }
+
+    private static MedicationSchedule parseRrule(String rule) {
+        String freq = null;
+        int interval = 1;
+        Set<DayOfWeek> byDay = null;
+        List<Integer> byHour = List.of(9);
+        List<Integer> byMinute = List.of(0);
+        try {
+            for (String part : rule.split(";")) {
+                String[] pair = part.split("=", 2);
+                if (pair.length != 2) {
+                    return null;
+                }
+                switch (pair[0]) {
+                    case "FREQ" -> freq = pair[1];
+                    case "INTERVAL" -> interval = Integer.parseInt(pair[1]);
+                    case "BYHOUR" -> byHour = parseNumbers(pair[1], 23);
+                    case "BYMINUTE" -> byMinute = parseNumbers(pair[1], 59);
+                    case "BYDAY" -> {
+                        byDay = EnumSet.noneOf(DayOfWeek.class);
+                        for (String code : pair[1].split(",")) {
+                            DayOfWeek day = RRULE_DAYS.get(code);
+                            if (day == null) {
+                                return null;
+                            }
+                            byDay.add(day);
+                        }
+                    }
+                    // Bounds come from the medication's start and end dates
+                    case "DTSTART", "UNTIL", "COUNT", "WKST" -> { }
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (byHour == null || byMinute == null || interval < 1) {
+            return null;
+        }
+
+        Set<LocalTime> times = new TreeSet<>();
+        for (int hour : byHour) {
+            for (int minute : byMinute) {
+                times.add(LocalTime.of(hour, minute));
+            }
+        }
+        if ("DAILY".equals(freq) && byDay == null) {
+            return daily(interval, List.copyOf(times));
+        }
+        if ("WEEKLY".equals(freq)) {
+            return byDay == null
+                    ? daily(7 * interval, List.copyOf(times))
+                    : new MedicationSchedule(byDay, 1, interval, List.copyOf(times));
+        }
+        return null;
+    }
+
+    // Null when a value is out of range
+    private static List<Integer> parseNumbers(String values, int max) {
+        List<Integer> numbers = new ArrayList<>();
+        for (String value : values.split(",")) {
+            int number = Integer.parseInt(value);
+            if (number < 0 || number > max) {
+                return null;
+            }
+            numbers.add(number);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,128 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.CacheNames;
+import com.pharmacare.api.dto.MedicationDto;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Medication;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.MedicationRepository;
+import com.pharmacare.api.repository.ReminderRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * A user's medication list, cached in Redis per user id. Every write evicts the list together with
+ * the user's analytics, which count active medications. Reminders created from a medication's
+ * schedule by {@link ReminderScheduleService} are replaced when the schedule changes.
+ */
+@Service
+public class MedicationService {
+
+    private final MedicationRepository medicationRepository;
+    private final ReminderRepository reminderRepository;
+    private final ReminderScheduleService reminderScheduleService;
+
+    public MedicationService(MedicationRepository medicationRepository,
+                             ReminderRepository reminderRepository,
+                             ReminderScheduleService reminderScheduleService) {
+        this.medicationRepository = medicationRepository;
+        this.reminderRepository = reminderRepository;
+        this.reminderScheduleService = reminderScheduleService;
+    }
+
+    @Cacheable(cacheNames = CacheNames.USER_MEDICATIONS, key = "#userId", sync = true)
+    @Transactional(readOnly = true)
+    public List<MedicationDto> getMedications(Long userId) {
+        return medicationRepository.findByUserId(userId).stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.USER_MEDICATIONS, key = "#user.id"),
+            @CacheEvict(cacheNames = CacheNames.USER_ANALYTICS, key = "#user.id")
+    })
+    @Transactional
+    public Medication createMedication(User user, Medication medication) {
+        medication.setUser(user);
+        Medication saved = medicationRepository.save(medication);
+        scheduleAfterCommit(saved.getId());
+        return saved;
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.USER_MEDICATIONS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheNames.USER_ANALYTICS, key = "#userId")
+    })
+    @Transactional
+    public Medication updateMedication(Long userId, Long medicationId, Medication medicationDetails) {
+        Medication medication = findMedication(userId, medicationId);
+        boolean scheduleChanged = !Objects.equals(medication.getFrequency(), medicationDetails.getFrequency())
+                || !Objects.equals(medication.getStartDate(), medicationDetails.getStartDate())
+                || !Objects.equals(medication.getEndDate(), medicationDetails.getEndDate())
+                || medication.isActive() != medicationDetails.isActive();
+        medication.setName(medicationDetails.getName());
+        medication.setDescription(medicationDetails.getDescription());
+        medication.setDosage(medicationDetails.getDosage());
+        medication.setFrequency(medicationDetails.getFrequency());
+        medication.setStartDate(medicationDetails.getStartDate());
+        medication.setEndDate(medicationDetails.getEndDate());
+        medication.setActive(medicationDetails.isActive());
+        if (scheduleChanged) {
+            // Upcoming scheduled reminders are created again from the new schedule
+            reminderRepository.deleteScheduledAfter(medicationId, LocalDateTime.now());
+            medication.setRemindersScheduledThrough(null);
+            scheduleAfterCommit(medicationId);
+        }
+        return medicationRepository.save(medication);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.USER_MEDICATIONS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheNames.USER_ANALYTICS, key = "#userId")
+    })
+    @Transactional
+    public void deleteMedication(Long userId, Long medicationId) {
+        Medication medication = findMedication(userId, medicationId);
+        reminderRepository.deleteByMedication(medicationId);
+        medicationRepository.delete(medication);
+    }
+
+    private void scheduleAfterCommit(Long medicationId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reminderScheduleService.scheduleMedication(medicationId);
+            }
+        });
+    }
+
+    private Medication findMedication(Long userId, Long medicationId) {
+        return medicationRepository.findByIdAndUserId(medicationId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Medication", "id", medicationId));
+    }
+
+    private MedicationDto toDto(Medication medication) {
+        return MedicationDto.builder()
+                .id(medication.getId())
+                .name(medication.getName())
+                .description(medication.getDescription())
+                .dosage(medication.getDosage())
+                .frequency(medication.getFrequency())
+                .startDate(medication.getStartDate())
+                .endDate(medication.getEndDate())
+                .active(medication.isActive())
+                .stock(medication.getStock())
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.CacheNames;
+import com.pharmacare.api.dto.PharmacyDto;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.model.PharmacyStaff;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.PharmacyRepository;
+import com.pharmacare.api.repository.PharmacyStaffRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pharmacy reads behind the dashboards, cached in Redis per pharmacy and per staff member. Writes
+ * evict the pharmacy and every member's list, since a list holds copies of its pharmacies; staff
+ * changes evict the member's list through {@link com.pharmacare.api.security.PharmacyStaffEntityListener}.
+ */
+@Service
+public class PharmacyService {
+
+    private final PharmacyRepository pharmacyRepository;
+    private final PharmacyStaffRepository pharmacyStaffRepository;
+
+    public PharmacyService(PharmacyRepository pharmacyRepository,
+                           PharmacyStaffRepository pharmacyStaffRepository) {
+        this.pharmacyRepository = pharmacyRepository;
+        this.pharmacyStaffRepository = pharmacyStaffRepository;
+    }
+
+    @Cacheable(cacheNames = CacheNames.PHARMACIES, key = "#pharmacyId", sync = true)
+    @Transactional(readOnly = true)
+    public PharmacyDto getPharmacy(Long pharmacyId) {
+        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", pharmacyId));
+        return toDto(pharmacy);
+    }
+
+    /** Pharmacies the user is on the staff of. */
+    @Cacheable(cacheNames = CacheNames.USER_PHARMACIES, key = "#userId", sync = true)
+    @Transactional(readOnly = true)
+    public List<PharmacyDto> getUserPharmacies(Long userId) {
+        return pharmacyStaffRepository.findByUserId(userId).stream()
+                .map(PharmacyStaff::getPharmacy)
+                .distinct()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public PharmacyDto createPharmacy(PharmacyDto pharmacyDto, User owner) {
+        Pharmacy pharmacy = Pharmacy.builder()
+                .name(pharmacyDto.getName())
+                .registrationNumber(pharmacyDto.getRegistrationNumber())
+                .address(pharmacyDto.getAddress())
+                .phone(pharmacyDto.getPhone())
+                .email(pharmacyDto.getEmail())
+                .website(pharmacyDto.getWebsite())
+                .active(true)
+                .owner(owner)
+                .build();
+        return toDto(pharmacyRepository.save(pharmacy));
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.PHARMACIES, key = "#pharmacyId"),
+            @CacheEvict(cacheNames = CacheNames.USER_PHARMACIES, allEntries = true)
+    })
+    @Transactional
+    public PharmacyDto updatePharmacy(Long pharmacyId, PharmacyDto pharmacyDto) {
+        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", pharmacyId));
+        pharmacy.setName(pharmacyDto.getName());
+        pharmacy.setAddress(pharmacyDto.getAddress());
+        pharmacy.setPhone(pharmacyDto.getPhone());
+        pharmacy.setEmail(pharmacyDto.getEmail());
+        pharmacy.setWebsite(pharmacyDto.getWebsite());
+        pharmacy.setActive(pharmacyDto.isActive());
+        return toDto(pharmacyRepository.save(pharmacy));
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.PHARMACIES, key = "#pharmacyId"),
+            @CacheEvict(cacheNames = CacheNames.USER_PHARMACIES, allEntries = true)
+    })
+    @Transactional
+    public void deactivatePharmacy(Long pharmacyId) {
+        Pharmacy pharmacy = pharmacyRepository.findById(pharmacyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pharmacy", "id", pharmacyId));
+        pharmacy.setActive(false);
+        pharmacyRepository.save(pharmacy);
+    }
+
+    @CacheEvict(cacheNames = CacheNames.USER_PHARMACIES, key = "#userId")
+    public void evictUserPharmacies(Long userId) {
+    }
+
+    public PharmacyDto toDto(Pharmacy pharmacy) {
+        return PharmacyDto.builder()
+                .id(pharmacy.getId())
+                .name(pharmacy.getName())
+                .registrationNumber(pharmacy.getRegistrationNumber())
+                .address(pharmacy.getAddress())
+                .phone(pharmacy.getPhone())
+                .email(pharmacy.getEmail())
+                .website(pharmacy.getWebsite())
+                .active(pharmacy.isActive())
+                .ownerId(pharmacy.getOwner() != null ? pharmacy.getOwner().getId() : null)
+                .ownerName(pharmacy.getOwner() != null ? pharmacy.getOwner().getFirstName() + " " + pharmacy.getOwner().getLastName() : null)
+                .createdAt(pharmacy.getCreatedAt())
+                .updatedAt(pharmacy.getUpdatedAt())
+                .build();
+    }
+}
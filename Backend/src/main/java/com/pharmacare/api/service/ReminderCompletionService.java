@@ -0,0 +1,88 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.ReminderCompletionBatchDto;
+import com.pharmacare.api.dto.ReminderCompletionDto;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.repository.ReminderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Marks reminders as taken. Users tend to complete the same reminder time together, so a completion
+ * is one conditional {@code UPDATE} scoped to the user rather than a load and save of the entity;
+ * the row is only read back when nothing was updated. Completing an already completed reminder keeps
+ * its original completion time.
+ */
+@Service
+public class ReminderCompletionService {
+
+    private final ReminderRepository reminderRepository;
+    private final AnalyticsService analyticsService;
+    private final int maxBatchSize;
+
+    public ReminderCompletionService(ReminderRepository reminderRepository,
+                                     AnalyticsService analyticsService,
+                                     @Value("${reminders.complete.max-batch-size:500}") int maxBatchSize) {
+        this.reminderRepository = reminderRepository;
+        this.analyticsService = analyticsService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Transactional
+    public ReminderCompletionDto complete(Long userId, Long reminderId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (reminderRepository.completeIfPending(reminderId, userId, now) == 1) {
+            analyticsService.evictUserAnalytics(userId);
+            return new ReminderCompletionDto(reminderId, true, now);
+        }
+        return reminderRepository.findCompletions(List.of(reminderId), userId).stream()
+                .findFirst()
+                .map(this::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Reminder", "id", reminderId));
+    }
+
+    @Transactional
+    public ReminderCompletionBatchDto completeAll(Long userId, Collection<Long> reminderIds) {
+        Set<Long> ids = new LinkedHashSet<>(reminderIds);
+        if (ids.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + maxBatchSize + " reminders");
+        }
+        if (reminderRepository.completeAllIfPending(ids, userId, LocalDateTime.now()) > 0) {
+            analyticsService.evictUserAnalytics(userId);
+        }
+
+        Map<Long, ReminderRepository.ReminderCompletion> completions = new HashMap<>();
+        for (ReminderRepository.ReminderCompletion completion : reminderRepository.findCompletions(ids, userId)) {
+            completions.put(completion.getId(), completion);
+        }
+        List<ReminderCompletionDto> completed = new ArrayList<>(completions.size());
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : ids) {
+            ReminderRepository.ReminderCompletion completion = completions.get(id);
+            if (completion != null) {
+                completed.add(toDto(completion));
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new ReminderCompletionBatchDto(completed, notFound);
+    }
+
+    private ReminderCompletionDto toDto(ReminderRepository.ReminderCompletion completion) {
+        return new ReminderCompletionDto(completion.getId(), completion.isCompleted(), completion.getCompletedAt());
+    }
+}
@@ -0,0 +1,400 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.model.Reminder;
+import com.pharmacare.api.repository.ReminderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends reminders when their time comes. Unsent reminders due within the look-ahead horizon are read
+ * in keyset pages into a {@link ReminderTimingWheel}; each tick moves the wheel forward and hands due
+ * reminders in batches to a small worker pool. A worker locks and marks its batch as sent in one
+ * transaction and passes it to the {@link ReminderNotifier} after commit, so a reminder is sent at
+ * most once. Memory is bounded by the wheel capacity: when it is full the loader stops where it is,
+ * and when the workers are busy due reminders wait in the wheel.
+ *
+ * <p>With several nodes, each loads and claims only the user-id buckets it leases through the
+ * {@link ReminderLeaseService}. Buckets taken over from another node are read again from the
+ * catch-up window, so reminders that node had loaded but not sent are picked up. Reminders written
+ * behind the loaders' position are announced on {@value #RELOAD_CHANNEL}, since the bucket's owner
+ * may be another node.
+ */
+@Service
+public class ReminderDispatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderDispatchService.class);
+
+    public static final String RELOAD_CHANNEL = "pharmacare:reminder-reloads";
+
+    private static final int WHEEL_LEVELS = 3;
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final ReminderRepository reminderRepository;
+    private final ReminderNotifier notifier;
+    private final ReminderLeaseService leaseService;
+    private final LiveEventService liveEventService;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterBroadcaster broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration tick;
+    private final Duration horizon;
+    private final Duration loadInterval;
+    private final Duration catchUp;
+    private final int capacity;
+    private final int batchSize;
+    private final int workerCount;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer delayTimer;
+
+    private volatile ReminderTimingWheel wheel;
+    private ScheduledExecutorService timer;
+    private ThreadPoolExecutor workers;
+    private ClusterBroadcaster.Channel<LocalDateTime> reloads;
+
+    private final Object loadLock = new Object();
+    // Keyset position of the last reminder loaded; only moved by load()
+    private KeysetCursor cursor;
+    // Buckets gained since the last load, still to be read from the catch-up window
+    private final ConcurrentLinkedQueue<Long> takenOver = new ConcurrentLinkedQueue<>();
+    // Earliest time of a reminder that could not be added because the wheel was full
+    private final AtomicReference<LocalDateTime> rewindTo = new AtomicReference<>();
+
+    public ReminderDispatchService(ReminderRepository reminderRepository,
+                                   ReminderNotifier notifier,
+                                   ReminderLeaseService leaseService,
+                                   LiveEventService liveEventService,
+                                   PlatformTransactionManager transactionManager,
+                                   ClusterBroadcaster broadcaster,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${reminders.dispatch.enabled:true}") boolean enabled,
+                                   @Value("${reminders.dispatch.tick:1s}") Duration tick,
+                                   @Value("${reminders.dispatch.horizon:5m}") Duration horizon,
+                                   @Value("${reminders.dispatch.load-interval:30s}") Duration loadInterval,
+                                   @Value("${reminders.dispatch.catch-up:1h}") Duration catchUp,
+                                   @Value("${reminders.dispatch.max-pending:200000}") int capacity,
+                                   @Value("${reminders.dispatch.batch-size:500}") int batchSize,
+                                   @Value("${reminders.dispatch.workers:4}") int workerCount) {
+        this.reminderRepository = reminderRepository;
+        this.notifier = notifier;
+        this.leaseService = leaseService;
+        this.liveEventService = liveEventService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.tick = tick;
+        this.horizon = horizon;
+        this.loadInterval = loadInterval;
+        this.catchUp = catchUp;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.workerCount = workerCount;
+        this.sentCounter = Counter.builder("reminders.dispatch.sent")
+                .description("Reminders handed to the notifier")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("reminders.dispatch.failed")
+                .description("Reminders the notifier failed to deliver")
+                .register(meterRegistry);
+        this.delayTimer = Timer.builder("reminders.dispatch.delay")
+                .description("Time between a reminder's due time and its dispatch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        reloads = broadcaster.channel(RELOAD_CHANNEL, LocalDateTime.class, this::applyReload);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || wheel != null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        cursor = new KeysetCursor(now.minus(catchUp), 0);
+        wheel = new ReminderTimingWheel(tick.toMillis(), WHEEL_LEVELS, capacity, toMillis(now));
+        Gauge.builder("reminders.dispatch.pending", wheel, ReminderTimingWheel::size)
+                .description("Reminders held in the timing wheel")
+                .register(meterRegistry);
+
+        AtomicInteger threads = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerCount),
+                runnable -> new Thread(runnable, "reminder-dispatch-" + threads.incrementAndGet()));
+        // Separate threads, so a slow load does not hold up ticks or lease renewal
+        timer = Executors.newScheduledThreadPool(3,
+                runnable -> new Thread(runnable, "reminder-dispatch-timer-" + threads.incrementAndGet()));
+        long renewMillis = leaseService.getLeaseTtl().toMillis() / 3;
+        timer.scheduleWithFixedDelay(this::renewSafely, 0, renewMillis, TimeUnit.MILLISECONDS);
+        timer.scheduleWithFixedDelay(this::loadSafely, 0, loadInterval.toMillis(), TimeUnit.MILLISECONDS);
+        timer.scheduleAtFixedRate(this::tickSafely, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Reminder dispatch started with a {} horizon and room for {} reminders", horizon, capacity);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Adds a reminder created or moved by a user, once its transaction has committed. The loader only
+     * reads forward, so a reminder written behind its position would otherwise wait for a restart;
+     * one the loader also finds is claimed once.
+     */
+    public void schedule(Reminder reminder) {
+        ReminderTimingWheel current = wheel;
+        if (reminder.isCompleted() || reminder.getNotifiedAt() != null
+                || reminder.getReminderTime().isAfter(LocalDateTime.now().plus(horizon))) {
+            return;
+        }
+        if (current == null || !leaseService.owns(reminder.getUser().getId())) {
+            // Another node owns the bucket
+            reload(reminder.getReminderTime());
+            return;
+        }
+        if (!current.add(reminder.getId(), toMillis(reminder.getReminderTime()))) {
+            rewind(reminder.getReminderTime());
+        }
+    }
+
+    /**
+     * Makes the loaders on all nodes read again from {@code time}, for reminders written behind their
+     * position, such as those inserted in bulk. Times before the catch-up window are read from the
+     * start of the window; times beyond the horizon are still ahead of every loader.
+     */
+    public void reload(LocalDateTime time) {
+        if (time.isAfter(LocalDateTime.now().plus(horizon))) {
+            return;
+        }
+        reloads.publish(time);
+    }
+
+    private boolean applyReload(LocalDateTime time) {
+        if (wheel != null) {
+            LocalDateTime earliest = LocalDateTime.now().minus(catchUp);
+            rewind(time.isBefore(earliest) ? earliest : time);
+        }
+        return true;
+    }
+
+    // Makes the loader read again from this time on its next run
+    private void rewind(LocalDateTime time) {
+        rewindTo.accumulateAndGet(time, (earliest, candidate) ->
+                earliest == null || candidate.isBefore(earliest) ? candidate : earliest);
+    }
+
+    private void loadSafely() {
+        try {
+            // Scheduled loads and those triggered by a takeover share the cursor
+            synchronized (loadLock) {
+                load();
+            }
+        } catch (Exception e) {
+            logger.error("Loading due reminders failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void load() {
+        List<Long> owned = leaseService.getOwnedBuckets();
+        if (owned.isEmpty()) {
+            return;
+        }
+        LocalDateTime rewind = rewindTo.getAndSet(null);
+        if (rewind != null && rewind.isBefore(cursor.time)) {
+            cursor = new KeysetCursor(rewind, 0);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(horizon);
+        List<Long> gained = new ArrayList<>();
+        for (Long bucket; (bucket = takenOver.poll()) != null; ) {
+            if (owned.contains(bucket) && !gained.contains(bucket)) {
+                gained.add(bucket);
+            }
+        }
+        if (!gained.isEmpty()) {
+            // The main cursor is already past these buckets' earlier reminders
+            KeysetCursor catchUpCursor = new KeysetCursor(now.minus(catchUp), 0);
+            if (!loadPages(gained, catchUpCursor, cursor.time.isBefore(until) ? cursor.time : until)) {
+                rewind(catchUpCursor.time);
+                return;
+            }
+        }
+        loadPages(owned, cursor, until);
+    }
+
+    // Moves the cursor over the reminders loaded; returns false if the wheel filled up first
+    private boolean loadPages(List<Long> buckets, KeysetCursor from, LocalDateTime until) {
+        int loaded = 0;
+        try {
+            while (true) {
+                int room = capacity - wheel.size();
+                if (room <= 0) {
+                    logger.warn("Reminder timing wheel is full; loading resumes once due reminders are sent");
+                    return false;
+                }
+                int limit = Math.min(LOAD_PAGE_SIZE, room);
+                List<ReminderRepository.DueReminder> page = reminderRepository.findUnsentAfter(
+                        from.time, from.id, until, leaseService.getBucketCount(), buckets, PageRequest.of(0, limit));
+                for (ReminderRepository.DueReminder reminder : page) {
+                    if (!wheel.add(reminder.getId(), toMillis(reminder.getReminderTime()))) {
+                        return false;
+                    }
+                    from.time = reminder.getReminderTime();
+                    from.id = reminder.getId();
+                    loaded++;
+                }
+                if (page.size() < limit) {
+                    return true;
+                }
+            }
+        } finally {
+            if (loaded > 0) {
+                logger.debug("Loaded {} reminders due by {} from {} buckets", loaded, until, buckets.size());
+            }
+        }
+    }
+
+    private void renewSafely() {
+        try {
+            List<Long> gained = leaseService.renew();
+            if (!gained.isEmpty()) {
+                takenOver.addAll(gained);
+                timer.execute(this::loadSafely);
+            }
+        } catch (Exception e) {
+            logger.error("Renewing reminder bucket leases failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void tickSafely() {
+        try {
+            wheel.advanceTo(System.currentTimeMillis());
+            // Only this thread submits, so a free queue slot means the batch is accepted
+            while (wheel.dueCount() > 0 && workers.getQueue().remainingCapacity() > 0) {
+                List<ReminderTimingWheel.Entry> batch = wheel.pollDue(batchSize);
+                workers.execute(() -> dispatchDue(batch));
+            }
+        } catch (Exception e) {
+            logger.error("Reminder dispatch tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Goes on with further due batches, so a backlog drains as fast as the workers allow instead of
+    // as many batches per tick as the queue holds
+    private void dispatchDue(List<ReminderTimingWheel.Entry> batch) {
+        for (List<ReminderTimingWheel.Entry> next = batch; !next.isEmpty() && !workers.isShutdown();
+             next = wheel.pollDue(batchSize)) {
+            dispatch(next);
+        }
+    }
+
+    private void dispatch(List<ReminderTimingWheel.Entry> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        batch.forEach(entry -> ids.add(entry.reminderId()));
+        long nowMillis = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochMilli(nowMillis), zone);
+        // The wheel releases a whole tick at its start, so reminders due later in the current tick are
+        // in the batch too; bounding the claim at now would skip them after the loader has moved past
+        long tickMillis = tick.toMillis();
+        LocalDateTime dueBefore = LocalDateTime.ofInstant(Instant.ofEpochMilli((nowMillis / tickMillis + 1) * tickMillis), zone);
+        List<ReminderNotification> notifications;
+        try {
+            notifications = transactionTemplate.execute(status -> claim(ids, now, dueBefore));
+        } catch (Exception e) {
+            // The reminders stay unsent in the database; rewind so the loader picks them up again
+            logger.error("Claiming {} due reminders failed: {}", ids.size(), e.getMessage(), e);
+            batch.stream()
+                    .mapToLong(ReminderTimingWheel.Entry::dueMillis)
+                    .min()
+                    .ifPresent(earliest -> rewind(LocalDateTime.ofInstant(Instant.ofEpochMilli(earliest), zone)));
+            return;
+        }
+        if (notifications == null || notifications.isEmpty()) {
+            return;
+        }
+        // Open streams first, so a slow mail server does not delay them
+        liveEventService.publishReminders(notifications);
+        try {
+            notifier.send(notifications);
+            sentCounter.increment(notifications.size());
+            for (ReminderNotification notification : notifications) {
+                delayTimer.record(Duration.between(notification.reminderTime(), now));
+            }
+        } catch (Exception e) {
+            failedCounter.increment(notifications.size());
+            logger.error("Sending {} reminders failed: {}", notifications.size(), e.getMessage(), e);
+        }
+    }
+
+    // Reminders completed, already sent or moved later since they were loaded are left out
+    private List<ReminderNotification> claim(List<Long> ids, LocalDateTime now, LocalDateTime dueBefore) {
+        // Reminders in buckets handed to another node since loading are left to that node
+        List<Long> owned = leaseService.getOwnedBuckets();
+        if (owned.isEmpty()) {
+            return List.of();
+        }
+        List<Long> claimed = reminderRepository.lockDue(ids, dueBefore, leaseService.getBucketCount(), owned);
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        reminderRepository.markNotified(claimed, now);
+        List<ReminderNotification> notifications = new ArrayList<>(claimed.size());
+        for (ReminderRepository.ReminderDetails details : reminderRepository.findDetails(claimed)) {
+            notifications.add(new ReminderNotification(details.getId(), details.getReminderTime(), details.getNotes(),
+                    details.getMedicationName(), details.getMedicationDosage(), details.getUserId(),
+                    details.getEmail(), details.getFirstName()));
+        }
+        return notifications;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static final class KeysetCursor {
+        private LocalDateTime time;
+        private long id;
+
+        private KeysetCursor(LocalDateTime time, long id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+}
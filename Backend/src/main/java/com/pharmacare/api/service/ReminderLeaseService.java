@@ -0,0 +1,137 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.repository.ReminderDispatchLeaseRepository;
+import com.pharmacare.api.repository.ReminderDispatchNodeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shares reminder dispatch between API nodes. Reminders fall into a fixed number of buckets by user
+ * id, and each bucket is leased to one node at a time. Every renewal records a heartbeat and moves
+ * the node towards its fair share of buckets among the nodes seen recently: extra buckets are
+ * released, and free or expired ones are claimed. When a node stops, its leases lapse and the others
+ * take its buckets over. Leases only divide the work; a reminder is still sent once because claiming
+ * it locks the row and marks it sent.
+ */
+@Service
+public class ReminderLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderLeaseService.class);
+
+    // Nodes silent for this many lease periods are removed from the node table
+    private static final int STALE_NODE_PERIODS = 10;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ReminderDispatchLeaseRepository leaseRepository;
+    private final ReminderDispatchNodeRepository nodeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int bucketCount;
+    private final Duration leaseTtl;
+
+    private boolean bucketsCreated;
+    private volatile List<Long> ownedBuckets = List.of();
+
+    public ReminderLeaseService(ReminderDispatchLeaseRepository leaseRepository,
+                                ReminderDispatchNodeRepository nodeRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${reminders.dispatch.buckets:64}") int bucketCount,
+                                @Value("${reminders.dispatch.lease-ttl:30s}") Duration leaseTtl) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bucketCount = bucketCount;
+        this.leaseTtl = leaseTtl;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public Duration getLeaseTtl() {
+        return leaseTtl;
+    }
+
+    /** Buckets this node held at its last renewal, in ascending order. */
+    public List<Long> getOwnedBuckets() {
+        return ownedBuckets;
+    }
+
+    public boolean owns(Long userId) {
+        return ownedBuckets.contains(Math.floorMod(userId, (long) bucketCount));
+    }
+
+    /**
+     * Renews this node's leases and rebalances towards its fair share; returns the buckets it did
+     * not hold before.
+     */
+    public synchronized List<Long> renew() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(leaseTtl);
+        List<Integer> owned = transactionTemplate.execute(status -> {
+            if (!bucketsCreated) {
+                leaseRepository.createBuckets(bucketCount);
+            }
+            nodeRepository.heartbeat(nodeId, now);
+            nodeRepository.deleteStale(now.minus(leaseTtl.multipliedBy(STALE_NODE_PERIODS)));
+            long liveNodes = Math.max(1, nodeRepository.countByHeartbeatAtAfter(now.minus(leaseTtl)));
+            int share = (int) ((bucketCount + liveNodes - 1) / liveNodes);
+
+            leaseRepository.renew(nodeId, bucketCount, expiresAt);
+            List<Integer> current = leaseRepository.findOwned(nodeId, bucketCount);
+            if (current.size() > share) {
+                leaseRepository.release(nodeId, current.subList(share, current.size()));
+            } else if (current.size() < share) {
+                leaseRepository.claimFree(nodeId, bucketCount, now, expiresAt, share - current.size());
+            }
+            return leaseRepository.findOwned(nodeId, bucketCount);
+        });
+        bucketsCreated = true;
+
+        List<Long> previous = ownedBuckets;
+        List<Long> buckets = new ArrayList<>(owned.size());
+        List<Long> gained = new ArrayList<>();
+        for (Integer bucket : owned) {
+            buckets.add(bucket.longValue());
+            if (!previous.contains(bucket.longValue())) {
+                gained.add(bucket.longValue());
+            }
+        }
+        ownedBuckets = List.copyOf(buckets);
+        if (!gained.isEmpty() || buckets.size() != previous.size()) {
+            logger.info("Reminder dispatch node {} now owns {} of {} buckets", nodeId, buckets.size(), bucketCount);
+        }
+        return gained;
+    }
+
+    // Hands the buckets back right away instead of leaving them until the leases expire
+    @PreDestroy
+    public synchronized void release() {
+        List<Long> owned = ownedBuckets;
+        ownedBuckets = List.of();
+        if (!bucketsCreated) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!owned.isEmpty()) {
+                    leaseRepository.release(nodeId, owned.stream().map(Long::intValue).toList());
+                }
+                nodeRepository.deleteNode(nodeId);
+            });
+        } catch (Exception e) {
+            logger.warn("Could not release reminder buckets; they are taken over once the leases expire: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.pharmacare.api.service;
+
+import java.time.LocalDateTime;
+
+/** A reminder that has come due, with what a notifier needs to reach its user. */
+public record ReminderNotification(Long reminderId, LocalDateTime reminderTime, String notes,
+                                   String medicationName, String medicationDosage,
+                                   Long userId, String email, String firstName) {
+}
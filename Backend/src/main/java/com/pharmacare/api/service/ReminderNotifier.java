@@ -0,0 +1,12 @@
+package com.pharmacare.api.service;
+
+import java.util.List;
+
+/**
+ * Delivers due reminders to their users. Called by {@link ReminderDispatchService} with batches of
+ * reminders that have already been marked as sent, so a failed delivery is not retried.
+ */
+public interface ReminderNotifier {
+
+    void send(List<ReminderNotification> notifications);
+}
@@ -0,0 +1,191 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.Medication;
+import com.pharmacare.api.repository.MedicationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates reminders from each medication's {@code frequency} (see {@link MedicationSchedule}) over a
+ * rolling window instead of all at once, so the reminders table holds the course taken so far plus
+ * the next {@code window} only. Every occurrence still gets its own row before it is due, which is
+ * what the dispatcher and the adherence counts read. Medications are processed in chunks of locked
+ * rows, one transaction and one JDBC batch of inserts per chunk; nodes running at the same time skip
+ * each other's rows, and an occurrence that already has a reminder is not inserted again.
+ */
+@Service
+public class ReminderScheduleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduleService.class);
+
+    private static final String INSERT_OCCURRENCE =
+            "INSERT INTO reminders (medication_id, user_id, reminder_time, completed, scheduled, created_at, updated_at) " +
+            "SELECT ?, ?, ?, false, true, ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM reminders WHERE medication_id = ? AND reminder_time = ?)";
+
+    private final MedicationRepository medicationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReminderDispatchService reminderDispatchService;
+    private final AnalyticsService analyticsService;
+    private final TransactionTemplate transactionTemplate;
+    // scheduleMedication runs from other transactions' afterCommit, where their resources are still bound
+    private final TransactionTemplate newTransactionTemplate;
+    private final Duration window;
+    private final int chunkSize;
+
+    public ReminderScheduleService(MedicationRepository medicationRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   ReminderDispatchService reminderDispatchService,
+                                   AnalyticsService analyticsService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${reminders.schedule.window:2d}") Duration window,
+                                   @Value("${reminders.schedule.chunk-size:200}") int chunkSize) {
+        this.medicationRepository = medicationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.reminderDispatchService = reminderDispatchService;
+        this.analyticsService = analyticsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.window = window;
+        this.chunkSize = chunkSize;
+    }
+
+    // The window must stay longer than the interval so reminders exist before they come due
+    @Scheduled(fixedDelayString = "${reminders.schedule.interval:PT15M}",
+            initialDelayString = "${reminders.schedule.initial-delay:PT1M}")
+    public void extendWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowEnd = now.plus(window);
+        long afterId = 0;
+        int medications = 0;
+        int created = 0;
+        while (true) {
+            long after = afterId;
+            ChunkResult result = transactionTemplate.execute(status -> {
+                List<Medication> chunk = medicationRepository.lockDueForScheduling(after, now.toLocalDate(), windowEnd, chunkSize);
+                if (chunk.isEmpty()) {
+                    return null;
+                }
+                return new ChunkResult(chunk.get(chunk.size() - 1).getId(), chunk.size(), materialize(chunk, now, windowEnd));
+            });
+            if (result == null) {
+                break;
+            }
+            afterId = result.lastMedicationId();
+            medications += result.medications();
+            created += result.created();
+        }
+        if (medications > 0) {
+            logger.info("Scheduled {} reminders for {} medications through {}", created, medications, windowEnd);
+        }
+    }
+
+    /**
+     * Creates the reminders of one medication right away, for use once a new medication or a changed
+     * schedule has committed; the periodic run would otherwise pick it up within its interval.
+     */
+    public void scheduleMedication(Long medicationId) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            newTransactionTemplate.executeWithoutResult(status -> medicationRepository.findForUpdate(medicationId)
+                    .ifPresent(medication -> materialize(List.of(medication), now, now.plus(window))));
+        } catch (Exception e) {
+            logger.warn("Could not schedule reminders for medication {}; the next run retries: {}",
+                    medicationId, e.getMessage());
+        }
+    }
+
+    // Inserts the occurrences after each medication's scheduled-through time in one batch; returns how many
+    // the driver reported as inserted
+    private int materialize(List<Medication> medications, LocalDateTime now, LocalDateTime windowEnd) {
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        List<LocalDateTime> times = new ArrayList<>();
+        for (Medication medication : medications) {
+            MedicationSchedule schedule = medication.isActive() ? MedicationSchedule.parse(medication.getFrequency()) : null;
+            // Picks up from where the last run stopped, so occurrences missed while no node was up are still created
+            LocalDateTime from = medication.getRemindersScheduledThrough() != null
+                    ? medication.getRemindersScheduledThrough() : now;
+            if (schedule != null && from.isBefore(windowEnd)) {
+                LocalDateTime to = windowEnd;
+                LocalDate endDate = medication.getEndDate();
+                if (endDate != null && endDate.atTime(LocalTime.MAX).isBefore(to)) {
+                    to = endDate.atTime(LocalTime.MAX);
+                }
+                Long userId = medication.getUser().getId();
+                for (LocalDateTime time : schedule.occurrences(medication.getStartDate(), from, to)) {
+                    rows.add(new Object[]{medication.getId(), userId, time, now, now, medication.getId(), time});
+                    userIds.add(userId);
+                    times.add(time);
+                }
+            }
+            if (from.isBefore(windowEnd)) {
+                medication.setRemindersScheduledThrough(windowEnd);
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int created = 0;
+        int unknown = 0;
+        LocalDateTime earliest = null;
+        Set<Long> affectedUsers = new HashSet<>();
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_OCCURRENCE, rows);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                created++;
+            } else if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                // Drivers that rewrite the batch (pgjdbc's reWriteBatchedInserts) do not say whether the
+                // occurrence already existed; evict and reload as if it was inserted, but do not count it
+                unknown++;
+            } else {
+                continue;
+            }
+            affectedUsers.add(userIds.get(i));
+            if (earliest == null || times.get(i).isBefore(earliest)) {
+                earliest = times.get(i);
+            }
+        }
+        if (unknown > 0) {
+            logger.debug("Driver gave no row counts for {} of {} scheduled reminders", unknown, counts.length);
+        }
+        if (affectedUsers.isEmpty()) {
+            return 0;
+        }
+        // Pending counts change; the transaction-aware cache evicts on commit
+        affectedUsers.forEach(analyticsService::evictUserAnalytics);
+        LocalDateTime reloadFrom = earliest;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // New rows may fall behind the dispatchers' position
+                reminderDispatchService.reload(reloadFrom);
+            }
+        });
+        return created;
+    }
+
+    private record ChunkResult(long lastMedicationId, int medications, int created) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.pharmacare.api.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel of reminder ids. Level 0 has one slot per tick; each higher level has one
+ * slot per full turn of the level below, and its slots are spread into the lower levels as time
+ * reaches them. Adding is O(1) and each tick touches one slot per level, so the cost is independent
+ * of how many reminders are waiting. Holds at most {@code capacity} entries, counting those that are
+ * due but not yet taken. Thread-safe.
+ */
+final class ReminderTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int capacity;
+    private final ArrayDeque<Entry>[][] wheels;
+    // Further out than the top level covers; placed again whenever the top level turns
+    private final ArrayDeque<Entry> overflow = new ArrayDeque<>();
+    private final ArrayDeque<Entry> due = new ArrayDeque<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    ReminderTimingWheel(long tickMillis, int levels, int capacity, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.capacity = capacity;
+        this.wheels = new ArrayDeque[levels][SLOTS];
+        for (ArrayDeque<Entry>[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /** Schedules a reminder; returns false without adding it when the wheel is full. */
+    synchronized boolean add(long reminderId, long dueMillis) {
+        if (size >= capacity) {
+            return false;
+        }
+        place(new Entry(reminderId, dueMillis));
+        size++;
+        return true;
+    }
+
+    /** Moves the wheel to {@code nowMillis}; reminders due by then become available to {@link #pollDue}. */
+    synchronized void advanceTo(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher levels first, so entries they hand down for this tick are seen by the levels below
+            for (int level = wheels.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    if (level == wheels.length - 1) {
+                        cascade(overflow);
+                    }
+                    cascade(wheels[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)]);
+                }
+            }
+            due.addAll(wheels[0][(int) (currentTick & SLOT_MASK)]);
+            wheels[0][(int) (currentTick & SLOT_MASK)].clear();
+        }
+    }
+
+    /** Takes up to {@code max} due reminders, earliest tick first; the rest stay due. */
+    synchronized List<Entry> pollDue(int max) {
+        int count = Math.min(max, due.size());
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(due.poll());
+        }
+        size -= count;
+        return entries;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int dueCount() {
+        return due.size();
+    }
+
+    private void cascade(ArrayDeque<Entry> slot) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(slot);
+        slot.clear();
+        entries.forEach(this::place);
+    }
+
+    private void place(Entry entry) {
+        long ticks = entry.dueMillis() / tickMillis - currentTick;
+        if (ticks <= 0) {
+            due.add(entry);
+            return;
+        }
+        long dueTick = currentTick + ticks;
+        for (int level = 0; level < wheels.length; level++) {
+            if (ticks < 1L << (SLOT_BITS * (level + 1))) {
+                wheels[level][(int) ((dueTick >>> (SLOT_BITS * level)) & SLOT_MASK)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    record Entry(long reminderId, long dueMillis) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.CacheNames;
+import com.pharmacare.api.dto.UserDto;
+import com.pharmacare.api.dto.UserProfileDto;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.UserRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Basic profile of the signed-in user, cached in Redis per user id and evicted by profile updates. */
+@Service
+public class UserProfileService {
+
+    private final UserRepository userRepository;
+
+    public UserProfileService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Cacheable(cacheNames = CacheNames.USER_PROFILES, key = "#userId", sync = true)
+    @Transactional(readOnly = true)
+    public UserDto getProfile(Long userId) {
+        return toDto(findUser(userId));
+    }
+
+    @CacheEvict(cacheNames = CacheNames.USER_PROFILES, key = "#userId")
+    @Transactional
+    public UserDto updateProfile(Long userId, UserProfileDto profileDto) {
+        User user = findUser(userId);
+        if (profileDto.getFirstName() != null) {
+            user.setFirstName(profileDto.getFirstName());
+        }
+        if (profileDto.getLastName() != null) {
+            user.setLastName(profileDto.getLastName());
+        }
+        return toDto(userRepository.save(user));
+    }
+
+    @CacheEvict(cacheNames = CacheNames.USER_PROFILES, key = "#userId")
+    public void evictProfile(Long userId) {
+    }
+
+    private User findUser(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+    }
+
+    private UserDto toDto(User user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .imageUrl(user.getImageUrl())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+-- Indexes for the hot read paths. Tables themselves are still created by Hibernate, so every
+-- statement tolerates indexes that already exist. CONCURRENTLY keeps bills and inventory writable
+-- while the indexes build on a live database; Flyway runs this script outside a transaction.
+
+-- Inventory lists, stats and low-stock checks (InventoryQueryService, InventoryRepository.computeStats).
+-- All of them read a single pharmacy's active rows; each index also carries the keyset sort order.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventory_pharmacy_expiry
+    ON inventory (pharmacy_id, expiry_date, id)
+    WHERE active;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventory_pharmacy_quantity
+    ON inventory (pharmacy_id, quantity, id) INCLUDE (minimum_stock_level)
+    WHERE active;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventory_pharmacy_name
+    ON inventory (pharmacy_id, medication_name, id)
+    WHERE active;
+
+-- Bill listing pages newest first within a date range (BillRepository.findPageIds) and the export
+-- reads a pharmacy's bills by date; payment_status is included so status filters stay in the index.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_bills_pharmacy_date
+    ON bills (pharmacy_id, bill_date, id) INCLUDE (payment_status);
+
+-- Nightly rollup rebuild scans a date range across all pharmacies
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_bills_bill_date
+    ON bills (bill_date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_bill_items_bill
+    ON bill_items (bill_id);
+
+-- Reminder queries go through the medication's owner
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_medications_user
+    ON medications (user_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reminders_medication_pending
+    ON reminders (medication_id, completed, reminder_time);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reminders_user_pending
+    ON reminders (user_id, completed, reminder_time);
+
+-- Membership checks behind @pharmacySecurityService (PharmacyStaffRepository.findActiveRoles)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pharmacy_staff_user_pharmacy
+    ON pharmacy_staff (user_id, pharmacy_id) INCLUDE (role, active);
@@ -0,0 +1,5 @@
+-- Reminders the dispatcher still has to send (ReminderRepository.findUnsentAfter), in firing order.
+-- Sent and completed reminders drop out of the index, so it stays as small as the backlog.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reminders_unsent
+    ON reminders (reminder_time, id)
+    WHERE completed = false AND notified_at IS NULL;
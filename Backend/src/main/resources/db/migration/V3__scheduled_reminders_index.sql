@@ -0,0 +1,4 @@
+-- Reminders by medication and time (ReminderScheduleService): each occurrence is checked here before
+-- it is inserted, so a run never creates one twice, and a schedule change drops the upcoming ones.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reminders_medication_time
+    ON reminders (medication_id, reminder_time);
@@ -0,0 +1,7 @@
+-- Bills and bill items used IDENTITY columns before they moved to bills_seq and bill_items_seq, which
+-- Hibernate creates empty. Hibernate's pooled optimizer hands out the block ending at the sequence
+-- value, so the next value must be at least MAX(id) + 50, the allocationSize on Bill and BillItem.
+-- GREATEST keeps a sequence that has already moved on where it is.
+SELECT setval('bills_seq', GREATEST(nextval('bills_seq'), (SELECT COALESCE(MAX(id), 0) + 50 FROM bills)), false);
+
+SELECT setval('bill_items_seq', GREATEST(nextval('bill_items_seq'), (SELECT COALESCE(MAX(id), 0) + 50 FROM bill_items)), false);
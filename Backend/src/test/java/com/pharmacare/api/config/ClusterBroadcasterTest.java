@@ -0,0 +1,146 @@
+package com.pharmacare.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ClusterBroadcasterTest {
+
+    private static final String CHANNEL = "pharmacare:test";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final List<Change> applied = new ArrayList<>();
+
+    private ClusterBroadcaster.Channel<Change> channel;
+
+    @BeforeEach
+    void setUp() {
+        ClusterBroadcaster broadcaster = new ClusterBroadcaster(redisTemplate,
+                mock(RedisMessageListenerContainer.class), objectMapper);
+        channel = broadcaster.channel(CHANNEL, Change.class, change -> {
+            applied.add(change);
+            return change.value() >= 0;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void appliesLocallyAndSkipsItsOwnMessages() {
+        channel.publish(new Change(1L, 5));
+
+        String sent = sentMessages(1).get(0);
+        channel.onMessage(new DefaultMessage(CHANNEL.getBytes(), sent.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(applied).containsExactly(new Change(1L, 5));
+    }
+
+    @Test
+    void appliesMessagesFromOtherNodes() {
+        String message = "{\"origin\":\"other-node\",\"changes\":[{\"id\":1,\"value\":5},{\"id\":2,\"value\":6}]}";
+
+        channel.onMessage(new DefaultMessage(CHANNEL.getBytes(), message.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(applied).containsExactly(new Change(1L, 5), new Change(2L, 6));
+    }
+
+    @Test
+    void ignoresMalformedMessages() {
+        channel.onMessage(new DefaultMessage(CHANNEL.getBytes(), "not json".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(applied).isEmpty();
+    }
+
+    @Test
+    void doesNotSendChangesThatLeftThisNodeAsItWas() {
+        channel.publish(new Change(1L, -1));
+
+        assertThat(applied).containsExactly(new Change(1L, -1));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void announcesChangesWithoutApplyingThemHere() throws Exception {
+        channel.announce(new Change(1L, 5));
+
+        assertThat(applied).isEmpty();
+        Envelope envelope = objectMapper.readValue(sentMessages(1).get(0), Envelope.class);
+        assertThat(envelope.changes()).hasSize(1);
+    }
+
+    @Test
+    void sendsOneMessagePerCommittedTransactionWithTheLastChangePerKey() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        channel.publishAfterCommit(1L, new Change(1L, 5));
+        channel.publishAfterCommit(2L, new Change(2L, 6));
+        channel.publishAfterCommit(1L, new Change(1L, 7));
+        channel.publishAfterCommit(new Change(3L, 8));
+        assertThat(applied).isEmpty();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(applied).containsExactly(new Change(1L, 7), new Change(2L, 6), new Change(3L, 8));
+        Envelope envelope = objectMapper.readValue(sentMessages(1).get(0), Envelope.class);
+        assertThat(envelope.changes()).hasSize(3);
+        assertThat(TransactionSynchronizationManager.getResource(channel)).isNull();
+    }
+
+    @Test
+    void dropsChangesOfRolledBackTransactions() {
+        TransactionSynchronizationManager.initSynchronization();
+        channel.publishAfterCommit(1L, new Change(1L, 5));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(applied).isEmpty();
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+        assertThat(TransactionSynchronizationManager.getResource(channel)).isNull();
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private List<String> sentMessages(int count) {
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(count)).convertAndSend(eq(CHANNEL), messages.capture());
+        return messages.getAllValues();
+    }
+
+    record Change(Long id, int value) {
+    }
+
+    record Envelope(String origin, List<Object> changes) {
+    }
+}
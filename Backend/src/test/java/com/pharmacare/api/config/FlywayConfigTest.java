@@ -0,0 +1,60 @@
+package com.pharmacare.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts Hibernate and Flyway on an in-memory database with a script that indexes a table only
+ * Hibernate creates, so the script fails if it runs first. The context runner calls no application
+ * runners, so the migration has to happen while the context is refreshed, before a web server would start.
+ */
+class FlywayConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class,
+                    FlywayAutoConfiguration.class))
+            .withUserConfiguration(Entities.class, FlywayConfig.class)
+            .withPropertyValues("spring.datasource.generate-unique-name=true",
+                    "spring.jpa.hibernate.ddl-auto=create-drop",
+                    "spring.flyway.locations=classpath:db/test-migration");
+
+    @Test
+    void migratesOnceHibernateHasCreatedTheTables() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '1' AND \"success\"",
+                    Integer.class)).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void skipsMigrationsWhenFlywayIsDisabled() {
+        contextRunner.withPropertyValues("spring.flyway.enabled=false").run(context -> {
+            assertThat(context).hasNotFailed();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'flyway_schema_history'",
+                    Integer.class)).isZero();
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EntityScan("com.pharmacare.api.model")
+    static class Entities {
+    }
+}
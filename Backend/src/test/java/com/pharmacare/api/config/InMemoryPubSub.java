@@ -0,0 +1,63 @@
+package com.pharmacare.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Connects the {@link ClusterBroadcaster}s of simulated nodes the way Redis pub/sub would: a message
+ * reaches every listener of its channel synchronously, the sender's own included.
+ */
+public class InMemoryPubSub {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Map<String, List<MessageListener>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> messageCounts = new ConcurrentHashMap<>();
+
+    /** A broadcaster for one more node. */
+    public ClusterBroadcaster node() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> {
+            send(invocation.getArgument(0), invocation.getArgument(1));
+            return 1L;
+        }).when(redisTemplate).convertAndSend(anyString(), any());
+        RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+        doAnswer(invocation -> {
+            Topic topic = invocation.getArgument(1);
+            listeners.computeIfAbsent(((ChannelTopic) topic).getTopic(), name -> new CopyOnWriteArrayList<>())
+                    .add(invocation.getArgument(0));
+            return null;
+        }).when(listenerContainer).addMessageListener(any(MessageListener.class), any(Topic.class));
+        return new ClusterBroadcaster(redisTemplate, listenerContainer, objectMapper);
+    }
+
+    /** Messages sent on the channel so far. */
+    public int messageCount(String channel) {
+        AtomicInteger count = messageCounts.get(channel);
+        return count != null ? count.get() : 0;
+    }
+
+    private void send(String channel, Object body) {
+        messageCounts.computeIfAbsent(channel, name -> new AtomicInteger()).incrementAndGet();
+        DefaultMessage message = new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8),
+                String.valueOf(body).getBytes(StandardCharsets.UTF_8));
+        listeners.getOrDefault(channel, List.of()).forEach(listener -> listener.onMessage(message, null));
+    }
+}
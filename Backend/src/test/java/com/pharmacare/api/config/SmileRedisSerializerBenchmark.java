@@ -0,0 +1,75 @@
+package com.pharmacare.api.config;
+
+import com.pharmacare.api.dto.SalesSummaryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nanoseconds per cache value written and read with Smile against the JSON serializer used before.
+ * The encoded size of each value is printed when a trial starts; add {@code -prof gc} for the bytes
+ * allocated per operation. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="SmileRedisSerializerBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmileRedisSerializerBenchmark {
+
+    // A patient's medication list and a pharmacy's sales summary
+    @Param({"medications", "salesSummary"})
+    public String value;
+
+    private SmileRedisSerializer smile;
+    private GenericJackson2JsonRedisSerializer json;
+    private Object payload;
+    private byte[] smileBytes;
+    private byte[] jsonBytes;
+
+    @Setup
+    public void setUp() {
+        smile = new SmileRedisSerializer();
+        json = SmileRedisSerializerTest.jsonSerializer();
+        payload = "medications".equals(value)
+                ? SmileRedisSerializerTest.medications(20)
+                : new SalesSummaryDto(new BigDecimal("1250.50"), 42L);
+        smileBytes = smile.serialize(payload);
+        jsonBytes = json.serialize(payload);
+        System.out.printf("%s: %d bytes as Smile, %d bytes as JSON%n", value, smileBytes.length, jsonBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() {
+        return smile.serialize(payload);
+    }
+
+    @Benchmark
+    public byte[] writeJson() {
+        return json.serialize(payload);
+    }
+
+    @Benchmark
+    public Object readSmile() {
+        return smile.deserialize(smileBytes);
+    }
+
+    @Benchmark
+    public Object readJson() {
+        return json.deserialize(jsonBytes);
+    }
+}
@@ -0,0 +1,100 @@
+package com.pharmacare.api.config;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pharmacare.api.dto.MedicationDto;
+import com.pharmacare.api.dto.SalesSummaryDto;
+import com.pharmacare.api.dto.UserAnalyticsDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmileRedisSerializerTest {
+
+    private final SmileRedisSerializer serializer = new SmileRedisSerializer();
+
+    @Test
+    void roundTripsCachedValues() {
+        List<MedicationDto> medications = medications(20);
+        SalesSummaryDto summary = new SalesSummaryDto(new BigDecimal("1250.50"), 42L);
+        UserAnalyticsDto analytics = new UserAnalyticsDto(3, 1, 12, 21, 18);
+
+        assertThat(serializer.deserialize(serializer.serialize(medications))).isEqualTo(medications);
+        assertThat(serializer.deserialize(serializer.serialize(summary))).isEqualTo(summary);
+        assertThat(serializer.deserialize(serializer.serialize(analytics))).isEqualTo(analytics);
+        assertThat(serializer.deserialize(serializer.serialize("pending"))).isEqualTo("pending");
+    }
+
+    @Test
+    void keepsTheScaleOfDecimals() {
+        SalesSummaryDto summary = (SalesSummaryDto) serializer.deserialize(
+                serializer.serialize(new SalesSummaryDto(new BigDecimal("10.00"), 1L)));
+
+        assertThat(summary.getTotalAmount()).hasToString("10.00");
+    }
+
+    @Test
+    void writesAVersionHeaderAndLessThanJson() {
+        List<MedicationDto> medications = medications(20);
+
+        byte[] smile = serializer.serialize(medications);
+        byte[] json = jsonSerializer().serialize(medications);
+
+        assertThat(smile[0]).isEqualTo(SmileRedisSerializer.MARKER);
+        assertThat(smile[1]).isEqualTo(SmileRedisSerializer.VERSION);
+        assertThat(smile.length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void readsValuesWrittenAsJson() {
+        SalesSummaryDto summary = new SalesSummaryDto(new BigDecimal("99.90"), 7L);
+        List<MedicationDto> medications = medications(3);
+
+        assertThat(serializer.deserialize(jsonSerializer().serialize(summary))).isEqualTo(summary);
+        assertThat(serializer.deserialize(jsonSerializer().serialize(medications))).isEqualTo(medications);
+    }
+
+    @Test
+    void treatsUnknownVersionsAndEmptyValuesAsMissing() {
+        byte[] bytes = serializer.serialize(new SalesSummaryDto(BigDecimal.ONE, 1L));
+        byte[] future = Arrays.copyOf(bytes, bytes.length);
+        future[1] = SmileRedisSerializer.VERSION + 1;
+
+        assertThat(serializer.deserialize(future)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.serialize(null)).isEmpty();
+    }
+
+    // The serializer RedisConfig used before Smile
+    static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        json.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        return json;
+    }
+
+    // A patient's medication list, the most common value in the cache
+    static List<MedicationDto> medications(int count) {
+        List<MedicationDto> medications = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            medications.add(MedicationDto.builder()
+                    .id(1_000L + i)
+                    .name("Medication " + i)
+                    .description("Take with food")
+                    .dosage((i % 4 + 1) * 250 + "mg")
+                    .frequency(i % 2 == 0 ? "Twice daily" : "Once daily")
+                    .startDate(LocalDate.of(2026, 1, 1).plusDays(i))
+                    .endDate(i % 3 == 0 ? null : LocalDate.of(2026, 6, 30))
+                    .active(i % 5 != 0)
+                    .stock(30 - i)
+                    .build());
+        }
+        return medications;
+    }
+}
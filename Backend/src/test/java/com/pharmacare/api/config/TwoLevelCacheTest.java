@@ -0,0 +1,132 @@
+package com.pharmacare.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoLevelCacheTest {
+
+    private static final String CACHE = "dashboard";
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    // Stands in for Redis, shared by every node
+    private final ConcurrentMapCache remote = new ConcurrentMapCache(CACHE);
+
+    private Cache cache;
+    private MessageListener evictionListener;
+
+    @BeforeEach
+    void setUp() {
+        RedisCacheManager redisCacheManager = mock(RedisCacheManager.class);
+        when(redisCacheManager.getCacheNames()).thenReturn(Set.of(CACHE));
+        when(redisCacheManager.getCache(CACHE)).thenReturn(remote);
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager,
+                new ClusterBroadcaster(redisTemplate, listenerContainer, new ObjectMapper()),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), Map.of());
+        cacheManager.afterPropertiesSet();
+        cache = cacheManager.getCache(CACHE);
+
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(listenerContainer).addMessageListener(listener.capture(), any(Topic.class));
+        evictionListener = listener.getValue();
+    }
+
+    @Test
+    void keepsTheValueItPutInTheLocalTier() {
+        cache.put(1L, "summary");
+        // Only the local tier can answer now
+        remote.clear();
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("summary");
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.EVICTION_CHANNEL), anyString());
+    }
+
+    @Test
+    void ignoresItsOwnEvictionMessages() {
+        cache.put(1L, "summary");
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoLevelCacheManager.EVICTION_CHANNEL), sent.capture());
+        remote.clear();
+
+        receive(sent.getValue());
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("summary");
+    }
+
+    @Test
+    void dropsTheLocalCopyWhenAnotherNodeChangesTheKey() {
+        cache.put(1L, "summary");
+        // Another node writes Redis, then announces the change
+        remote.put(1L, "newer summary");
+
+        receive("{\"origin\":\"other-node\",\"changes\":[{\"cacheName\":\"dashboard\",\"key\":\"1\"}]}");
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("newer summary");
+    }
+
+    @Test
+    void dropsEverythingWhenAnotherNodeClearsTheCache() {
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        remote.clear();
+
+        receive("{\"origin\":\"other-node\",\"changes\":[{\"cacheName\":\"dashboard\",\"key\":null}]}");
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void evictsBothTiersAndTellsTheOtherNodes() {
+        cache.put(1L, "summary");
+
+        cache.evict(1L);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(remote.get(1L)).isNull();
+        verify(redisTemplate, times(2)).convertAndSend(eq(TwoLevelCacheManager.EVICTION_CHANNEL), anyString());
+    }
+
+    @Test
+    void loadsOnceAndFillsBothTiers() {
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = cache.get(1L, () -> "loaded " + loads.incrementAndGet());
+        String second = cache.get(1L, () -> "loaded " + loads.incrementAndGet());
+
+        assertThat(first).isEqualTo("loaded 1");
+        assertThat(second).isEqualTo("loaded 1");
+        assertThat(remote.get(1L, String.class)).isEqualTo("loaded 1");
+    }
+
+    private void receive(String message) {
+        evictionListener.onMessage(new DefaultMessage(TwoLevelCacheManager.EVICTION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                message.getBytes(StandardCharsets.UTF_8)), null);
+    }
+}
@@ -0,0 +1,156 @@
+package com.pharmacare.api.repository;
+
+import com.pharmacare.api.PostgresContainerTest;
+import com.pharmacare.api.service.BatchAllocationService;
+import com.pharmacare.api.service.InventorySearchService;
+import com.pharmacare.api.service.InventoryStatsService;
+import com.pharmacare.api.service.LiveEventService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the hot-path queries are served by the indexes the Flyway migrations create. Each
+ * statement below is the SQL Hibernate generates for the repository method named above it, with
+ * literal parameters, explained against a seeded and analyzed Postgres.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+// CREATE INDEX CONCURRENTLY waits for open transactions, so nothing here runs inside one
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MigrationIndexPlanTest extends PostgresContainerTest {
+
+    // Behind InventoryEntityListener, which Hibernate builds for itself
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private InventorySearchService inventorySearchService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private LiveEventService liveEventService;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long pharmacyId;
+    private long userId;
+    private long medicationId;
+
+    @BeforeAll
+    void seed() {
+        migrate(dataSource);
+        // 200 pharmacies with 250 batches each, 100,000 bills, 2,000 patients with 50 reminders each
+        jdbcTemplate.execute("""
+                INSERT INTO users (id, first_name, last_name, email, enabled)
+                SELECT g, 'Pat', 'Ient', 'patient' || g || '@example.com', true FROM generate_series(1, 2000) g""");
+        jdbcTemplate.execute("""
+                INSERT INTO pharmacies (id, name, registration_number, address, active)
+                SELECT g, 'Pharmacy ' || g, 'REG-' || g, g || ' Test Street', true FROM generate_series(1, 200) g""");
+        jdbcTemplate.execute("""
+                INSERT INTO pharmacy_staff (pharmacy_id, user_id, role, active)
+                SELECT 1 + g % 200, g, 'PHARMACIST', g % 7 <> 0 FROM generate_series(1, 2000) g""");
+        jdbcTemplate.execute("""
+                INSERT INTO inventory (pharmacy_id, medication_name, manufacturer, batch_number, expiry_date,
+                                       quantity, minimum_stock_level, cost_price, selling_price, active,
+                                       quarantined, medication_type)
+                SELECT p, 'Medicine ' || g, 'Maker', 'B' || g, current_date + g % 700, g % 300, 20, 1, 2,
+                       g % 10 <> 0, false, 'OVER_THE_COUNTER'
+                FROM generate_series(1, 200) p, generate_series(1, 250) g""");
+        jdbcTemplate.execute("""
+                INSERT INTO bills (id, bill_number, pharmacy_id, customer_name, bill_date, subtotal, tax_amount,
+                                   discount_amount, total_amount, payment_status, payment_method)
+                SELECT g, 'BILL-' || g, 1 + g % 200, 'Walk-in', localtimestamp - g * interval '5 minutes', 10, 0, 0, 10,
+                       CASE WHEN g % 5 = 0 THEN 'PENDING' ELSE 'PAID' END, 'CASH'
+                FROM generate_series(1, 100000) g""");
+        jdbcTemplate.execute("""
+                INSERT INTO medications (id, name, dosage, start_date, active, user_id, stock)
+                SELECT g, 'Medication ' || g, '1 tablet', current_date - 30, true, g, 30 FROM generate_series(1, 2000) g""");
+        jdbcTemplate.execute("""
+                INSERT INTO reminders (medication_id, user_id, reminder_time, completed, scheduled, notified_at)
+                SELECT m, m, localtimestamp + (r - 25) * interval '1 hour', r < 25, r > 25,
+                       CASE WHEN r < 25 THEN localtimestamp END
+                FROM generate_series(1, 2000) m, generate_series(1, 50) r""");
+        jdbcTemplate.execute("ANALYZE");
+        pharmacyId = 17;
+        userId = 17;
+        medicationId = 17;
+    }
+
+    @Test
+    void inventoryListingsUseThePharmacyIndexes() {
+        // InventoryQueryService: NAME sort
+        assertThat(plan("SELECT i.id FROM inventory i WHERE i.pharmacy_id = " + pharmacyId + " AND i.active = true " +
+                "ORDER BY i.medication_name, i.id LIMIT 51")).contains("idx_inventory_pharmacy_name");
+        // InventoryQueryService: EXPIRY sort with the expiring-within filter
+        assertThat(plan("SELECT i.id FROM inventory i WHERE i.pharmacy_id = " + pharmacyId + " AND i.active = true " +
+                "AND i.expiry_date <= current_date + 30 ORDER BY i.expiry_date, i.id LIMIT 51"))
+                .contains("idx_inventory_pharmacy_expiry");
+        // InventoryQueryService: QUANTITY sort with the low-stock filter
+        assertThat(plan("SELECT i.id FROM inventory i WHERE i.pharmacy_id = " + pharmacyId + " AND i.active = true " +
+                "AND i.quantity <= i.minimum_stock_level ORDER BY i.quantity, i.id LIMIT 51"))
+                .contains("idx_inventory_pharmacy_quantity");
+    }
+
+    @Test
+    void billPagesUseThePharmacyDateIndex() {
+        // BillRepository.findPageIds
+        assertThat(plan("SELECT b.id FROM bills b WHERE b.pharmacy_id = " + pharmacyId + " " +
+                "AND b.payment_status IN ('PAID', 'PENDING') " +
+                "AND b.bill_date >= localtimestamp - interval '30 days' AND b.bill_date < localtimestamp " +
+                "AND (b.bill_date < localtimestamp OR (b.bill_date = localtimestamp AND b.id < 9223372036854775807)) " +
+                "ORDER BY b.bill_date DESC, b.id DESC LIMIT 21"))
+                .contains("idx_bills_pharmacy_date");
+    }
+
+    @Test
+    void reminderDispatchUsesTheUnsentIndex() {
+        // ReminderRepository.findUnsentAfter
+        assertThat(plan("SELECT r.id, r.reminder_time FROM reminders r WHERE r.completed = false " +
+                "AND r.notified_at IS NULL AND r.reminder_time <= localtimestamp + interval '1 minute' " +
+                "AND (r.reminder_time > localtimestamp - interval '1 hour' " +
+                "OR (r.reminder_time = localtimestamp - interval '1 hour' AND r.id > 0)) " +
+                "AND MOD(r.user_id, 4) IN (0, 1) ORDER BY r.reminder_time, r.id LIMIT 500"))
+                .contains("idx_reminders_unsent");
+    }
+
+    @Test
+    void userAndMedicationRemindersUseTheirIndexes() {
+        // ReminderRepository.findByMedicationUserIdAndCompletedFalse
+        assertThat(plan("SELECT r.id FROM reminders r JOIN medications m ON m.id = r.medication_id " +
+                "WHERE m.user_id = " + userId + " AND r.completed = false"))
+                .contains("idx_medications_user", "idx_reminders_medication_pending");
+        // ReminderRepository.deleteScheduledAfter
+        assertThat(plan("DELETE FROM reminders r WHERE r.medication_id = " + medicationId + " AND r.scheduled = true " +
+                "AND r.completed = false AND r.notified_at IS NULL AND r.reminder_time > localtimestamp"))
+                .containsAnyOf("idx_reminders_medication_time", "idx_reminders_medication_pending");
+    }
+
+    @Test
+    void staffRoleLookupsUseTheCoveringIndex() {
+        // PharmacyStaffRepository.findActiveRoles
+        assertThat(plan("SELECT s.role FROM pharmacy_staff s WHERE s.user_id = " + userId + " " +
+                "AND s.pharmacy_id = " + (1 + userId % 200) + " AND s.active = true"))
+                .contains("idx_pharmacy_staff_user_pharmacy");
+    }
+
+    private String plan(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,86 @@
+package com.pharmacare.api.security;
+
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthenticationFilterTest {
+
+    private static final List<GrantedAuthority> ROLES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    private static final UserPrincipal PRINCIPAL = UserPrincipal.create(42L, "bob@example.com", ROLES);
+
+    private final JwtTokenProvider tokenProvider = JwtTokenProviderTest.newProvider(JwtTokenProviderTest.SECRET, 60_000);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, username -> PRINCIPAL);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void acceptsStreamTokensInTheQueryOfEventStreams() throws Exception {
+        MockHttpServletRequest request = request("GET", "/events/reminders");
+        request.setParameter(JwtAuthenticationFilter.STREAM_TOKEN_PARAMETER, tokenProvider.generateStreamToken(PRINCIPAL));
+
+        assertThat(authenticate(request)).isNotNull();
+    }
+
+    @Test
+    void ignoresAccessTokensInTheQuery() throws Exception {
+        MockHttpServletRequest request = request("GET", "/events/reminders");
+        request.setParameter(JwtAuthenticationFilter.STREAM_TOKEN_PARAMETER, accessToken());
+
+        assertThat(authenticate(request)).isNull();
+    }
+
+    @Test
+    void ignoresStreamTokensOutsideEventStreams() throws Exception {
+        String streamToken = tokenProvider.generateStreamToken(PRINCIPAL);
+        MockHttpServletRequest reminders = request("GET", "/reminders");
+        reminders.addHeader("Authorization", "Bearer " + streamToken);
+        MockHttpServletRequest newToken = request("POST", "/events/token");
+        newToken.addHeader("Authorization", "Bearer " + streamToken);
+        MockHttpServletRequest query = request("GET", "/reminders");
+        query.setParameter(JwtAuthenticationFilter.STREAM_TOKEN_PARAMETER, streamToken);
+
+        assertThat(authenticate(reminders)).isNull();
+        assertThat(authenticate(newToken)).isNull();
+        assertThat(authenticate(query)).isNull();
+    }
+
+    @Test
+    void acceptsAccessTokensInTheHeaderOfEventStreams() throws Exception {
+        MockHttpServletRequest request = request("GET", "/events/reminders");
+        request.addHeader("Authorization", "Bearer " + accessToken());
+
+        assertThat(authenticate(request)).isNotNull();
+    }
+
+    private String accessToken() {
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(PRINCIPAL, null, ROLES));
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api" + path);
+        request.setContextPath("/api");
+        return request;
+    }
+
+    private Authentication authenticate(MockHttpServletRequest request) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,76 @@
+package com.pharmacare.api.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens per second for signing and verifying, with the shared parser and signature algorithm against
+ * the previous per-call construction. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="JwtTokenProviderBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private Key key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = JwtTokenProviderTest.newProvider(JwtTokenProviderTest.SECRET, TimeUnit.HOURS.toMillis(1));
+        key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
+        token = tokenProvider.generateToken("alice@example.com");
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenProvider.generateToken("alice@example.com");
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return tokenProvider.parseToken(token);
+    }
+
+    // What generateToken did before: a claims map and an algorithm lookup per token
+    @Benchmark
+    public String signPerCall() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new HashMap<>();
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject("alice@example.com")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                .signWith(key)
+                .compact();
+    }
+
+    // What parseToken did before: a parser built for every token
+    @Benchmark
+    public Claims verifyPerCall() {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
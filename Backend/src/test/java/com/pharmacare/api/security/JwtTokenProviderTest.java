@@ -0,0 +1,101 @@
+package com.pharmacare.api.security;
+
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenProviderTest {
+
+    static final String SECRET = "test-secret-that-is-long-enough-for-hmac-sha-512-signing-keys-0123456789";
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = newProvider(SECRET, 60_000);
+    }
+
+    static JwtTokenProvider newProvider(String secret, long expiration) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(provider, "refreshExpiration", expiration * 2);
+        ReflectionTestUtils.setField(provider, "streamTokenExpiration", expiration / 60);
+        provider.init();
+        return provider;
+    }
+
+    @Test
+    void parsesTokensItSigned() {
+        String token = tokenProvider.generateToken("alice@example.com");
+
+        Claims claims = tokenProvider.parseToken(token);
+
+        assertThat(claims.getSubject()).isEqualTo("alice@example.com");
+        assertThat(tokenProvider.hasPrincipalClaims(claims)).isFalse();
+    }
+
+    @Test
+    void carriesPrincipalClaimsForUserPrincipals() {
+        List<GrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        UserPrincipal principal = UserPrincipal.create(42L, "bob@example.com", roles);
+        String token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, roles));
+
+        Claims claims = tokenProvider.parseToken(token);
+        UserPrincipal restored = tokenProvider.getPrincipalFromClaims(claims);
+
+        assertThat(tokenProvider.hasPrincipalClaims(claims)).isTrue();
+        assertThat(restored.getId()).isEqualTo(42L);
+        assertThat(restored.getUsername()).isEqualTo("bob@example.com");
+        assertThat(restored.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        assertThat(tokenProvider.validateToken(claims, restored)).isTrue();
+    }
+
+    @Test
+    void marksStreamTokensAndKeepsThemShortLived() {
+        List<GrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        UserPrincipal principal = UserPrincipal.create(42L, "bob@example.com", roles);
+
+        Claims stream = tokenProvider.parseToken(tokenProvider.generateStreamToken(principal));
+        Claims access = tokenProvider.parseToken(tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, roles)));
+
+        assertThat(tokenProvider.isStreamToken(stream)).isTrue();
+        assertThat(tokenProvider.isStreamToken(access)).isFalse();
+        assertThat(tokenProvider.getPrincipalFromClaims(stream).getId()).isEqualTo(42L);
+        assertThat(stream.getExpiration()).isBefore(access.getExpiration());
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        String token = newProvider(SECRET.replace('t', 'x'), 60_000).generateToken("alice@example.com");
+
+        assertThatThrownBy(() -> tokenProvider.parseToken(token)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String token = newProvider(SECRET, -1_000).generateToken("alice@example.com");
+
+        assertThatThrownBy(() -> tokenProvider.parseToken(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void padsShortSecrets() {
+        JwtTokenProvider shortSecret = newProvider("short", 60_000);
+
+        assertThat(shortSecret.parseToken(shortSecret.generateToken("carol@example.com")).getSubject())
+                .isEqualTo("carol@example.com");
+    }
+}
@@ -0,0 +1,105 @@
+package com.pharmacare.api.security;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.model.PharmacyStaff;
+import com.pharmacare.api.repository.PharmacyStaffRepository;
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PharmacySecurityServiceTest {
+
+    private static final Long USER_ID = 7L;
+    private static final Long PHARMACY_ID = 3L;
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final PharmacyStaffRepository staffRepository = mock(PharmacyStaffRepository.class);
+    private final List<PharmacyStaff.StaffRole> roles = new ArrayList<>();
+
+    private PharmacySecurityService nodeA;
+    private PharmacySecurityService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        when(staffRepository.findActiveRoles(anyLong(), anyLong())).thenAnswer(invocation -> List.copyOf(roles));
+        nodeA = newNode();
+        nodeB = newNode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private PharmacySecurityService newNode() {
+        PharmacySecurityService service = new PharmacySecurityService(staffRepository, pubSub.node(),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+        service.init();
+        return service;
+    }
+
+    @Test
+    void prefersTheMostPrivilegedRole() {
+        roles.addAll(List.of(PharmacyStaff.StaffRole.PHARMACIST, PharmacyStaff.StaffRole.ADMIN));
+        UserPrincipal principal = UserPrincipal.create(USER_ID, "staff@example.com", List.of());
+
+        assertThat(nodeA.isPharmacyAdmin(PHARMACY_ID, principal)).isTrue();
+        assertThat(nodeA.isPharmacyMember(PHARMACY_ID, principal)).isTrue();
+        assertThat(nodeA.isPharmacyMember(PHARMACY_ID, "anonymousUser")).isFalse();
+    }
+
+    @Test
+    void evictsOnEveryNodeOnceTheTransactionCommits() {
+        assertThat(nodeA.getStaffRole(USER_ID, PHARMACY_ID)).isEmpty();
+        assertThat(nodeB.getStaffRole(USER_ID, PHARMACY_ID)).isEmpty();
+
+        TransactionSynchronizationManager.initSynchronization();
+        roles.add(PharmacyStaff.StaffRole.PHARMACIST);
+        nodeA.evictUser(USER_ID);
+        // Until the commit the old answer stands, so the row cannot be cached again before it is visible
+        assertThat(nodeA.getStaffRole(USER_ID, PHARMACY_ID)).isEmpty();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(nodeA.getStaffRole(USER_ID, PHARMACY_ID)).contains(PharmacyStaff.StaffRole.PHARMACIST);
+        assertThat(nodeB.getStaffRole(USER_ID, PHARMACY_ID)).contains(PharmacyStaff.StaffRole.PHARMACIST);
+        assertThat(pubSub.messageCount(PharmacySecurityService.EVICTION_CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsCachedRolesWhenTheTransactionRollsBack() {
+        assertThat(nodeB.getStaffRole(USER_ID, PHARMACY_ID)).isEmpty();
+
+        TransactionSynchronizationManager.initSynchronization();
+        roles.add(PharmacyStaff.StaffRole.PHARMACIST);
+        nodeA.evictUser(USER_ID);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(nodeB.getStaffRole(USER_ID, PHARMACY_ID)).isEqualTo(Optional.empty());
+        assertThat(pubSub.messageCount(PharmacySecurityService.EVICTION_CHANNEL)).isZero();
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,72 @@
+package com.pharmacare.api.security;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTest {
+
+    private static final String EMAIL = "alice@example.com";
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader =
+            email -> UserPrincipal.create((long) loads.incrementAndGet(), email, List.of());
+
+    private PrincipalCache nodeA;
+    private PrincipalCache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = newNode();
+        nodeB = newNode();
+    }
+
+    private PrincipalCache newNode() {
+        PrincipalCache cache = new PrincipalCache(pubSub.node(), new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1));
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        nodeA.get(EMAIL, loader);
+        nodeA.get(EMAIL, loader);
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictsOnEveryNodeWithOneMessage() {
+        nodeA.get(EMAIL, loader);
+        nodeB.get(EMAIL, loader);
+
+        nodeA.evict(EMAIL);
+        nodeA.get(EMAIL, loader);
+        nodeB.get(EMAIL, loader);
+
+        assertThat(loads).hasValue(4);
+        assertThat(pubSub.messageCount(PrincipalCache.EVICTION_CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsOtherPrincipals() {
+        nodeB.get(EMAIL, loader);
+        nodeB.get("bob@example.com", loader);
+
+        nodeA.evict(EMAIL);
+        nodeB.get("bob@example.com", loader);
+
+        assertThat(loads).hasValue(2);
+    }
+}
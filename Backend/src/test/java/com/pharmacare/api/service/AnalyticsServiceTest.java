@@ -0,0 +1,71 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.UserAnalyticsDto;
+import com.pharmacare.api.model.Medication;
+import com.pharmacare.api.model.Reminder;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.MedicationRepository;
+import com.pharmacare.api.repository.ReminderRepository;
+import com.pharmacare.api.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.show-sql=false"})
+@Import(AnalyticsService.class)
+class AnalyticsServiceTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MedicationRepository medicationRepository;
+    @Autowired
+    private ReminderRepository reminderRepository;
+
+    @Test
+    void leavesScheduledRemindersStillAheadOutOfPendingAndAdherence() {
+        User user = userRepository.save(new User("Pat", "Ient", "analytics-" + System.nanoTime() + "@example.com", null));
+        Medication medication = new Medication();
+        medication.setName("Metformin");
+        medication.setDosage("500mg");
+        medication.setFrequency("twice daily");
+        medication.setStartDate(LocalDate.now().minusDays(10));
+        medication.setUser(user);
+        medication = medicationRepository.save(medication);
+        LocalDateTime now = LocalDateTime.now();
+
+        save(medication, now.minusDays(2), true, true);
+        save(medication, now.minusDays(1), false, true);
+        save(medication, now.minusHours(1), false, false);
+        // Generated for the days ahead: not pending yet, and not part of the last seven days
+        for (int day = 1; day <= 14; day++) {
+            save(medication, now.plusDays(day), false, true);
+        }
+        // Set by the user for tomorrow: pending, but not yet due
+        save(medication, now.plusDays(1), false, false);
+
+        UserAnalyticsDto analytics = analyticsService.getUserAnalytics(user.getId());
+
+        assertThat(analytics.getPendingRemindersCount()).isEqualTo(3);
+        assertThat(analytics.getRecentRemindersCount()).isEqualTo(3);
+        assertThat(analytics.getRecentCompletedRemindersCount()).isEqualTo(1);
+    }
+
+    private void save(Medication medication, LocalDateTime time, boolean completed, boolean scheduled) {
+        Reminder reminder = new Reminder();
+        reminder.setMedication(medication);
+        reminder.setUser(medication.getUser());
+        reminder.setReminderTime(time);
+        reminder.setCompleted(completed);
+        reminder.setScheduled(scheduled);
+        reminderRepository.save(reminder);
+    }
+}
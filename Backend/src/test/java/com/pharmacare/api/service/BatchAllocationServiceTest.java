@@ -0,0 +1,151 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.exception.InsufficientStockException;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchAllocationServiceTest {
+
+    private static final Long PHARMACY_ID = 1L;
+    private static final LocalDate EXPIRY = LocalDate.now().plusYears(1);
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+
+    private BatchAllocationService nodeA;
+    private BatchAllocationService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        InventoryRepository.AllocatableBatch batch = mock(InventoryRepository.AllocatableBatch.class);
+        when(batch.getId()).thenReturn(10L);
+        when(batch.getMedicationName()).thenReturn("Paracetamol");
+        when(batch.getStrength()).thenReturn("500mg");
+        when(batch.getExpiryDate()).thenReturn(EXPIRY);
+        when(batch.getQuantity()).thenReturn(10);
+        when(inventoryRepository.findAllocatableByPharmacyId(PHARMACY_ID)).thenReturn(List.of(batch));
+        nodeA = newNode();
+        nodeB = newNode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private BatchAllocationService newNode() {
+        BatchAllocationService service = new BatchAllocationService(inventoryRepository, pubSub.node(),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+        service.init();
+        return service;
+    }
+
+    @Test
+    void appliesCommittedStockOnlyOnThisNodeWithoutMessages() {
+        assertThat(allocate(nodeA, 4, TransactionSynchronization.STATUS_COMMITTED)).isTrue();
+        assertThat(allocate(nodeB, 4, TransactionSynchronization.STATUS_COMMITTED)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.onInventorySaved(inventory(10L, 3));
+        nodeA.onInventorySaved(inventory(10L, 1));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // The last change to the row wins; other nodes rebuild from the database when their index expires
+        assertThat(allocate(nodeA, 2, TransactionSynchronization.STATUS_ROLLED_BACK)).isFalse();
+        assertThat(allocate(nodeA, 1, TransactionSynchronization.STATUS_ROLLED_BACK)).isTrue();
+        assertThat(allocate(nodeB, 6, TransactionSynchronization.STATUS_ROLLED_BACK)).isTrue();
+        assertThat(pubSub.messageCount(BatchAllocationService.EVICTION_CHANNEL)).isZero();
+    }
+
+    @Test
+    void leavesTheIndexAloneWhenTheChangeRollsBack() {
+        allocate(nodeA, 1, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.onInventorySaved(inventory(10L, 0));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(allocate(nodeA, 10, TransactionSynchronization.STATUS_ROLLED_BACK)).isTrue();
+    }
+
+    @Test
+    void returnsUnitsWhenTheBillRollsBack() {
+        assertThat(allocate(nodeA, 10, TransactionSynchronization.STATUS_ROLLED_BACK)).isTrue();
+        assertThat(allocate(nodeA, 10, TransactionSynchronization.STATUS_COMMITTED)).isTrue();
+        assertThat(allocate(nodeA, 1, TransactionSynchronization.STATUS_ROLLED_BACK)).isFalse();
+    }
+
+    @Test
+    void dropsIndexesOnEveryNodeWhenAPharmacyIsEvicted() {
+        allocate(nodeA, 10, TransactionSynchronization.STATUS_COMMITTED);
+        allocate(nodeB, 10, TransactionSynchronization.STATUS_COMMITTED);
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.evictPharmacy(PHARMACY_ID);
+        nodeA.evictPharmacy(PHARMACY_ID);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(allocate(nodeA, 10, TransactionSynchronization.STATUS_ROLLED_BACK)).isTrue();
+        assertThat(allocate(nodeB, 10, TransactionSynchronization.STATUS_ROLLED_BACK)).isTrue();
+        assertThat(pubSub.messageCount(BatchAllocationService.EVICTION_CHANNEL)).isEqualTo(1);
+        verify(inventoryRepository, times(4)).findAllocatableByPharmacyId(PHARMACY_ID);
+    }
+
+    // Whether the units were available, in a transaction that ends with the given status
+    private boolean allocate(BatchAllocationService node, int units, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            BatchAllocationService.Allocation allocation = node.allocate(PHARMACY_ID,
+                    List.of(new CreateBillItemDto(null, units, "Paracetamol", "500mg")));
+            assertThat(allocation.getLines()).extracting(CreateBillItemDto::getInventoryId).containsOnly(10L);
+            return true;
+        } catch (InsufficientStockException e) {
+            return false;
+        } finally {
+            complete(status);
+        }
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private Inventory inventory(Long id, int quantity) {
+        return Inventory.builder()
+                .id(id)
+                .pharmacy(Pharmacy.builder().id(PHARMACY_ID).build())
+                .medicationName("Paracetamol")
+                .strength("500mg")
+                .expiryDate(EXPIRY)
+                .quantity(quantity)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.config.JpaConfig;
+import com.pharmacare.api.dto.BillBatchResponseDto;
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.dto.CreateBillRequestDto;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.BillRepository;
+import com.pharmacare.api.repository.InventoryRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import com.pharmacare.api.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Syncs 1,000 offline bills through {@link BillBatchService} on H2 and checks they land within the
+ * two-second target, after one unmeasured batch of the same size. The bound can be moved with
+ * {@code -Dbill.batch.max-millis} on slow machines.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.show-sql=false"})
+@Import({BillBatchService.class, BillingService.class, InventoryReservationService.class,
+        BatchAllocationService.class, BillNumberAllocator.class, JpaConfig.class, BillBatchServiceThroughputTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BillBatchServiceThroughputTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillBatchServiceThroughputTest.class);
+
+    private static final int BILLS = 1_000;
+    private static final long MAX_MILLIS = Long.getLong("bill.batch.max-millis", 2_000);
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+
+        // Allocation updates stay on this node, so Redis is never reached
+        @Bean
+        ClusterBroadcaster clusterBroadcaster() {
+            return new ClusterBroadcaster(mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class),
+                    new ObjectMapper());
+        }
+    }
+
+    // Behind InventoryEntityListener, which Hibernate builds for itself
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private InventorySearchService inventorySearchService;
+    @MockBean
+    private LiveEventService liveEventService;
+    @MockBean
+    private DailySalesRollupService dailySalesRollupService;
+    @MockBean
+    private DemandForecastService demandForecastService;
+
+    @Autowired
+    private BillBatchService billBatchService;
+    @Autowired
+    private BillRepository billRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacyRepository pharmacyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void syncsAThousandBillsWithinTwoSeconds() {
+        User cashier = userRepository.save(new User("Casey", "Cashier", "cashier-" + System.nanoTime() + "@example.com", null));
+        Pharmacy pharmacy = pharmacyRepository.save(Pharmacy.builder()
+                .name("Batch Pharmacy").registrationNumber("BATCH-" + System.nanoTime()).address("2 Test Street")
+                .active(true).build());
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            itemIds.add(inventoryRepository.save(item(pharmacy, "Medicine " + (i % 10), i)).getId());
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Warms up Hibernate and the JIT so the measured run reflects steady state
+        transactionTemplate.execute(status -> billBatchService.createBills(bills(pharmacy, BILLS), cashier.getId()));
+        long started = System.nanoTime();
+        BillBatchResponseDto response = transactionTemplate.execute(
+                status -> billBatchService.createBills(bills(pharmacy, BILLS), cashier.getId()));
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Synced {} bills in {} ms ({} bills/s)", BILLS, millis, BILLS * 1000L / Math.max(millis, 1));
+
+        assertThat(response.getCreated()).isEqualTo(BILLS);
+        assertThat(response.getRejected()).isZero();
+        assertThat(billRepository.count()).isEqualTo(2L * BILLS);
+        long remaining = inventoryRepository.findAllById(itemIds).stream().mapToLong(Inventory::getQuantity).sum();
+        assertThat(remaining).isEqualTo(20L * 10_000 - 2L * BILLS * 3);
+        // On a single core the JIT and GC threads take their share of the measured run
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            assertThat(millis).isLessThan(MAX_MILLIS);
+        }
+    }
+
+    // Three lines per bill: two named rows and one product that is resolved to a batch by name
+    private static List<CreateBillRequestDto> bills(Pharmacy pharmacy, int count) {
+        List<CreateBillRequestDto> bills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CreateBillRequestDto bill = new CreateBillRequestDto();
+            bill.setPharmacyId(pharmacy.getId());
+            bill.setCustomerName("Walk-in " + i);
+            bill.setPaymentMethod(Bill.PaymentMethod.CASH);
+            bill.setItems(List.of(
+                    new CreateBillItemDto(null, 1, "Medicine " + (i % 10), null),
+                    new CreateBillItemDto(null, 1, "Medicine " + ((i + 3) % 10), null),
+                    new CreateBillItemDto(null, 1, "Medicine " + ((i + 7) % 10), null)));
+            bills.add(bill);
+        }
+        return bills;
+    }
+
+    private static Inventory item(Pharmacy pharmacy, String name, int batch) {
+        return Inventory.builder()
+                .pharmacy(pharmacy)
+                .medicationName(name)
+                .manufacturer("Maker")
+                .batchNumber("B" + batch)
+                .expiryDate(LocalDate.now().plusMonths(6 + batch))
+                .quantity(10_000)
+                .minimumStockLevel(0)
+                .costPrice(BigDecimal.ONE)
+                .sellingPrice(BigDecimal.TEN)
+                .active(true)
+                .medicationType(Inventory.MedicationType.OVER_THE_COUNTER)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.BillIdempotencyKey;
+import com.pharmacare.api.repository.BillIdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BillIdempotencyServiceTest {
+
+    private static final String KEY = "pharmacare:idempotency:bill:7:abc";
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+    private final BillIdempotencyKeyRepository repository = mock(BillIdempotencyKeyRepository.class);
+
+    private BillIdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        service = new BillIdempotencyService(redisTemplate, repository, Duration.ofHours(24), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void answersRetriesFromRedis() {
+        when(values.get(KEY)).thenReturn("42");
+
+        assertThat(service.findBillId(7L, "abc")).contains(42L);
+        verify(repository, never()).findByPharmacyIdAndIdempotencyKey(any(), anyString());
+    }
+
+    @Test
+    void fallsBackToTheDatabaseWhenRedisIsDown() {
+        when(values.get(KEY)).thenThrow(new RedisConnectionFailureException("down"));
+        when(repository.findByPharmacyIdAndIdempotencyKey(7L, "abc"))
+                .thenReturn(Optional.of(BillIdempotencyKey.builder().billId(42L).build()));
+
+        assertThat(service.findBillId(7L, "abc")).contains(42L);
+    }
+
+    @Test
+    void pendingKeysAreNotBillIds() {
+        when(values.get(KEY)).thenReturn("pending");
+        when(repository.findByPharmacyIdAndIdempotencyKey(7L, "abc")).thenReturn(Optional.empty());
+
+        assertThat(service.findBillId(7L, "abc")).isEmpty();
+    }
+
+    @Test
+    void rejectsAConcurrentClaimOfTheSameKey() {
+        when(values.setIfAbsent(KEY, "pending", Duration.ofSeconds(30))).thenReturn(true, false);
+
+        assertThat(service.tryClaim(7L, "abc")).isTrue();
+        assertThat(service.tryClaim(7L, "abc")).isFalse();
+    }
+
+    @Test
+    void leavesClaimingToTheDatabaseWhenRedisIsDown() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(service.tryClaim(7L, "abc")).isTrue();
+    }
+
+    @Test
+    void releaseOnlyDropsPendingClaims() {
+        when(values.get(KEY)).thenReturn("42");
+
+        service.release(7L, "abc");
+
+        verify(redisTemplate, never()).delete(KEY);
+    }
+}
@@ -0,0 +1,86 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.repository.BillNumberSequenceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BillNumberAllocatorTest {
+
+    @Autowired
+    private BillNumberSequenceRepository sequenceRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void numbersBillsPerPharmacyFromReservedBlocks() {
+        BillNumberAllocator allocator = new BillNumberAllocator(sequenceRepository, transactionManager, 3);
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            numbers.add(allocator.nextBillNumber(101L));
+        }
+
+        assertThat(numbers).containsExactly("BILL-101-000001", "BILL-101-000002", "BILL-101-000003", "BILL-101-000004");
+        assertThat(allocator.nextBillNumber(102L)).isEqualTo("BILL-102-000001");
+        assertThat(sequenceRepository.findById(101L)).get().extracting("nextValue").isEqualTo(7L);
+    }
+
+    @Test
+    void nodesSharingAPharmacyNeverHandOutTheSameNumber() throws Exception {
+        // Two allocators stand in for two nodes reserving blocks from the same row
+        List<BillNumberAllocator> nodes = List.of(
+                new BillNumberAllocator(sequenceRepository, transactionManager, 5),
+                new BillNumberAllocator(sequenceRepository, transactionManager, 5));
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            BillNumberAllocator node = nodes.get(t % 2);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    assertThat(numbers.add(node.nextBillNumber(201L))).isTrue();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(numbers).hasSize(200);
+    }
+
+    @Test
+    void numbersIncreaseAcrossNodesOnlyWithBlocksOfOne() {
+        BillNumberAllocator blocksA = new BillNumberAllocator(sequenceRepository, transactionManager, 50);
+        BillNumberAllocator blocksB = new BillNumberAllocator(sequenceRepository, transactionManager, 50);
+        assertThat(blocksA.nextBillNumber(301L)).isEqualTo("BILL-301-000001");
+        assertThat(blocksB.nextBillNumber(301L)).isEqualTo("BILL-301-000051");
+        // Each node goes on with its own block
+        assertThat(blocksA.nextBillNumber(301L)).isEqualTo("BILL-301-000002");
+
+        BillNumberAllocator singleA = new BillNumberAllocator(sequenceRepository, transactionManager, 1);
+        BillNumberAllocator singleB = new BillNumberAllocator(sequenceRepository, transactionManager, 1);
+        assertThat(List.of(singleA.nextBillNumber(302L), singleB.nextBillNumber(302L), singleA.nextBillNumber(302L),
+                singleB.nextBillNumber(302L)))
+                .containsExactly("BILL-302-000001", "BILL-302-000002", "BILL-302-000003", "BILL-302-000004");
+    }
+}
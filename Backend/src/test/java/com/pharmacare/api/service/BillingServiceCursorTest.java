@@ -0,0 +1,140 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.BillDto;
+import com.pharmacare.api.dto.BillPageDto;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.BillRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Import(BillingService.class)
+class BillingServiceCursorTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    @MockBean
+    private InventoryReservationService inventoryReservationService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private BillNumberAllocator billNumberAllocator;
+    @MockBean
+    private DailySalesRollupService dailySalesRollupService;
+    @MockBean
+    private DemandForecastService demandForecastService;
+
+    @Autowired
+    private BillingService billingService;
+    @Autowired
+    private BillRepository billRepository;
+    @Autowired
+    private PharmacyRepository pharmacyRepository;
+
+    private Pharmacy pharmacy;
+    private final List<Bill> bills = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pharmacy = pharmacyRepository.save(Pharmacy.builder()
+                .name("Cursor Pharmacy").registrationNumber("CURSOR-1").address("3 Test Street").active(true).build());
+        Pharmacy other = pharmacyRepository.save(Pharmacy.builder()
+                .name("Other Pharmacy").registrationNumber("CURSOR-2").address("4 Test Street").active(true).build());
+        // Every third bill shares its date with the one before, so pages must break ties by id
+        for (int i = 0; i < 25; i++) {
+            LocalDateTime billDate = NOON.minusHours(i - i / 3);
+            Bill.PaymentStatus status = i % 4 == 0 ? Bill.PaymentStatus.PENDING : Bill.PaymentStatus.PAID;
+            bills.add(billRepository.save(bill(pharmacy, "B-" + i, billDate, status)));
+        }
+        billRepository.save(bill(other, "OTHER-1", NOON, Bill.PaymentStatus.PAID));
+    }
+
+    @Test
+    void walksEveryBillNewestFirstWithoutGapsOrRepeats() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            BillPageDto page = billingService.listBills(pharmacy.getId(), null, null, null, cursor, 10);
+            page.getBills().forEach(bill -> seen.add(bill.getId()));
+            assertThat(page.isHasMore()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactlyElementsOf(bills.stream()
+                .sorted(Comparator.comparing(Bill::getBillDate).thenComparing(Bill::getId).reversed())
+                .map(Bill::getId)
+                .toList());
+    }
+
+    @Test
+    void appliesStatusAndDateFiltersAcrossPages() {
+        List<BillDto> pending = new ArrayList<>();
+        String cursor = null;
+        do {
+            BillPageDto page = billingService.listBills(pharmacy.getId(), Bill.PaymentStatus.PENDING,
+                    NOON.toLocalDate(), NOON.toLocalDate(), cursor, 2);
+            pending.addAll(page.getBills());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(pending).isNotEmpty().allSatisfy(bill -> {
+            assertThat(bill.getPaymentStatus()).isEqualTo(Bill.PaymentStatus.PENDING);
+            assertThat(bill.getBillDate().toLocalDate()).isEqualTo(NOON.toLocalDate());
+        });
+        assertThat(pending).hasSize((int) bills.stream()
+                .filter(bill -> bill.getPaymentStatus() == Bill.PaymentStatus.PENDING)
+                .filter(bill -> bill.getBillDate().toLocalDate().equals(NOON.toLocalDate()))
+                .count());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        BillPageDto page = billingService.listBills(pharmacy.getId(), null, LocalDate.of(2000, 1, 1), null, null, 50);
+
+        assertThat(page.getBills()).hasSize(25);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> billingService.listBills(pharmacy.getId(), null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    private static Bill bill(Pharmacy pharmacy, String number, LocalDateTime billDate, Bill.PaymentStatus status) {
+        return Bill.builder()
+                .billNumber(number)
+                .pharmacy(pharmacy)
+                .customerName("Walk-in")
+                .billDate(billDate)
+                .subtotal(BigDecimal.TEN)
+                .taxAmount(BigDecimal.ZERO)
+                .discountAmount(BigDecimal.ZERO)
+                .totalAmount(BigDecimal.TEN)
+                .paymentStatus(status)
+                .paymentMethod(Bill.PaymentMethod.CASH)
+                .items(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.model.Bill;
+import com.pharmacare.api.model.BillItem;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.BillItemRepository;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DemandForecastServiceTest {
+
+    private static final Long PHARMACY_ID = 1L;
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final BillItemRepository billItemRepository = mock(BillItemRepository.class);
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+
+    private DemandForecastService nodeA;
+    private DemandForecastService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = newNode();
+        nodeB = newNode();
+        // Both nodes have built the pharmacy's forecast from an empty history
+        nodeA.getReorderSuggestions(PHARMACY_ID);
+        nodeB.getReorderSuggestions(PHARMACY_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private DemandForecastService newNode() {
+        DemandForecastService service = new DemandForecastService(billItemRepository, inventoryRepository,
+                pubSub.node(), new SimpleMeterRegistry(), 0.5, 90, 7, 3, 30, 100, Duration.ofHours(6));
+        service.init();
+        return service;
+    }
+
+    @Test
+    void recordsCommittedSalesOnEveryNodeWithOneMessage() {
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.record(List.of(bill("Paracetamol", 6), bill("Paracetamol", 4), bill("Ibuprofen", 2)));
+        assertThat(pubSub.messageCount(DemandForecastService.UPDATE_CHANNEL)).isZero();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(pubSub.messageCount(DemandForecastService.UPDATE_CHANNEL)).isEqualTo(1);
+        assertThat(tomorrowsDemand(nodeA)).containsOnly(Map.entry("Paracetamol", 5.0), Map.entry("Ibuprofen", 1.0));
+        assertThat(tomorrowsDemand(nodeB)).containsOnly(Map.entry("Paracetamol", 5.0), Map.entry("Ibuprofen", 1.0));
+    }
+
+    @Test
+    void dropsSalesWhenTheTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.record(List.of(bill("Paracetamol", 6)));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(pubSub.messageCount(DemandForecastService.UPDATE_CHANNEL)).isZero();
+        assertThat(tomorrowsDemand(nodeA)).isEmpty();
+        assertThat(tomorrowsDemand(nodeB)).isEmpty();
+    }
+
+    // Today's sales are folded into the average once the day is over
+    private Map<String, Double> tomorrowsDemand(DemandForecastService node) {
+        DemandForecast forecast = node.cachedForecast(PHARMACY_ID);
+        forecast.rollTo(LocalDate.now().plusDays(1));
+        Map<String, Double> demand = new HashMap<>();
+        forecast.forEach(product -> demand.put(product.medicationName(), product.dailyDemand()));
+        return demand;
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private Bill bill(String medicationName, int units) {
+        Inventory inventory = Inventory.builder()
+                .medicationName(medicationName)
+                .strength("500mg")
+                .build();
+        return Bill.builder()
+                .pharmacy(Pharmacy.builder().id(PHARMACY_ID).build())
+                .billDate(LocalDateTime.now())
+                .items(List.of(BillItem.builder().inventory(inventory).quantity(units).build()))
+                .build();
+    }
+}
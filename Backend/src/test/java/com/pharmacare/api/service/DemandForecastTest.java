@@ -0,0 +1,84 @@
+package com.pharmacare.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DemandForecastTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    private final DemandForecast forecast = new DemandForecast(0.5, MONDAY);
+
+    @Test
+    void foldsADayIntoTheAverageOnlyOnceItIsOver() {
+        forecast.record("Paracetamol", "500mg", MONDAY, 10);
+        assertThat(demand()).containsEntry("Paracetamol 500mg", 0.0);
+
+        forecast.rollTo(MONDAY.plusDays(1));
+        assertThat(demand()).containsEntry("Paracetamol 500mg", 5.0);
+
+        forecast.record("Paracetamol", "500mg", MONDAY.plusDays(1), 20);
+        forecast.rollTo(MONDAY.plusDays(2));
+        assertThat(demand()).containsEntry("Paracetamol 500mg", 12.5);
+    }
+
+    @Test
+    void decaysTheAverageOverDaysWithoutSales() {
+        forecast.record("Paracetamol", "500mg", MONDAY, 10);
+
+        forecast.record("Ibuprofen", "200mg", MONDAY.plusDays(3), 1);
+
+        // Monday brings it to 5, then Tuesday and Wednesday halve it twice
+        assertThat(demand().get("Paracetamol 500mg")).isCloseTo(1.25, within(1e-9));
+        assertThat(demand()).containsEntry("Ibuprofen 200mg", 0.0);
+    }
+
+    @Test
+    void countsLateSalesOnTheCurrentDay() {
+        forecast.rollTo(MONDAY.plusDays(2));
+
+        forecast.record("Paracetamol", "500mg", MONDAY, 8);
+        forecast.rollTo(MONDAY);
+        forecast.rollTo(MONDAY.plusDays(3));
+
+        assertThat(demand()).containsEntry("Paracetamol 500mg", 4.0);
+    }
+
+    @Test
+    void groupsSalesByProductIgnoringCaseAndSpacing() {
+        forecast.record("Paracetamol", "500mg", MONDAY, 4);
+        forecast.record(" PARACETAMOL ", "500MG", MONDAY, 6);
+        forecast.record("Paracetamol", "1g", MONDAY, 2);
+        forecast.rollTo(MONDAY.plusDays(1));
+
+        assertThat(forecast.size()).isEqualTo(2);
+        assertThat(demand()).containsOnly(Map.entry("Paracetamol 500mg", 5.0), Map.entry("Paracetamol 1g", 1.0));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        for (int i = 0; i < 200; i++) {
+            forecast.record("Medicine " + i, null, MONDAY, i * 2L);
+        }
+        forecast.rollTo(MONDAY.plusDays(1));
+
+        List<DemandForecast.ProductDemand> products = new ArrayList<>();
+        forecast.forEach(products::add);
+        assertThat(products).hasSize(200);
+        assertThat(products.get(199)).isEqualTo(new DemandForecast.ProductDemand("Medicine 199", null, 199.0));
+    }
+
+    private Map<String, Double> demand() {
+        Map<String, Double> demand = new HashMap<>();
+        forecast.forEach(product -> demand.put(product.medicationName() + " " + product.strength(), product.dailyDemand()));
+        return demand;
+    }
+}
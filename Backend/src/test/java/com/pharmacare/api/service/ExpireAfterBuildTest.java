@@ -0,0 +1,33 @@
+package com.pharmacare.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpireAfterBuildTest {
+
+    @Test
+    void updatesInPlaceDoNotPostponeTheRebuild() {
+        AtomicLong now = new AtomicLong();
+        Cache<Long, StringBuilder> cache = Caffeine.newBuilder()
+                .ticker(now::get)
+                .expireAfter(new ExpireAfterBuild<Long, StringBuilder>(Duration.ofMinutes(30)))
+                .build();
+        cache.put(1L, new StringBuilder("built"));
+
+        for (int minute = 10; minute < 30; minute += 10) {
+            now.set(TimeUnit.MINUTES.toNanos(minute));
+            cache.asMap().computeIfPresent(1L, (id, index) -> index.append(" updated"));
+            assertThat(cache.getIfPresent(1L)).isNotNull();
+        }
+        now.set(TimeUnit.MINUTES.toNanos(31));
+
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+}
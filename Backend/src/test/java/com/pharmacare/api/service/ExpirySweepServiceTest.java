@@ -0,0 +1,132 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.model.ExpirySweepCheckpoint;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.ExpirySweepCheckpointRepository;
+import com.pharmacare.api.repository.InventoryRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.show-sql=false"})
+@Import({ExpirySweepService.class, ExpirySweepServiceTest.Config.class})
+class ExpirySweepServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private InventorySearchService inventorySearchService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private LiveEventService liveEventService;
+    @MockBean
+    private StringRedisTemplate redisTemplate;
+    // Its upsert is Postgres SQL; the sweep only needs the row it locks
+    @MockBean
+    private ExpirySweepCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ExpirySweepService sweepService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacyRepository pharmacyRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        when(checkpointRepository.findForUpdate(anyString()))
+                .thenReturn(Optional.of(ExpirySweepCheckpoint.builder().sweepName("inventory-expiry").lastPharmacyId(0L).build()));
+    }
+
+    @Test
+    void quarantinesExpiredBatchesAndEvictsTheCachesOfTheirPharmaciesOnly() {
+        Pharmacy withExpired = pharmacy("SWEEP-1");
+        Pharmacy upToDate = pharmacy("SWEEP-2");
+        Long expired = save(withExpired, LocalDate.now().minusDays(1)).getId();
+        Long fresh = save(withExpired, LocalDate.now().plusYears(1)).getId();
+        save(upToDate, LocalDate.now().plusYears(1));
+        entityManager.flush();
+        // Saving the rows went through the entity listener
+        clearInvocations(inventoryStatsService, inventorySearchService, batchAllocationService);
+
+        sweepService.sweep();
+        entityManager.clear();
+
+        assertThat(inventoryRepository.findById(expired)).get()
+                .satisfies(row -> assertThat(row.isActive()).isFalse())
+                .satisfies(row -> assertThat(row.isQuarantined()).isTrue());
+        assertThat(inventoryRepository.findById(fresh)).get().satisfies(row -> assertThat(row.isActive()).isTrue());
+        verify(inventoryStatsService).evictPharmacy(withExpired.getId());
+        verify(inventorySearchService).evictPharmacy(withExpired.getId());
+        verify(batchAllocationService).evictPharmacy(withExpired.getId());
+        verify(inventorySearchService, never()).evictPharmacy(upToDate.getId());
+        verify(batchAllocationService, never()).evictPharmacy(upToDate.getId());
+    }
+
+    @Test
+    void evictsNothingWhenNothingExpired() {
+        save(pharmacy("SWEEP-3"), LocalDate.now().plusYears(1));
+        entityManager.flush();
+        clearInvocations(inventoryStatsService, inventorySearchService, batchAllocationService);
+
+        sweepService.sweep();
+
+        verify(inventoryStatsService, never()).evictPharmacy(any());
+        verify(inventorySearchService, never()).evictPharmacy(any());
+        verify(batchAllocationService, never()).evictPharmacy(any());
+    }
+
+    private Pharmacy pharmacy(String registrationNumber) {
+        return pharmacyRepository.save(Pharmacy.builder()
+                .name("Sweep Pharmacy").registrationNumber(registrationNumber).address("6 Test Street").active(true).build());
+    }
+
+    private Inventory save(Pharmacy pharmacy, LocalDate expiryDate) {
+        return inventoryRepository.save(Inventory.builder()
+                .pharmacy(pharmacy)
+                .medicationName("Amoxicillin")
+                .manufacturer("Maker")
+                .batchNumber("B-" + expiryDate)
+                .expiryDate(expiryDate)
+                .quantity(10)
+                .minimumStockLevel(5)
+                .costPrice(BigDecimal.ONE)
+                .sellingPrice(BigDecimal.TEN)
+                .active(true)
+                .medicationType(Inventory.MedicationType.OVER_THE_COUNTER)
+                .build());
+    }
+}
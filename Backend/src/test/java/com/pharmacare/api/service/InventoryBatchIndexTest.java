@@ -0,0 +1,104 @@
+package com.pharmacare.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class InventoryBatchIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 1);
+
+    private InventoryBatchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InventoryBatchIndex();
+        index.put(1L, "Paracetamol", "500mg", TODAY.plusMonths(6), 10);
+        index.put(2L, "Paracetamol", "500mg", TODAY.plusMonths(1), 5);
+        index.put(3L, "Paracetamol", "500mg", TODAY.minusDays(1), 50);
+        index.put(4L, "Paracetamol", "1g", TODAY.plusMonths(2), 20);
+    }
+
+    @Test
+    void takesFromTheEarliestUnexpiredBatchesFirst() {
+        Map<Long, Integer> taken = index.take("Paracetamol", "500mg", 8, TODAY);
+
+        assertThat(taken).containsExactly(entry(2L, 5), entry(1L, 3));
+        assertThat(index.take("Paracetamol", "500mg", 7, TODAY)).containsExactly(entry(1L, 7));
+    }
+
+    @Test
+    void takesNothingWhenStockFallsShort() {
+        assertThat(index.take("Paracetamol", "500mg", 16, TODAY)).isNull();
+        assertThat(index.take("Aspirin", null, 1, TODAY)).isNull();
+
+        assertThat(index.take("Paracetamol", "500mg", 15, TODAY)).containsExactly(entry(2L, 5), entry(1L, 10));
+    }
+
+    @Test
+    void matchesProductsIgnoringCaseAndSpacing() {
+        assertThat(index.take("  PARACETAMOL ", "1G", 20, TODAY)).containsExactly(entry(4L, 20));
+    }
+
+    @Test
+    void givesBackUnitsOfAllocationsThatDidNotGoThrough() {
+        Map<Long, Integer> taken = index.take("Paracetamol", "500mg", 15, TODAY);
+        assertThat(index.take("Paracetamol", "500mg", 1, TODAY)).isNull();
+
+        index.giveBack(taken);
+
+        assertThat(index.take("Paracetamol", "500mg", 15, TODAY)).isEqualTo(taken);
+    }
+
+    @Test
+    void appliesCommittedStockAndMovedBatches() {
+        index.put(2L, "Paracetamol", "500mg", TODAY.plusMonths(1), 0);
+        index.put(1L, "Paracetamol", "500mg", TODAY.plusMonths(9), 10);
+        index.put(5L, "Paracetamol", "500mg", TODAY.plusMonths(3), 4);
+        index.remove(4L);
+
+        assertThat(index.take("Paracetamol", "500mg", 6, TODAY)).containsExactly(entry(5L, 4), entry(1L, 2));
+        assertThat(index.take("Paracetamol", "1g", 1, TODAY)).isNull();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentTakesNeverOversell() throws Exception {
+        index.put(6L, "Cetirizine", "10mg", TODAY.plusMonths(4), 1_000);
+        index.put(7L, "Cetirizine", "10mg", TODAY.plusMonths(5), 1_000);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    Map<Long, Integer> taken;
+                    while ((taken = index.take("Cetirizine", "10mg", 3, TODAY)) != null) {
+                        sold.addAndGet(taken.values().stream().mapToInt(Integer::intValue).sum());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 2,000 units in lots of three leave two units that no take can cover
+        assertThat(sold.get()).isEqualTo(1_998);
+        assertThat(index.take("Cetirizine", "10mg", 2, TODAY)).isNotNull();
+    }
+}
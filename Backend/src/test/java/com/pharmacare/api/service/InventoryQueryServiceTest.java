@@ -0,0 +1,204 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.dto.InventoryDto;
+import com.pharmacare.api.dto.InventoryFilter;
+import com.pharmacare.api.dto.InventoryPageDto;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.InventoryRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.show-sql=false"})
+@Import({InventoryQueryService.class, InventorySearchService.class, InventoryQueryServiceTest.Config.class})
+class InventoryQueryServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ClusterBroadcaster clusterBroadcaster() {
+            return new ClusterBroadcaster(mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class),
+                    new ObjectMapper());
+        }
+    }
+
+    // The rest of what InventoryEntityListener notifies
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private LiveEventService liveEventService;
+
+    @Autowired
+    private InventoryQueryService queryService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacyRepository pharmacyRepository;
+
+    private Pharmacy pharmacy;
+
+    @BeforeEach
+    void setUp() {
+        pharmacy = pharmacyRepository.save(Pharmacy.builder()
+                .name("Query Pharmacy").registrationNumber("QUERY-1").address("5 Test Street").active(true).build());
+    }
+
+    @Test
+    void walksTheListingPageByPageInSortOrder() {
+        for (int i = 0; i < 8; i++) {
+            save("Medicine " + (char) ('A' + (i * 5) % 8), 10 + i % 3, 5);
+        }
+
+        List<InventoryDto> byName = walk(filter -> filter.sort(InventoryFilter.Sort.NAME), 3);
+        List<InventoryDto> byQuantity = walk(filter -> filter.sort(InventoryFilter.Sort.QUANTITY).descending(true), 3);
+
+        assertThat(byName).extracting(InventoryDto::getMedicationName).isSorted().hasSize(8);
+        assertThat(byQuantity).hasSize(8).isSortedAccordingTo(
+                Comparator.comparing(InventoryDto::getQuantity).thenComparing(InventoryDto::getId).reversed());
+    }
+
+    @Test
+    void returnsEverythingWithoutALimit() {
+        for (int i = 0; i < 60; i++) {
+            save("Medicine " + i, 10, 5);
+        }
+
+        InventoryPageDto page = queryService.find(InventoryFilter.builder().pharmacyId(pharmacy.getId()).build());
+
+        assertThat(page.getItems()).hasSize(60);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void filtersSearchMatchesBeforeCuttingThePage() {
+        // The best matches are well stocked; only the weakest ones are low on stock
+        for (int i = 0; i < 10; i++) {
+            save("Paracetamol " + "x".repeat(i), 100, 5);
+        }
+        Long lowA = save("Paracetamol Syrup for Children", 1, 5).getId();
+        Long lowB = save("Paracetamol Syrup for Children Extra", 2, 5).getId();
+
+        List<InventoryDto> lowStock = walk(filter -> filter.search("paracetamol").lowStock(true), 1);
+
+        assertThat(lowStock).extracting(InventoryDto::getId).containsExactly(lowA, lowB);
+    }
+
+    @Test
+    void pagesSearchResultsInRelevanceOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(save("Ibuprofen" + " forte".repeat(i), 50, 5).getId());
+        }
+
+        List<InventoryDto> results = walk(filter -> filter.search("ibuprofen"), 3);
+
+        assertThat(results).extracting(InventoryDto::getId).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void continuesAfterTheLastRowWhenEarlierMatchesDisappear() {
+        List<Inventory> rows = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            rows.add(save("Cetirizine" + " plus".repeat(i), 50, 5));
+        }
+        InventoryPageDto first = queryService.find(filter().search("cetirizine").limit(3).build());
+        Inventory gone = rows.get(0);
+        gone.setActive(false);
+        inventoryRepository.saveAndFlush(gone);
+
+        InventoryPageDto second = queryService.find(filter().search("cetirizine").limit(3).cursor(first.getNextCursor()).build());
+
+        assertThat(second.getItems()).extracting(InventoryDto::getId)
+                .containsExactly(rows.get(3).getId(), rows.get(4).getId(), rows.get(5).getId());
+    }
+
+    @Test
+    void sortsAllSearchMatchesWhenASortIsGiven() {
+        // More matches than fit in one IN list; the best stocked row is also the weakest match
+        for (int i = 0; i < 1_100; i++) {
+            save("Vitamin C " + i, 10 + i % 50, 5);
+        }
+        Inventory mostStocked = save("Vitamin C with zinc and a very long name", 5_000, 5);
+
+        InventoryPageDto page = queryService.find(filter().search("vitamin")
+                .sort(InventoryFilter.Sort.QUANTITY).descending(true).limit(5).build());
+
+        assertThat(page.getItems()).hasSize(5);
+        assertThat(page.getItems().get(0).getId()).isEqualTo(mostStocked.getId());
+        assertThat(page.getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        save("Medicine", 10, 5);
+
+        assertThatThrownBy(() -> queryService.find(filter().limit(5).cursor("%%%").build()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> queryService.find(filter().search("medicine").limit(5).cursor("bm90LWEtY3Vyc29y").build()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+    }
+
+    private List<InventoryDto> walk(UnaryOperator<InventoryFilter.InventoryFilterBuilder> criteria, int limit) {
+        List<InventoryDto> items = new ArrayList<>();
+        String cursor = null;
+        do {
+            InventoryPageDto page = queryService.find(criteria.apply(filter()).limit(limit).cursor(cursor).build());
+            assertThat(page.getItems().size()).isLessThanOrEqualTo(limit);
+            items.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertThat(items).extracting(InventoryDto::getId).doesNotHaveDuplicates();
+        return items;
+    }
+
+    private InventoryFilter.InventoryFilterBuilder filter() {
+        return InventoryFilter.builder().pharmacyId(pharmacy.getId());
+    }
+
+    private Inventory save(String name, int quantity, int minimumStockLevel) {
+        return inventoryRepository.save(Inventory.builder()
+                .pharmacy(pharmacy)
+                .medicationName(name)
+                .manufacturer("Maker")
+                .batchNumber("B-" + name.hashCode())
+                .expiryDate(LocalDate.now().plusYears(1))
+                .quantity(quantity)
+                .minimumStockLevel(minimumStockLevel)
+                .costPrice(BigDecimal.ONE)
+                .sellingPrice(BigDecimal.TEN)
+                .active(true)
+                .medicationType(Inventory.MedicationType.OVER_THE_COUNTER)
+                .build());
+    }
+}
@@ -0,0 +1,165 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.dto.CreateBillItemDto;
+import com.pharmacare.api.exception.InsufficientStockException;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.InventoryRepository;
+import com.pharmacare.api.repository.PharmacyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent checkouts against a handful of shared batches. Every checkout buys several batches
+ * listed in random order, so without ordered locking they would deadlock or lose updates. Sizes can
+ * be raised with {@code -Dreservation.load.threads}, {@code .checkouts} and {@code .items}.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Import({InventoryReservationService.class, InventoryReservationServiceLoadTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationServiceLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationServiceLoadTest.class);
+
+    private static final int THREADS = Integer.getInteger("reservation.load.threads", 8);
+    private static final int CHECKOUTS_PER_THREAD = Integer.getInteger("reservation.load.checkouts", 150);
+    private static final int ITEMS = Integer.getInteger("reservation.load.items", 6);
+    private static final int LINES_PER_CHECKOUT = 3;
+    // Less stock than the checkouts ask for, so some of them must be turned away
+    private static final int STOCK_PER_ITEM = THREADS * CHECKOUTS_PER_THREAD * LINES_PER_CHECKOUT / ITEMS * 3 / 4;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    // Behind InventoryEntityListener, which Hibernate builds for itself
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private InventorySearchService inventorySearchService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private LiveEventService liveEventService;
+
+    @Autowired
+    private InventoryReservationService reservationService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PharmacyRepository pharmacyRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentCheckoutsNeverOversellOrLoseUpdates() throws Exception {
+        Pharmacy pharmacy = pharmacyRepository.save(Pharmacy.builder()
+                .name("Load Test Pharmacy").registrationNumber("LOAD-" + System.nanoTime()).address("1 Test Street")
+                .active(true).build());
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            itemIds.add(inventoryRepository.save(item(pharmacy, i)).getId());
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicLong unitsSold = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int c = 0; c < CHECKOUTS_PER_THREAD; c++) {
+                    List<Long> shuffled = new ArrayList<>(itemIds);
+                    Collections.shuffle(shuffled, random);
+                    List<CreateBillItemDto> lines = new ArrayList<>();
+                    for (Long id : shuffled.subList(0, LINES_PER_CHECKOUT)) {
+                        lines.add(new CreateBillItemDto(id, 1, null, null));
+                    }
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> reservationService.reserve(pharmacy.getId(), lines));
+                        completed.incrementAndGet();
+                        unitsSold.addAndGet(LINES_PER_CHECKOUT);
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long remaining = inventoryRepository.findAllById(itemIds).stream().mapToLong(Inventory::getQuantity).sum();
+        double conflicts = meterRegistry.get("inventory.reservation.conflicts").tag("reason", "insufficient_stock")
+                .counter().count();
+        double lockFailures = meterRegistry.get("inventory.reservation.conflicts").tag("reason", "lock_failure")
+                .counter().count();
+        logger.info("{} checkouts on {} threads in {}s: {}/s, {} completed, {} rejected for stock, {} lock failures",
+                THREADS * CHECKOUTS_PER_THREAD, THREADS, String.format("%.2f", seconds),
+                String.format("%.0f", THREADS * CHECKOUTS_PER_THREAD / seconds), completed, rejected, lockFailures);
+
+        assertThat(completed.get() + rejected.get()).isEqualTo(THREADS * CHECKOUTS_PER_THREAD);
+        assertThat(rejected.get()).isPositive();
+        assertThat(conflicts).isEqualTo(rejected.get());
+        assertThat(lockFailures).isZero();
+        assertThat(remaining).isEqualTo((long) ITEMS * STOCK_PER_ITEM - unitsSold.get());
+        assertThat(inventoryRepository.findAllById(itemIds)).allSatisfy(item -> assertThat(item.getQuantity()).isNotNegative());
+    }
+
+    private static Inventory item(Pharmacy pharmacy, int i) {
+        return Inventory.builder()
+                .pharmacy(pharmacy)
+                .medicationName("Medicine " + i)
+                .manufacturer("Maker")
+                .batchNumber("B" + i)
+                .expiryDate(LocalDate.now().plusYears(1))
+                .quantity(STOCK_PER_ITEM)
+                .minimumStockLevel(0)
+                .costPrice(BigDecimal.ONE)
+                .sellingPrice(BigDecimal.TEN)
+                .active(true)
+                .medicationType(Inventory.MedicationType.OVER_THE_COUNTER)
+                .build();
+    }
+}
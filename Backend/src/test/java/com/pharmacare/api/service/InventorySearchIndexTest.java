@@ -0,0 +1,75 @@
+package com.pharmacare.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventorySearchIndexTest {
+
+    private InventorySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InventorySearchIndex();
+        index.upsert(1L, "Paracetamol", "Acme Pharma", "PCM-001");
+        index.upsert(2L, "Paracetamol Extra", "Globex", "PCM-002");
+        index.upsert(3L, "Ibuprofen", "Acme Pharma", "IBU-100");
+        index.upsert(4L, "Amoxicillin", "Initech", "AMX-7");
+    }
+
+    @Test
+    void ranksExactNameMatchesBeforePrefixesAndShorterNamesFirst() {
+        assertThat(index.search("paracetamol", 10)).containsExactly(1L, 2L);
+        assertThat(index.search("para", 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void matchesInsideNamesManufacturersAndBatchNumbersIgnoringCaseAndSpacing() {
+        assertThat(index.search("  PROFEN ", 10)).containsExactly(3L);
+        assertThat(index.search("acme   pharma", 10)).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.search("amx-7", 10)).containsExactly(4L);
+    }
+
+    @Test
+    void answersShortQueriesWithoutTrigrams() {
+        assertThat(index.search("ib", 10)).containsExactly(3L);
+        assertThat(index.search("", 10)).isEmpty();
+    }
+
+    @Test
+    void honoursTheLimit() {
+        assertThat(index.search("pcm", 1)).hasSize(1);
+    }
+
+    @Test
+    void reindexesChangedRowsAndForgetsRemovedOnes() {
+        assertThat(index.upsert(3L, "Ibuprofen", "Acme Pharma", "IBU-100")).isFalse();
+        assertThat(index.upsert(3L, "Naproxen", "Acme Pharma", "NPX-1")).isTrue();
+        assertThat(index.remove(4L)).isTrue();
+        assertThat(index.remove(4L)).isFalse();
+
+        assertThat(index.search("ibuprofen", 10)).isEmpty();
+        assertThat(index.search("naproxen", 10)).containsExactly(3L);
+        assertThat(index.search("amoxicillin", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void staysCorrectAcrossCompaction() {
+        for (int round = 0; round < 3; round++) {
+            for (long id = 100; id < 1200; id++) {
+                index.upsert(id, "Vitamin " + round + " " + id, "Maker", "V-" + id);
+            }
+        }
+        long before = index.estimatedBytes();
+        for (long id = 100; id < 1200; id++) {
+            index.remove(id);
+        }
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.search("vitamin", 10)).isEmpty();
+        assertThat(index.search("paracetamol", 10)).containsExactly(1L, 2L);
+        assertThat(index.estimatedBytes()).isLessThan(before);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InventorySearchServiceTest {
+
+    private static final Long PHARMACY_ID = 1L;
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+
+    private InventorySearchService nodeA;
+    private InventorySearchService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        InventoryRepository.SearchableInventory row = mock(InventoryRepository.SearchableInventory.class);
+        when(row.getId()).thenReturn(10L);
+        when(row.getMedicationName()).thenReturn("Paracetamol");
+        when(row.getManufacturer()).thenReturn("Acme Pharma");
+        when(row.getBatchNumber()).thenReturn("B-10");
+        when(inventoryRepository.findSearchableByPharmacyId(PHARMACY_ID)).thenReturn(List.of(row));
+        nodeA = newNode();
+        nodeB = newNode();
+        // Both nodes have built the pharmacy's index
+        nodeA.search(PHARMACY_ID, "paracetamol", 10);
+        nodeB.search(PHARMACY_ID, "paracetamol", 10);
+    }
+
+    private InventorySearchService newNode() {
+        InventorySearchService service = new InventorySearchService(inventoryRepository, pubSub.node(),
+                new SimpleMeterRegistry(), DataSize.ofMegabytes(1), Duration.ofMinutes(30));
+        service.init();
+        return service;
+    }
+
+    @Test
+    void appliesNewTextOnEveryNode() {
+        nodeA.onInventorySaved(inventory(11L, "Ibuprofen", 20, true));
+
+        assertThat(nodeA.search(PHARMACY_ID, "ibuprofen", 10)).containsExactly(11L);
+        assertThat(nodeB.search(PHARMACY_ID, "ibuprofen", 10)).containsExactly(11L);
+        assertThat(pubSub.messageCount(InventorySearchService.UPDATE_CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void sendsNothingForStockOnlyChanges() {
+        nodeA.onInventorySaved(inventory(10L, "Paracetamol", 5, true));
+
+        assertThat(pubSub.messageCount(InventorySearchService.UPDATE_CHANNEL)).isZero();
+    }
+
+    @Test
+    void removesRowsOnEveryNode() {
+        nodeA.onInventoryRemoved(inventory(10L, "Paracetamol", 20, true));
+
+        assertThat(nodeA.search(PHARMACY_ID, "paracetamol", 10)).isEmpty();
+        assertThat(nodeB.search(PHARMACY_ID, "paracetamol", 10)).isEmpty();
+    }
+
+    @Test
+    void dropsIndexesOnEveryNodeWhenAPharmacyIsEvicted() {
+        InventoryRepository.SearchableInventory renamed = mock(InventoryRepository.SearchableInventory.class);
+        when(renamed.getId()).thenReturn(10L);
+        when(renamed.getMedicationName()).thenReturn("Acetaminophen");
+        when(inventoryRepository.findSearchableByPharmacyId(PHARMACY_ID)).thenReturn(List.of(renamed));
+
+        nodeA.evictPharmacy(PHARMACY_ID);
+
+        assertThat(nodeA.search(PHARMACY_ID, "acetaminophen", 10)).containsExactly(10L);
+        assertThat(nodeB.search(PHARMACY_ID, "acetaminophen", 10)).containsExactly(10L);
+    }
+
+    private Inventory inventory(Long id, String name, int quantity, boolean active) {
+        return Inventory.builder()
+                .id(id)
+                .pharmacy(Pharmacy.builder().id(PHARMACY_ID).build())
+                .medicationName(name)
+                .manufacturer("Acme Pharma")
+                .batchNumber("B-" + id)
+                .quantity(quantity)
+                .active(active)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.dto.InventoryStatsProjection;
+import com.pharmacare.api.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryStatsServiceTest {
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+
+    private InventoryStatsService nodeA;
+    private InventoryStatsService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryRepository.computeStats(any(), any(), any())).thenAnswer(invocation -> mock(InventoryStatsProjection.class));
+        nodeA = newNode();
+        nodeB = newNode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private InventoryStatsService newNode() {
+        InventoryStatsService service = new InventoryStatsService(inventoryRepository, pubSub.node(),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        service.init();
+        return service;
+    }
+
+    @Test
+    void evictsEveryTouchedPharmacyOnEveryNodeWithOneMessagePerTransaction() {
+        for (InventoryStatsService node : List.of(nodeA, nodeB)) {
+            node.getStats(1L);
+            node.getStats(2L);
+            node.getStats(3L);
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.evictPharmacy(1L);
+        nodeA.evictPharmacy(2L);
+        nodeA.evictPharmacy(1L);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        for (InventoryStatsService node : List.of(nodeA, nodeB)) {
+            node.getStats(1L);
+            node.getStats(2L);
+            node.getStats(3L);
+        }
+
+        assertThat(pubSub.messageCount(InventoryStatsService.EVICTION_CHANNEL)).isEqualTo(1);
+        verify(inventoryRepository, times(4)).computeStats(eq(1L), any(), any());
+        verify(inventoryRepository, times(4)).computeStats(eq(2L), any(), any());
+        verify(inventoryRepository, times(2)).computeStats(eq(3L), any(), any());
+    }
+
+    @Test
+    void keepsCachedStatsWhenTheTransactionRollsBack() {
+        nodeB.getStats(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.evictPharmacy(1L);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        nodeB.getStats(1L);
+
+        assertThat(pubSub.messageCount(InventoryStatsService.EVICTION_CHANNEL)).isZero();
+        verify(inventoryRepository, times(1)).computeStats(eq(1L), any(), any());
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,130 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.controller.LiveEventController;
+import com.pharmacare.api.security.JwtTokenProvider;
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitterReturnValueHandler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Opens {@code -Dlive-events.load.subscribers} reminder streams (default 50,000, the per-node limit)
+ * through the controller and Spring MVC's emitter handling, sends every user a due reminder in one
+ * batch and waits until each stream has written it. Responses are in memory, so this measures the
+ * fan-out and delivery pool rather than sockets; logs how long opening and delivering took.
+ */
+class LiveEventServiceLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEventServiceLoadTest.class);
+
+    private static final int SUBSCRIBERS = Integer.getInteger("live-events.load.subscribers", 50_000);
+    private static final long DELIVERY_TIMEOUT_MILLIS = Long.getLong("live-events.load.timeout-millis", 120_000);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LiveEventService liveEventService;
+    private LiveEventController controller;
+    private ResponseBodyEmitterReturnValueHandler emitterHandler;
+    private MethodParameter returnType;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        liveEventService = new LiveEventService(new ClusterBroadcaster(mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), objectMapper), objectMapper, meterRegistry,
+                32, SUBSCRIBERS, Duration.ofMinutes(30), 4);
+        liveEventService.init();
+        controller = new LiveEventController(liveEventService, mock(JwtTokenProvider.class));
+        emitterHandler = new ResponseBodyEmitterReturnValueHandler(List.of(new StringHttpMessageConverter()));
+        returnType = new MethodParameter(LiveEventController.class.getMethod("streamReminders", UserPrincipal.class), -1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        liveEventService.stop();
+    }
+
+    @Test
+    void deliversADueReminderToEveryOpenStream() throws Exception {
+        // Otherwise Spring MVC would not treat the returned emitter as a stream at all
+        assertThat(emitterHandler.supportsReturnType(returnType)).isTrue();
+
+        long openStart = System.nanoTime();
+        List<MockHttpServletResponse> responses = new ArrayList<>(SUBSCRIBERS);
+        for (long userId = 1; userId <= SUBSCRIBERS; userId++) {
+            responses.add(open(userId));
+        }
+        long openMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openStart);
+
+        assertThat(meterRegistry.get("live.events.subscribers").gauge().value()).isEqualTo(SUBSCRIBERS);
+        assertThat(open(SUBSCRIBERS + 1L).getStatus()).isEqualTo(503);
+
+        List<ReminderNotification> due = new ArrayList<>(SUBSCRIBERS);
+        for (long userId = 1; userId <= SUBSCRIBERS; userId++) {
+            due.add(new ReminderNotification(userId, LocalDateTime.now(), null, "Medicine " + userId, "10mg",
+                    userId, "user" + userId + "@example.com", "User"));
+        }
+        long deliverStart = System.nanoTime();
+        liveEventService.publishReminders(due);
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deliverStart);
+
+        // Streams are drained in no particular order; wait for each in turn
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELIVERY_TIMEOUT_MILLIS);
+        int delivered = 0;
+        while (delivered < SUBSCRIBERS && System.nanoTime() < deadline) {
+            if (responses.get(delivered).getContentAsString().contains("event:" + LiveEventService.REMINDER_DUE)) {
+                delivered++;
+            } else {
+                Thread.sleep(10);
+            }
+        }
+        long deliverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deliverStart);
+
+        logger.info("{} streams opened in {} ms; reminders published in {} ms and written to {} streams in {} ms",
+                SUBSCRIBERS, openMillis, publishMillis, delivered, deliverMillis);
+        assertThat(delivered).isEqualTo(SUBSCRIBERS);
+        assertThat(responses.get(SUBSCRIBERS - 1).getContentAsString())
+                .contains("\"medicationName\":\"Medicine " + SUBSCRIBERS + "\"");
+        assertThat(meterRegistry.get("live.events.dropped").counter().count()).isZero();
+    }
+
+    // Goes through the controller and the handler Spring MVC uses for the returned emitter
+    private MockHttpServletResponse open(long userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events/reminders");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+
+        ResponseEntity<?> entity = controller.streamReminders(UserPrincipal.create(userId, "user" + userId + "@example.com", List.of()));
+        emitterHandler.handleReturnValue(entity, returnType, new ModelAndViewContainer(), webRequest);
+        return response;
+    }
+}
@@ -0,0 +1,154 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.model.Inventory;
+import com.pharmacare.api.model.Pharmacy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitterReturnValueHandler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveEventServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final long PHARMACY_ID = 2L;
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final ResponseBodyEmitterReturnValueHandler emitterHandler =
+            new ResponseBodyEmitterReturnValueHandler(List.of(new StringHttpMessageConverter()));
+
+    private LiveEventService nodeA;
+    private LiveEventService nodeB;
+    private MethodParameter returnType;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        nodeA = newNode();
+        nodeB = newNode();
+        returnType = new MethodParameter(LiveEventService.class.getMethod("subscribe", String.class), -1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        nodeB.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private LiveEventService newNode() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        LiveEventService service = new LiveEventService(pubSub.node(), objectMapper, new SimpleMeterRegistry(),
+                32, 100, Duration.ofMinutes(30), 1);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void deliversRemindersToSubscribersOnEveryNodeOnce() throws Exception {
+        MockHttpServletResponse onA = open(nodeA, LiveEventService.userTopic(USER_ID));
+        MockHttpServletResponse onB = open(nodeB, LiveEventService.userTopic(USER_ID));
+        MockHttpServletResponse otherUser = open(nodeB, LiveEventService.userTopic(USER_ID + 1));
+
+        nodeA.publishReminders(List.of(new ReminderNotification(10L, LocalDateTime.now(), null, "Paracetamol", "500mg",
+                USER_ID, "user@example.com", "Pat")));
+
+        assertThat(awaitEvents(onA, LiveEventService.REMINDER_DUE, 1)).isEqualTo(1);
+        assertThat(awaitEvents(onB, LiveEventService.REMINDER_DUE, 1)).isEqualTo(1);
+        assertThat(events(otherUser, LiveEventService.REMINDER_DUE)).isZero();
+        assertThat(onB.getContentAsString()).contains("\"medicationName\":\"Paracetamol\"");
+        assertThat(pubSub.messageCount(LiveEventService.EVENT_CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void sendsTheLastLowStockStateOfACommittedBatch() throws Exception {
+        MockHttpServletResponse onB = open(nodeB, LiveEventService.pharmacyTopic(PHARMACY_ID));
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.onInventorySaved(inventory(4));
+        nodeA.onInventorySaved(inventory(3));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(awaitEvents(onB, LiveEventService.LOW_STOCK, 1)).isEqualTo(1);
+        assertThat(onB.getContentAsString()).contains("\"quantity\":3");
+        assertThat(pubSub.messageCount(LiveEventService.EVENT_CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void sendsNothingWhenTheTransactionRollsBack() throws Exception {
+        open(nodeB, LiveEventService.pharmacyTopic(PHARMACY_ID));
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.onInventorySaved(inventory(3));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(pubSub.messageCount(LiveEventService.EVENT_CHANNEL)).isZero();
+    }
+
+    // Waits for the expected number of events, then a little longer for any that should not come
+    private int awaitEvents(MockHttpServletResponse response, String type, int expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (events(response, type) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        return events(response, type);
+    }
+
+    private int events(MockHttpServletResponse response, String type) throws Exception {
+        return response.getContentAsString().split("event:" + type + "\n", -1).length - 1;
+    }
+
+    private MockHttpServletResponse open(LiveEventService node, String topic) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        emitterHandler.handleReturnValue(node.subscribe(topic), returnType, new ModelAndViewContainer(), webRequest);
+        return response;
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private Inventory inventory(int quantity) {
+        return Inventory.builder()
+                .id(20L)
+                .pharmacy(Pharmacy.builder().id(PHARMACY_ID).build())
+                .medicationName("Paracetamol")
+                .strength("500mg")
+                .batchNumber("B-20")
+                .quantity(quantity)
+                .minimumStockLevel(5)
+                .active(true)
+                .build();
+    }
+}
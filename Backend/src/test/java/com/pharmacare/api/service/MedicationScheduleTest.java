@@ -0,0 +1,94 @@
+package com.pharmacare.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MedicationScheduleTest {
+
+    // A Monday
+    private static final LocalDate START = LocalDate.of(2026, 3, 2);
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "once daily         | 09:00",
+            "OD                 | 09:00",
+            "Twice a day.       | 09:00 21:00",
+            "bid                | 09:00 21:00",
+            "3 times per day    | 08:00 14:00 20:00",
+            "TID                | 08:00 14:00 20:00",
+            "four times a day   | 08:00 12:00 16:00 20:00",
+            "every 8 hours      | 00:00 08:00 16:00",
+            "q12h               | 08:00 20:00",
+            "daily at 07:30, 19:00 | 07:30 19:00",
+            "8:00 and 22:15     | 08:00 22:15",
+            "RRULE:FREQ=DAILY;BYHOUR=7,19;BYMINUTE=30 | 07:30 19:30"})
+    void parsesDailyTimes(String frequency, String times) {
+        assertThat(firstDay(MedicationSchedule.parse(frequency)))
+                .extracting(LocalDateTime::toLocalTime)
+                .containsExactlyElementsOf(times(times));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"as needed", "", "every 5 hours", "08:00 with food", "five times a day",
+            "RRULE:FREQ=MONTHLY", "RRULE:FREQ=DAILY;BYHOUR=25", "RRULE:FREQ=WEEKLY;BYDAY=XX",
+            "RRULE:FREQ=DAILY;INTERVAL=0"})
+    void leavesUnrecognisedFrequenciesUnscheduled(String frequency) {
+        assertThat(MedicationSchedule.parse(frequency)).isNull();
+    }
+
+    @Test
+    void leavesMissingFrequenciesUnscheduled() {
+        assertThat(MedicationSchedule.parse(null)).isNull();
+    }
+
+    @Test
+    void countsDayIntervalsFromTheStartOfTheCourse() {
+        MedicationSchedule everyOtherDay = MedicationSchedule.parse("every other day");
+        MedicationSchedule weekly = MedicationSchedule.parse("weekly");
+
+        assertThat(everyOtherDay.occurrences(START, START.minusDays(3).atStartOfDay(), START.plusDays(5).atTime(23, 59)))
+                .extracting(LocalDateTime::toLocalDate)
+                .containsExactly(START, START.plusDays(2), START.plusDays(4));
+        assertThat(weekly.occurrences(START, START.plusDays(1).atStartOfDay(), START.plusDays(21).atStartOfDay()))
+                .containsExactly(START.plusDays(7).atTime(9, 0), START.plusDays(14).atTime(9, 0));
+    }
+
+    @Test
+    void followsWeeklyRulesWithDaysAndIntervals() {
+        MedicationSchedule schedule = MedicationSchedule.parse("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;BYHOUR=8");
+
+        // Starting on a Wednesday, the first week's Thursday counts and the next week is skipped
+        List<LocalDateTime> occurrences = schedule.occurrences(START.plusDays(2), START.atStartOfDay(),
+                START.plusDays(20).atTime(23, 0));
+
+        assertThat(occurrences).containsExactly(START.plusDays(3).atTime(8, 0), START.plusDays(14).atTime(8, 0),
+                START.plusDays(17).atTime(8, 0));
+    }
+
+    @Test
+    void returnsOccurrencesAfterFromUpToAndIncludingTo() {
+        MedicationSchedule schedule = MedicationSchedule.parse("twice daily");
+
+        assertThat(schedule.occurrences(START, START.atTime(9, 0), START.plusDays(1).atTime(9, 0)))
+                .containsExactly(START.atTime(21, 0), START.plusDays(1).atTime(9, 0));
+    }
+
+    private static List<LocalDateTime> firstDay(MedicationSchedule schedule) {
+        assertThat(schedule).isNotNull();
+        return schedule.occurrences(START, START.atStartOfDay().minusNanos(1), START.atTime(23, 59));
+    }
+
+    private static List<LocalTime> times(String times) {
+        return Arrays.stream(times.trim().split("\\s+")).map(LocalTime::parse).toList();
+    }
+}
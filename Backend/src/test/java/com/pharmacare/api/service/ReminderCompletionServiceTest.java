@@ -0,0 +1,186 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.controller.ReminderController;
+import com.pharmacare.api.dto.ReminderCompletionBatchDto;
+import com.pharmacare.api.dto.ReminderCompletionDto;
+import com.pharmacare.api.exception.ResourceNotFoundException;
+import com.pharmacare.api.model.Medication;
+import com.pharmacare.api.model.Reminder;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.MedicationRepository;
+import com.pharmacare.api.repository.ReminderRepository;
+import com.pharmacare.api.repository.UserRepository;
+import com.pharmacare.api.security.oauth2.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.show-sql=false",
+        "reminders.complete.max-batch-size=4"})
+@Import(ReminderCompletionService.class)
+class ReminderCompletionServiceTest {
+
+    private static final LocalDateTime FIRST_COMPLETED_AT = LocalDateTime.of(2026, 3, 2, 8, 15);
+
+    // Behind InventoryEntityListener, which Hibernate builds for itself
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private InventorySearchService inventorySearchService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private LiveEventService liveEventService;
+    @MockBean
+    private AnalyticsService analyticsService;
+    @MockBean
+    private ReminderDispatchService reminderDispatchService;
+
+    @Autowired
+    private ReminderCompletionService completionService;
+    @Autowired
+    private ReminderRepository reminderRepository;
+    @Autowired
+    private MedicationRepository medicationRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ReminderController controller;
+    private User owner;
+    private User otherUser;
+    private Reminder pending;
+    private Reminder alreadyCompleted;
+    private Reminder othersReminder;
+
+    @BeforeEach
+    void setUp() {
+        controller = new ReminderController(reminderRepository, medicationRepository, userRepository, analyticsService,
+                reminderDispatchService, completionService);
+        owner = user("owner@example.com");
+        otherUser = user("other@example.com");
+        Medication medication = medication(owner);
+        pending = reminder(owner, medication, false, null);
+        alreadyCompleted = reminder(owner, medication, true, FIRST_COMPLETED_AT);
+        othersReminder = reminder(otherUser, medication(otherUser), false, null);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void completesTheUsersPendingReminder() {
+        ReminderCompletionDto completion = completionService.complete(owner.getId(), pending.getId());
+
+        assertThat(completion.isCompleted()).isTrue();
+        assertThat(reload(pending).isCompleted()).isTrue();
+        assertThat(reload(pending).getCompletedAt()).isNotNull();
+        verify(analyticsService).evictUserAnalytics(owner.getId());
+    }
+
+    @Test
+    void answersNotFoundForAnotherUsersReminderAndLeavesItPending() {
+        assertThatThrownBy(() -> completionService.complete(owner.getId(), othersReminder.getId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        ResponseEntity<?> response = controller.completeReminder(othersReminder.getId(),
+                UserPrincipal.create(owner.getId(), owner.getEmail(), List.of()));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(reload(othersReminder).isCompleted()).isFalse();
+        assertThat(reload(othersReminder).getCompletedAt()).isNull();
+        verify(analyticsService, never()).evictUserAnalytics(anyLong());
+    }
+
+    @Test
+    void keepsTheFirstCompletionTime() {
+        ReminderCompletionDto completion = completionService.complete(owner.getId(), alreadyCompleted.getId());
+
+        assertThat(completion.isCompleted()).isTrue();
+        assertThat(completion.getCompletedAt()).isEqualTo(FIRST_COMPLETED_AT);
+        assertThat(reload(alreadyCompleted).getCompletedAt()).isEqualTo(FIRST_COMPLETED_AT);
+        verify(analyticsService, never()).evictUserAnalytics(anyLong());
+    }
+
+    @Test
+    void listsMissingAndOtherUsersIdsAsNotFoundInABatch() {
+        long missing = othersReminder.getId() + 1000;
+
+        ReminderCompletionBatchDto batch = completionService.completeAll(owner.getId(),
+                List.of(pending.getId(), alreadyCompleted.getId(), othersReminder.getId(), pending.getId(), missing));
+
+        assertThat(batch.getCompleted()).extracting(ReminderCompletionDto::getId)
+                .containsExactlyInAnyOrder(pending.getId(), alreadyCompleted.getId());
+        assertThat(batch.getCompleted()).allSatisfy(completion -> assertThat(completion.isCompleted()).isTrue());
+        assertThat(batch.getCompleted()).filteredOn(completion -> completion.getId().equals(alreadyCompleted.getId()))
+                .extracting(ReminderCompletionDto::getCompletedAt).containsExactly(FIRST_COMPLETED_AT);
+        assertThat(batch.getNotFound()).containsExactly(othersReminder.getId(), missing);
+        assertThat(reload(othersReminder).isCompleted()).isFalse();
+        verify(analyticsService).evictUserAnalytics(owner.getId());
+    }
+
+    @Test
+    void rejectsBatchesOverTheMaximumSize() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 5).boxed().toList();
+
+        assertThatThrownBy(() -> completionService.completeAll(owner.getId(), tooMany))
+                .isInstanceOf(IllegalArgumentException.class);
+        ResponseEntity<?> response = controller.completeReminders(tooMany,
+                UserPrincipal.create(owner.getId(), owner.getEmail(), List.of()));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        // Repeated ids count once
+        List<Long> repeated = List.of(pending.getId(), pending.getId(), pending.getId(), pending.getId(), pending.getId());
+        assertThat(completionService.completeAll(owner.getId(), repeated).getCompleted()).hasSize(1);
+    }
+
+    private Reminder reload(Reminder reminder) {
+        entityManager.clear();
+        return reminderRepository.findById(reminder.getId()).orElseThrow();
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setFirstName("Pat");
+        user.setLastName("Ient");
+        user.setEmail(email);
+        user.setEnabled(true);
+        return entityManager.persist(user);
+    }
+
+    private Medication medication(User user) {
+        Medication medication = new Medication();
+        medication.setName("Paracetamol");
+        medication.setDosage("500mg");
+        medication.setStartDate(LocalDate.now());
+        medication.setUser(user);
+        return entityManager.persist(medication);
+    }
+
+    private Reminder reminder(User user, Medication medication, boolean completed, LocalDateTime completedAt) {
+        Reminder reminder = new Reminder();
+        reminder.setUser(user);
+        reminder.setMedication(medication);
+        reminder.setReminderTime(LocalDateTime.now().minusHours(1));
+        reminder.setCompleted(completed);
+        reminder.setCompletedAt(completedAt);
+        return entityManager.persist(reminder);
+    }
+}
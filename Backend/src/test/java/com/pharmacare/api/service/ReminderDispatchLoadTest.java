@@ -0,0 +1,160 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.repository.ReminderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One dispatch node with the default tick, batch size and workers sends
+ * {@code -Dreminders.load.reminders} reminders (default 100,000) due evenly over the next
+ * {@code -Dreminders.load.spread-seconds} (default 20), through the timing wheel, the worker pool and
+ * the claim transaction on H2. The wheel is capped at {@code -Dreminders.load.max-pending} (default
+ * 10,000), so the loader has to stop and resume. Fails if fewer than
+ * {@code -Dreminders.load.min-per-minute} (default 100,000) are sent per minute, if any is sent twice
+ * or left unsent, or if the wheel ever holds more than its cap.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.show-sql=false"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReminderDispatchLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderDispatchLoadTest.class);
+
+    private static final int REMINDERS = Integer.getInteger("reminders.load.reminders", 100_000);
+    private static final int SPREAD_SECONDS = Integer.getInteger("reminders.load.spread-seconds", 20);
+    private static final int MAX_PENDING = Integer.getInteger("reminders.load.max-pending", 10_000);
+    private static final int MIN_PER_MINUTE = Integer.getInteger("reminders.load.min-per-minute", 100_000);
+    private static final int USERS = 1000;
+
+    // Behind InventoryEntityListener, which Hibernate builds for itself
+    @MockBean
+    private InventoryStatsService inventoryStatsService;
+    @MockBean
+    private InventorySearchService inventorySearchService;
+    @MockBean
+    private BatchAllocationService batchAllocationService;
+    @MockBean
+    private LiveEventService liveEventService;
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ReminderDispatchService dispatch;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatch != null) {
+            dispatch.stop();
+        }
+    }
+
+    @Test
+    void sustainsTheTargetRateWithinTheWheelCapacity() throws Exception {
+        LocalDateTime firstDue = seed();
+
+        ConcurrentHashMap<Long, AtomicInteger> deliveries = new ConcurrentHashMap<>(REMINDERS * 2);
+        AtomicLong lastDelivery = new AtomicLong();
+        ReminderNotifier notifier = notifications -> {
+            notifications.forEach(notification ->
+                    deliveries.computeIfAbsent(notification.reminderId(), id -> new AtomicInteger()).incrementAndGet());
+            lastDelivery.set(System.currentTimeMillis());
+        };
+        // A single node leasing every bucket
+        ReminderLeaseService leases = mock(ReminderLeaseService.class);
+        when(leases.getBucketCount()).thenReturn(1);
+        when(leases.getLeaseTtl()).thenReturn(Duration.ofSeconds(30));
+        when(leases.getOwnedBuckets()).thenReturn(List.of(0L));
+        when(leases.owns(anyLong())).thenReturn(true);
+        when(leases.renew()).thenReturn(List.of());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        dispatch = new ReminderDispatchService(reminderRepository, notifier, leases, liveEventService, transactionManager,
+                new ClusterBroadcaster(mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class),
+                        new ObjectMapper()), meterRegistry, true, Duration.ofSeconds(1), Duration.ofMinutes(5),
+                Duration.ofMillis(250), Duration.ofHours(1), MAX_PENDING, 500, 4);
+        dispatch.init();
+        dispatch.start();
+
+        // Samples the wheel until everything is sent or the slowest allowed rate has run out
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                Math.max(SPREAD_SECONDS * 1000L, REMINDERS * 60_000L / MIN_PER_MINUTE) + 10_000);
+        double peakPending = 0;
+        while (deliveries.size() < REMINDERS && System.nanoTime() < deadline) {
+            peakPending = Math.max(peakPending, meterRegistry.get("reminders.dispatch.pending").gauge().value());
+            Thread.sleep(1);
+        }
+        long firstDueMillis = firstDue.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        double minutes = Math.max(lastDelivery.get() - firstDueMillis, 1) / 60_000.0;
+        double perMinute = deliveries.size() / minutes;
+        logger.info("Sent {} of {} reminders due over {}s in {}s: {}/min, at most {} in the wheel, up to {} ms late",
+                deliveries.size(), REMINDERS, SPREAD_SECONDS, String.format("%.1f", minutes * 60),
+                String.format("%.0f", perMinute), (long) peakPending,
+                String.format("%.0f", meterRegistry.get("reminders.dispatch.delay").timer().max(TimeUnit.MILLISECONDS)));
+
+        assertThat(deliveries).hasSize(REMINDERS);
+        assertThat(deliveries.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reminders WHERE notified_at IS NULL", Long.class))
+                .isZero();
+        assertThat(perMinute).isGreaterThanOrEqualTo(MIN_PER_MINUTE);
+        assertThat(peakPending).isLessThanOrEqualTo(MAX_PENDING);
+    }
+
+    // Users, their medications and the reminders, due from a few seconds from now; returns the first due time
+    private LocalDateTime seed() {
+        // As V2__reminder_dispatch_index, without the condition H2 cannot express
+        jdbcTemplate.execute("CREATE INDEX idx_reminders_unsent ON reminders (reminder_time, id)");
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, first_name, last_name, email, enabled) VALUES (?, 'Pat', 'Ient', ?, true)",
+                LongStream.rangeClosed(1, USERS).mapToObj(id -> new Object[]{id, "patient" + id + "@example.com"}).toList());
+        jdbcTemplate.batchUpdate("INSERT INTO medications (id, name, dosage, start_date, active, user_id, stock) " +
+                        "VALUES (?, 'Medication', '1 tablet', CURRENT_DATE, true, ?, 30)",
+                LongStream.rangeClosed(1, USERS).mapToObj(id -> new Object[]{id, id}).toList());
+        // Written a day ahead and then moved, so the time spent inserting is not counted against the rate
+        LocalDateTime written = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        long stepNanos = TimeUnit.SECONDS.toNanos(SPREAD_SECONDS) / REMINDERS;
+        List<Object[]> rows = new ArrayList<>(REMINDERS);
+        for (int i = 0; i < REMINDERS; i++) {
+            long userId = i % USERS + 1;
+            rows.add(new Object[]{userId, userId, written.plusNanos(stepNanos * i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reminders (medication_id, user_id, reminder_time, completed, scheduled) " +
+                "VALUES (?, ?, ?, false, false)", rows);
+        LocalDateTime firstDue = LocalDateTime.now().plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update("UPDATE reminders SET reminder_time = DATEADD(SECOND, ?, reminder_time)",
+                -ChronoUnit.SECONDS.between(firstDue, written));
+        return firstDue;
+    }
+}
@@ -0,0 +1,169 @@
+package com.pharmacare.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharmacare.api.PostgresContainerTest;
+import com.pharmacare.api.config.ClusterBroadcaster;
+import com.pharmacare.api.repository.ReminderDispatchLeaseRepository;
+import com.pharmacare.api.repository.ReminderDispatchNodeRepository;
+import com.pharmacare.api.repository.ReminderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs one and then three dispatch nodes against the same Postgres and checks that every reminder is
+ * sent exactly once and that three nodes get through the same backlog clearly faster. Delivery is
+ * made slow on purpose, so each node is limited by its own notifier and not by the machine.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReminderDispatchScalingTest extends PostgresContainerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderDispatchScalingTest.class);
+
+    private static final int USERS = 256;
+    private static final int REMINDERS_PER_USER = 3;
+    private static final long DELIVERY_MILLIS = 10;
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+    @Autowired
+    private ReminderDispatchLeaseRepository leaseRepository;
+    @Autowired
+    private ReminderDispatchNodeRepository nodeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Long, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("TRUNCATE reminders, medications, users, reminder_dispatch_leases, reminder_dispatch_nodes CASCADE");
+        jdbcTemplate.execute("INSERT INTO users (id, first_name, last_name, email, enabled) " +
+                "SELECT g, 'Pat', 'Ient', 'patient' || g || '@example.com', true FROM generate_series(1, " + USERS + ") g");
+        jdbcTemplate.execute("INSERT INTO medications (id, name, dosage, start_date, active, user_id, stock) " +
+                "SELECT g, 'Medication ' || g, '1 tablet', current_date, true, g, 30 FROM generate_series(1, " + USERS + ") g");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(Node::stop);
+        nodes.clear();
+    }
+
+    @Test
+    void threeNodesSendTheSameBacklogFasterThanOne() throws Exception {
+        long oneNode = dispatchBacklog(1);
+        long threeNodes = dispatchBacklog(3);
+        logger.info("Sent {} reminders in {} ms on one node and {} ms on three",
+                USERS * REMINDERS_PER_USER, oneNode, threeNodes);
+
+        assertThat(threeNodes).isLessThan(oneNode * 6 / 10);
+    }
+
+    // Starts the nodes, waits until they share the buckets evenly, then times sending a fresh backlog
+    private long dispatchBacklog(int nodeCount) throws Exception {
+        stopNodes();
+        deliveries.clear();
+        jdbcTemplate.execute("DELETE FROM reminders");
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new Node());
+        }
+        nodes.forEach(Node::start);
+        // Every node holds some buckets and none more than its share; the first node starts with all of them
+        int share = (64 + nodeCount - 1) / nodeCount;
+        await(() -> nodes.stream().mapToInt(node -> node.leases.getOwnedBuckets().size()).sum() == 64
+                && nodes.stream().allMatch(node -> !node.leases.getOwnedBuckets().isEmpty()
+                && node.leases.getOwnedBuckets().size() <= share), Duration.ofSeconds(30));
+
+        long started = System.nanoTime();
+        // Times are local to the JVM, as the dispatcher writes and reads them
+        jdbcTemplate.update("INSERT INTO reminders (medication_id, user_id, reminder_time, completed, scheduled) " +
+                "SELECT u, u, ?, false, false " +
+                "FROM generate_series(1, " + USERS + ") u, generate_series(1, " + REMINDERS_PER_USER + ") r",
+                LocalDateTime.now().minusSeconds(1));
+        int total = USERS * REMINDERS_PER_USER;
+        await(() -> deliveries.size() == total, Duration.ofMinutes(2));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(deliveries.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reminders WHERE notified_at IS NULL", Long.class))
+                .isZero();
+        return millis;
+    }
+
+    private void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    // One API node's dispatch: its own leases, wheel and a single slow worker
+    private final class Node {
+
+        private final ReminderLeaseService leases;
+        private final ReminderDispatchService dispatch;
+
+        private Node() {
+            leases = new ReminderLeaseService(leaseRepository, nodeRepository, transactionManager, 64, Duration.ofSeconds(3));
+            ClusterBroadcaster broadcaster = new ClusterBroadcaster(mock(StringRedisTemplate.class),
+                    mock(RedisMessageListenerContainer.class), new ObjectMapper());
+            ReminderNotifier notifier = notifications -> notifications.forEach(notification -> {
+                deliveries.computeIfAbsent(notification.reminderId(), id -> new AtomicInteger()).incrementAndGet();
+                sleep(DELIVERY_MILLIS);
+            });
+            dispatch = new ReminderDispatchService(reminderRepository, notifier, leases, mock(LiveEventService.class),
+                    transactionManager, broadcaster, new SimpleMeterRegistry(), true, Duration.ofMillis(100),
+                    Duration.ofMinutes(5), Duration.ofMillis(250), Duration.ofHours(1), 10_000, 20, 1);
+            dispatch.init();
+        }
+
+        private void start() {
+            dispatch.start();
+        }
+
+        private void stop() {
+            dispatch.stop();
+            leases.release();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.config.InMemoryPubSub;
+import com.pharmacare.api.model.Reminder;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.ReminderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReminderDispatchServiceTest {
+
+    private static final Duration LOAD_INTERVAL = Duration.ofMillis(100);
+
+    private final InMemoryPubSub pubSub = new InMemoryPubSub();
+    private final LocalDateTime loadedUpTo = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.SECONDS);
+    private final List<ReminderDispatchService> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ReminderDispatchService::stop);
+    }
+
+    @Test
+    void rewindsTheLoaderOnEveryNodeWithOneMessage() {
+        ReminderRepository repositoryA = repository();
+        ReminderRepository repositoryB = repository();
+        ReminderDispatchService nodeA = startNode(repositoryA, true);
+        startNode(repositoryB, true);
+        LocalDateTime written = loadedUpTo.minusMinutes(20);
+
+        nodeA.reload(written);
+
+        verify(repositoryA, timeout(5000).atLeastOnce()).findUnsentAfter(eq(written), eq(0L), any(), anyInt(), anyList(), any());
+        verify(repositoryB, timeout(5000).atLeastOnce()).findUnsentAfter(eq(written), eq(0L), any(), anyInt(), anyList(), any());
+        assertThat(pubSub.messageCount(ReminderDispatchService.RELOAD_CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void sendsNothingForTimesBeyondTheHorizon() {
+        ReminderDispatchService node = startNode(repository(), true);
+
+        node.reload(LocalDateTime.now().plusHours(1));
+
+        assertThat(pubSub.messageCount(ReminderDispatchService.RELOAD_CHANNEL)).isZero();
+    }
+
+    @Test
+    void announcesRemindersInBucketsOwnedByAnotherNode() {
+        ReminderRepository owner = repository();
+        ReminderDispatchService nodeA = startNode(repository(), false);
+        startNode(owner, true);
+        LocalDateTime reminderTime = loadedUpTo.minusMinutes(5);
+
+        User user = new User();
+        user.setId(7L);
+        Reminder reminder = new Reminder();
+        reminder.setId(99L);
+        reminder.setUser(user);
+        reminder.setReminderTime(reminderTime);
+
+        nodeA.schedule(reminder);
+
+        verify(owner, timeout(5000).atLeastOnce()).findUnsentAfter(eq(reminderTime), eq(0L), any(), anyInt(), anyList(), any());
+        assertThat(pubSub.messageCount(ReminderDispatchService.RELOAD_CHANNEL)).isEqualTo(1);
+    }
+
+    private ReminderDispatchService startNode(ReminderRepository repository, boolean ownsEverything) {
+        ReminderDispatchService node = new ReminderDispatchService(repository, mock(ReminderNotifier.class), leases(ownsEverything),
+                mock(LiveEventService.class), mock(PlatformTransactionManager.class), pubSub.node(),
+                new SimpleMeterRegistry(), true, Duration.ofMillis(100), Duration.ofMinutes(5), LOAD_INTERVAL,
+                Duration.ofHours(1), 1000, 100, 1);
+        node.init();
+        node.start();
+        nodes.add(node);
+        if (ownsEverything) {
+            // The first load moves the cursor past the reminder already in the database
+            verify(repository, timeout(5000).atLeastOnce()).findUnsentAfter(any(), anyLong(), any(), anyInt(), anyList(), any());
+        }
+        return node;
+    }
+
+    private ReminderRepository repository() {
+        ReminderRepository.DueReminder loaded = mock(ReminderRepository.DueReminder.class);
+        when(loaded.getId()).thenReturn(1L);
+        when(loaded.getReminderTime()).thenReturn(loadedUpTo);
+        ReminderRepository repository = mock(ReminderRepository.class);
+        when(repository.findUnsentAfter(any(), anyLong(), any(), anyInt(), anyList(), any()))
+                .thenReturn(List.of(loaded))
+                .thenReturn(List.of());
+        return repository;
+    }
+
+    private ReminderLeaseService leases(boolean ownsEverything) {
+        ReminderLeaseService leaseService = mock(ReminderLeaseService.class);
+        when(leaseService.getBucketCount()).thenReturn(1);
+        when(leaseService.getLeaseTtl()).thenReturn(Duration.ofMinutes(1));
+        when(leaseService.getOwnedBuckets()).thenReturn(ownsEverything ? List.of(0L) : List.of());
+        when(leaseService.owns(anyLong())).thenReturn(ownsEverything);
+        when(leaseService.renew()).thenReturn(List.of());
+        return leaseService;
+    }
+}
@@ -0,0 +1,142 @@
+package com.pharmacare.api.service;
+
+import com.pharmacare.api.model.Medication;
+import com.pharmacare.api.model.User;
+import com.pharmacare.api.repository.MedicationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how the batch insert's row counts are read: only positive counts are created reminders,
+ * and {@link Statement#SUCCESS_NO_INFO}, which pgjdbc returns for rewritten batches, is treated as
+ * possibly inserted.
+ */
+class ReminderScheduleServiceTest {
+
+    private static final LocalDate YESTERDAY = LocalDate.now().minusDays(1);
+
+    private final MedicationRepository medicationRepository = mock(MedicationRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ReminderDispatchService reminderDispatchService = mock(ReminderDispatchService.class);
+    private final AnalyticsService analyticsService = mock(AnalyticsService.class);
+
+    private ReminderScheduleService scheduleService;
+
+    @BeforeEach
+    void setUp() {
+        scheduleService = new ReminderScheduleService(medicationRepository, jdbcTemplate, reminderDispatchService,
+                analyticsService, mock(PlatformTransactionManager.class), Duration.ofDays(2), 200);
+        // The mocked transaction manager does not manage synchronizations; stand in for it
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictsOnlyUsersWhoseRemindersWereOrMayHaveBeenInserted() {
+        // User 1's rows are inserted, user 2's already existed, the driver gives no count for user 3's
+        scheduleWithCounts(Map.of(1L, 1, 2L, 0, 3L, Statement.SUCCESS_NO_INFO),
+                medication(1L, YESTERDAY), medication(2L, YESTERDAY), medication(3L, YESTERDAY));
+
+        verify(analyticsService).evictUserAnalytics(1L);
+        verify(analyticsService, never()).evictUserAnalytics(2L);
+        verify(analyticsService).evictUserAnalytics(3L);
+        commit();
+        verify(reminderDispatchService).reload(any());
+    }
+
+    @Test
+    void leavesCachesAndDispatchersAloneWhenEveryOccurrenceExisted() {
+        scheduleWithCounts(Map.of(1L, 0, 2L, 0), medication(1L, YESTERDAY), medication(2L, YESTERDAY));
+
+        verify(analyticsService, never()).evictUserAnalytics(anyLong());
+        commit();
+        verify(reminderDispatchService, never()).reload(any());
+    }
+
+    @Test
+    void reloadsFromTheEarliestInsertedOccurrence() {
+        // User 1's occurrences come first but already existed
+        scheduleWithCounts(Map.of(1L, 0, 2L, 1), medication(1L, YESTERDAY), medication(2L, YESTERDAY.plusDays(3)));
+
+        commit();
+        ArgumentCaptor<LocalDateTime> reloadFrom = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(reminderDispatchService).reload(reloadFrom.capture());
+        assertThat(reloadFrom.getValue()).isEqualTo(firstInsertedTime(2L));
+    }
+
+    private void scheduleWithCounts(Map<Long, Integer> countByUser, Medication... medications) {
+        when(medicationRepository.lockDueForScheduling(eq(0L), any(), any(), anyInt())).thenReturn(List.of(medications));
+        when(medicationRepository.lockDueForScheduling(eq(medications[medications.length - 1].getId()), any(), any(), anyInt()))
+                .thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), ArgumentMatchers.<Object[]>anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            return rows.stream().mapToInt(row -> countByUser.get((Long) row[1])).toArray();
+        });
+
+        scheduleService.extendWindow();
+    }
+
+    // The first occurrence the service sent for the user
+    private LocalDateTime firstInsertedTime(Long userId) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        return rows.getValue().stream()
+                .filter(row -> row[1].equals(userId))
+                .map(row -> (LocalDateTime) row[2])
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // A medication per user, with the user's id
+    private Medication medication(Long userId, LocalDate startDate) {
+        User user = new User();
+        user.setId(userId);
+        Medication medication = new Medication();
+        medication.setId(userId);
+        medication.setUser(user);
+        medication.setName("Medication " + userId);
+        medication.setFrequency("every 8 hours");
+        medication.setStartDate(startDate);
+        medication.setActive(true);
+        return medication;
+    }
+}
@@ -0,0 +1,128 @@
+package com.pharmacare.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReminderTimingWheelTest {
+
+    private static final long TICK = 1_000;
+
+    @Test
+    void releasesARemindersWholeTickAtItsStart() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 3, 100, 0);
+        wheel.add(1, 1_500);
+        wheel.add(2, 1_999);
+        wheel.add(3, 2_000);
+
+        wheel.advanceTo(999);
+        assertThat(wheel.dueCount()).isZero();
+
+        wheel.advanceTo(1_000);
+        assertThat(ids(wheel.pollDue(10))).containsExactly(1L, 2L);
+        wheel.advanceTo(2_000);
+        assertThat(ids(wheel.pollDue(10))).containsExactly(3L);
+    }
+
+    @Test
+    void makesOverdueRemindersDueRightAway() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 3, 100, 10_000);
+
+        wheel.add(1, 3_000);
+        wheel.add(2, 10_400);
+
+        assertThat(ids(wheel.pollDue(10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void handsRemindersDownFromHigherLevelsAndTheOverflow() {
+        // Two levels cover 64 * 64 ticks; the last reminder is beyond them
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 2, 100, 0);
+        wheel.add(1, 100 * TICK + 250);
+        wheel.add(2, 4_095 * TICK);
+        wheel.add(3, 10_000 * TICK + 999);
+
+        assertThat(releaseTicks(wheel, 10_001)).containsExactly(Map.entry(1L, 100L), Map.entry(2L, 4_095L),
+                Map.entry(3L, 10_000L));
+    }
+
+    @Test
+    void refusesRemindersBeyondItsCapacityUntilDueOnesAreTaken() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 3, 2, 0);
+
+        assertThat(wheel.add(1, 500)).isTrue();
+        assertThat(wheel.add(2, 5_000)).isTrue();
+        assertThat(wheel.add(3, 5_000)).isFalse();
+
+        assertThat(ids(wheel.pollDue(10))).containsExactly(1L);
+        assertThat(wheel.add(3, 5_000)).isTrue();
+        assertThat(wheel.size()).isEqualTo(2);
+    }
+
+    @Test
+    void pollsDueRemindersInBatchesEarliestFirst() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 3, 100, 0);
+        for (long id = 1; id <= 5; id++) {
+            wheel.add(id, (6 - id) * TICK);
+        }
+        wheel.advanceTo(5 * TICK);
+
+        assertThat(ids(wheel.pollDue(3))).containsExactly(5L, 4L, 3L);
+        assertThat(wheel.dueCount()).isEqualTo(2);
+        assertThat(ids(wheel.pollDue(3))).containsExactly(2L, 1L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void releasesEveryReminderInItsOwnTickWhateverTheSteps() {
+        Random random = new Random(42);
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 3, 10_000, 0);
+        Map<Long, Long> dueTicks = new HashMap<>();
+        for (long id = 0; id < 5_000; id++) {
+            long dueMillis = (long) (random.nextDouble() * 300_000 * TICK);
+            wheel.add(id, dueMillis);
+            dueTicks.put(id, dueMillis / TICK);
+        }
+
+        Map<Long, Long> released = new HashMap<>();
+        long now = 0;
+        while (now < 300_001 * TICK) {
+            now += 1 + random.nextInt(5_000);
+            wheel.advanceTo(now);
+            for (ReminderTimingWheel.Entry entry : wheel.pollDue(Integer.MAX_VALUE)) {
+                assertThat(entry.dueMillis() / TICK).isLessThanOrEqualTo(now / TICK);
+                // Released by the first advance that reached its tick
+                assertThat(entry.dueMillis()).isGreaterThan(now - 5_000 - TICK);
+                released.put(entry.reminderId(), entry.dueMillis() / TICK);
+            }
+        }
+
+        assertThat(released).isEqualTo(dueTicks);
+        assertThat(wheel.size()).isZero();
+    }
+
+    // Tick in which each reminder became due, stepping one tick at a time
+    private static Map<Long, Long> releaseTicks(ReminderTimingWheel wheel, long ticks) {
+        Map<Long, Long> released = new LinkedHashMap<>();
+        for (long tick = 1; tick <= ticks; tick++) {
+            wheel.advanceTo(tick * TICK);
+            for (ReminderTimingWheel.Entry entry : wheel.pollDue(Integer.MAX_VALUE)) {
+                released.put(entry.reminderId(), tick);
+            }
+        }
+        return released;
+    }
+
+    private static List<Long> ids(List<ReminderTimingWheel.Entry> entries) {
+        List<Long> ids = new ArrayList<>(entries.size());
+        entries.forEach(entry -> ids.add(entry.reminderId()));
+        return ids;
+    }
+}
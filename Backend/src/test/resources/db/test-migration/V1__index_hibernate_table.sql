@@ -0,0 +1 @@
+CREATE INDEX idx_test_reminders_time ON reminders (reminder_time);
@@ -0,0 +1,76 @@
+import { useEffect, useRef } from 'react';
+import { API_URL } from '../config';
+import { liveEventService } from '../services/api';
+
+export type LiveEventType = 'reminder-due' | 'low-stock' | 'expiring-batch';
+
+export type LiveEventHandlers = Partial<Record<LiveEventType, (data: any) => void>>;
+
+const MAX_RETRY_DELAY = 30000;
+
+/**
+ * Keeps a Server-Sent Events stream open at `path` (e.g. `/events/reminders`) while the component is
+ * mounted, and passes each event's parsed payload to its handler. Pass `null` to stay disconnected.
+ */
+export const useLiveEvents = (path: string | null, handlers: LiveEventHandlers) => {
+  // Latest handlers, so re-renders do not reopen the stream
+  const handlersRef = useRef(handlers);
+  handlersRef.current = handlers;
+
+  useEffect(() => {
+    if (!path) {
+      return;
+    }
+
+    let source: EventSource | null = null;
+    let retryTimer: ReturnType<typeof setTimeout> | undefined;
+    let attempt = 0;
+    let closed = false;
+
+    const scheduleReconnect = () => {
+      if (closed) {
+        return;
+      }
+      const delay = Math.min(MAX_RETRY_DELAY, 1000 * 2 ** attempt++);
+      retryTimer = setTimeout(connect, delay);
+    };
+
+    const connect = async () => {
+      try {
+        const { token } = await liveEventService.createStreamToken();
+        if (closed) {
+          return;
+        }
+        source = new EventSource(`${API_URL}${path}?token=${encodeURIComponent(token)}`);
+        source.onopen = () => {
+          attempt = 0;
+        };
+        (['reminder-due', 'low-stock', 'expiring-batch'] as LiveEventType[]).forEach((type) => {
+          source?.addEventListener(type, (event) => {
+            const handler = handlersRef.current[type];
+            if (handler) {
+              handler(JSON.parse((event as MessageEvent).data));
+            }
+          });
+        });
+        // The browser would retry with the same, soon expired, token; reconnect with a new one instead
+        source.onerror = () => {
+          source?.close();
+          source = null;
+          scheduleReconnect();
+        };
+      } catch (error) {
+        console.error(`Could not open event stream ${path}:`, error);
+        scheduleReconnect();
+      }
+    };
+
+    connect();
+
+    return () => {
+      closed = true;
+      clearTimeout(retryTimer);
+      source?.close();
+    };
+  }, [path]);
+};
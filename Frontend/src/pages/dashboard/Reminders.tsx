@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { Bell, Calendar, Clock, Plus, Check, X as CloseIcon, Search, Filter } from 'lucide-react';
 import { reminderService, medicationService } from '../../services/api';
+import { useLiveEvents } from '../../hooks/useLiveEvents';
 import { toast } from 'react-hot-toast';
 import { format, parseISO, isValid } from 'date-fns';
 
@@ -53,6 +54,14 @@ const Reminders: React.FC = () => {
     fetchMedications();
   }, []);
 
+  // Due reminders are pushed by the server as they are sent
+  useLiveEvents('/events/reminders', {
+    'reminder-due': (reminder) => {
+      toast(`Time to take ${reminder.medicationName}${reminder.medicationDosage ? ` (${reminder.medicationDosage})` : ''}`);
+      fetchReminders();
+    },
+  });
+
   const fetchReminders = async () => {
     try {
       setIsLoading(true);
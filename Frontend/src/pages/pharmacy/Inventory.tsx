@@ -4,6 +4,7 @@ import { Package, Plus, Search, Filter, Trash2, Edit } from 'lucide-react';
 import { toast } from 'react-hot-toast';
 import { useAuth, isPharmacyStaffUser } from '../../context/AuthContext';
 import LoadingSpinner from '../../components/common/LoadingSpinner';
+import { useLiveEvents } from '../../hooks/useLiveEvents';
 import { inventoryService, pharmacyService, PharmacyDto, InventoryItemDto } from '../../services/api';
 
 const Inventory: React.FC = () => {
@@ -17,7 +18,9 @@ const Inventory: React.FC = () => {
   const [searchTerm, setSearchTerm] = useState('');
   const [filterType, setFilterType] = useState('all');
   const [currentPage, setCurrentPage] = useState(0);
-  const [totalPages, setTotalPages] = useState(0);
+  // Cursor of every page visited so far; the first page has none
+  const [pageCursors, setPageCursors] = useState<(string | undefined)[]>([undefined]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [pageSize] = useState(10);
 
   useEffect(() => {
@@ -51,6 +54,17 @@ const Inventory: React.FC = () => {
     }
   }, [selectedPharmacyId, currentPage, pageSize]);
 
+  // Stock alerts for the selected pharmacy are pushed by the server
+  useLiveEvents(selectedPharmacyId ? `/events/pharmacies/${selectedPharmacyId}` : null, {
+    'low-stock': (alert) => {
+      toast.error(`Low stock: ${alert.medicationName} (batch ${alert.batchNumber}) is down to ${alert.quantity}`);
+      fetchInventoryItems();
+    },
+    'expiring-batch': (notice) => {
+      toast(`${notice.medicationName} (batch ${notice.batchNumber}) expires on ${notice.expiryDate}`);
+    },
+  });
+
   const fetchPharmacies = async () => {
     setIsLoading(true);
     try {
@@ -71,7 +85,7 @@ const Inventory: React.FC = () => {
     }
   };
 
-  const fetchInventoryItems = async () => {
+  const fetchInventoryItems = async (cursor: string | undefined = pageCursors[currentPage]) => {
     if (!selectedPharmacyId) return;
     
     setIsLoading(true);
@@ -79,13 +93,13 @@ const Inventory: React.FC = () => {
       // Get inventory items from API service
       const response = await inventoryService.getInventoryItems(
         selectedPharmacyId,
-        currentPage,
         pageSize,
+        cursor,
         searchTerm || undefined
       );
       
-      setInventoryItems(response.content);
-      setTotalPages(response.totalPages);
+      setInventoryItems(response.items);
+      setNextCursor(response.nextCursor);
     } catch (error) {
       console.error('Error fetching inventory items:', error);
       toast.error('Failed to load inventory items');
@@ -94,9 +108,24 @@ const Inventory: React.FC = () => {
     }
   };
 
+  const resetPaging = () => {
+    setPageCursors([undefined]);
+    setCurrentPage(0);
+  };
+
+  const goToNextPage = () => {
+    if (!nextCursor) return;
+    setPageCursors(prev => [...prev.slice(0, currentPage + 1), nextCursor]);
+    setCurrentPage(prev => prev + 1);
+  };
+
+  const goToPreviousPage = () => {
+    setCurrentPage(prev => Math.max(0, prev - 1));
+  };
+
   const handleSearch = () => {
-    setCurrentPage(0); // Reset to first page when searching
-    fetchInventoryItems();
+    resetPaging(); // Reset to first page when searching
+    fetchInventoryItems(undefined);
   };
 
   const handleAddItem = () => {
@@ -156,7 +185,7 @@ const Inventory: React.FC = () => {
                     onChange={(e) => {
                       const pharmacyId = parseInt(e.target.value, 10);
                       setSelectedPharmacyId(pharmacyId);
-                      setCurrentPage(0); // Reset to first page when changing pharmacy
+                      resetPaging(); // Reset to first page when changing pharmacy
                     }}
                   >
                     {pharmacies.map((pharmacy) => (
@@ -320,11 +349,11 @@ const Inventory: React.FC = () => {
                 </div>
                 
                 {/* Pagination */}
-                {totalPages > 1 && (
+                {(currentPage > 0 || nextCursor) && (
                   <div className="flex items-center justify-between mt-6">
                     <div className="flex-1 flex justify-between sm:hidden">
                       <button
-                        onClick={() => setCurrentPage(prev => Math.max(0, prev - 1))}
+                        onClick={goToPreviousPage}
                         disabled={currentPage === 0}
                         className={`relative inline-flex items-center px-4 py-2 border border-gray-300 text-sm font-medium rounded-md text-gray-700 bg-white ${
                           currentPage === 0 ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
@@ -333,10 +362,10 @@ const Inventory: React.FC = () => {
                         Previous
                       </button>
                       <button
-                        onClick={() => setCurrentPage(prev => Math.min(totalPages - 1, prev + 1))}
-                        disabled={currentPage === totalPages - 1}
+                        onClick={goToNextPage}
+                        disabled={!nextCursor}
                         className={`ml-3 relative inline-flex items-center px-4 py-2 border border-gray-300 text-sm font-medium rounded-md text-gray-700 bg-white ${
-                          currentPage === totalPages - 1 ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
+                          !nextCursor ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
                         }`}
                       >
                         Next
@@ -345,14 +374,13 @@ const Inventory: React.FC = () => {
                     <div className="hidden sm:flex-1 sm:flex sm:items-center sm:justify-between">
                       <div>
                         <p className="text-sm text-gray-700">
-                          Showing page <span className="font-medium">{currentPage + 1}</span> of{' '}
-                          <span className="font-medium">{totalPages}</span>
+                          Showing page <span className="font-medium">{currentPage + 1}</span>
                         </p>
                       </div>
                       <div>
                         <nav className="relative z-0 inline-flex rounded-md shadow-sm -space-x-px" aria-label="Pagination">
                           <button
-                            onClick={() => setCurrentPage(0)}
+                            onClick={resetPaging}
                             disabled={currentPage === 0}
                             className={`relative inline-flex items-center px-2 py-2 rounded-l-md border border-gray-300 bg-white text-sm font-medium text-gray-500 ${
                               currentPage === 0 ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
@@ -362,7 +390,7 @@ const Inventory: React.FC = () => {
                             <span>⟪</span>
                           </button>
                           <button
-                            onClick={() => setCurrentPage(prev => Math.max(0, prev - 1))}
+                            onClick={goToPreviousPage}
                             disabled={currentPage === 0}
                             className={`relative inline-flex items-center px-2 py-2 border border-gray-300 bg-white text-sm font-medium text-gray-500 ${
                               currentPage === 0 ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
@@ -371,42 +399,16 @@ const Inventory: React.FC = () => {
                             <span className="sr-only">Previous</span>
                             <span>◀</span>
                           </button>
-                          
-                          {/* Page numbers */}
-                          {[...Array(totalPages).keys()].map(page => (
-                            <button
-                              key={page}
-                              onClick={() => setCurrentPage(page)}
-                              className={`relative inline-flex items-center px-4 py-2 border ${
-                                currentPage === page
-                                  ? 'z-10 bg-blue-50 border-blue-500 text-blue-600'
-                                  : 'border-gray-300 bg-white text-gray-500 hover:bg-gray-50'
-                              } text-sm font-medium`}
-                            >
-                              {page + 1}
-                            </button>
-                          ))}
-                          
                           <button
-                            onClick={() => setCurrentPage(prev => Math.min(totalPages - 1, prev + 1))}
-                            disabled={currentPage === totalPages - 1}
-                            className={`relative inline-flex items-center px-2 py-2 border border-gray-300 bg-white text-sm font-medium text-gray-500 ${
-                              currentPage === totalPages - 1 ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
+                            onClick={goToNextPage}
+                            disabled={!nextCursor}
+                            className={`relative inline-flex items-center px-2 py-2 rounded-r-md border border-gray-300 bg-white text-sm font-medium text-gray-500 ${
+                              !nextCursor ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
                             }`}
                           >
                             <span className="sr-only">Next</span>
                             <span>▶</span>
                           </button>
-                          <button
-                            onClick={() => setCurrentPage(totalPages - 1)}
-                            disabled={currentPage === totalPages - 1}
-                            className={`relative inline-flex items-center px-2 py-2 rounded-r-md border border-gray-300 bg-white text-sm font-medium text-gray-500 ${
-                              currentPage === totalPages - 1 ? 'opacity-50 cursor-not-allowed' : 'hover:bg-gray-50'
-                            }`}
-                          >
-                            <span className="sr-only">Last</span>
-                            <span>⟫</span>
-                          </button>
                         </nav>
                       </div>
                     </div>
@@ -329,6 +329,20 @@ export const reminderService = {
   },
 };
 
+// Live events service
+export interface StreamToken {
+  token: string;
+  expiresIn: number;
+}
+
+export const liveEventService = {
+  // EventSource cannot send the Authorization header, so every stream opens with one of these
+  createStreamToken: async (): Promise<StreamToken> => {
+    const response = await api.post('/events/token');
+    return response.data;
+  },
+};
+
 // Donation service
 export interface Donation {
   id?: number;
@@ -1065,20 +1079,25 @@ export interface InventoryItemDto {
 }
 
 export const inventoryService = {
-  // Get all inventory items for a pharmacy
-  getInventoryItems: async (pharmacyId: number, page: number = 0, size: number = 20, search?: string): Promise<{
-    content: InventoryItemDto[],
-    totalPages: number,
-    totalElements: number
+  // Get one page of inventory items for a pharmacy; pass nextCursor back to get the page after it
+  getInventoryItems: async (pharmacyId: number, limit: number = 20, cursor?: string, search?: string): Promise<{
+    items: InventoryItemDto[],
+    nextCursor: string | null
   }> => {
     try {
-      let url = `/inventories/${pharmacyId}/items?page=${page}&size=${size}`;
+      const params: Record<string, string | number> = { limit };
+      if (cursor) {
+        params.cursor = cursor;
+      }
       if (search) {
-        url += `&search=${encodeURIComponent(search)}`;
+        params.search = search;
       }
-      
-      const response = await api.get(url);
-      return response.data;
+
+      const response = await api.get(`/inventories/${pharmacyId}/items`, { params });
+      return {
+        items: response.data,
+        nextCursor: response.headers['x-next-cursor'] ?? null
+      };
     } catch (error) {
       console.error(`Error fetching inventory items for pharmacy ${pharmacyId}:`, error);
       throw error;